@@ -0,0 +1,214 @@
+package xyz.dowenliu.npl.dmseg.core;
+
+import xyz.dowenliu.npl.dmseg.dict.Dictionary;
+import xyz.dowenliu.npl.dmseg.dict.Word;
+import xyz.dowenliu.npl.dmseg.dict.WordPath;
+
+import java.util.*;
+
+/**
+ * 由字典编译出的Aho-Corasick自动机。从左到右扫描一遍字符流即可找出所有字典词，
+ * 不需要在每个位置从字典树根部重新匹配。
+ * <p>状态按广度优先顺序编号，0 为根状态，同一状态的子状态编号连续且按分叉值升序排列，
+ * 因此转移只需要在 {@code forks} 的一个区间内二分查找。</p>
+ * <p>自动机是编译时字典内容的快照，之后对字典的修改不会反映到自动机中。自动机不可变，可被多线程共享。</p>
+ * <p>用法：</p>
+ * <pre>
+ * int state = 0;
+ * for (char c : text) {
+ *     state = automaton.next(state, c);
+ *     for (int out = automaton.firstOutput(state); out &gt; 0; out = automaton.nextOutput(out)) {
+ *         Word word = automaton.wordOf(out); // 在当前位置结束的词，长度为 automaton.depthOf(out)
+ *     }
+ * }
+ * </pre>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class AhoCorasickAutomaton {
+    private final Dictionary dictionary;
+    private final char[] forks;
+    private final int[] firstChild;
+    private final int[] depths;
+    private final int[] fails;
+    private final int[] outputs;
+    private final Word[] words;
+
+    private AhoCorasickAutomaton(Dictionary dictionary, char[] forks, int[] firstChild, int[] depths, Word[] words) {
+        this.dictionary = dictionary;
+        this.forks = forks;
+        this.firstChild = firstChild;
+        this.depths = depths;
+        this.words = words;
+        this.fails = new int[forks.length];
+        this.outputs = new int[forks.length];
+        this.linkFailures();
+    }
+
+    /**
+     * 编译字典
+     *
+     * @param dictionary 字典
+     * @return 自动机
+     */
+    @SuppressWarnings("unchecked")
+    public static AhoCorasickAutomaton compile(Dictionary dictionary) {
+        int capacity = Math.max(16, dictionary.size() * 2);
+        char[] forks = new char[capacity];
+        int[] firstChild = new int[capacity + 1];
+        int[] depths = new int[capacity];
+        Word[] words = new Word[capacity];
+        WordPath[] paths = new WordPath[capacity];
+        int count = 1; // 根状态
+        for (int s = 0; s < count; s++) {
+            Map<Character, WordPath> branches = s == 0 ? dictionary.getBranches() : paths[s].getBranches();
+            firstChild[s] = count;
+            if (branches.isEmpty()) {
+                continue;
+            }
+            TreeMap<Character, WordPath> sorted = new TreeMap<>(branches);
+            if (count + sorted.size() > forks.length) {
+                int newCapacity = Math.max(count + sorted.size(), forks.length + (forks.length >> 1));
+                forks = Arrays.copyOf(forks, newCapacity);
+                firstChild = Arrays.copyOf(firstChild, newCapacity + 1);
+                depths = Arrays.copyOf(depths, newCapacity);
+                words = Arrays.copyOf(words, newCapacity);
+                paths = Arrays.copyOf(paths, newCapacity);
+            }
+            for (Map.Entry<Character, WordPath> entry : sorted.entrySet()) {
+                WordPath path = entry.getValue();
+                forks[count] = entry.getKey();
+                depths[count] = depths[s] + 1;
+                words[count] = path.isFinishWord() ? path.getWord() : null;
+                paths[count] = path;
+                count++;
+            }
+        }
+        firstChild[count] = count;
+        return new AhoCorasickAutomaton(dictionary,
+                Arrays.copyOf(forks, count),
+                Arrays.copyOf(firstChild, count + 1),
+                Arrays.copyOf(depths, count),
+                Arrays.copyOf(words, count));
+    }
+
+    /**
+     * 按广度优先顺序计算失败转移与输出链
+     */
+    private void linkFailures() {
+        this.outputs[0] = -1;
+        for (int s = 0; s < this.forks.length; s++) {
+            for (int t = this.firstChild[s]; t < this.firstChild[s + 1]; t++) {
+                int fail = 0;
+                if (s != 0) {
+                    int f = this.fails[s];
+                    int g = this.child(f, this.forks[t]);
+                    while (g < 0 && f != 0) {
+                        f = this.fails[f];
+                        g = this.child(f, this.forks[t]);
+                    }
+                    fail = g < 0 ? 0 : g;
+                }
+                this.fails[t] = fail;
+                this.outputs[t] = this.words[fail] != null ? fail : this.outputs[fail];
+            }
+        }
+    }
+
+    private int child(int s, char c) {
+        int low = this.firstChild[s];
+        int high = this.firstChild[s + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char fork = this.forks[mid];
+            if (fork < c) {
+                low = mid + 1;
+            } else if (fork > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 读入一个字后转移到的状态
+     *
+     * @param state 当前状态，初始为 0
+     * @param c     读入的字
+     * @return 新状态
+     */
+    public int next(int state, char c) {
+        int s = state;
+        while (true) {
+            int t = this.child(s, c);
+            if (t >= 0) {
+                return t;
+            }
+            if (s == 0) {
+                return 0;
+            }
+            s = this.fails[s];
+        }
+    }
+
+    /**
+     * 在状态处结束的最长词所在的输出状态
+     *
+     * @param state 状态
+     * @return 输出状态，没有词在此结束返回负数
+     */
+    public int firstOutput(int state) {
+        return this.words[state] != null ? state : this.outputs[state];
+    }
+
+    /**
+     * 在同一位置结束的下一个（更短的）词所在的输出状态
+     *
+     * @param output 输出状态
+     * @return 下一个输出状态，没有返回负数
+     */
+    public int nextOutput(int output) {
+        return this.outputs[output];
+    }
+
+    /**
+     * 输出状态上的词
+     *
+     * @param output 输出状态
+     * @return 词
+     */
+    public Word wordOf(int output) {
+        return this.words[output];
+    }
+
+    /**
+     * 状态的深度，即输出状态上的词的长度
+     *
+     * @param state 状态
+     * @return 深度
+     */
+    public int depthOf(int state) {
+        return this.depths[state];
+    }
+
+    /**
+     * 状态数（含根状态）
+     *
+     * @return 状态数
+     */
+    public int stateCount() {
+        return this.forks.length;
+    }
+
+    /**
+     * 编译此自动机的字典
+     *
+     * @return 字典
+     */
+    public Dictionary getDictionary() {
+        return this.dictionary;
+    }
+}
@@ -0,0 +1,476 @@
+package xyz.dowenliu.npl.dmseg.core;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import xyz.dowenliu.npl.dmseg.core.Token.Type;
+import xyz.dowenliu.npl.dmseg.dict.Dictionary;
+import xyz.dowenliu.npl.dmseg.dict.ValueSeg;
+import xyz.dowenliu.npl.dmseg.dict.Word;
+import xyz.dowenliu.npl.dmseg.util.ChineseNumUtil;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于字符游程与词格的分词提取器，分词结果与
+ * {@link xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultIndexReaderTokenizer}、
+ * {@link xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultQueryReaderTokenizer} 相同，包括切块的顺序与位置增量。
+ * <p>每个字在进入窗口时分类一次。英文数字、数字与不识别字符的游程随当前位置前移而延伸，
+ * 游程中的每个位置不再从头扫描；每个位置的候选切块只以结束位置和类型记入词格，
+ * 排序、过滤与去重都在词格上进行，只为保留下来的切块创建对象。因此耗时与输入长度成线性。</p>
+ * <p>标准切分的四个匹配器由游程直接得出，字典词匹配器照常匹配，其他匹配器按原方式调用。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class LatticeReaderTokenizer extends ReaderTokenizer {
+    private static final int ALPHANUM = 1;
+    private static final int DIGIT = 1 << 1;
+    private static final int DECIMAL = 1 << 2;
+    private static final int CN = 1 << 3;
+    /**
+     * 可以组成不识别字符切块的字
+     */
+    private static final int UNKNOWN = 1 << 4;
+    /**
+     * 英文连接符 -_'
+     */
+    private static final int CONNECTOR = 1 << 5;
+    private static final int QUOTE = 1 << 6;
+    /**
+     * 词格中字典词的来源标记，词只在保留下来时由词编号取得
+     */
+    private static final Object DICTIONARY_WORD = new Object();
+
+    /**
+     * 过滤规则
+     */
+    public enum Rule {
+        /**
+         * 索引规则，同 {@link xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultIndexReaderTokenizer}
+         */
+        INDEX,
+        /**
+         * 查询规则，同 {@link xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultQueryReaderTokenizer}
+         */
+        QUERY
+    }
+
+    private final Rule rule;
+    private final int windowSize;
+    /**
+     * 窗口中各字的分类，按流中位置对窗口长度取模存放
+     */
+    private final byte[] classes;
+    /**
+     * 去掉结尾连接符后的结束位置：以某字结束的片段去掉结尾的连接符后在何处结束
+     */
+    private final int[] trims;
+    /**
+     * 已分类到的流中位置（不含）
+     */
+    private int classified = 0;
+    private int lastTrim = 0;
+    /**
+     * 各游程已确认的结束位置，大于当前位置时当前位置到它之间的字都属于该游程
+     */
+    private int digitEnd = 0;
+    private int decimalEnd = 0;
+    private int unknownEnd = 0;
+    /**
+     * 英文数字切块的下一个断开位置，当前位置之后到它之间没有断开的字
+     */
+    private int breakEnd = 0;
+
+    private int longestWordEnd = -1;
+    private int lastAlphaNumEnd = -1;
+    private int lastDecimalEnd = -1;
+
+    /**
+     * 当前位置的词格
+     */
+    private int size = 0;
+    private int[] ends = new int[16];
+    private Type[] types = new Type[16];
+    private Object[] sources = new Object[16];
+    private long[] wordIds = new long[16];
+    private ValueSegMatcher[] owners = new ValueSegMatcher[16];
+    private String[] values = new String[16];
+    private int[] order = new int[16];
+    private Token[] kept = new Token[16];
+    private ValueSegMatcher owner;
+    private final Dictionary.MatchIdVisitor wordSink = (end, wordId) -> {
+        this.add(this.streamOffset + end, Type.WORD, DICTIONARY_WORD, this.owner);
+        this.wordIds[this.size - 1] = wordId;
+    };
+
+    /**
+     * 创建一个分词提取器，与相应规则的默认分词器一样加入标准切分的匹配器
+     *
+     * @param reader     输入流
+     * @param bufferSize 缓冲区长度，与默认分词器的缓冲区长度含义相同
+     * @param rule       过滤规则
+     */
+    public LatticeReaderTokenizer(Reader reader, int bufferSize, Rule rule) {
+        super(reader, bufferSize);
+        this.rule = rule;
+        this.windowSize = bufferSize;
+        this.classes = new byte[bufferSize];
+        this.trims = new int[bufferSize];
+        this.matchers.add(new AlphaNumMatcher());
+        this.matchers.add(new DecimalMatcher());
+        this.matchers.add(new StandartCnMatcher());
+        this.matchers.add(new UnknownMatcher());
+    }
+
+    /**
+     * 字的分类，与 {@link Type#charType(char)} 及各标准匹配器的判断相同
+     */
+    static int classOf(char c) {
+        if (Character.isDigit(c)) {
+            return ALPHANUM | DIGIT | DECIMAL;
+        }
+        if (('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z')) {
+            return ALPHANUM;
+        }
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+        if (block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B) {
+            return ChineseNumUtil.isChineseNum(c) ? CN | DECIMAL : CN;
+        }
+        int cls = c == '\'' ? CONNECTOR | QUOTE : c == '-' || c == '_' ? CONNECTOR : 0;
+        if (!Character.isWhitespace(c) && block != Character.UnicodeBlock.GENERAL_PUNCTUATION
+                && block != Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION) {
+            cls |= UNKNOWN;
+        }
+        return cls;
+    }
+
+    private int classAt(int position) {
+        return this.classes[position % this.windowSize];
+    }
+
+    /**
+     * 过滤规则直接作用于词格，见 {@link #accept(int)}
+     */
+    @Override
+    protected void filter() {
+    }
+
+    @Override
+    protected void preTokenize() throws IOException {
+        while (this.charBuffer.remaining() > 0 && this.preTokens.isEmpty()) {
+            this.buildLattice();
+            this.emit();
+            this.advance();
+            this.streamOffset++;
+        }
+    }
+
+    /**
+     * 分类窗口中新进入的字，记录当前位置的候选切块
+     */
+    private void buildLattice() {
+        int head = this.streamOffset;
+        int windowEnd = head + this.charBuffer.remaining();
+        int base = this.charBuffer.position() - head;
+        for (; this.classified < windowEnd; this.classified++) {
+            int cls = classOf(this.charBuffer.get(base + this.classified));
+            int slot = this.classified % this.windowSize;
+            this.classes[slot] = (byte) cls;
+            this.lastTrim = (cls & CONNECTOR) != 0 ? this.lastTrim : this.classified + 1;
+            this.trims[slot] = this.lastTrim;
+        }
+        this.size = 0;
+        char headChar = this.charBuffer.get(this.charBuffer.position());
+        for (ValueSegMatcher matcher : this.matchers) {
+            if (matcher instanceof WordMatcher) {
+                WordMatcher wordMatcher = (WordMatcher) matcher;
+                if (wordMatcher.mayMatch(headChar)) {
+                    this.owner = wordMatcher;
+                    wordMatcher.matchWordIds(this.charBuffer, this.wordSink);
+                }
+                continue;
+            }
+            Class<?> type = matcher.getClass();
+            if (type == AlphaNumMatcher.class) {
+                int end = this.alphaNumEnd(head, windowEnd);
+                if (end > head) {
+                    this.add(end, Type.ALPHANUM, null, matcher);
+                }
+            } else if (type == DecimalMatcher.class) {
+                this.decimalEnd = this.extend(this.decimalEnd, head, windowEnd, DECIMAL);
+                if (this.decimalEnd > head) {
+                    this.add(this.decimalEnd, Type.DECIMAL, null, matcher);
+                }
+            } else if (type == StandartCnMatcher.class) {
+                if ((this.classAt(head) & CN) != 0) {
+                    this.add(head + 1, Type.CN, null, matcher);
+                }
+            } else if (type == UnknownMatcher.class) {
+                this.unknownEnd = this.extend(this.unknownEnd, head, windowEnd, UNKNOWN);
+                if (this.unknownEnd > head) {
+                    this.add(this.unknownEnd, Type.OTHER, null, matcher);
+                }
+            } else {
+                int position = this.charBuffer.position();
+                int limit = this.charBuffer.limit();
+                List<ValueSeg> valueSegs = matcher.matchHead(this.charBuffer);
+                this.charBuffer.limit(limit);
+                this.charBuffer.position(position);
+                for (ValueSeg seg : valueSegs) {
+                    this.add(head + seg.getValue().length(), matcher.matchType(), seg, matcher);
+                }
+            }
+        }
+    }
+
+    /**
+     * 延伸游程，返回从当前位置开始的游程在窗口中的结束位置
+     */
+    private int extend(int runEnd, int head, int windowEnd, int mask) {
+        if (runEnd < head) {
+            runEnd = head;
+        }
+        while (runEnd < windowEnd && (this.classAt(runEnd) & mask) != 0) {
+            runEnd++;
+        }
+        return runEnd;
+    }
+
+    /**
+     * 英文数字切块的结束位置，与 {@link AlphaNumMatcher} 的扫描结果相同：
+     * 遇到非英文数字、非连接符的字，或紧跟在'后的数字时断开；纯数字后遇到'时断开；再去掉结尾的连接符。
+     */
+    private int alphaNumEnd(int head, int windowEnd) {
+        int cls = this.classAt(head);
+        if ((cls & ALPHANUM) == 0) {
+            return head;
+        }
+        if (this.breakEnd <= head) {
+            this.breakEnd = head + 1;
+        }
+        while (this.breakEnd < windowEnd && !this.breaksAlphaNum(this.breakEnd)) {
+            this.breakEnd++;
+        }
+        int stop = this.breakEnd;
+        if ((cls & DIGIT) != 0) {
+            this.digitEnd = this.extend(this.digitEnd, head, windowEnd, DIGIT);
+            if (this.digitEnd < stop && (this.classAt(this.digitEnd) & QUOTE) != 0) {
+                stop = this.digitEnd;
+            }
+        }
+        return this.trims[(stop - 1) % this.windowSize];
+    }
+
+    private boolean breaksAlphaNum(int position) {
+        int cls = this.classAt(position);
+        if ((cls & (ALPHANUM | CONNECTOR)) == 0) {
+            return true;
+        }
+        return (cls & DIGIT) != 0 && (this.classAt(position - 1) & QUOTE) != 0;
+    }
+
+    private void add(int end, Type type, Object source, ValueSegMatcher matcher) {
+        if (this.size == this.ends.length) {
+            int capacity = this.size * 2;
+            this.ends = Arrays.copyOf(this.ends, capacity);
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.sources = Arrays.copyOf(this.sources, capacity);
+            this.wordIds = Arrays.copyOf(this.wordIds, capacity);
+            this.owners = Arrays.copyOf(this.owners, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+            this.order = Arrays.copyOf(this.order, capacity);
+            this.kept = Arrays.copyOf(this.kept, capacity);
+        }
+        this.ends[this.size] = end;
+        this.types[this.size] = type;
+        this.sources[this.size] = source;
+        this.owners[this.size] = matcher;
+        this.values[this.size] = null;
+        this.size++;
+    }
+
+    private boolean isRun(int i) {
+        return this.sources[i] == null;
+    }
+
+    /**
+     * 切块值是否为原文，游程与字典词都是
+     */
+    private boolean isText(int i) {
+        return this.sources[i] == null || this.sources[i] == DICTIONARY_WORD;
+    }
+
+    private String valueOf(int i) {
+        String value = this.values[i];
+        if (value == null) {
+            if (this.isText(i)) {
+                value = new String(this.charBuffer.array(), this.charBuffer.arrayOffset() + this.charBuffer.position(),
+                        this.ends[i] - this.streamOffset);
+            } else {
+                value = ((ValueSeg) this.sources[i]).getValue();
+            }
+            this.values[i] = value;
+        }
+        return value;
+    }
+
+    private static int weightOf(Type type) {
+        switch (type) {
+            case WORD:
+                return 10000;
+            case ALPHANUM:
+            case CN:
+                return 1000;
+            case DECIMAL:
+                return 100;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * 与原实现的排序相同：结束位置靠后的在前，再按值，再按类型的权重
+     */
+    private int compare(int x, int y) {
+        int v = this.ends[y] - this.ends[x];
+        if (v != 0) {
+            return v;
+        }
+        if (!(this.isText(x) && this.isText(y))) {
+            // 其他匹配器的切块值不一定是原文
+            v = this.valueOf(x).compareTo(this.valueOf(y));
+            if (v != 0) {
+                return v;
+            }
+        }
+        if (this.types[x] == this.types[y]) {
+            return 0;
+        }
+        return weightOf(this.types[y]) - weightOf(this.types[x]);
+    }
+
+    /**
+     * 按规则过滤，与默认分词器的 {@code filter()} 相同
+     */
+    private boolean accept(int i) {
+        int end = this.ends[i];
+        int next = this.streamOffset + 1;
+        if (this.rule == Rule.QUERY) {
+            if (this.longestWordEnd >= end) {
+                return false;
+            }
+            switch (this.types[i]) {
+                case WORD:
+                    this.longestWordEnd = end;
+                    return true;
+                case ALPHANUM:
+                    if (this.lastAlphaNumEnd >= next) {
+                        return false;
+                    }
+                    this.lastAlphaNumEnd = end;
+                    return this.acceptNumber(i);
+                case DECIMAL:
+                    if (this.lastDecimalEnd >= next) {
+                        return false;
+                    }
+                    this.lastDecimalEnd = end;
+                    return true;
+                case CN:
+                    return this.lastAlphaNumEnd < next && this.lastDecimalEnd < next;
+                default:
+                    return true;
+            }
+        }
+        switch (this.types[i]) {
+            case ALPHANUM:
+                if (this.lastAlphaNumEnd >= end) {
+                    return false;
+                }
+                this.lastAlphaNumEnd = end;
+                return this.acceptNumber(i);
+            case DECIMAL:
+                if (this.lastDecimalEnd >= end) {
+                    return false;
+                }
+                this.lastDecimalEnd = end;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private boolean acceptNumber(int i) {
+        if (NumberUtils.isNumber(this.valueOf(i))) {
+            if (this.lastDecimalEnd >= this.ends[i]) {
+                return false;
+            }
+            this.lastDecimalEnd = this.ends[i];
+        }
+        return true;
+    }
+
+    private Token tokenOf(int i) {
+        Object source = this.sources[i];
+        if (source == DICTIONARY_WORD) {
+            WordMatcher matcher = (WordMatcher) this.owners[i];
+            Word word = matcher.wordOf(this.charBuffer, this.ends[i] - this.streamOffset, this.wordIds[i]);
+            return matcher.tokenOf(word);
+        }
+        if (source != null) {
+            return Token.copyFrom((ValueSeg) source, this.types[i], this.streamOffset);
+        }
+        Token token = new Token(this.types[i], this.streamOffset);
+        token.setEnd(this.ends[i]);
+        token.setValue(this.valueOf(i));
+        return token;
+    }
+
+    /**
+     * 排序、过滤、合并同值的切块，按排序后的先后顺序放入 {@link #preTokens}
+     */
+    private void emit() {
+        int n = this.size;
+        for (int i = 0; i < n; i++) {
+            int current = i;
+            int j = i - 1;
+            for (; j >= 0 && this.compare(this.order[j], current) > 0; j--) {
+                this.order[j + 1] = this.order[j];
+            }
+            this.order[j + 1] = current;
+        }
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            int i = this.order[k];
+            if (!this.accept(i)) {
+                continue;
+            }
+            Token token = null;
+            for (int m = 0; m < count; m++) {
+                if (this.kept[m].getEnd() == this.ends[i] && this.kept[m].getValue().equals(this.valueOf(i))) {
+                    token = this.kept[m];
+                    break;
+                }
+            }
+            if (token == null) {
+                this.kept[count++] = this.tokenOf(i);
+                continue;
+            }
+            if (!this.isRun(i)) {
+                token.getSpeeches().addAll(this.tokenOf(i).getSpeeches()); // 按位合并
+            }
+            if (token.getType() != this.types[i]) {
+                token.addSpeech(TYPE_TAG_IDS[this.types[i].ordinal()]);
+            }
+        }
+        for (int m = 0; m < count; m++) {
+            this.kept[m].setPositionIncrement(m == 0 ? 1 : 0);
+            this.preTokens.add(this.kept[m]);
+            this.kept[m] = null;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package xyz.dowenliu.npl.dmseg.core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import xyz.dowenliu.npl.dmseg.dict.Dictionary;
+import xyz.dowenliu.npl.dmseg.dict.TagRegistry;
 import xyz.dowenliu.npl.dmseg.dict.ValueSeg;
+import xyz.dowenliu.npl.dmseg.dict.Word;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -19,9 +21,35 @@ import xyz.dowenliu.npl.dmseg.core.Token.Type;
  * @since 1.0.0
  */
 public abstract class ReaderTokenizer {
+    /**
+     * 切块类型名作为标记的编号，按 {@link Type#ordinal()} 排列
+     */
+    static final int[] TYPE_TAG_IDS = Arrays.stream(Type.values())
+            .mapToInt(type -> TagRegistry.idOf(type.name()))
+            .toArray();
+    /**
+     * 每次从输入流读入的最少字符数
+     */
+    private static final int READ_CHUNK = 8192;
     Logger logger = LoggerFactory.getLogger(getClass());
     protected final Reader reader;
+    /**
+     * 输入窗口，包装 {@link #chars}。位置为当前字，剩余部分为从当前字开始的至多缓冲区长度个字。
+     */
     protected final CharBuffer charBuffer;
+    /**
+     * 窗口长度，即缓冲区长度
+     */
+    private final int windowSize;
+    /**
+     * 按块读入的字符，窗口在其中滑动，剩余的字不足一个窗口时才移到开头并读入下一块
+     */
+    private final char[] chars;
+    /**
+     * chars中已读入的字符数
+     */
+    private int filled = 0;
+    private boolean eof = false;
     protected int streamOffset = 0;
     protected final LinkedList<Token> preTokens = new LinkedList<>();
     protected final LinkedList<ValueSegMatcher> matchers = new LinkedList<>();
@@ -35,12 +63,14 @@ public abstract class ReaderTokenizer {
      * @param reader     输入流
      * @param bufferSize 缓冲区长度。
      *                   此长度会影响非字典分区匹配结果，使预想的结果被切分（如果预想结果长度超过缓冲区长度）。
-     *                   会频繁的执行 {@link java.nio.CharBuffer#compact()} 方法，如果缓冲区过长，会降低分词解析速度。
+     *                   输入按块读入，窗口向前移动时不复制字符，缓冲区长度不影响读入的开销。
      *                   建议长度128个字符
      */
     public ReaderTokenizer(Reader reader, int bufferSize) {
         this.reader = reader; // 记住Reader
-        this.charBuffer = CharBuffer.allocate(bufferSize);
+        this.windowSize = bufferSize;
+        this.chars = new char[bufferSize + Math.max(bufferSize, READ_CHUNK)];
+        this.charBuffer = CharBuffer.wrap(this.chars);
     }
 
     /**
@@ -57,6 +87,21 @@ public abstract class ReaderTokenizer {
         this.hasDictionary = true;
     }
 
+    /**
+     * 加入由字典编译出的自动机。与 {@link #appendDictionary(Dictionary)} 得到的分词结果相同，
+     * 但每个字只扫描一次，不需要在每个位置从字典树根部重新匹配。
+     *
+     * @param automaton 字典自动机
+     * @throws java.lang.IllegalStateException 若此Tokenizer对象已经初始化。
+     */
+    public void appendAutomaton(AhoCorasickAutomaton automaton) {
+        if (this.init) {
+            throw new IllegalStateException("应在初始化操作前加入字典！");
+        }
+        this.matchers.addLast(new AutomatonWordMatcher(automaton));
+        this.hasDictionary = true;
+    }
+
     /**
      * 初始化操作
      *
@@ -73,28 +118,64 @@ public abstract class ReaderTokenizer {
         if (this.init) {
             throw new IllegalStateException("不能再次初始化！");
         }
-        this.charBuffer.clear();
-        this.reader.read(charBuffer); // 预读到缓冲区
-        this.charBuffer.flip(); // 反转缓冲区
+        this.fill(); // 预读到缓冲区
+        this.charBuffer.limit(Math.min(this.windowSize, this.filled));
+        this.charBuffer.position(0);
         this.init = true;
     }
 
-    private void preTokenize() throws IOException {
+    /**
+     * 读入输入流直到chars中至少有一个窗口的字或已读完，每次请求读满剩余空间
+     */
+    private void fill() throws IOException {
+        while (this.filled < this.windowSize && !this.eof) {
+            int n = this.reader.read(this.chars, this.filled, this.chars.length - this.filled);
+            if (n < 0) {
+                this.eof = true;
+            } else if (n == 0) {
+                break;
+            } else {
+                this.filled += n;
+            }
+        }
+    }
+
+    /**
+     * 窗口向前移动一个字。只在chars中剩余的字不足一个窗口时把剩余的字移到开头并读入下一块，
+     * 因此每个字平均只复制常数次。
+     *
+     * @throws IOException 发生了IO错误
+     */
+    protected void advance() throws IOException {
+        int start = this.charBuffer.position() + 1;
+        if (this.filled - start < this.windowSize && !this.eof) {
+            int kept = this.filled - start;
+            System.arraycopy(this.chars, start, this.chars, 0, kept);
+            this.filled = kept;
+            start = 0;
+            this.fill();
+        }
+        this.charBuffer.limit(Math.min(start + this.windowSize, this.filled));
+        this.charBuffer.position(start);
+    }
+
+    /**
+     * 从当前位置向前逐字匹配，直到得到切块或读完输入，得到的切块放入 {@link #preTokens}。
+     *
+     * @throws IOException 发生了IO错误
+     */
+    protected void preTokenize() throws IOException {
         if (this.charBuffer.remaining() <= 0) {
             return;
         }
         while (this.charBuffer.remaining() > 0 && this.preTokens.isEmpty()) {
-            CharBuffer readOnlyBuffer = this.charBuffer.asReadOnlyBuffer();
-            List<Token> words = this.matchHead(readOnlyBuffer);
+            List<Token> words = this.matchHead(this.charBuffer);
             if (words != null && !words.isEmpty()) { // 头部匹配成功
                 // preTokens不再为空，将循环将结束
                 this.preTokens.addAll(words);
             }
             // 移动缓冲区
-            this.charBuffer.get();
-            this.charBuffer.compact();
-            this.reader.read(charBuffer);
-            this.charBuffer.flip();
+            this.advance();
             this.streamOffset++;
             this.preTokens.sort((x, y) -> {
                 int v = y.getEnd() - x.getEnd();
@@ -146,14 +227,17 @@ public abstract class ReaderTokenizer {
         }
     }
 
+    /**
+     * 合并同值的切块，保留排序后的先后顺序：结束位置靠后的在前，再按值，再按类型的权重
+     */
     private void removeDuplicate() {
-        Map<String, Token> map = new HashMap<>();
+        Map<String, Token> map = new LinkedHashMap<>();
         for (Token token : this.preTokens) {
             if (map.containsKey(token.getValue())) {
                 Token _token = map.get(token.getValue());
-                _token.getSpeeches().addAll(token.getSpeeches());
+                _token.getSpeeches().addAll(token.getSpeeches()); // 按位合并
                 if (_token.getType() != token.getType()) {
-                    _token.getSpeeches().add(token.getType().name());
+                    _token.addSpeech(TYPE_TAG_IDS[token.getType().ordinal()]);
                 }
             } else {
                 map.put(token.getValue(), token);
@@ -163,18 +247,31 @@ public abstract class ReaderTokenizer {
         this.preTokens.addAll(map.values());
     }
 
+    /**
+     * 匹配缓冲区头部。字典词匹配器直接读取缓冲区；其它匹配器会移动缓冲区的位置，匹配后恢复，不复制缓冲区。
+     * 头部的字不能开始字典中任何词时跳过字典词匹配器。
+     *
+     * @param charBuffer 缓冲区
+     * @return 头部匹配出的切块
+     */
     protected List<Token> matchHead(CharBuffer charBuffer) {
         List<Token> tokens = new LinkedList<>();
+        int position = charBuffer.position();
+        int limit = charBuffer.limit();
+        char head = charBuffer.get(position);
         for (ValueSegMatcher matcher : this.matchers) {
-            CharBuffer _buffer = charBuffer.duplicate();
-            List<ValueSeg> valueSegs = matcher.matchHead(_buffer);
-            for (ValueSeg seg : valueSegs) {
-                Token token = Token.copyFrom(seg, matcher.matchType(), this.streamOffset);
-                if (matcher instanceof WordMatcher) {
-                    WordMatcher wordMatcher = (WordMatcher) matcher;
-                    token.getSpeeches().add(wordMatcher.getDictionary().dictionaryBookTag());
+            if (matcher instanceof WordMatcher) {
+                WordMatcher wordMatcher = (WordMatcher) matcher;
+                if (wordMatcher.mayMatch(head)) {
+                    wordMatcher.matchTokens(charBuffer, tokens);
                 }
-                tokens.add(token);
+                continue;
+            }
+            List<ValueSeg> valueSegs = matcher.matchHead(charBuffer);
+            charBuffer.limit(limit);
+            charBuffer.position(position);
+            for (ValueSeg seg : valueSegs) {
+                tokens.add(Token.copyFrom(seg, matcher.matchType(), this.streamOffset));
             }
         }
         return tokens;
@@ -262,8 +359,19 @@ public abstract class ReaderTokenizer {
      * @author liufl
      * @since 1.0.0
      */
-    public class WordMatcher implements ValueSegMatcher {
+    public class WordMatcher implements ValueSegMatcher, Dictionary.MatchVisitor {
         private final Dictionary dictionary;
+        private List<Token> sink;
+        /**
+         * 最近一次使用的书名标记及其编号，单本字典的书名标记不变，不需要每次查登记表
+         */
+        private String lastBookTag;
+        private int lastBookTagId;
+        /**
+         * 不支持词编号的字典本次匹配到的词，编号为其下标
+         */
+        private final List<Word> matched = new ArrayList<>();
+        private final Dictionary.MatchVisitor collector = (end, word) -> this.matched.add(word);
 
         public WordMatcher(Dictionary dictionary) {
             this.dictionary = dictionary;
@@ -273,10 +381,105 @@ public abstract class ReaderTokenizer {
             return dictionary;
         }
 
+        /**
+         * 以此字开头时是否需要匹配，用于跳过不能开始任何词的位置
+         *
+         * @param head 缓冲区头部的字
+         * @return 需要匹配 {@code true}，一定没有结果 {@code false}
+         */
+        protected boolean mayMatch(char head) {
+            return this.dictionary.mayStartWith(head);
+        }
+
         @Override
-        @SuppressWarnings("unchecked")
         public List<ValueSeg> matchHead(CharBuffer charBuffer) {
-            return this.dictionary.dictMatch(charBuffer.asReadOnlyBuffer());
+            List<ValueSeg> words = new LinkedList<>();
+            this.dictionary.dictMatch(charBuffer, 0, (end, word) -> words.add(word));
+            return words;
+        }
+
+        /**
+         * 匹配缓冲区头部的词，直接生成带字典书名标记的切块。
+         * 以字符序列方式读取缓冲区，不复制缓冲区，也不创建中间的词列表。
+         *
+         * @param charBuffer 缓冲区，位置不会被移动
+         * @param tokens     切块输出
+         */
+        protected void matchTokens(CharBuffer charBuffer, List<Token> tokens) {
+            this.sink = tokens;
+            try {
+                this.matchWords(charBuffer, this);
+            } finally {
+                this.sink = null;
+            }
+        }
+
+        /**
+         * 匹配缓冲区头部的词，按从短到长的顺序回调，不生成切块
+         *
+         * @param charBuffer 缓冲区，位置不会被移动
+         * @param visitor    回调，结束位置相对于缓冲区的当前位置
+         */
+        protected void matchWords(CharBuffer charBuffer, Dictionary.MatchVisitor visitor) {
+            this.dictionary.dictMatch(charBuffer, 0, visitor);
+        }
+
+        /**
+         * 匹配缓冲区头部的词，按从短到长的顺序回调词编号，不创建词对象。
+         * 字典不支持词编号时暂存其常驻的词对象，以暂存的下标为编号。
+         *
+         * @param charBuffer 缓冲区，位置不会被移动
+         * @param visitor    回调，结束位置相对于缓冲区的当前位置
+         */
+        protected void matchWordIds(CharBuffer charBuffer, Dictionary.MatchIdVisitor visitor) {
+            if (this.dictionary.supportsWordIds()) {
+                this.dictionary.dictMatchIds(charBuffer, 0, visitor);
+                return;
+            }
+            this.matched.clear();
+            this.dictionary.dictMatch(charBuffer, 0, this.collector);
+            for (int i = 0; i < this.matched.size(); i++) {
+                visitor.visit(this.matched.get(i).getValue().length(), i);
+            }
+        }
+
+        /**
+         * 取 {@link #matchWordIds(CharBuffer, Dictionary.MatchIdVisitor)} 匹配到的词，缓冲区的位置须与匹配时相同
+         *
+         * @param charBuffer 缓冲区
+         * @param end        词的结束位置，相对于缓冲区的当前位置
+         * @param wordId     词编号
+         * @return 词
+         */
+        protected Word wordOf(CharBuffer charBuffer, int end, long wordId) {
+            if (this.dictionary.supportsWordIds()) {
+                return this.dictionary.wordOf(charBuffer, 0, end, wordId);
+            }
+            return this.matched.get((int) wordId);
+        }
+
+        @Override
+        public void visit(int end, Word word) {
+            this.sink.add(this.tokenOf(word));
+        }
+
+        /**
+         * 由词生成切块，词性中加入词所属字典的书名标记
+         *
+         * @param word 匹配出的词
+         * @return 切块
+         */
+        @SuppressWarnings("unchecked")
+        protected Token tokenOf(Word word) {
+            Token token = Token.copyFrom(word, Type.WORD, streamOffset);
+            for (String bookTag : (Collection<String>) this.dictionary.bookTagsOf(word)) {
+                if (bookTag != this.lastBookTag) {
+                    this.lastBookTagId = TagRegistry.idOf(bookTag);
+                    this.lastBookTag = bookTag;
+                }
+                token.addSpeech(this.lastBookTagId);
+            }
+            return token;
         }
 
         @Override
@@ -285,6 +488,98 @@ public abstract class ReaderTokenizer {
         }
     }
 
+    /**
+     * 字典自动机词匹配器。缓冲区中新读入的字送入自动机，命中的词按起始位置暂存，
+     * 到达起始位置时取出，因此每个字只扫描一次。
+     * <p>与 {@link WordMatcher} 一样，长度超过缓冲区的词不会被匹配。</p>
+     *
+     * @author liufl
+     * @since 1.0.0
+     */
+    public class AutomatonWordMatcher extends WordMatcher {
+        private final AhoCorasickAutomaton automaton;
+        /**
+         * 按起始位置对缓冲区长度取模暂存的命中词
+         */
+        private final List<ValueSeg>[] pending;
+        private int state = 0;
+        /**
+         * 下一个要送入自动机的字在流中的位置
+         */
+        private int scanned = 0;
+        /**
+         * 最近一次 {@link #matchWordIds(CharBuffer, Dictionary.MatchIdVisitor)} 的命中词
+         */
+        private List<ValueSeg> hits = Collections.emptyList();
+
+        @SuppressWarnings("unchecked")
+        public AutomatonWordMatcher(AhoCorasickAutomaton automaton) {
+            super(automaton.getDictionary());
+            this.automaton = automaton;
+            this.pending = new List[windowSize];
+        }
+
+        @Override
+        public List<ValueSeg> matchHead(CharBuffer charBuffer) {
+            int limit = streamOffset + charBuffer.remaining();
+            int base = charBuffer.position() - streamOffset;
+            for (; this.scanned < limit; this.scanned++) {
+                this.state = this.automaton.next(this.state, charBuffer.get(base + this.scanned));
+                for (int out = this.automaton.firstOutput(this.state); out > 0; out = this.automaton.nextOutput(out)) {
+                    int start = this.scanned + 1 - this.automaton.depthOf(out);
+                    if (start < streamOffset) {
+                        continue; // 词比缓冲区长
+                    }
+                    int slot = start % this.pending.length;
+                    if (this.pending[slot] == null) {
+                        this.pending[slot] = new LinkedList<>();
+                    }
+                    // 同一起始位置的词按结尾先后命中，与字典匹配一样从短到长
+                    this.pending[slot].add(this.automaton.wordOf(out));
+                }
+            }
+            int slot = streamOffset % this.pending.length;
+            List<ValueSeg> words = this.pending[slot];
+            if (words == null) {
+                return Collections.emptyList();
+            }
+            this.pending[slot] = null;
+            return words;
+        }
+
+        /**
+         * 自动机需要扫描每个字，不能跳过
+         */
+        @Override
+        protected boolean mayMatch(char head) {
+            return true;
+        }
+
+        @Override
+        protected void matchWords(CharBuffer charBuffer, Dictionary.MatchVisitor visitor) {
+            for (ValueSeg word : this.matchHead(charBuffer)) {
+                visitor.visit(word.getValue().length(), (Word) word);
+            }
+        }
+
+        /**
+         * 词编号为词在本次命中列表中的下标
+         */
+        @Override
+        protected void matchWordIds(CharBuffer charBuffer, Dictionary.MatchIdVisitor visitor) {
+            this.hits = this.matchHead(charBuffer);
+            int i = 0;
+            for (ValueSeg word : this.hits) {
+                visitor.visit(word.getValue().length(), i++);
+            }
+        }
+
+        @Override
+        protected Word wordOf(CharBuffer charBuffer, int end, long wordId) {
+            return (Word) this.hits.get((int) wordId);
+        }
+    }
+
     /**
      * 英文字母字符、数字区块匹配器
      */
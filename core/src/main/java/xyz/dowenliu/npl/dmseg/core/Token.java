@@ -1,6 +1,9 @@
 package xyz.dowenliu.npl.dmseg.core;
 
 import org.apache.commons.lang3.Validate;
+import xyz.dowenliu.npl.dmseg.dict.SpeechMaskHolder;
+import xyz.dowenliu.npl.dmseg.dict.SpeechMaskSet;
+import xyz.dowenliu.npl.dmseg.dict.TagRegistry;
 import xyz.dowenliu.npl.dmseg.dict.ValueSeg;
 import xyz.dowenliu.npl.dmseg.util.ChineseNumUtil;
 
@@ -12,7 +15,7 @@ import java.util.*;
  * @author liufl
  * @since 1.0.0
  */
-public class Token implements ValueSeg {
+public class Token implements ValueSeg, SpeechMaskHolder {
     /**
      * 切块类型集
      */
@@ -70,7 +73,14 @@ public class Token implements ValueSeg {
 
     final Type type;
     protected String value;
-    protected Set<String> speeches = Collections.synchronizedSet(new HashSet<>(5, 0.75F));
+    /**
+     * 词性与字典书名标记的 {@link TagRegistry} 编号位图，编号 0~63 的部分
+     */
+    protected long speechMask = 0L;
+    /**
+     * 编号不小于64的标记位图，没有时为 {@code null}
+     */
+    protected long[] moreSpeechMask = null;
     protected final int offset;
     protected int end; // end处的字不属性此Token
     protected int positionIncrement = 0; // 在被ReaderTokenizer取出后应将offset与之前取出的Token对象比较，有增加则此处设为1
@@ -110,11 +120,44 @@ public class Token implements ValueSeg {
     /**
      * 获取词性集合。
      *
-     * @return 词性集合的引用。操作此集合会直接操作词的词性。可能发生线程安全问题。
+     * @return 词性位图上的集合视图，每次调用创建新视图。操作此集合会直接操作切块的词性。可能发生线程安全问题。
      */
     @Override
     public Set<String> getSpeeches() {
-        return speeches;
+        return new SpeechMaskSet(this);
+    }
+
+    /**
+     * 加入编号的标记
+     *
+     * @param tagId {@link TagRegistry} 中的标记编号
+     */
+    public void addSpeech(int tagId) {
+        if (tagId < 64) {
+            this.speechMask |= 1L << tagId;
+        } else {
+            new SpeechMaskSet(this).add(tagId);
+        }
+    }
+
+    @Override
+    public long getSpeechMask() {
+        return this.speechMask;
+    }
+
+    @Override
+    public void setSpeechMask(long speechMask) {
+        this.speechMask = speechMask;
+    }
+
+    @Override
+    public long[] getMoreSpeechMask() {
+        return this.moreSpeechMask;
+    }
+
+    @Override
+    public void setMoreSpeechMask(long[] moreSpeechMask) {
+        this.moreSpeechMask = moreSpeechMask;
     }
 
     /**
@@ -195,9 +238,7 @@ public class Token implements ValueSeg {
      */
     public static Token copyFrom(ValueSeg value, Type type, int offset) {
         Token copy = new Token(type, offset);
-        for (String speech : value.getSpeeches()) {
-            copy.getSpeeches().add(speech);
-        }
+        copy.getSpeeches().addAll(value.getSpeeches()); // 词的词性也是位图时按位合并
         String _value = value.getValue();
         copy.setEnd(offset + _value.length());
         copy.setValue(_value);
@@ -0,0 +1,92 @@
+package xyz.dowenliu.npl.dmseg.core;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultIndexReaderTokenizer;
+import xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultQueryReaderTokenizer;
+import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionary;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class AhoCorasickAutomatonTest {
+    private RamHashedDictionary dict;
+    private AhoCorasickAutomaton automaton;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dict = new RamHashedDictionary();
+        for (String word : new String[]{"he", "she", "his", "hers", "中国", "中国人", "国人", "人民", "共和国",
+                "中华人民共和国", "华人"}) {
+            dict.add(word, "n");
+        }
+        automaton = AhoCorasickAutomaton.compile(dict);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testScan() {
+        String text = "ushers";
+        List<String> hits = new ArrayList<>();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = automaton.next(state, text.charAt(i));
+            for (int out = automaton.firstOutput(state); out > 0; out = automaton.nextOutput(out)) {
+                hits.add(automaton.wordOf(out).getValue() + "@" + (i + 1 - automaton.depthOf(out)));
+            }
+        }
+        assertEquals("[she@1, he@2, hers@2]", hits.toString());
+        assertSame(dict, automaton.getDictionary());
+    }
+
+    private List<String> tokens(ReaderTokenizer tokenizer) throws IOException {
+        tokenizer.init();
+        List<String> tokens = new ArrayList<>();
+        while (tokenizer.hasNextToken()) {
+            Token token = tokenizer.nextToken();
+            tokens.add(token.getValue() + '[' + token.getOffset() + ',' + token.getEnd() + ')' + token.getType()
+                    + new TreeSet<>(token.getSpeeches()) + token.getPositionIncrement());
+        }
+        return tokens;
+    }
+
+    private void assertSameTokens(String text, int bufferSize) throws IOException {
+        ReaderTokenizer expected = new DefaultIndexReaderTokenizer(new StringReader(text), bufferSize);
+        expected.appendDictionary(dict);
+        ReaderTokenizer actual = new DefaultIndexReaderTokenizer(new StringReader(text), bufferSize);
+        actual.appendAutomaton(automaton);
+        assertEquals(tokens(expected), tokens(actual));
+        expected = new DefaultQueryReaderTokenizer(new StringReader(text), bufferSize);
+        expected.appendDictionary(dict);
+        actual = new DefaultQueryReaderTokenizer(new StringReader(text), bufferSize);
+        actual.appendAutomaton(automaton);
+        assertEquals(tokens(expected), tokens(actual));
+    }
+
+    @Test
+    public void testTokenizer() throws IOException {
+        String text = "ushers，中华人民共和国的中国人民his 2015年";
+        assertSameTokens(text, 128);
+        assertSameTokens(text, 4);
+        assertSameTokens("", 8);
+    }
+}
@@ -0,0 +1,111 @@
+package xyz.dowenliu.npl.dmseg.core;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultIndexReaderTokenizer;
+import xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultQueryReaderTokenizer;
+import xyz.dowenliu.npl.dmseg.dict.CompositeDictionary;
+import xyz.dowenliu.npl.dmseg.dict.Dictionary;
+import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionary;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class LatticeReaderTokenizerTest {
+    private static final String[] PIECES = {"中华人民共和国", "中国人", "人民", "abc", "x-1", "3.14", "2015年", "，", "。", " ",
+            "don't", "hello_world", "12'", "'", "-", "_", "1'2", "a'1", "9-9'", "一二三", "零点五", "１２", "©", "é", "—"};
+
+    private Dictionary<?> first;
+    private Dictionary<?> second;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        RamHashedDictionary first = new RamHashedDictionary();
+        first.setBookTag("FIRST");
+        for (String word : new String[]{"中国", "中国人", "人民", "中华人民共和国", "共和国", "abc", "x-1"}) {
+            first.add(word, "n");
+        }
+        RamHashedDictionary second = new RamHashedDictionary();
+        second.setBookTag("SECOND");
+        for (String word : new String[]{"中国", "12", "一二三", "国人"}) {
+            second.add(word, "m");
+        }
+        this.first = first;
+        this.second = second;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private List<String> tokens(ReaderTokenizer tokenizer) throws IOException {
+        tokenizer.appendDictionary(first);
+        tokenizer.appendDictionary(second);
+        tokenizer.init();
+        List<String> tokens = new ArrayList<>();
+        while (tokenizer.hasNextToken()) {
+            Token token = tokenizer.nextToken();
+            tokens.add(token.getValue() + '[' + token.getOffset() + ',' + token.getEnd() + ')' + token.getType()
+                    + new TreeSet<>(token.getSpeeches()) + token.getPositionIncrement());
+        }
+        return tokens;
+    }
+
+    private void assertSameTokens(String text, int bufferSize) throws IOException {
+        assertEquals(tokens(new DefaultIndexReaderTokenizer(new StringReader(text), bufferSize)),
+                tokens(new LatticeReaderTokenizer(new StringReader(text), bufferSize,
+                        LatticeReaderTokenizer.Rule.INDEX)));
+        assertEquals(tokens(new DefaultQueryReaderTokenizer(new StringReader(text), bufferSize)),
+                tokens(new LatticeReaderTokenizer(new StringReader(text), bufferSize,
+                        LatticeReaderTokenizer.Rule.QUERY)));
+    }
+
+    @Test
+    public void testSameTokens() throws IOException {
+        assertSameTokens("Dmseg是一个优秀的流式中文分词器。2015年于大北京", 128);
+        assertSameTokens("ushers，中华人民共和国的中国人民his 2015年don't 12'3 a--b_ x-1-", 4);
+        assertSameTokens("", 8);
+        Random random = new Random(25);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 5000) {
+            text.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        for (int bufferSize : new int[]{1, 3, 16, 128}) {
+            assertSameTokens(text.toString(), bufferSize);
+        }
+    }
+
+    @Test
+    public void testReadOnlyDictionary() throws IOException {
+        first = CompositeDictionary.of(first);
+        second = CompositeDictionary.of(second);
+        assertSameTokens("中华人民共和国的中国人民，一二三12 x-1abc", 128);
+        assertSameTokens("中华人民共和国的中国人民，一二三12 x-1abc", 3);
+    }
+
+    @Test
+    public void testLongRun() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            text.append((char) ('a' + i % 26)).append(i % 7 == 0 ? "-" : "").append(i % 11 == 0 ? "9'" : "");
+        }
+        assertSameTokens(text.toString(), 128);
+    }
+}
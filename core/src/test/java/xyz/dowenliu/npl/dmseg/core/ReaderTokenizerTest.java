@@ -0,0 +1,99 @@
+package xyz.dowenliu.npl.dmseg.core;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultIndexReaderTokenizer;
+import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionary;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class ReaderTokenizerTest {
+    private RamHashedDictionary dict;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dict = new RamHashedDictionary();
+        for (String word : new String[]{"中国", "中国人", "人民", "中华人民共和国", "共和国"}) {
+            dict.add(word, "n");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private List<String> tokens(Reader reader, int bufferSize) throws IOException {
+        ReaderTokenizer tokenizer = new DefaultIndexReaderTokenizer(reader, bufferSize);
+        tokenizer.appendDictionary(dict);
+        tokenizer.init();
+        List<String> tokens = new ArrayList<>();
+        while (tokenizer.hasNextToken()) {
+            Token token = tokenizer.nextToken();
+            tokens.add(token.getValue() + '[' + token.getOffset() + ',' + token.getEnd() + ')' + token.getType()
+                    + new TreeSet<>(token.getSpeeches()) + token.getPositionIncrement());
+        }
+        return tokens;
+    }
+
+    /**
+     * 每次只读出一个字的输入流
+     */
+    private static Reader trickle(String text) {
+        return new StringReader(text) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 1));
+            }
+        };
+    }
+
+    @Test
+    public void testRefill() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 20000) {
+            text.append("中华人民共和国的中国人民 abc-12 3.5，");
+        }
+        for (int bufferSize : new int[]{4, 128}) {
+            List<String> expected = tokens(new StringReader(text.toString()), bufferSize);
+            assertEquals(expected, tokens(trickle(text.toString()), bufferSize));
+            assertTrue(expected.get(expected.size() - 1).startsWith("，[" + (text.length() - 1) + ","));
+        }
+    }
+
+    @Test
+    public void testSameOffsetOrder() throws IOException {
+        dict.add("中华");
+        List<String> tokens = tokens(new StringReader("中华人民共和国"), 8);
+        assertTrue(tokens.get(0).startsWith("中华人民共和国[0,7)WORD"));
+        assertTrue(tokens.get(1).startsWith("中华[0,2)WORD"));
+        assertTrue(tokens.get(2).startsWith("中[0,1)CN"));
+        assertTrue(tokens.get(3).startsWith("华[1,2)CN"));
+    }
+
+    @Test
+    public void testWindow() throws IOException {
+        List<String> tokens = tokens(new StringReader("中华人民共和国"), 4);
+        assertFalse(tokens.stream().anyMatch(token -> token.startsWith("中华人民共和国[")));
+        assertTrue(tokens.stream().anyMatch(token -> token.startsWith("共和国[4,7)")));
+        tokens = tokens(new StringReader("中华人民共和国"), 7);
+        assertTrue(tokens.stream().anyMatch(token -> token.startsWith("中华人民共和国[0,7)")));
+    }
+}
@@ -0,0 +1,155 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * 使用最小化有向无环词图（DAWG）实现的不可变字典。
+ * <p>字典树只共享前缀，DAWG同时合并相同的后缀（如“……公司”、“……银行”、“……大学”），
+ * 中文字典中大量的后缀重复因此只存储一次。</p>
+ * <p>后缀合并后一个节点可能属于多个词，词性不能保存在节点上。每个节点记录其后可达的词数，
+ * 沿路径累加即得到词在字典序中的序号（最小完美哈希），词性保存在按此序号索引的旁表中。
+ * 因此状态值由节点号（高32位）与已累加的序号（低32位）组成。</p>
+ * <p>实例由 {@link DawgDictionaryBuilder} 从有序输入增量构建，构建后不能修改。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class DawgDictionary extends AbstractReadOnlyDictionary {
+    private final int root;
+    /**
+     * 各节点出边在边数组中的起始位置
+     */
+    private final int[] edgeStart;
+    private final char[] edgeForks;
+    private final int[] edgeTargets;
+    /**
+     * 经过此边时序号的增量：出发节点是否为词，加上排在此边之前的兄弟边可达的词数
+     */
+    private final int[] edgeSkips;
+    private final long[] finals;
+    /**
+     * 按词序号索引的词性组合序号，-1 表示没有词性
+     */
+    private final int[] speechIds;
+    private final String[][] speechTable;
+    private static final String[] NO_SPEECHES = new String[0];
+
+    DawgDictionary(int root, int[] edgeStart, char[] edgeForks, int[] edgeTargets, int[] edgeSkips, long[] finals,
+                   int[] speechIds, String[][] speechTable) {
+        this.root = root;
+        this.edgeStart = edgeStart;
+        this.edgeForks = edgeForks;
+        this.edgeTargets = edgeTargets;
+        this.edgeSkips = edgeSkips;
+        this.finals = finals;
+        this.speechIds = speechIds;
+        this.speechTable = speechTable;
+    }
+
+    @Override
+    public int size() {
+        return this.speechIds.length;
+    }
+
+    /**
+     * 图中的节点数（含根节点）
+     *
+     * @return 节点数
+     */
+    public int nodeCount() {
+        return this.edgeStart.length - 1;
+    }
+
+    /**
+     * 图中的边数
+     *
+     * @return 边数
+     */
+    public int edgeCount() {
+        return this.edgeForks.length;
+    }
+
+    @Override
+    protected long estimateBytes() {
+        return DictionaryStats.objectBytes(4 + 7 * DictionaryStats.REFERENCE + 8)
+                + DictionaryStats.arrayBytes(4, this.edgeStart.length)
+                + DictionaryStats.arrayBytes(2, this.edgeForks.length)
+                + DictionaryStats.arrayBytes(4, this.edgeTargets.length)
+                + DictionaryStats.arrayBytes(4, this.edgeSkips.length)
+                + DictionaryStats.arrayBytes(8, this.finals.length)
+                + DictionaryStats.arrayBytes(4, this.speechIds.length)
+                + DictionaryStats.speechTableBytes(this.speechTable);
+    }
+
+    private static long state(int node, int index) {
+        return (long) node << 32 | (index & 0xFFFFFFFFL);
+    }
+
+    @Override
+    protected long rootState() {
+        return state(this.root, 0);
+    }
+
+    private int edgeOf(int node, char fork) {
+        int low = this.edgeStart[node];
+        int high = this.edgeStart[node + 1] - 1;
+        if (high - low < 8) {
+            for (int i = low; i <= high; i++) {
+                if (this.edgeForks[i] == fork) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = this.edgeForks[mid];
+            if (c < fork) {
+                low = mid + 1;
+            } else if (c > fork) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    protected long next(long state, char fork) {
+        int edge = this.edgeOf((int) (state >>> 32), fork);
+        if (edge < 0) {
+            return NONE;
+        }
+        return state(this.edgeTargets[edge], (int) state + this.edgeSkips[edge]);
+    }
+
+    @Override
+    protected boolean isWord(long state) {
+        int node = (int) (state >>> 32);
+        return (this.finals[node >>> 6] & 1L << node) != 0;
+    }
+
+    /**
+     * 词边界状态上的词在字典序中的序号
+     *
+     * @param state 词边界状态
+     * @return 序号，从0开始
+     */
+    int indexOf(long state) {
+        return (int) state;
+    }
+
+    @Override
+    protected String[] speechesOf(long state) {
+        int id = this.speechIds[this.indexOf(state)];
+        return id < 0 ? NO_SPEECHES : this.speechTable[id];
+    }
+
+    @Override
+    protected void forEachChild(long state, ChildVisitor visitor) {
+        int node = (int) (state >>> 32);
+        int index = (int) state;
+        for (int i = this.edgeStart[node]; i < this.edgeStart[node + 1]; i++) {
+            visitor.visit(this.edgeForks[i], state(this.edgeTargets[i], index + this.edgeSkips[i]));
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import xyz.dowenliu.npl.dmseg.dict.loader.WordRecordReader;
+
+import java.util.*;
+
+/**
+ * {@link DawgDictionary} 构建器。词按字典序逐个加入，每加入一个词就把上一个词不再变化的后缀节点
+ * 与已登记的等价节点合并（Daciuk 增量最小化算法），构建过程中只保留最小化后的图与当前词路径。
+ * <p>此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DawgDictionaryBuilder {
+    private final Node root = new Node();
+    private final Map<Node, Node> register = new HashMap<>();
+    private final Map<List<String>, Integer> speechIdMap = new HashMap<>();
+    private final List<String[]> speechTable = new ArrayList<>();
+    private int[] speechIds = new int[1024];
+    private int wordCount = 0;
+    private String previous = null;
+    private String bookTag = "DM-SEG";
+    private boolean built = false;
+
+    /**
+     * 设置构建出的字典的书名标记
+     *
+     * @param bookTag 字典书名标记
+     * @return this
+     */
+    public DawgDictionaryBuilder bookTag(String bookTag) {
+        this.bookTag = bookTag;
+        return this;
+    }
+
+    /**
+     * 加入词。词必须按 {@link String#compareTo(String)} 的升序加入，重复加入的词以最后一次的词性为准。
+     *
+     * @param word     词
+     * @param speeches 词性列表
+     * @return this
+     * @throws IllegalArgumentException 词未按升序加入
+     * @throws IllegalStateException    已经构建过
+     */
+    public DawgDictionaryBuilder add(String word, String... speeches) {
+        if (this.built) {
+            throw new IllegalStateException("已经构建过");
+        }
+        if (word == null || word.isEmpty()) {
+            return this;
+        }
+        if (this.previous != null) {
+            int order = word.compareTo(this.previous);
+            if (order < 0) {
+                throw new IllegalArgumentException("词未按字典序加入：" + this.previous + " -> " + word);
+            }
+            if (order == 0) {
+                this.speechIds[this.wordCount - 1] = this.speechIdOf(speeches);
+                return this;
+            }
+        }
+        Node node = this.root;
+        int common = 0;
+        while (common < word.length() && node.count > 0 && node.lastFork() == word.charAt(common)) {
+            node = node.lastChild();
+            common++;
+        }
+        if (node.count > 0) {
+            this.replaceOrRegister(node);
+        }
+        for (int i = common; i < word.length(); i++) {
+            Node child = new Node();
+            node.addChild(word.charAt(i), child);
+            node = child;
+        }
+        node.word = true;
+        if (this.wordCount == this.speechIds.length) {
+            this.speechIds = Arrays.copyOf(this.speechIds, this.wordCount * 2);
+        }
+        this.speechIds[this.wordCount++] = this.speechIdOf(speeches);
+        this.previous = word;
+        return this;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word 词
+     * @return this
+     */
+    public DawgDictionaryBuilder add(Word word) {
+        String[] speeches = new String[word.getSpeeches().size()];
+        return this.add(word.getValue(), word.getSpeeches().toArray(speeches));
+    }
+
+    private int speechIdOf(String[] speeches) {
+        if (speeches == null || speeches.length == 0) {
+            return -1;
+        }
+        List<String> key = Arrays.asList(speeches.clone());
+        Integer id = this.speechIdMap.get(key);
+        if (id == null) {
+            id = this.speechTable.size();
+            this.speechIdMap.put(key, id);
+            this.speechTable.add(speeches.clone());
+        }
+        return id;
+    }
+
+    /**
+     * 最小化节点最后一个子节点下的子图。调用时该子图不会再加入新的分支。
+     */
+    private void replaceOrRegister(Node node) {
+        Node child = node.lastChild();
+        if (child.count > 0) {
+            this.replaceOrRegister(child);
+        }
+        Node equivalent = this.register.get(child);
+        if (equivalent != null) {
+            node.targets[node.count - 1] = equivalent;
+        } else {
+            this.register.put(child, child);
+        }
+    }
+
+    /**
+     * 构建字典。构建后本构建器不能再使用。
+     *
+     * @return 新的字典对象
+     */
+    public DawgDictionary build() {
+        if (this.built) {
+            throw new IllegalStateException("已经构建过");
+        }
+        this.built = true;
+        if (this.root.count > 0) {
+            this.replaceOrRegister(this.root);
+        }
+        this.register.clear();
+        // 后序编号，子节点先于父节点，计数时子节点的可达词数已知
+        List<Node> nodes = new ArrayList<>();
+        int edges = this.number(this.root, nodes);
+        int[] edgeStart = new int[nodes.size() + 1];
+        char[] edgeForks = new char[edges];
+        int[] edgeTargets = new int[edges];
+        int[] edgeSkips = new int[edges];
+        long[] finals = new long[(nodes.size() + 63) >>> 6];
+        int[] wordCounts = new int[nodes.size()];
+        int e = 0;
+        for (int id = 0; id < nodes.size(); id++) {
+            Node node = nodes.get(id);
+            edgeStart[id] = e;
+            int reachable = node.word ? 1 : 0;
+            if (node.word) {
+                finals[id >>> 6] |= 1L << id;
+            }
+            for (int i = 0; i < node.count; i++) {
+                int target = node.targets[i].id;
+                edgeForks[e] = node.forks[i];
+                edgeTargets[e] = target;
+                edgeSkips[e] = reachable;
+                reachable += wordCounts[target];
+                e++;
+            }
+            wordCounts[id] = reachable;
+        }
+        edgeStart[nodes.size()] = e;
+        DawgDictionary dictionary = new DawgDictionary(this.root.id, edgeStart, edgeForks, edgeTargets, edgeSkips,
+                finals, Arrays.copyOf(this.speechIds, this.wordCount),
+                this.speechTable.toArray(new String[this.speechTable.size()][]));
+        dictionary.setBookTag(this.bookTag);
+        return dictionary;
+    }
+
+    /**
+     * 后序编号
+     *
+     * @return 子图中新编号节点的边数
+     */
+    private int number(Node node, List<Node> nodes) {
+        int edges = node.count;
+        for (int i = 0; i < node.count; i++) {
+            if (node.targets[i].id < 0) {
+                edges += this.number(node.targets[i], nodes);
+            }
+        }
+        node.id = nodes.size();
+        nodes.add(node);
+        return edges;
+    }
+
+    /**
+     * 由字典构建
+     *
+     * @param dictionary 字典，如 {@code RamHashedDictionary}
+     * @return 新的字典对象
+     */
+    public static DawgDictionary build(Dictionary<?> dictionary) {
+        TreeMap<String, Word> words = new TreeMap<>();
+        for (WordPath path : dictionary) {
+            if (path.isFinishWord()) {
+                words.put(path.getWord().getValue(), path.getWord());
+            }
+        }
+        DawgDictionaryBuilder builder = new DawgDictionaryBuilder().bookTag(dictionary.dictionaryBookTag());
+        for (Word word : words.values()) {
+            builder.add(word);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 由基础字典应用增量补丁构建新字典，新字典的版本为补丁的目标版本
+     *
+     * @param base  基础字典
+     * @param delta 增量补丁
+     * @return 新的字典对象
+     * @throws IllegalStateException 字典版本与补丁基础版本不匹配
+     */
+    public static DawgDictionary build(Dictionary<?> base, DictionaryDelta delta) {
+        DawgDictionaryBuilder builder = new DawgDictionaryBuilder().bookTag(base.dictionaryBookTag());
+        for (Word word : delta.merge(base)) {
+            builder.add(word);
+        }
+        DawgDictionary dictionary = builder.build();
+        dictionary.setVersion(delta.getVersion());
+        return dictionary;
+    }
+
+    /**
+     * 由词记录集构建。词记录集不需要有序，重复的词以最后一次的词性为准。
+     *
+     * @param reader 词记录集读取器
+     * @return 新的字典对象
+     */
+    public static DawgDictionary build(WordRecordReader reader) {
+        TreeMap<String, Word> words = new TreeMap<>();
+        while (reader.hasNextWord()) {
+            Word word = reader.nextWord();
+            words.put(word.getValue(), word);
+        }
+        DawgDictionaryBuilder builder = new DawgDictionaryBuilder();
+        for (Word word : words.values()) {
+            builder.add(word);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 构建中的节点。登记后不再修改，相等性按词边界标记、分叉值与子节点的同一性判断。
+     */
+    private static final class Node {
+        boolean word;
+        char[] forks = new char[2];
+        Node[] targets = new Node[2];
+        int count;
+        int id = -1;
+
+        char lastFork() {
+            return this.forks[this.count - 1];
+        }
+
+        Node lastChild() {
+            return this.targets[this.count - 1];
+        }
+
+        void addChild(char fork, Node child) {
+            if (this.count == this.forks.length) {
+                this.forks = Arrays.copyOf(this.forks, this.count * 2);
+                this.targets = Arrays.copyOf(this.targets, this.count * 2);
+            }
+            this.forks[this.count] = fork;
+            this.targets[this.count] = child;
+            this.count++;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Node)) {
+                return false;
+            }
+            Node node = (Node) o;
+            if (this.word != node.word || this.count != node.count) {
+                return false;
+            }
+            for (int i = 0; i < this.count; i++) {
+                if (this.forks[i] != node.forks[i] || this.targets[i] != node.targets[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = this.word ? 1 : 0;
+            for (int i = 0; i < this.count; i++) {
+                hash = 31 * hash + this.forks[i];
+                hash = 31 * hash + System.identityHashCode(this.targets[i]);
+            }
+            return hash;
+        }
+    }
+}
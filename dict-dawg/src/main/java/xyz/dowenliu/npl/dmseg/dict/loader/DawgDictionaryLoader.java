@@ -0,0 +1,39 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.DawgDictionary;
+import xyz.dowenliu.npl.dmseg.dict.DawgDictionaryBuilder;
+
+import java.io.Reader;
+
+/**
+ * DAWG字典加载器。DAWG字典不可变，不支持 {@link #apply(DawgDictionary, WordRecordReader)}。
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DawgDictionaryLoader extends AbstractDictionaryLoader<DawgDictionary> {
+    @Override
+    public WordRecordReader wrapReader(Reader reader) {
+        return new SimpleLineWordRecordReader(reader);
+    }
+
+    @Override
+    public DawgDictionary readIn(Reader reader) {
+        return this.readIn(this.wrapReader(reader));
+    }
+
+    @Override
+    public DawgDictionary readIn(WordRecordReader reader) {
+        return DawgDictionaryBuilder.build(reader);
+    }
+
+    /**
+     * 不支持
+     *
+     * @throws UnsupportedOperationException DAWG字典不可变
+     */
+    @Override
+    public void apply(DawgDictionary dictionary, WordRecordReader reader) {
+        throw new UnsupportedOperationException("DAWG字典不可变，请使用DawgDictionaryBuilder重新构建");
+    }
+}
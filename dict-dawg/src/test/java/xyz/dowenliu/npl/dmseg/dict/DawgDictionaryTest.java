@@ -0,0 +1,139 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import xyz.dowenliu.npl.dmseg.dict.loader.DawgDictionaryLoader;
+
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DawgDictionaryTest {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private DawgDictionary dict;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dict = new DawgDictionaryBuilder()
+                .add("and")
+                .add("ant", "n")
+                .add("but")
+                .add("button")
+                .add("cute")
+                .add("cute", "adj")
+                .add("中国")
+                .add("中国人", "n")
+                .bookTag("TEST")
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(7, dict.size());
+        assertEquals("TEST", dict.dictionaryBookTag());
+    }
+
+    @Test
+    public void testContains() {
+        assertTrue(dict.contains("ant"));
+        assertTrue(dict.contains("中国人"));
+        assertFalse(dict.contains("an"));
+        assertFalse(dict.contains("buttons"));
+        assertFalse(dict.contains(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() {
+        new DawgDictionaryBuilder().add("b").add("a");
+    }
+
+    @Test
+    public void testSpeeches() {
+        CharBuffer buffer = CharBuffer.wrap("cute中国人");
+        List<Word> words = dict.dictMatch(buffer);
+        assertEquals(1, words.size());
+        assertTrue(words.get(0).getSpeeches().contains("adj"));
+        buffer.position(4);
+        words = dict.dictMatch(buffer);
+        assertEquals(2, words.size());
+        assertTrue(words.get(0).getSpeeches().isEmpty());
+        assertTrue(words.get(1).getSpeeches().contains("n"));
+    }
+
+    @Test
+    public void testSuffixSharing() {
+        DawgDictionary shared = new DawgDictionaryBuilder()
+                .add("北京大学")
+                .add("南京大学")
+                .add("复旦大学")
+                .add("武汉大学")
+                .build();
+        // 根、“京大学”（北、南共用）、“旦大学”、“汉大学”、“大学”、“学”、词尾，字典树则需要17个节点
+        assertEquals(4, shared.size());
+        assertEquals(7, shared.nodeCount());
+        logger.info("nodes: " + shared.nodeCount() + ", edges: " + shared.edgeCount());
+        for (String word : new String[]{"北京大学", "南京大学", "复旦大学", "武汉大学"}) {
+            assertTrue(shared.contains(word));
+        }
+        assertFalse(shared.contains("北京大"));
+    }
+
+    @Test
+    public void testIterator() {
+        int paths = 0;
+        int words = 0;
+        for (AbstractReadOnlyDictionary.NodeWordPath path : dict) {
+            paths++;
+            if (path.isFinishWord()) {
+                words++;
+                assertEquals(path.toString(), path.getWord().getValue());
+            }
+        }
+        assertEquals(17, paths);
+        assertEquals(dict.size(), words);
+    }
+
+    @Test
+    public void testBuildFromRamHashed() {
+        RamHashedDictionary ramHashed = new RamHashedDictionary();
+        for (String word : new String[]{"中国", "中国人", "美国人", "中华", "人民", "a", "ab"}) {
+            ramHashed.add(word, word.length() > 2 ? "n" : "x");
+        }
+        DawgDictionary copy = DawgDictionaryBuilder.build(ramHashed);
+        assertEquals(ramHashed.size(), copy.size());
+        for (RamHashedDictionary.HashWordPath path : ramHashed) {
+            assertEquals(path.isFinishWord(), copy.contains(path.toString()));
+        }
+        for (AbstractReadOnlyDictionary.NodeWordPath path : copy) {
+            if (path.isFinishWord()) {
+                assertEquals(path.getWord().getValue().length() > 2, path.getWord().getSpeeches().contains("n"));
+            }
+        }
+    }
+
+    @Test
+    public void testLoader() {
+        DawgDictionary loaded = new DawgDictionaryLoader().readIn(new StringReader("中国人\n中国 1\n"));
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.contains("中国"));
+    }
+}
@@ -0,0 +1,195 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.nio.CharBuffer;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * 使用双数组（Double-Array Trie）实现的不可变字典。
+ * <p>每个节点占用 {@code base}、{@code check}、{@code speechIds} 三个int数组中的一个槽位，
+ * 从节点 s 经字 c 转移到 t = base[s] + c，当且仅当 check[t] == s 时转移成立。
+ * 查找一步只需几次数组下标运算，没有装箱和对象指针跳转。</p>
+ * <p>实例由 {@link DoubleArrayDictionaryBuilder} 构建，构建后不能修改。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class DoubleArrayDictionary extends AbstractReadOnlyDictionary {
+    /**
+     * 空闲槽位的check值
+     */
+    static final int FREE = -1;
+    /**
+     * 根节点槽位的check值
+     */
+    static final int ROOT_CHECK = -2;
+    /**
+     * 非词节点的词性序号
+     */
+    static final int NOT_WORD = -1;
+
+    final int[] base;
+    final int[] check;
+    /**
+     * 节点的词性组合序号，{@link #NOT_WORD} 表示不是词边界
+     */
+    final int[] speechIds;
+    /**
+     * 去重后的词性组合表
+     */
+    final String[][] speechTable;
+    private final int size;
+    private volatile int[][] childIndex;
+
+    DoubleArrayDictionary(int[] base, int[] check, int[] speechIds, String[][] speechTable, int size) {
+        this.base = base;
+        this.check = check;
+        this.speechIds = speechIds;
+        this.speechTable = speechTable;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 双数组槽位数
+     *
+     * @return 槽位数
+     */
+    public int capacity() {
+        return this.check.length;
+    }
+
+    @Override
+    protected long estimateBytes() {
+        int[][] index = this.childIndex;
+        long bytes = DictionaryStats.objectBytes(5 * DictionaryStats.REFERENCE + 4 + 8)
+                + 3 * DictionaryStats.arrayBytes(4, this.check.length)
+                + DictionaryStats.speechTableBytes(this.speechTable);
+        if (index != null) {
+            bytes += DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, index.length);
+            for (int[] children : index) {
+                bytes += children == null ? 0 : DictionaryStats.arrayBytes(4, children.length);
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    protected long rootState() {
+        return 0L;
+    }
+
+    @Override
+    protected long next(long state, char fork) {
+        return this.transition((int) state, fork);
+    }
+
+    private int transition(int s, char c) {
+        int t = this.base[s] + c;
+        if (t < 0 || t >= this.check.length || this.check[t] != s) {
+            return FREE;
+        }
+        return t;
+    }
+
+    @Override
+    protected boolean isWord(long state) {
+        return this.speechIds[(int) state] != NOT_WORD;
+    }
+
+    @Override
+    protected String[] speechesOf(long state) {
+        return this.speechTable[this.speechIds[(int) state]];
+    }
+
+    @Override
+    public boolean contains(String word) {
+        if (word == null || word.isEmpty()) {
+            return false;
+        }
+        int s = 0;
+        for (int i = 0; i < word.length(); i++) {
+            s = this.transition(s, word.charAt(i));
+            if (s < 0) {
+                return false;
+            }
+        }
+        return this.speechIds[s] != NOT_WORD;
+    }
+
+    @Override
+    public List<Word> dictMatch(CharBuffer charBuffer) {
+        List<Word> words = new LinkedList<>();
+        int start = charBuffer.position();
+        int s = 0;
+        while (charBuffer.remaining() > 0) {
+            s = this.transition(s, charBuffer.get());
+            if (s < 0) {
+                break;
+            }
+            int speechId = this.speechIds[s];
+            if (speechId != NOT_WORD) {
+                char[] value = new char[charBuffer.position() - start];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = charBuffer.get(start + i);
+                }
+                words.add(new Word(new String(value), this.speechTable[speechId]));
+            }
+        }
+        return words;
+    }
+
+    @Override
+    protected void forEachChild(long state, ChildVisitor visitor) {
+        int[][] index = this.childIndex();
+        int s = (int) state;
+        int[] starts = index[0];
+        int[] children = index[1];
+        for (int i = starts[s]; i < starts[s + 1]; i++) {
+            int t = children[i];
+            visitor.visit((char) (t - this.base[s]), t);
+        }
+    }
+
+    /**
+     * 双数组只能通过check反查父节点，枚举子节点时在首次使用时按父节点对所有槽位做一次计数排序，
+     * 建立压缩的子节点索引，此后复用。
+     *
+     * @return [0] 各节点子节点在 [1] 中的起始位置，[1] 按父节点、分叉值排序的子节点槽位
+     */
+    private int[][] childIndex() {
+        int[][] index = this.childIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = this.childIndex;
+                if (index == null) {
+                    int length = this.check.length;
+                    int[] starts = new int[length + 1];
+                    for (int t = 1; t < length; t++) {
+                        if (this.check[t] >= 0) {
+                            starts[this.check[t] + 1]++;
+                        }
+                    }
+                    for (int s = 0; s < length; s++) {
+                        starts[s + 1] += starts[s];
+                    }
+                    int[] children = new int[starts[length]];
+                    int[] fill = new int[length];
+                    for (int t = 1; t < length; t++) {
+                        int s = this.check[t];
+                        if (s >= 0) {
+                            children[starts[s] + fill[s]++] = t;
+                        }
+                    }
+                    index = new int[][]{starts, children};
+                    this.childIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,253 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import xyz.dowenliu.npl.dmseg.dict.loader.WordRecordReader;
+
+import java.util.*;
+
+/**
+ * {@link DoubleArrayDictionary} 构建器。收集词后一次性按字典序构建双数组。
+ * <p>重复加入的词以最后一次加入的词性为准。</p>
+ * <p>此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DoubleArrayDictionaryBuilder {
+    private static final String[] NO_SPEECHES = new String[0];
+    private final TreeMap<String, String[]> words = new TreeMap<>();
+    private String bookTag = "DM-SEG";
+
+    // 构建过程中的状态
+    private int[] base;
+    private int[] check;
+    private int[] speechIds;
+    private int nextCheckPos;
+    private int maxSlot;
+    private String[] keys;
+    private int[] keySpeechIds;
+
+    /**
+     * 设置构建出的字典的书名标记
+     *
+     * @param bookTag 字典书名标记
+     * @return this
+     */
+    public DoubleArrayDictionaryBuilder bookTag(String bookTag) {
+        this.bookTag = bookTag;
+        return this;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word     词
+     * @param speeches 词性列表
+     * @return this
+     */
+    public DoubleArrayDictionaryBuilder add(String word, String... speeches) {
+        if (word == null || word.isEmpty()) {
+            return this;
+        }
+        this.words.put(word, speeches == null ? NO_SPEECHES : speeches);
+        return this;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word 词
+     * @return this
+     */
+    public DoubleArrayDictionaryBuilder add(Word word) {
+        String[] speeches = new String[word.getSpeeches().size()];
+        return this.add(word.getValue(), word.getSpeeches().toArray(speeches));
+    }
+
+    /**
+     * 加入另一字典中的所有词，如 {@code RamHashedDictionary}
+     *
+     * @param dictionary 字典
+     * @return this
+     */
+    public DoubleArrayDictionaryBuilder addAll(Dictionary<?> dictionary) {
+        for (WordPath path : dictionary) {
+            if (path.isFinishWord()) {
+                this.add(path.getWord());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 加入词记录集中的所有词
+     *
+     * @param reader 词记录集读取器
+     * @return this
+     */
+    public DoubleArrayDictionaryBuilder addAll(WordRecordReader reader) {
+        while (reader.hasNextWord()) {
+            this.add(reader.nextWord());
+        }
+        return this;
+    }
+
+    /**
+     * 由基础字典应用增量补丁构建新字典，新字典的版本为补丁的目标版本
+     *
+     * @param base  基础字典
+     * @param delta 增量补丁
+     * @return 新的字典对象
+     * @throws IllegalStateException 字典版本与补丁基础版本不匹配
+     */
+    public static DoubleArrayDictionary build(Dictionary<?> base, DictionaryDelta delta) {
+        DoubleArrayDictionaryBuilder builder = new DoubleArrayDictionaryBuilder().bookTag(base.dictionaryBookTag());
+        for (Word word : delta.merge(base)) {
+            builder.add(word);
+        }
+        DoubleArrayDictionary dictionary = builder.build();
+        dictionary.setVersion(delta.getVersion());
+        return dictionary;
+    }
+
+    /**
+     * 构建字典。构建后本构建器仍保留已加入的词，可继续加入词后再次构建。
+     *
+     * @return 新的字典对象
+     */
+    public DoubleArrayDictionary build() {
+        this.keys = this.words.keySet().toArray(new String[this.words.size()]);
+        this.keySpeechIds = new int[this.keys.length];
+        List<String[]> speechTable = this.internSpeeches();
+        int initial = Math.max(1024, this.keys.length * 2);
+        this.base = new int[initial];
+        this.check = new int[initial];
+        this.speechIds = new int[initial];
+        Arrays.fill(this.check, DoubleArrayDictionary.FREE);
+        Arrays.fill(this.speechIds, DoubleArrayDictionary.NOT_WORD);
+        this.check[0] = DoubleArrayDictionary.ROOT_CHECK;
+        this.nextCheckPos = 1;
+        this.maxSlot = 0;
+        if (this.keys.length > 0) {
+            this.insert(0, 0, this.keys.length, 0);
+        }
+        int length = this.maxSlot + 1;
+        DoubleArrayDictionary dictionary = new DoubleArrayDictionary(
+                Arrays.copyOf(this.base, length),
+                Arrays.copyOf(this.check, length),
+                Arrays.copyOf(this.speechIds, length),
+                speechTable.toArray(new String[speechTable.size()][]),
+                this.keys.length);
+        dictionary.setBookTag(this.bookTag);
+        this.base = null;
+        this.check = null;
+        this.speechIds = null;
+        this.keys = null;
+        this.keySpeechIds = null;
+        return dictionary;
+    }
+
+    private List<String[]> internSpeeches() {
+        List<String[]> table = new ArrayList<>();
+        Map<List<String>, Integer> ids = new HashMap<>();
+        int i = 0;
+        for (String[] speeches : this.words.values()) {
+            List<String> key = Arrays.asList(speeches);
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = table.size();
+                ids.put(key, id);
+                table.add(speeches);
+            }
+            this.keySpeechIds[i++] = id;
+        }
+        return table;
+    }
+
+    /**
+     * 将 keys[left, right) 中第depth个字起的部分插入到节点parent下。这些词的前depth个字都相同。
+     */
+    private void insert(int parent, int left, int right, int depth) {
+        if (this.keys[left].length() == depth) { // 有序且不重复，只可能是第一个
+            this.speechIds[parent] = this.keySpeechIds[left];
+            left++;
+        }
+        if (left >= right) {
+            return;
+        }
+        // 收集分叉
+        int count = 0;
+        char[] codes = new char[right - left];
+        int[] bounds = new int[right - left + 1];
+        for (int i = left; i < right; i++) {
+            char c = this.keys[i].charAt(depth);
+            if (count == 0 || codes[count - 1] != c) {
+                codes[count] = c;
+                bounds[count] = i;
+                count++;
+            }
+        }
+        bounds[count] = right;
+        int b = this.findBase(codes, count);
+        this.base[parent] = b;
+        for (int i = 0; i < count; i++) {
+            int t = b + codes[i];
+            this.check[t] = parent;
+            if (t > this.maxSlot) {
+                this.maxSlot = t;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            this.insert(b + codes[i], bounds[i], bounds[i + 1], depth + 1);
+        }
+    }
+
+    private int findBase(char[] codes, int count) {
+        int first = codes[0];
+        int last = codes[count - 1];
+        int pos = this.nextCheckPos;
+        int occupied = 0;
+        boolean firstFree = true;
+        while (true) {
+            this.ensureCapacity(pos + 1);
+            if (this.check[pos] != DoubleArrayDictionary.FREE) {
+                occupied++;
+                pos++;
+                continue;
+            }
+            if (firstFree) {
+                this.nextCheckPos = pos;
+                firstFree = false;
+            }
+            int b = pos - first;
+            this.ensureCapacity(b + last + 1);
+            boolean fit = true;
+            for (int i = 1; i < count; i++) {
+                if (this.check[b + codes[i]] != DoubleArrayDictionary.FREE) {
+                    fit = false;
+                    break;
+                }
+            }
+            if (fit) {
+                // 扫过的区域已基本占满，下次不再从这里开始找
+                if ((double) occupied / (pos - this.nextCheckPos + 1) >= 0.95) {
+                    this.nextCheckPos = pos;
+                }
+                return b;
+            }
+            pos++;
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (length <= this.check.length) {
+            return;
+        }
+        int newLength = Math.max(length, this.check.length + (this.check.length >> 1));
+        int oldLength = this.check.length;
+        this.base = Arrays.copyOf(this.base, newLength);
+        this.check = Arrays.copyOf(this.check, newLength);
+        this.speechIds = Arrays.copyOf(this.speechIds, newLength);
+        Arrays.fill(this.check, oldLength, newLength, DoubleArrayDictionary.FREE);
+        Arrays.fill(this.speechIds, oldLength, newLength, DoubleArrayDictionary.NOT_WORD);
+    }
+}
@@ -0,0 +1,236 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import xyz.dowenliu.npl.dmseg.dict.loader.SimpleLineWordRecordReader;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * {@link DoubleArrayDictionary} 的二进制快照。快照直接保存构建好的双数组，
+ * 载入时整块读入数组即可使用，不需要逐词解析与插入。
+ * <p>快照格式（大端字节序）：魔数(int)、版本(int)、书名标记(UTF)、字典版本(long)、词数(int)、槽位数(int)、
+ * base(int[槽位数])、check(int[槽位数])、speechIds(int[槽位数])、词性组合数(int)、
+ * 各词性组合(词性数(int)、词性(UTF)...)，最后是以上所有字节的CRC32校验值(int)。
+ * 版本1的快照没有字典版本字段，读入后字典版本为 0。</p>
+ * <p>可以在构建时预编译快照：</p>
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=xyz.dowenliu.npl.dmseg.dict.DoubleArraySnapshot \
+ *     -Dexec.args="target/classes/ik.dmda src/main/dict/ik.txt"
+ * </pre>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class DoubleArraySnapshot {
+    /**
+     * 魔数 "DMDA"
+     */
+    public static final int MAGIC = 0x444D4441;
+    /**
+     * 当前快照版本
+     */
+    public static final int VERSION = 2;
+    /**
+     * 快照文件的约定扩展名
+     */
+    public static final String FILE_SUFFIX = ".dmda";
+    private static final int BLOCK = 1 << 16;
+
+    private DoubleArraySnapshot() {
+    }
+
+    /**
+     * 写出快照
+     *
+     * @param dictionary 字典
+     * @param out        输出流，写出后不会关闭
+     * @throws IOException 发生了IO错误
+     */
+    public static void write(DoubleArrayDictionary dictionary, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BLOCK);
+        CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+        DataOutputStream data = new DataOutputStream(checked);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(dictionary.dictionaryBookTag());
+        data.writeLong(dictionary.version());
+        data.writeInt(dictionary.size());
+        data.writeInt(dictionary.check.length);
+        writeInts(data, dictionary.base);
+        writeInts(data, dictionary.check);
+        writeInts(data, dictionary.speechIds);
+        data.writeInt(dictionary.speechTable.length);
+        for (String[] speeches : dictionary.speechTable) {
+            data.writeInt(speeches.length);
+            for (String speech : speeches) {
+                data.writeUTF(speech);
+            }
+        }
+        data.flush();
+        new DataOutputStream(buffered).writeInt((int) checked.getChecksum().getValue());
+        buffered.flush();
+    }
+
+    /**
+     * 写出快照文件
+     *
+     * @param dictionary 字典
+     * @param file       快照文件
+     * @throws IOException 发生了IO错误
+     */
+    public static void write(DoubleArrayDictionary dictionary, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(dictionary, out);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(BLOCK);
+        for (int i = 0; i < values.length; ) {
+            int n = Math.min(BLOCK / 4, values.length - i);
+            block.clear();
+            block.asIntBuffer().put(values, i, n);
+            out.write(block.array(), 0, n * 4);
+            i += n;
+        }
+    }
+
+    /**
+     * 读入快照
+     *
+     * @param in 输入流，读入后不会关闭
+     * @return 字典
+     * @throws IOException 发生了IO错误，或快照格式、版本、校验值不正确
+     */
+    public static DoubleArrayDictionary read(InputStream in) throws IOException {
+        return read(in, Long.MAX_VALUE);
+    }
+
+    /**
+     * 读入快照。文件头中的各个数量在校验之前就要使用，因此先检查其不为负、不超过快照长度，
+     * 数组也随读入的数据逐步加长，损坏或截断的快照只会抛出 {@link IOException}，不会按错误的数量分配内存。
+     *
+     * @param limit 快照的字节数上限，未知时为 {@link Long#MAX_VALUE}
+     */
+    private static DoubleArrayDictionary read(InputStream in, long limit) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BLOCK);
+        CheckedInputStream checked = new CheckedInputStream(buffered, new CRC32());
+        DataInputStream data = new DataInputStream(checked);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("不是双数组字典快照");
+        }
+        int version = data.readInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("不支持的快照版本：" + version);
+        }
+        String bookTag = data.readUTF();
+        long dictionaryVersion = version == 1 ? 0L : data.readLong();
+        int size = checkCount(data.readInt(), 0L, limit, "词数");
+        int length = checkCount(data.readInt(), 12L, limit, "槽位数");
+        int[] base = readInts(data, length);
+        int[] check = readInts(data, length);
+        int[] speechIds = readInts(data, length);
+        int combinations = checkCount(data.readInt(), 4L, limit, "词性组合数");
+        List<String[]> speechList = new ArrayList<>(Math.min(combinations, BLOCK));
+        for (int i = 0; i < combinations; i++) {
+            int count = checkCount(data.readInt(), 2L, limit, "词性数");
+            List<String> speeches = new ArrayList<>(Math.min(count, 16));
+            for (int j = 0; j < count; j++) {
+                speeches.add(data.readUTF());
+            }
+            speechList.add(speeches.toArray(new String[0]));
+        }
+        String[][] speechTable = speechList.toArray(new String[0][]);
+        int checksum = (int) checked.getChecksum().getValue();
+        if (new DataInputStream(buffered).readInt() != checksum) {
+            throw new IOException("快照校验失败");
+        }
+        DoubleArrayDictionary dictionary = new DoubleArrayDictionary(base, check, speechIds, speechTable, size);
+        dictionary.setBookTag(bookTag);
+        dictionary.setVersion(dictionaryVersion);
+        return dictionary;
+    }
+
+    /**
+     * 读入快照文件
+     *
+     * @param file 快照文件
+     * @return 字典
+     * @throws IOException 发生了IO错误，或快照格式、版本、校验值不正确
+     */
+    public static DoubleArrayDictionary read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, Files.size(file));
+        }
+    }
+
+    /**
+     * 检查文件头中的数量
+     *
+     * @param count     数量
+     * @param bytesEach 每个元素至少占用的字节数
+     * @param limit     快照的字节数上限
+     * @param name      数量的名称
+     * @return 数量
+     * @throws IOException 数量为负或超出快照长度
+     */
+    private static int checkCount(int count, long bytesEach, long limit, String name) throws IOException {
+        if (count < 0 || count * bytesEach > limit) {
+            throw new IOException("快照已损坏，" + name + "不正确：" + count);
+        }
+        return count;
+    }
+
+    /**
+     * 读入整数数组，数组随读入的数据加长，截断的快照在分配出完整数组之前就会遇到文件结尾
+     */
+    private static int[] readInts(DataInputStream in, int length) throws IOException {
+        int[] values = new int[Math.min(length, BLOCK / 4)];
+        byte[] block = new byte[BLOCK];
+        for (int i = 0; i < length; ) {
+            int n = Math.min(BLOCK / 4, length - i);
+            if (i + n > values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(length, 2L * values.length));
+            }
+            in.readFully(block, 0, n * 4);
+            ByteBuffer.wrap(block, 0, n * 4).asIntBuffer().get(values, i, n);
+            i += n;
+        }
+        return values;
+    }
+
+    /**
+     * 预编译快照。
+     * <p>参数：快照文件 文本字典文件(UTF-8)...</p>
+     *
+     * @param args 参数
+     * @throws IOException 发生了IO错误
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: DoubleArraySnapshot <快照文件> <文本字典文件>...");
+            System.exit(1);
+        }
+        DoubleArrayDictionaryBuilder builder = new DoubleArrayDictionaryBuilder();
+        for (int i = 1; i < args.length; i++) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(args[i]), StandardCharsets.UTF_8)) {
+                builder.addAll(new SimpleLineWordRecordReader(reader));
+            }
+        }
+        Path snapshot = Paths.get(args[0]);
+        if (snapshot.getParent() != null) {
+            Files.createDirectories(snapshot.getParent());
+        }
+        write(builder.build(), snapshot);
+    }
+}
@@ -0,0 +1,39 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.DoubleArrayDictionary;
+import xyz.dowenliu.npl.dmseg.dict.DoubleArrayDictionaryBuilder;
+
+import java.io.Reader;
+
+/**
+ * 双数组字典加载器。双数组字典不可变，不支持 {@link #apply(DoubleArrayDictionary, WordRecordReader)}。
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DoubleArrayDictionaryLoader extends AbstractDictionaryLoader<DoubleArrayDictionary> {
+    @Override
+    public WordRecordReader wrapReader(Reader reader) {
+        return new SimpleLineWordRecordReader(reader);
+    }
+
+    @Override
+    public DoubleArrayDictionary readIn(Reader reader) {
+        return this.readIn(this.wrapReader(reader));
+    }
+
+    @Override
+    public DoubleArrayDictionary readIn(WordRecordReader reader) {
+        return new DoubleArrayDictionaryBuilder().addAll(reader).build();
+    }
+
+    /**
+     * 不支持
+     *
+     * @throws UnsupportedOperationException 双数组字典不可变
+     */
+    @Override
+    public void apply(DoubleArrayDictionary dictionary, WordRecordReader reader) {
+        throw new UnsupportedOperationException("双数组字典不可变，请使用DoubleArrayDictionaryBuilder重新构建");
+    }
+}
@@ -0,0 +1,205 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import xyz.dowenliu.npl.dmseg.dict.loader.DoubleArrayDictionaryLoader;
+
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DoubleArrayDictionaryTest {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private DoubleArrayDictionary dict;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dict = new DoubleArrayDictionaryBuilder()
+                .add("and")
+                .add("ant", "n")
+                .add("but")
+                .add("button")
+                .add("cute")
+                .add("cute")
+                .add("中国")
+                .add("中国人")
+                .bookTag("TEST")
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testBookTag() {
+        assertEquals("TEST", dict.dictionaryBookTag());
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(7, dict.size());
+    }
+
+    @Test
+    public void testContains() {
+        assertTrue(dict.contains("ant"));
+        assertTrue(dict.contains("中国人"));
+        assertFalse(dict.contains("an"));
+        assertFalse(dict.contains("done"));
+        assertFalse(dict.contains(""));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAdd() {
+        dict.add("an");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemove() {
+        dict.remove("ant");
+    }
+
+    private class MockWordPath extends WordPath<MockWordPath> {
+        Map<Character, MockWordPath> branches;
+
+        public MockWordPath(WordPath parentPath, char fork) {
+            super(parentPath, fork);
+            this.branches = Collections.synchronizedMap(new HashMap<>());
+        }
+
+        @Override
+        public Map<Character, MockWordPath> getBranches() {
+            return this.branches;
+        }
+    }
+
+    @Test
+    public void testWithPrefix() {
+        assertEquals(1, dict.withPrefix(new MockWordPath(null, 'c')).size());
+        assertEquals('u', dict.withPrefix(new MockWordPath(null, 'c')).iterator().next().fork);
+        assertEquals(2, dict.withPrefix(new MockWordPath(new MockWordPath(null, 'a'), 'n')).size());
+        assertNull(dict.withPrefix(new MockWordPath(null, 'd')));
+    }
+
+    @Test
+    public void testIterator() {
+        int paths = 0;
+        int words = 0;
+        for (AbstractReadOnlyDictionary.NodeWordPath path : dict) {
+            assertNotNull(path);
+            paths++;
+            if (path.isFinishWord()) {
+                words++;
+                assertEquals(path.toString(), path.getWord().getValue());
+            }
+        }
+        assertEquals(17, paths);
+        assertEquals(dict.size(), words);
+    }
+
+    @Test
+    public void testDictMatch() {
+        String source = "anbuttonrefertoantgourp";
+        CharBuffer buffer = CharBuffer.wrap(source);
+        List<Word> words = this.dict.dictMatch(buffer);
+        assertEquals(0, words.size());
+        buffer.rewind();
+        buffer.get();
+        buffer.get();
+        words = this.dict.dictMatch(buffer);
+        assertEquals(2, words.size());
+        assertEquals("but", words.get(0).getValue());
+        assertEquals("button", words.get(1).getValue());
+        buffer.position(15);
+        words = this.dict.dictMatch(buffer);
+        assertEquals(1, words.size());
+        assertTrue(words.get(0).getSpeeches().contains("n"));
+    }
+
+    @Test
+    public void testBuildFromRamHashed() {
+        RamHashedDictionary ramHashed = new RamHashedDictionary();
+        for (String word : new String[]{"中国", "中国人", "中华", "人民", "a", "ab"}) {
+            ramHashed.add(word);
+        }
+        DoubleArrayDictionary copy = new DoubleArrayDictionaryBuilder().addAll(ramHashed).build();
+        assertEquals(ramHashed.size(), copy.size());
+        for (RamHashedDictionary.HashWordPath path : ramHashed) {
+            assertEquals(path.isFinishWord(), copy.contains(path.toString()));
+        }
+        logger.info("slots: " + copy.capacity());
+    }
+
+    @Test
+    public void testLoader() {
+        DoubleArrayDictionary loaded = new DoubleArrayDictionaryLoader().readIn(new StringReader("中国\n中国人 1\n"));
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.contains("中国人"));
+    }
+
+    @Test
+    public void testDictMatchEnds() {
+        String source = "anbuttonrefertoantgourp";
+        int[] ends = new int[4];
+        assertEquals(0, this.dict.dictMatch(source, 0, ends));
+        assertEquals(2, this.dict.dictMatch(source, 2, ends));
+        assertEquals(5, ends[0]);
+        assertEquals(8, ends[1]);
+        assertEquals(1, this.dict.dictMatch(source, 2, new int[1]));
+        assertEquals(1, this.dict.dictMatch(source.toCharArray(), 2, 7, ends));
+        assertEquals(5, ends[0]);
+        StringBuilder matched = new StringBuilder();
+        this.dict.dictMatch(CharBuffer.wrap(source, 15, source.length()), 0,
+                (end, word) -> matched.append(end).append(word.getValue()).append(word.getSpeeches()));
+        assertEquals("3ant[n]", matched.toString());
+    }
+
+    @Test
+    public void testDictMatchIds() {
+        String source = "anbuttonrefertoantgourp";
+        List<Integer> ends = new ArrayList<>();
+        List<Long> wordIds = new ArrayList<>();
+        this.dict.dictMatchIds(source, 2, (end, wordId) -> {
+            ends.add(end);
+            wordIds.add(wordId);
+        });
+        assertEquals(Arrays.asList(5, 8), ends);
+        assertEquals("button", this.dict.wordOf(source, 2, 8, wordIds.get(1)).getValue());
+        this.dict.dictMatchIds(source, 15, (end, wordId) -> {
+            Word word = this.dict.wordOf(source, 15, end, wordId);
+            assertEquals("ant", word.getValue());
+            assertEquals(Collections.singleton("n"), word.getSpeeches());
+        });
+    }
+
+    @Test
+    public void testMayStartWith() {
+        assertTrue(this.dict.mayStartWith('a'));
+        assertTrue(this.dict.mayStartWith('中'));
+        assertFalse(this.dict.mayStartWith('国'));
+        assertFalse(this.dict.mayStartWith(' '));
+        assertTrue(CompositeDictionary.of(this.dict).mayStartWith('中'));
+        assertFalse(CompositeDictionary.of(this.dict).mayStartWith('国'));
+    }
+}
@@ -0,0 +1,134 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DoubleArraySnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private DoubleArrayDictionary dict;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dict = new DoubleArrayDictionaryBuilder()
+                .add("and")
+                .add("ant", "n")
+                .add("中国")
+                .add("中国人", "n", "名词")
+                .bookTag("TEST")
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DoubleArraySnapshot.write(dict, out);
+        DoubleArrayDictionary copy = DoubleArraySnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals("TEST", copy.dictionaryBookTag());
+        assertEquals(dict.size(), copy.size());
+        assertArrayEquals(dict.base, copy.base);
+        assertArrayEquals(dict.check, copy.check);
+        assertArrayEquals(dict.speechIds, copy.speechIds);
+        assertTrue(copy.contains("中国人"));
+        for (AbstractReadOnlyDictionary.NodeWordPath path : copy) {
+            if ("中国人".equals(path.toString())) {
+                assertTrue(path.getWord().getSpeeches().containsAll(Arrays.asList("n", "名词")));
+            }
+        }
+    }
+
+    @Test
+    public void testDelta() throws IOException {
+        dict.setVersion(7);
+        DoubleArrayDictionary patched = DoubleArrayDictionaryBuilder.build(dict,
+                DictionaryDelta.builder(7, 8).remove("ant").add("中华", "nz").updateSpeeches("and", "c").build());
+        assertEquals(8, patched.version());
+        assertEquals("TEST", patched.dictionaryBookTag());
+        assertEquals(4, patched.size());
+        assertFalse(patched.contains("ant"));
+        assertTrue(patched.contains("中华"));
+        assertTrue(dict.contains("ant"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DoubleArraySnapshot.write(patched, out);
+        assertEquals(8, DoubleArraySnapshot.read(new ByteArrayInputStream(out.toByteArray())).version());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorrupted() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DoubleArraySnapshot.write(dict, out);
+        byte[] bytes = out.toByteArray();
+        bytes[bytes.length / 2] ^= 0x10;
+        DoubleArraySnapshot.read(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void testCorruptedHeader() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DoubleArraySnapshot.write(dict, out);
+        byte[] bytes = out.toByteArray();
+        // 魔数、版本、书名标记、字典版本、词数之后是槽位数
+        int lengthOffset = 4 + 4 + 2 + dict.dictionaryBookTag().getBytes(StandardCharsets.UTF_8).length + 8 + 4;
+        Path file = folder.newFile("corrupted" + DoubleArraySnapshot.FILE_SUFFIX).toPath();
+        for (int length : new int[]{-1, Integer.MAX_VALUE, Integer.MAX_VALUE / 12}) {
+            byte[] corrupted = bytes.clone();
+            ByteBuffer.wrap(corrupted).putInt(lengthOffset, length);
+            assertCorrupted(() -> DoubleArraySnapshot.read(new ByteArrayInputStream(corrupted)));
+            Files.write(file, corrupted);
+            assertCorrupted(() -> DoubleArraySnapshot.read(file));
+        }
+        byte[] truncated = Arrays.copyOf(bytes, lengthOffset + 8);
+        assertCorrupted(() -> DoubleArraySnapshot.read(new ByteArrayInputStream(truncated)));
+    }
+
+    private interface SnapshotRead {
+        void read() throws IOException;
+    }
+
+    private void assertCorrupted(SnapshotRead read) {
+        try {
+            read.read();
+            fail("损坏的快照应抛出IOException");
+        } catch (IOException e) {
+            // 期望的结果
+        }
+    }
+
+    @Test
+    public void testPrecompile() throws IOException {
+        Path text = folder.newFile("dict.txt").toPath();
+        Files.write(text, "中国\n中国人\nabc\n".getBytes(StandardCharsets.UTF_8));
+        Path snapshot = folder.getRoot().toPath().resolve("out/dict" + DoubleArraySnapshot.FILE_SUFFIX);
+        DoubleArraySnapshot.main(new String[]{snapshot.toString(), text.toString()});
+        DoubleArrayDictionary loaded = DoubleArraySnapshot.read(snapshot);
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.contains("abc"));
+    }
+}
@@ -0,0 +1,355 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import xyz.dowenliu.npl.dmseg.dict.loader.MappedWordRecordReader;
+import xyz.dowenliu.npl.dmseg.dict.loader.WordRecordReader;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * 外部排序的字典镜像构建器，用于堆内存容纳不下的超大词表。
+ * <p>词不需要有序。加入的词先在内存中攒成一段，攒满 {@link #runSize(int)} 个词后排序写入临时文件；
+ * 构建时多路归并各段，按字典序流式交给 {@link TrieImageWriter}。堆内存占用只取决于段大小与归并路数，与词数无关。</p>
+ * <p>重复的词以最后加入的词性为准。加入的词是 {@link FrequencyWord} 时可以按 {@link #minFrequency(long)} 过滤，
+ * 字典镜像本身不保存词频。临时文件在构建完成或失败后删除。</p>
+ * <p>此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class ExternalTrieImageBuilder {
+    /**
+     * 默认段大小
+     */
+    public static final int DEFAULT_RUN_SIZE = 1 << 20;
+    /**
+     * 一次归并的最多段数，超过时先把较早的段归并成一段
+     */
+    static final int MAX_MERGE = 64;
+    private static final Comparator<Word> BY_VALUE = Comparator.comparing(Word::getValue);
+
+    private final Path tempDirectory;
+    private int runSize = DEFAULT_RUN_SIZE;
+    private long minFrequency = 0L;
+    private long version = 0L;
+    private Word[] buffer;
+    private int buffered = 0;
+    private final List<Path> runs = new ArrayList<>();
+    private boolean built = false;
+
+    /**
+     * 临时文件放在系统临时目录中
+     */
+    public ExternalTrieImageBuilder() {
+        this(Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param tempDirectory 临时文件目录，需要有与词表相当的剩余空间
+     */
+    public ExternalTrieImageBuilder(Path tempDirectory) {
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * 设置段大小，必须在加入词之前设置
+     *
+     * @param runSize 内存中排序的最多词数
+     * @return this
+     * @throws IllegalArgumentException 段大小小于 1
+     * @throws IllegalStateException    已经加入了词
+     */
+    public ExternalTrieImageBuilder runSize(int runSize) {
+        if (runSize < 1) {
+            throw new IllegalArgumentException("段大小至少为1：" + runSize);
+        }
+        if (this.buffer != null) {
+            throw new IllegalStateException("已经加入了词");
+        }
+        this.runSize = runSize;
+        return this;
+    }
+
+    /**
+     * 设置最小词频，词频低于此值的 {@link FrequencyWord} 不写入字典镜像，其他词不受影响
+     *
+     * @param minFrequency 最小词频
+     * @return this
+     */
+    public ExternalTrieImageBuilder minFrequency(long minFrequency) {
+        this.minFrequency = minFrequency;
+        return this;
+    }
+
+    /**
+     * 设置写入文件头的字典版本
+     *
+     * @param version 字典版本
+     * @return this
+     */
+    public ExternalTrieImageBuilder version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word 词
+     * @return this
+     * @throws IOException           写出临时文件时发生了IO错误
+     * @throws IllegalStateException 已经构建过
+     */
+    public ExternalTrieImageBuilder add(Word word) throws IOException {
+        if (this.built) {
+            throw new IllegalStateException("已经构建过");
+        }
+        if (word.getValue().isEmpty()
+                || word instanceof FrequencyWord && ((FrequencyWord) word).getFrequency() < this.minFrequency) {
+            return this;
+        }
+        if (this.buffer == null) {
+            this.buffer = new Word[this.runSize];
+        }
+        this.buffer[this.buffered++] = word;
+        if (this.buffered == this.buffer.length) {
+            this.flush();
+        }
+        return this;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word     词
+     * @param speeches 词性列表
+     * @return this
+     * @throws IOException 写出临时文件时发生了IO错误
+     */
+    public ExternalTrieImageBuilder add(String word, String... speeches) throws IOException {
+        return this.add(new Word(word, speeches));
+    }
+
+    /**
+     * 加入词记录集中的所有词
+     *
+     * @param reader 词记录集读取器
+     * @return this
+     * @throws IOException 写出临时文件时发生了IO错误
+     */
+    public ExternalTrieImageBuilder addAll(WordRecordReader reader) throws IOException {
+        while (reader.hasNextWord()) {
+            this.add(reader.nextWord());
+        }
+        return this;
+    }
+
+    /**
+     * 以 {@link MappedWordRecordReader} 读取文本字典文件加入其中的所有词，文件可以有词性与词频列
+     *
+     * @param file 文本字典文件
+     * @return this
+     * @throws IOException 发生了IO错误
+     */
+    public ExternalTrieImageBuilder addAll(Path file) throws IOException {
+        return this.addAll(new MappedWordRecordReader(file));
+    }
+
+    /**
+     * 已写入临时文件的段数
+     *
+     * @return 段数
+     */
+    public int runCount() {
+        return this.runs.size();
+    }
+
+    /**
+     * 排序内存中的词并写成一段。排序是稳定的，同一段中重复的词只保留最后一个。
+     */
+    private void flush() throws IOException {
+        if (this.buffered == 0) {
+            return;
+        }
+        Arrays.parallelSort(this.buffer, 0, this.buffered, BY_VALUE);
+        Path run = Files.createTempFile(this.tempDirectory, "dmseg-run", ".tmp");
+        this.runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            for (int i = 0; i < this.buffered; i++) {
+                Word word = this.buffer[i];
+                if (i + 1 < this.buffered && this.buffer[i + 1].getValue().equals(word.getValue())) {
+                    continue;
+                }
+                writeRecord(out, word.getValue(), word.getSpeeches().toArray(new String[0]));
+            }
+        }
+        Arrays.fill(this.buffer, 0, this.buffered, null);
+        this.buffered = 0;
+    }
+
+    private static void writeRecord(DataOutputStream out, String word, String[] speeches) throws IOException {
+        out.writeUTF(word);
+        out.writeShort(speeches.length);
+        for (String speech : speeches) {
+            out.writeUTF(speech);
+        }
+    }
+
+    /**
+     * 归并各段写出字典镜像，并删除临时文件。构建后本构建器不能再使用。
+     *
+     * @param file 字典镜像文件，已存在时被覆盖
+     * @return 写入的词数
+     * @throws IOException           发生了IO错误
+     * @throws IllegalStateException 已经构建过
+     */
+    public long build(Path file) throws IOException {
+        if (this.built) {
+            throw new IllegalStateException("已经构建过");
+        }
+        this.built = true;
+        try {
+            this.flush();
+            this.buffer = null;
+            while (this.runs.size() > MAX_MERGE) {
+                // 较早的段归并成一段放回最前面，保持段的先后次序，重复的词仍以最后加入的为准
+                List<Path> earliest = new ArrayList<>(this.runs.subList(0, MAX_MERGE));
+                Path merged = Files.createTempFile(this.tempDirectory, "dmseg-run", ".tmp");
+                this.runs.subList(0, MAX_MERGE).clear();
+                this.runs.add(0, merged);
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(merged), 1 << 16))) {
+                    merge(earliest, (word, speeches) -> writeRecord(out, word, speeches));
+                } finally {
+                    for (Path run : earliest) {
+                        Files.deleteIfExists(run);
+                    }
+                }
+            }
+            long[] count = {0L};
+            try (TrieImageWriter writer = new TrieImageWriter(file)) {
+                writer.setVersion(this.version);
+                merge(this.runs, (word, speeches) -> {
+                    writer.add(word, speeches);
+                    count[0]++;
+                });
+            }
+            return count[0];
+        } finally {
+            for (Path run : this.runs) {
+                Files.deleteIfExists(run);
+            }
+            this.runs.clear();
+        }
+    }
+
+    /**
+     * 多路归并，相同的词只输出最后一段中的
+     */
+    private static void merge(List<Path> runs, RecordSink sink) throws IOException {
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>(Math.max(1, runs.size()));
+        List<RunCursor> cursors = new ArrayList<>(runs.size());
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                RunCursor cursor = new RunCursor(runs.get(i), i);
+                cursors.add(cursor);
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+            while (!heap.isEmpty()) {
+                RunCursor cursor = heap.poll();
+                String word = cursor.word;
+                String[] speeches = cursor.speeches;
+                while (!heap.isEmpty() && heap.peek().word.equals(word)) {
+                    // 段序号更大的后出堆，后加入的词性覆盖先前的
+                    if (cursor.advance()) {
+                        heap.add(cursor);
+                    }
+                    cursor = heap.poll();
+                    speeches = cursor.speeches;
+                }
+                sink.accept(word, speeches);
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+        } finally {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * 预编译字典镜像。
+     * <p>参数：字典镜像文件 文本字典文件(UTF-8，可有词性与词频列)...</p>
+     *
+     * @param args 参数
+     * @throws IOException 发生了IO错误
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: ExternalTrieImageBuilder <字典镜像文件> <文本字典文件>...");
+            System.exit(1);
+        }
+        ExternalTrieImageBuilder builder = new ExternalTrieImageBuilder();
+        for (int i = 1; i < args.length; i++) {
+            builder.addAll(Paths.get(args[i]));
+        }
+        Path image = Paths.get(args[0]);
+        if (image.getParent() != null) {
+            Files.createDirectories(image.getParent());
+        }
+        builder.build(image);
+    }
+
+    @FunctionalInterface
+    private interface RecordSink {
+        void accept(String word, String[] speeches) throws IOException;
+    }
+
+    /**
+     * 段的读取位置
+     */
+    private static final class RunCursor implements Comparable<RunCursor>, Closeable {
+        private final DataInputStream in;
+        private final int index;
+        String word;
+        String[] speeches;
+
+        RunCursor(Path run, int index) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+            this.index = index;
+        }
+
+        boolean advance() throws IOException {
+            try {
+                this.word = this.in.readUTF();
+            } catch (EOFException e) {
+                this.word = null;
+                return false;
+            }
+            String[] _speeches = new String[this.in.readUnsignedShort()];
+            for (int i = 0; i < _speeches.length; i++) {
+                _speeches[i] = this.in.readUTF();
+            }
+            this.speeches = _speeches;
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunCursor o) {
+            int order = this.word.compareTo(o.word);
+            return order != 0 ? order : Integer.compare(this.index, o.index);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+}
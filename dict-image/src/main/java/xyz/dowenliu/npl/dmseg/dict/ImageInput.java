@@ -0,0 +1,24 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * 字典镜像的随机读取接口。位置均为相对镜像头部的绝对字节偏移量，数据为大端字节序。
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public interface ImageInput {
+    /**
+     * 镜像长度
+     *
+     * @return 字节数
+     */
+    long length();
+
+    byte getByte(long position);
+
+    char getChar(long position);
+
+    int getInt(long position);
+
+    long getLong(long position);
+}
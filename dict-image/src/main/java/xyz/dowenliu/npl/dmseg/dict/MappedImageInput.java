@@ -0,0 +1,94 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 使用 {@link FileChannel#map(FileChannel.MapMode, long, long)} 只读映射的字典镜像。
+ * <p>数据位于操作系统页缓存中，不占用堆内存，也不会被GC扫描；多个进程映射同一文件时共享同一份物理内存。
+ * 单个 {@link MappedByteBuffer} 不能超过2GB，因此文件按块分段映射，跨块读取时逐字节拼接。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class MappedImageInput implements ImageInput {
+    /**
+     * 默认映射块大小，1GB
+     */
+    static final int DEFAULT_CHUNK_SHIFT = 30;
+
+    private final MappedByteBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final long length;
+
+    /**
+     * 映射文件
+     *
+     * @param file 字典镜像文件
+     * @throws IOException 发生了IO错误
+     */
+    public MappedImageInput(Path file) throws IOException {
+        this(file, DEFAULT_CHUNK_SHIFT);
+    }
+
+    MappedImageInput(Path file, int chunkShift) throws IOException {
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.length = channel.size();
+            int count = (int) ((this.length + this.chunkMask) >>> chunkShift);
+            this.chunks = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long position = (long) i << chunkShift;
+                long size = Math.min(1L << chunkShift, this.length - position);
+                this.chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            }
+        }
+    }
+
+    @Override
+    public long length() {
+        return this.length;
+    }
+
+    @Override
+    public byte getByte(long position) {
+        return this.chunks[(int) (position >>> this.chunkShift)].get((int) (position & this.chunkMask));
+    }
+
+    private boolean inOneChunk(long position, int size) {
+        return (position & this.chunkMask) + size <= this.chunkMask + 1;
+    }
+
+    @Override
+    public char getChar(long position) {
+        if (this.inOneChunk(position, 2)) {
+            return this.chunks[(int) (position >>> this.chunkShift)].getChar((int) (position & this.chunkMask));
+        }
+        return (char) ((this.getByte(position) & 0xFF) << 8 | (this.getByte(position + 1) & 0xFF));
+    }
+
+    @Override
+    public int getInt(long position) {
+        if (this.inOneChunk(position, 4)) {
+            return this.chunks[(int) (position >>> this.chunkShift)].getInt((int) (position & this.chunkMask));
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (this.getByte(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    @Override
+    public long getLong(long position) {
+        if (this.inOneChunk(position, 8)) {
+            return this.chunks[(int) (position >>> this.chunkShift)].getLong((int) (position & this.chunkMask));
+        }
+        return (long) this.getInt(position) << 32 | (this.getInt(position + 4) & 0xFFFFFFFFL);
+    }
+}
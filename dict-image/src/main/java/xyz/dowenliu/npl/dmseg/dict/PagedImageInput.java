@@ -0,0 +1,262 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按固定大小的页从文件读取的字典镜像，页缓存在堆内存中，按LRU淘汰。
+ * <p>适合堆内存与地址空间都容纳不下的超大字典：常驻内存的只有最近使用的若干页，与字典大小无关。
+ * 字典镜像的节点按后序排列，每棵子树在文件中是连续的一段，查找路径上的节点集中在少数几页内；
+ * 根节点附近的高层节点每次查找都会经过，总是留在缓存中，冷门子树在查到时才读入。</p>
+ * <p>最近一次使用的页另外保存在一个字段中，连续读取同一页（如二分查找一个节点的分叉值）不需要加锁，
+ * 也不计入命中数，因此命中数与未命中数统计的是换页时的缓存查找。</p>
+ * <p>此类是线程安全的。读取发生IO错误时抛出 {@link UncheckedIOException}。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class PagedImageInput implements ImageInput, Closeable {
+    /**
+     * 默认页大小，4KB
+     */
+    public static final int DEFAULT_PAGE_SIZE = 1 << 12;
+    /**
+     * 默认缓存页数
+     */
+    public static final int DEFAULT_CACHE_PAGES = 1024;
+
+    private final FileChannel channel;
+    private final long length;
+    private final int pageShift;
+    private final long pageMask;
+    private final int cachePages;
+    private final LinkedHashMap<Long, Page> cache;
+    private volatile Page last;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 以默认页大小与缓存页数打开文件
+     *
+     * @param file 字典镜像文件
+     * @throws IOException 发生了IO错误
+     */
+    public PagedImageInput(Path file) throws IOException {
+        this(file, DEFAULT_PAGE_SIZE, DEFAULT_CACHE_PAGES);
+    }
+
+    /**
+     * 打开文件
+     *
+     * @param file       字典镜像文件
+     * @param pageSize   页大小，必须是2的幂
+     * @param cachePages 最多缓存的页数，至少为 1
+     * @throws IOException              发生了IO错误
+     * @throws IllegalArgumentException 页大小不是2的幂或缓存页数小于 1
+     */
+    public PagedImageInput(Path file, int pageSize, int cachePages) throws IOException {
+        if (pageSize <= 0 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("页大小必须是2的幂：" + pageSize);
+        }
+        if (cachePages < 1) {
+            throw new IllegalArgumentException("缓存页数至少为1：" + cachePages);
+        }
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+        this.pageMask = pageSize - 1;
+        this.cachePages = cachePages;
+        this.cache = new LinkedHashMap<Long, Page>(Math.min(cachePages, 1 << 16) * 4 / 3 + 1, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Page> eldest) {
+                return this.size() > PagedImageInput.this.cachePages;
+            }
+        };
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.length = this.channel.size();
+    }
+
+    @Override
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     * 页大小
+     *
+     * @return 字节数
+     */
+    public int pageSize() {
+        return (int) this.pageMask + 1;
+    }
+
+    /**
+     * 最多缓存的页数
+     *
+     * @return 页数
+     */
+    public int cachePages() {
+        return this.cachePages;
+    }
+
+    /**
+     * 当前缓存的页数
+     *
+     * @return 页数
+     */
+    public synchronized int cachedPages() {
+        return this.cache.size();
+    }
+
+    /**
+     * 换页时在缓存中找到页的次数
+     *
+     * @return 命中数
+     */
+    public long hitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * 换页时从文件读入页的次数
+     *
+     * @return 未命中数
+     */
+    public long missCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * 清零命中数与未命中数
+     */
+    public void resetCounters() {
+        this.hits.set(0L);
+        this.misses.set(0L);
+    }
+
+    private Page page(long number) {
+        Page page = this.last;
+        if (page != null && page.number == number) {
+            return page;
+        }
+        synchronized (this) {
+            page = this.cache.get(number);
+        }
+        if (page != null) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+            page = this.read(number); // 不持锁读文件，其他线程可以继续读取已缓存的页
+            synchronized (this) {
+                Page cached = this.cache.putIfAbsent(number, page);
+                if (cached != null) {
+                    page = cached; // 其他线程同时读入了同一页
+                }
+            }
+        }
+        this.last = page;
+        return page;
+    }
+
+    private Page read(long number) {
+        long position = number << this.pageShift;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(this.pageMask + 1, this.length - position));
+        try {
+            while (buffer.hasRemaining()) {
+                if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("字典镜像在读取过程中被截断");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Page(number, buffer.array());
+    }
+
+    private boolean inOnePage(long position, int size) {
+        return (position & this.pageMask) + size <= this.pageMask + 1;
+    }
+
+    @Override
+    public byte getByte(long position) {
+        return this.page(position >>> this.pageShift).bytes[(int) (position & this.pageMask)];
+    }
+
+    @Override
+    public char getChar(long position) {
+        if (this.inOnePage(position, 2)) {
+            byte[] bytes = this.page(position >>> this.pageShift).bytes;
+            int i = (int) (position & this.pageMask);
+            return (char) ((bytes[i] & 0xFF) << 8 | (bytes[i + 1] & 0xFF));
+        }
+        return (char) ((this.getByte(position) & 0xFF) << 8 | (this.getByte(position + 1) & 0xFF));
+    }
+
+    @Override
+    public int getInt(long position) {
+        if (this.inOnePage(position, 4)) {
+            byte[] bytes = this.page(position >>> this.pageShift).bytes;
+            int i = (int) (position & this.pageMask);
+            return (bytes[i] & 0xFF) << 24 | (bytes[i + 1] & 0xFF) << 16 | (bytes[i + 2] & 0xFF) << 8
+                    | (bytes[i + 3] & 0xFF);
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (this.getByte(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    @Override
+    public long getLong(long position) {
+        return (long) this.getInt(position) << 32 | (this.getInt(position + 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 估算页缓存占满时的堆内存占用
+     *
+     * @return 字节数
+     */
+    public long cacheBytes() {
+        // 每页：页对象、字节数组、LinkedHashMap表项与Long键
+        long perPage = DictionaryStats.objectBytes(8 + DictionaryStats.REFERENCE)
+                + DictionaryStats.arrayBytes(1, this.pageMask + 1)
+                + DictionaryStats.objectBytes(4 + 5 * DictionaryStats.REFERENCE)
+                + DictionaryStats.objectBytes(8);
+        return perPage * this.cachePages;
+    }
+
+    /**
+     * 关闭文件并清空页缓存
+     *
+     * @throws IOException 发生了IO错误
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            this.cache.clear();
+        }
+        this.last = null;
+        this.channel.close();
+    }
+
+    /**
+     * 缓存的页，读入后不再修改
+     */
+    private static final class Page {
+        final long number;
+        final byte[] bytes;
+
+        Page(long number, byte[] bytes) {
+            this.number = number;
+            this.bytes = bytes;
+        }
+    }
+}
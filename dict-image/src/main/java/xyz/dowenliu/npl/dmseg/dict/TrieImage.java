@@ -0,0 +1,59 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * 字典镜像文件格式常量。字典镜像是一个只读的字典树文件，可直接映射或分页读取而不需要载入堆内存。
+ * <p>文件以大端字节序存储，结构如下：</p>
+ * <ul>
+ * <li>文件头，{@value #HEADER_LENGTH} 字节：魔数(int)、版本(int)、词数(long)、节点数(long)、
+ * 根节点偏移量(long)、词性表偏移量(long)、文件长度(long)、字典版本(long)，其余保留</li>
+ * <li>节点区：按后序排列的节点记录，子节点总在父节点之前，根节点在最后。每个节点记录为
+ * 标志(byte)、分叉数(int)、[词性组合序号(int)]、按升序排列的分叉值(char[分叉数])、
+ * 子节点偏移量(40位无符号整数[分叉数])</li>
+ * <li>词性表：组合数(int)、各组合偏移量(long[组合数])，每个组合为词性数(int)及各词性的
+ * UTF-8字节数(int)与字节</li>
+ * </ul>
+ * <p>偏移量都是相对文件头部的绝对位置，文件大小不受2GB限制（最大1TB）。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class TrieImage {
+    /**
+     * 魔数 "DMTI"
+     */
+    public static final int MAGIC = 0x444D5449;
+    /**
+     * 当前格式版本
+     */
+    public static final int VERSION = 1;
+    /**
+     * 文件头长度
+     */
+    public static final int HEADER_LENGTH = 64;
+    /**
+     * 节点标志：词边界
+     */
+    static final int FLAG_WORD = 1;
+    /**
+     * 节点标志：带词性组合序号
+     */
+    static final int FLAG_SPEECHES = 2;
+    /**
+     * 子节点偏移量字节数
+     */
+    static final int OFFSET_BYTES = 5;
+    /**
+     * 子节点偏移量上限
+     */
+    static final long MAX_OFFSET = (1L << (OFFSET_BYTES * 8)) - 1;
+
+    static final int HEADER_WORD_COUNT = 8;
+    static final int HEADER_NODE_COUNT = 16;
+    static final int HEADER_ROOT = 24;
+    static final int HEADER_SPEECH_TABLE = 32;
+    static final int HEADER_FILE_LENGTH = 40;
+    static final int HEADER_DICTIONARY_VERSION = 48;
+
+    private TrieImage() {
+    }
+}
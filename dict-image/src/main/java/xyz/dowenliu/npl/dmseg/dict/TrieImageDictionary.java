@@ -0,0 +1,226 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 字典镜像上的只读字典。节点与词边界标记都直接从 {@link ImageInput} 读取，不复制到堆内存；
+ * 词性表很小且不变，打开镜像时解码一次。
+ * <p>格式见 {@link TrieImage}，使用 {@link TrieImageWriter} 生成镜像文件。
+ * 使用 {@link #map(Path)} 映射文件后，同一主机上的多个JVM共享操作系统页缓存中的同一份字典；
+ * 字典超出地址空间或需要严格限制内存时使用 {@link #page(Path, int, int)} 按页读取，只在堆内缓存最近使用的页。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class TrieImageDictionary extends AbstractReadOnlyDictionary implements Closeable {
+    private static final String[] NO_SPEECHES = new String[0];
+    private final ImageInput input;
+    private final int size;
+    private final long nodeCount;
+    private final long root;
+    /**
+     * 各词性组合的词性依次排列，第i个组合为 [speechStarts[i], speechStarts[i + 1])
+     */
+    private final String[] speeches;
+    private final int[] speechStarts;
+
+    /**
+     * 在字典镜像上创建字典
+     *
+     * @param input 字典镜像
+     * @throws IllegalArgumentException 不是字典镜像或版本不支持
+     */
+    public TrieImageDictionary(ImageInput input) {
+        if (input.length() < TrieImage.HEADER_LENGTH || input.getInt(0) != TrieImage.MAGIC) {
+            throw new IllegalArgumentException("不是字典镜像");
+        }
+        if (input.getInt(4) != TrieImage.VERSION) {
+            throw new IllegalArgumentException("不支持的字典镜像版本：" + input.getInt(4));
+        }
+        if (input.getLong(TrieImage.HEADER_FILE_LENGTH) != input.length()) {
+            throw new IllegalArgumentException("字典镜像不完整");
+        }
+        this.input = input;
+        this.size = (int) input.getLong(TrieImage.HEADER_WORD_COUNT);
+        this.nodeCount = input.getLong(TrieImage.HEADER_NODE_COUNT);
+        this.root = input.getLong(TrieImage.HEADER_ROOT);
+        long speechTable = input.getLong(TrieImage.HEADER_SPEECH_TABLE);
+        int speechSets = input.getInt(speechTable);
+        this.speechStarts = new int[speechSets + 1];
+        String[] speeches = new String[16];
+        Map<String, String> names = new HashMap<>();
+        int count = 0;
+        for (int id = 0; id < speechSets; id++) {
+            long position = input.getLong(speechTable + 4 + 8L * id);
+            int length = input.getInt(position);
+            position += 4;
+            if (count + length > speeches.length) {
+                speeches = Arrays.copyOf(speeches, Math.max(speeches.length * 2, count + length));
+            }
+            for (int i = 0; i < length; i++) {
+                byte[] bytes = new byte[input.getInt(position)];
+                position += 4;
+                for (int j = 0; j < bytes.length; j++) {
+                    bytes[j] = input.getByte(position + j);
+                }
+                position += bytes.length;
+                String speech = new String(bytes, StandardCharsets.UTF_8);
+                speeches[count++] = names.computeIfAbsent(speech, k -> k);
+            }
+            this.speechStarts[id + 1] = count;
+        }
+        this.speeches = Arrays.copyOf(speeches, count);
+        this.setVersion(input.getLong(TrieImage.HEADER_DICTIONARY_VERSION));
+    }
+
+    /**
+     * 只读映射字典镜像文件
+     *
+     * @param file 字典镜像文件
+     * @return 字典
+     * @throws IOException 发生了IO错误
+     */
+    public static TrieImageDictionary map(Path file) throws IOException {
+        return new TrieImageDictionary(new MappedImageInput(file));
+    }
+
+    /**
+     * 按页读取字典镜像文件，使用完毕后应调用 {@link #close()} 关闭文件
+     *
+     * @param file       字典镜像文件
+     * @param pageSize   页大小，必须是2的幂
+     * @param cachePages 最多缓存的页数
+     * @return 字典
+     * @throws IOException 发生了IO错误
+     * @see PagedImageInput
+     */
+    public static TrieImageDictionary page(Path file, int pageSize, int cachePages) throws IOException {
+        PagedImageInput input = new PagedImageInput(file, pageSize, cachePages);
+        try {
+            return new TrieImageDictionary(input);
+        } catch (RuntimeException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 字典镜像，可用于取得 {@link PagedImageInput} 的缓存命中统计
+     *
+     * @return 字典镜像
+     */
+    public ImageInput getInput() {
+        return this.input;
+    }
+
+    /**
+     * 字典镜像可关闭时（如 {@link PagedImageInput}）关闭字典镜像，映射的镜像在被回收时释放
+     *
+     * @throws IOException 发生了IO错误
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.input instanceof Closeable) {
+            ((Closeable) this.input).close();
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 字典中的节点数（不含根节点）
+     *
+     * @return 节点数
+     */
+    public long nodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * 映射的字典镜像在堆外，只计入字典对象本身与解码的词性表（不含词性字符串）；按页读取时计入缓存占满时的页缓存
+     */
+    @Override
+    protected long estimateBytes() {
+        long bytes = DictionaryStats.objectBytes(8 + 3 * DictionaryStats.REFERENCE + 4 + 2 * 8)
+                + DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, this.speeches.length)
+                + DictionaryStats.arrayBytes(4, this.speechStarts.length);
+        if (this.input instanceof PagedImageInput) {
+            bytes += ((PagedImageInput) this.input).cacheBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    protected long rootState() {
+        return this.root;
+    }
+
+    private int countOf(long node) {
+        return this.input.getInt(node + 1);
+    }
+
+    private long forksOf(long node) {
+        boolean speeches = (this.input.getByte(node) & TrieImage.FLAG_SPEECHES) != 0;
+        return node + (speeches ? 9 : 5);
+    }
+
+    private long childAt(long forks, int count, int i) {
+        long position = forks + 2L * count + (long) TrieImage.OFFSET_BYTES * i;
+        return (this.input.getInt(position) & 0xFFFFFFFFL) << 8 | (this.input.getByte(position + 4) & 0xFF);
+    }
+
+    @Override
+    protected long next(long state, char fork) {
+        int count = this.countOf(state);
+        if (count == 0) {
+            return NONE;
+        }
+        long forks = this.forksOf(state);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = this.input.getChar(forks + 2L * mid);
+            if (c < fork) {
+                low = mid + 1;
+            } else if (c > fork) {
+                high = mid - 1;
+            } else {
+                return this.childAt(forks, count, mid);
+            }
+        }
+        return NONE;
+    }
+
+    @Override
+    protected boolean isWord(long state) {
+        return (this.input.getByte(state) & TrieImage.FLAG_WORD) != 0;
+    }
+
+    @Override
+    protected String[] speechesOf(long state) {
+        if ((this.input.getByte(state) & TrieImage.FLAG_SPEECHES) == 0) {
+            return NO_SPEECHES;
+        }
+        int id = this.input.getInt(state + 5);
+        return Arrays.copyOfRange(this.speeches, this.speechStarts[id], this.speechStarts[id + 1]);
+    }
+
+    @Override
+    protected void forEachChild(long state, ChildVisitor visitor) {
+        int count = this.countOf(state);
+        long forks = this.forksOf(state);
+        for (int i = 0; i < count; i++) {
+            visitor.visit(this.input.getChar(forks + 2L * i), this.childAt(forks, count, i));
+        }
+    }
+}
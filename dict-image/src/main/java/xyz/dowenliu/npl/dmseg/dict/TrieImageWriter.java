@@ -0,0 +1,321 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import xyz.dowenliu.npl.dmseg.dict.loader.WordRecordReader;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 字典镜像写出器。按字典序逐个加入词，节点在其所有子节点写出后以后序写出，
+ * 写出过程中只在内存中保留当前词路径上未完成的节点，内存占用与词数无关。
+ * <p>格式见 {@link TrieImage}。</p>
+ * <p>此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class TrieImageWriter implements Closeable {
+    private final Path file;
+    private final DataOutputStream out;
+    private long position = TrieImage.HEADER_LENGTH;
+    private final List<OpenNode> stack = new ArrayList<>();
+    private String previous = null;
+    private long wordCount = 0;
+    private long nodeCount = 0;
+    private final Map<List<String>, Integer> speechIds = new HashMap<>();
+    private final List<String[]> speechTable = new ArrayList<>();
+    private boolean closed = false;
+    private long version = 0L;
+
+    /**
+     * 创建写出器。文件已存在时将被覆盖。
+     *
+     * @param file 字典镜像文件
+     * @throws IOException 发生了IO错误
+     */
+    public TrieImageWriter(Path file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        this.out.write(new byte[TrieImage.HEADER_LENGTH]);
+        this.stack.add(new OpenNode());
+    }
+
+    /**
+     * 设置写入文件头的字典版本
+     *
+     * @param version 字典版本
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * 加入词。词必须按 {@link String#compareTo(String)} 的升序加入，重复加入的词以最后一次的词性为准。
+     *
+     * @param word     词
+     * @param speeches 词性列表
+     * @throws IOException              发生了IO错误
+     * @throws IllegalArgumentException 词未按升序加入
+     */
+    public void add(String word, String... speeches) throws IOException {
+        if (word == null || word.isEmpty()) {
+            return;
+        }
+        int common = 0;
+        if (this.previous != null) {
+            int order = word.compareTo(this.previous);
+            if (order < 0) {
+                throw new IllegalArgumentException("词未按字典序加入：" + this.previous + " -> " + word);
+            }
+            int max = Math.min(word.length(), this.previous.length());
+            while (common < max && word.charAt(common) == this.previous.charAt(common)) {
+                common++;
+            }
+            this.closeTo(common);
+        }
+        for (int depth = common + 1; depth <= word.length(); depth++) {
+            OpenNode node = depth < this.stack.size() ? this.stack.get(depth).reset() : this.push();
+            node.fork = word.charAt(depth - 1);
+        }
+        OpenNode node = this.stack.get(word.length());
+        if (!node.word) {
+            node.word = true;
+            this.wordCount++;
+        }
+        node.speechId = this.speechIdOf(speeches);
+        this.previous = word;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word 词
+     * @throws IOException 发生了IO错误
+     */
+    public void add(Word word) throws IOException {
+        String[] speeches = new String[word.getSpeeches().size()];
+        this.add(word.getValue(), word.getSpeeches().toArray(speeches));
+    }
+
+    private OpenNode push() {
+        OpenNode node = new OpenNode();
+        this.stack.add(node);
+        return node;
+    }
+
+    private int speechIdOf(String[] speeches) {
+        if (speeches == null || speeches.length == 0) {
+            return -1;
+        }
+        List<String> key = Arrays.asList(speeches.clone());
+        Integer id = this.speechIds.get(key);
+        if (id == null) {
+            id = this.speechTable.size();
+            this.speechIds.put(key, id);
+            this.speechTable.add(speeches.clone());
+        }
+        return id;
+    }
+
+    /**
+     * 写出上一个词路径上深度大于depth的节点
+     */
+    private void closeTo(int depth) throws IOException {
+        for (int d = this.previous.length(); d > depth; d--) {
+            OpenNode node = this.stack.get(d);
+            long offset = this.writeNode(node);
+            this.stack.get(d - 1).addChild(node.fork, offset);
+        }
+    }
+
+    private long writeNode(OpenNode node) throws IOException {
+        long offset = this.position;
+        if (offset > TrieImage.MAX_OFFSET) {
+            throw new IOException("字典镜像超过最大长度");
+        }
+        int flags = (node.word ? TrieImage.FLAG_WORD : 0) | (node.speechId >= 0 ? TrieImage.FLAG_SPEECHES : 0);
+        this.out.writeByte(flags);
+        this.out.writeInt(node.count);
+        this.position += 5;
+        if (node.speechId >= 0) {
+            this.out.writeInt(node.speechId);
+            this.position += 4;
+        }
+        for (int i = 0; i < node.count; i++) {
+            this.out.writeChar(node.forks[i]);
+        }
+        for (int i = 0; i < node.count; i++) {
+            long child = node.offsets[i];
+            this.out.writeInt((int) (child >>> 8));
+            this.out.writeByte((int) child);
+        }
+        this.position += (long) node.count * (2 + TrieImage.OFFSET_BYTES);
+        this.nodeCount++;
+        return offset;
+    }
+
+    /**
+     * 写出所有未完成的节点、词性表与文件头，并关闭文件
+     *
+     * @throws IOException 发生了IO错误
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        long root;
+        long speechTableOffset;
+        try {
+            if (this.previous != null) {
+                this.closeTo(0);
+            }
+            root = this.writeNode(this.stack.get(0));
+            speechTableOffset = this.position;
+            this.writeSpeechTable();
+        } finally {
+            this.out.close();
+        }
+        ByteBuffer header = ByteBuffer.allocate(TrieImage.HEADER_LENGTH);
+        header.putInt(TrieImage.MAGIC);
+        header.putInt(TrieImage.VERSION);
+        header.putLong(this.wordCount);
+        header.putLong(this.nodeCount - 1); // 不计根节点
+        header.putLong(root);
+        header.putLong(speechTableOffset);
+        header.putLong(this.position);
+        header.putLong(this.version);
+        header.clear();
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    private void writeSpeechTable() throws IOException {
+        List<byte[][]> encoded = new ArrayList<>(this.speechTable.size());
+        for (String[] speeches : this.speechTable) {
+            byte[][] bytes = new byte[speeches.length][];
+            for (int i = 0; i < speeches.length; i++) {
+                bytes[i] = speeches[i].getBytes(StandardCharsets.UTF_8);
+            }
+            encoded.add(bytes);
+        }
+        this.out.writeInt(encoded.size());
+        long offset = this.position + 4 + 8L * encoded.size();
+        for (byte[][] bytes : encoded) {
+            this.out.writeLong(offset);
+            offset += 4;
+            for (byte[] speech : bytes) {
+                offset += 4 + speech.length;
+            }
+        }
+        for (byte[][] bytes : encoded) {
+            this.out.writeInt(bytes.length);
+            for (byte[] speech : bytes) {
+                this.out.writeInt(speech.length);
+                this.out.write(speech);
+            }
+        }
+        this.position = offset;
+    }
+
+    /**
+     * 将字典写出为字典镜像
+     *
+     * @param dictionary 字典
+     * @param file       字典镜像文件
+     * @throws IOException 发生了IO错误
+     */
+    public static void write(Dictionary<?> dictionary, Path file) throws IOException {
+        TreeMap<String, Word> words = new TreeMap<>();
+        for (WordPath path : dictionary) {
+            if (path.isFinishWord()) {
+                words.put(path.getWord().getValue(), path.getWord());
+            }
+        }
+        try (TrieImageWriter writer = new TrieImageWriter(file)) {
+            for (Word word : words.values()) {
+                writer.add(word);
+            }
+        }
+    }
+
+    /**
+     * 将应用增量补丁后的字典写出为新的字典镜像，字典版本为补丁的目标版本。
+     * 基础字典是 {@link AbstractReadOnlyDictionary} 时按字典序遍历，与补丁流式归并后直接写出，不将全部词读入内存。
+     *
+     * @param base  基础字典，通常是当前版本的 {@link TrieImageDictionary}
+     * @param delta 增量补丁
+     * @param file  新的字典镜像文件，不能是基础字典正在映射的文件
+     * @throws IOException           发生了IO错误
+     * @throws IllegalStateException 字典版本与补丁基础版本不匹配
+     */
+    public static void write(Dictionary<?> base, DictionaryDelta delta, Path file) throws IOException {
+        Iterator<Word> words = base instanceof AbstractReadOnlyDictionary
+                ? delta.mergeSorted(base) : delta.merge(base).iterator();
+        try (TrieImageWriter writer = new TrieImageWriter(file)) {
+            writer.setVersion(delta.getVersion());
+            while (words.hasNext()) {
+                writer.add(words.next());
+            }
+        }
+    }
+
+    /**
+     * 将词记录集写出为字典镜像。词记录集不需要有序。
+     *
+     * @param reader 词记录集读取器
+     * @param file   字典镜像文件
+     * @throws IOException 发生了IO错误
+     */
+    public static void write(WordRecordReader reader, Path file) throws IOException {
+        TreeMap<String, Word> words = new TreeMap<>();
+        while (reader.hasNextWord()) {
+            Word word = reader.nextWord();
+            words.put(word.getValue(), word);
+        }
+        try (TrieImageWriter writer = new TrieImageWriter(file)) {
+            for (Word word : words.values()) {
+                writer.add(word);
+            }
+        }
+    }
+
+    /**
+     * 未写出的节点
+     */
+    private static final class OpenNode {
+        char fork;
+        boolean word;
+        int speechId = -1;
+        char[] forks = new char[4];
+        long[] offsets = new long[4];
+        int count;
+
+        OpenNode reset() {
+            this.word = false;
+            this.speechId = -1;
+            this.count = 0;
+            return this;
+        }
+
+        void addChild(char fork, long offset) {
+            if (this.count == this.forks.length) {
+                this.forks = Arrays.copyOf(this.forks, this.count * 2);
+                this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+            }
+            this.forks[this.count] = fork;
+            this.offsets[this.count] = offset;
+            this.count++;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class ExternalTrieImageBuilderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File temp;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        temp = folder.newFolder("runs");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private static Map<String, Set<String>> wordsOf(Dictionary<?> dictionary) {
+        Map<String, Set<String>> words = new TreeMap<>();
+        dictionary.words().forEach(word -> words.put(word.getValue(), word.getSpeeches()));
+        return words;
+    }
+
+    private void assertBuilds(int count, int runSize) throws Exception {
+        RamHashedDictionary expected = new RamHashedDictionary();
+        ExternalTrieImageBuilder builder = new ExternalTrieImageBuilder(temp.toPath()).runSize(runSize).version(9L);
+        Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            String word = String.valueOf((char) ('一' + random.nextInt(100))) + (char) ('一' + random.nextInt(30))
+                    + (i % 5 == 0 ? "" : String.valueOf((char) ('a' + random.nextInt(10))));
+            String[] speeches = {"t" + i % 4};
+            expected.add(word, speeches);
+            builder.add(word, speeches);
+        }
+        Path image = folder.newFile().toPath();
+        assertEquals(expected.size(), builder.build(image));
+        assertEquals(0, Objects.requireNonNull(temp.list()).length);
+        TrieImageDictionary dictionary = TrieImageDictionary.map(image);
+        assertEquals(9L, dictionary.version());
+        assertEquals(expected.size(), dictionary.size());
+        assertEquals(wordsOf(expected), wordsOf(dictionary));
+    }
+
+    @Test
+    public void testSingleRun() throws Exception {
+        assertBuilds(2000, 10000);
+    }
+
+    @Test
+    public void testRuns() throws Exception {
+        assertBuilds(3000, 100);
+    }
+
+    @Test
+    public void testMultiPassMerge() throws Exception {
+        assertBuilds(5000, 30); // 段数超过一次归并的最多段数
+    }
+
+    @Test
+    public void testFileWithFrequency() throws Exception {
+        Path source = folder.newFile().toPath();
+        Files.write(source, "中国\tns\t30\n人民\tn\t2\n中华\t\t10\n中国\tn\t40\n大家\n".getBytes(StandardCharsets.UTF_8));
+        Path image = folder.newFile().toPath();
+        ExternalTrieImageBuilder builder = new ExternalTrieImageBuilder(temp.toPath()).runSize(2).minFrequency(5);
+        assertEquals(1, builder.addAll(source).runCount()); // 第三个词还在内存中
+        assertEquals(2, builder.build(image));
+        TrieImageDictionary dictionary = TrieImageDictionary.map(image);
+        assertTrue(dictionary.contains("中国"));
+        assertTrue(dictionary.contains("中华"));
+        assertFalse(dictionary.contains("人民"));
+        assertFalse(dictionary.contains("大家")); // 没有词频列的词词频为0
+        assertEquals(Collections.singleton("n"), wordsOf(dictionary).get("中国"));
+    }
+}
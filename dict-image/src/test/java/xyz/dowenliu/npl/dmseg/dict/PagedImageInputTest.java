@@ -0,0 +1,92 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class PagedImageInputTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Path file;
+    private ByteBuffer expected;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        byte[] bytes = new byte[1000];
+        new Random(7).nextBytes(bytes);
+        file = folder.newFile("paged.bin").toPath();
+        Files.write(file, bytes);
+        expected = ByteBuffer.wrap(bytes);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        try (PagedImageInput input = new PagedImageInput(file, 16, 4)) {
+            assertEquals(1000, input.length());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(expected.get(i), input.getByte(i));
+                if (i + 2 <= 1000) {
+                    assertEquals(expected.getChar(i), input.getChar(i));
+                }
+                if (i + 4 <= 1000) {
+                    assertEquals(expected.getInt(i), input.getInt(i));
+                }
+                if (i + 8 <= 1000) {
+                    assertEquals(expected.getLong(i), input.getLong(i));
+                }
+            }
+            assertEquals(4, input.cachedPages());
+        }
+    }
+
+    @Test
+    public void testLru() throws IOException {
+        try (PagedImageInput input = new PagedImageInput(file, 16, 2)) {
+            input.getByte(0); // 页0
+            input.getByte(16); // 页1
+            input.getByte(0); // 命中页0，页1变为最久未用
+            input.getByte(32); // 页2，淘汰页1
+            input.getByte(0);
+            input.getByte(16);
+            assertEquals(2, input.hitCount());
+            assertEquals(4, input.missCount());
+            assertEquals(2, input.cachedPages());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageSize() throws IOException {
+        new PagedImageInput(file, 100, 2).close();
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testClosed() throws IOException {
+        PagedImageInput input = new PagedImageInput(file, 16, 2);
+        input.close();
+        input.getByte(0);
+    }
+}
@@ -0,0 +1,119 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class TrieImageDictionaryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private RamHashedDictionary source;
+    private Path file;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        source = new RamHashedDictionary();
+        source.add("and");
+        source.add("ant", "n", "名词");
+        source.add("but");
+        source.add("button", "n");
+        source.add("cute");
+        source.add("中国");
+        source.add("中国人", "n");
+        file = folder.newFile("test.dmti").toPath();
+        TrieImageWriter.write(source, file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private void assertSameWords(TrieImageDictionary dict) {
+        assertEquals(source.size(), dict.size());
+        int nodes = 0;
+        for (RamHashedDictionary.HashWordPath path : source) {
+            nodes++;
+            assertEquals(path.isFinishWord(), dict.contains(path.toString()));
+        }
+        assertEquals(nodes, dict.nodeCount());
+        for (AbstractReadOnlyDictionary.NodeWordPath path : dict) {
+            assertTrue(source.contains(path.toString()) || !path.isFinishWord());
+            if (path.isFinishWord()) {
+                List<Word> expected = source.dictMatch(CharBuffer.wrap(path.toString()));
+                assertEquals(expected.get(expected.size() - 1).getSpeeches(), path.getWord().getSpeeches());
+            }
+        }
+    }
+
+    @Test
+    public void testMap() throws IOException {
+        assertSameWords(TrieImageDictionary.map(file));
+    }
+
+    @Test
+    public void testCrossChunk() throws IOException {
+        assertSameWords(new TrieImageDictionary(new MappedImageInput(file, 3)));
+    }
+
+    @Test
+    public void testPage() throws IOException {
+        try (TrieImageDictionary dict = TrieImageDictionary.page(file, 16, 2)) {
+            assertSameWords(dict);
+            PagedImageInput input = (PagedImageInput) dict.getInput();
+            assertTrue(input.missCount() > 0);
+            assertTrue(input.cachedPages() <= 2);
+            input.resetCounters();
+            assertTrue(dict.contains("中国人"));
+            assertFalse(dict.contains("中国话"));
+            assertTrue(input.hitCount() + input.missCount() > 0);
+            assertTrue(dict.stats().getEstimatedBytes() >= input.cacheBytes());
+        }
+    }
+
+    @Test
+    public void testDictMatch() throws IOException {
+        TrieImageDictionary dict = TrieImageDictionary.map(file);
+        CharBuffer buffer = CharBuffer.wrap("anbuttonrefertoantgourp");
+        buffer.position(2);
+        List<Word> words = dict.dictMatch(buffer);
+        assertEquals(2, words.size());
+        assertEquals("button", words.get(1).getValue());
+        assertTrue(words.get(1).getSpeeches().contains("n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() throws IOException {
+        try (TrieImageWriter writer = new TrieImageWriter(folder.newFile().toPath())) {
+            writer.add("b");
+            writer.add("a");
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Path empty = folder.newFile().toPath();
+        new TrieImageWriter(empty).close();
+        TrieImageDictionary dict = TrieImageDictionary.map(empty);
+        assertEquals(0, dict.size());
+        assertFalse(dict.contains("a"));
+        assertFalse(dict.iterator().hasNext());
+    }
+}
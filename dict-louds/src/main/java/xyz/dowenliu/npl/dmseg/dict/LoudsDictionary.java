@@ -0,0 +1,141 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * 使用LOUDS（Level-Order Unary Degree Sequence）简洁字典树实现的不可变字典，适合堆内存较小的场合。
+ * <p>节点按广度优先顺序编号，根节点为0。每个节点依次写入与子节点数相同个数的1和一个0，
+ * 整棵树的结构只需约每节点2位。节点i的子节点位于第i-1个0与第i个0之间，
+ * 子节点编号连续，第一个子节点编号为其起始位置减i再加1，因此只需要select0查询。</p>
+ * <p>除根节点外每个节点的分叉值按编号顺序存放在 {@code char[]} 中；词边界标记是按节点编号的位图，
+ * 词性组合序号只为有词性的节点按最小位宽压缩存储，以位图的rank定位。</p>
+ * <p>查找比双数组慢（每一步需要一次select0与一次二分查找），以此换取更小的内存占用。
+ * 实例由 {@link LoudsDictionaryBuilder} 构建，构建后不能修改。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class LoudsDictionary extends AbstractReadOnlyDictionary {
+    private static final String[] NO_SPEECHES = new String[0];
+    private final SuccinctBitVector louds;
+    /**
+     * 节点的分叉值，节点k（k &gt;= 1）的分叉值为 labels[k - 1]
+     */
+    private final char[] labels;
+    private final SuccinctBitVector finals;
+    private final SuccinctBitVector speechFlags;
+    private final long[] packedSpeechIds;
+    private final int speechIdBits;
+    private final String[][] speechTable;
+    private final int size;
+
+    LoudsDictionary(SuccinctBitVector louds, char[] labels, SuccinctBitVector finals,
+                    SuccinctBitVector speechFlags, long[] packedSpeechIds, int speechIdBits,
+                    String[][] speechTable) {
+        this.louds = louds;
+        this.labels = labels;
+        this.finals = finals;
+        this.speechFlags = speechFlags;
+        this.packedSpeechIds = packedSpeechIds;
+        this.speechIdBits = speechIdBits;
+        this.speechTable = speechTable;
+        this.size = finals.ones();
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 节点数（含根节点）
+     *
+     * @return 节点数
+     */
+    public int nodeCount() {
+        return this.labels.length + 1;
+    }
+
+    /**
+     * 字典结构占用的字节数（近似值，不含词性表中的字符串）
+     *
+     * @return 字节数
+     */
+    public long memoryBytes() {
+        return this.louds.memoryBytes() + 2L * this.labels.length + this.finals.memoryBytes()
+                + this.speechFlags.memoryBytes() + 8L * this.packedSpeechIds.length;
+    }
+
+    @Override
+    protected long estimateBytes() {
+        return DictionaryStats.objectBytes(7 * DictionaryStats.REFERENCE + 4 + 4 + 8) + this.memoryBytes()
+                + DictionaryStats.speechTableBytes(this.speechTable);
+    }
+
+    @Override
+    protected long rootState() {
+        return 0;
+    }
+
+    private int firstBit(int node) {
+        return node == 0 ? 0 : this.louds.select0(node - 1) + 1;
+    }
+
+    @Override
+    protected long next(long state, char fork) {
+        int node = (int) state;
+        int start = this.firstBit(node);
+        int end = this.louds.nextZero(start);
+        // labels 下标为子节点编号减1，即 start - node
+        int low = start - node;
+        int high = end - node - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = this.labels[mid];
+            if (c < fork) {
+                low = mid + 1;
+            } else if (c > fork) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return NONE;
+    }
+
+    @Override
+    protected boolean isWord(long state) {
+        return this.finals.get((int) state);
+    }
+
+    @Override
+    protected String[] speechesOf(long state) {
+        int node = (int) state;
+        if (!this.speechFlags.get(node)) {
+            return NO_SPEECHES;
+        }
+        return this.speechTable[this.speechIdAt(this.speechFlags.rank1(node))];
+    }
+
+    private int speechIdAt(int index) {
+        if (this.speechIdBits == 0) {
+            return 0;
+        }
+        long bit = (long) index * this.speechIdBits;
+        int w = (int) (bit >>> 6);
+        int offset = (int) (bit & 63);
+        long value = this.packedSpeechIds[w] >>> offset;
+        if (offset + this.speechIdBits > 64) {
+            value |= this.packedSpeechIds[w + 1] << (64 - offset);
+        }
+        return (int) (value & ((1L << this.speechIdBits) - 1));
+    }
+
+    @Override
+    protected void forEachChild(long state, ChildVisitor visitor) {
+        int node = (int) state;
+        int start = this.firstBit(node);
+        int end = this.louds.nextZero(start);
+        for (int i = start - node; i < end - node; i++) {
+            visitor.visit(this.labels[i], i + 1);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import xyz.dowenliu.npl.dmseg.dict.loader.WordRecordReader;
+
+import java.util.*;
+
+/**
+ * {@link LoudsDictionary} 构建器。收集词后按字典序排序，再逐层（广度优先）写出LOUDS位向量。
+ * 每个节点以有序词数组中共享同一前缀的一段区间表示，构建时不需要指针形式的字典树。
+ * <p>重复加入的词以最后一次加入的词性为准。</p>
+ * <p>此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class LoudsDictionaryBuilder {
+    private static final String[] NO_SPEECHES = new String[0];
+    private final TreeMap<String, String[]> words = new TreeMap<>();
+    private String bookTag = "DM-SEG";
+
+    /**
+     * 设置构建出的字典的书名标记
+     *
+     * @param bookTag 字典书名标记
+     * @return this
+     */
+    public LoudsDictionaryBuilder bookTag(String bookTag) {
+        this.bookTag = bookTag;
+        return this;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word     词
+     * @param speeches 词性列表
+     * @return this
+     */
+    public LoudsDictionaryBuilder add(String word, String... speeches) {
+        if (word == null || word.isEmpty()) {
+            return this;
+        }
+        this.words.put(word, speeches == null ? NO_SPEECHES : speeches);
+        return this;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word 词
+     * @return this
+     */
+    public LoudsDictionaryBuilder add(Word word) {
+        String[] speeches = new String[word.getSpeeches().size()];
+        return this.add(word.getValue(), word.getSpeeches().toArray(speeches));
+    }
+
+    /**
+     * 加入另一字典中的所有词，如 {@code RamHashedDictionary}
+     *
+     * @param dictionary 字典
+     * @return this
+     */
+    public LoudsDictionaryBuilder addAll(Dictionary<?> dictionary) {
+        for (WordPath path : dictionary) {
+            if (path.isFinishWord()) {
+                this.add(path.getWord());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 加入词记录集中的所有词
+     *
+     * @param reader 词记录集读取器
+     * @return this
+     */
+    public LoudsDictionaryBuilder addAll(WordRecordReader reader) {
+        while (reader.hasNextWord()) {
+            this.add(reader.nextWord());
+        }
+        return this;
+    }
+
+    /**
+     * 由基础字典应用增量补丁构建新字典，新字典的版本为补丁的目标版本
+     *
+     * @param base  基础字典
+     * @param delta 增量补丁
+     * @return 新的字典对象
+     * @throws IllegalStateException 字典版本与补丁基础版本不匹配
+     */
+    public static LoudsDictionary build(Dictionary<?> base, DictionaryDelta delta) {
+        LoudsDictionaryBuilder builder = new LoudsDictionaryBuilder().bookTag(base.dictionaryBookTag());
+        for (Word word : delta.merge(base)) {
+            builder.add(word);
+        }
+        LoudsDictionary dictionary = builder.build();
+        dictionary.setVersion(delta.getVersion());
+        return dictionary;
+    }
+
+    /**
+     * 构建字典。构建后本构建器仍保留已加入的词，可继续加入词后再次构建。
+     *
+     * @return 新的字典对象
+     */
+    public LoudsDictionary build() {
+        String[] keys = this.words.keySet().toArray(new String[this.words.size()]);
+        List<String[]> speechTable = new ArrayList<>();
+        Map<List<String>, Integer> speechIdMap = new HashMap<>();
+        int[] keySpeechIds = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            String[] speeches = this.words.get(keys[i]);
+            if (speeches.length == 0) {
+                keySpeechIds[i] = -1;
+                continue;
+            }
+            List<String> key = Arrays.asList(speeches);
+            Integer id = speechIdMap.get(key);
+            if (id == null) {
+                id = speechTable.size();
+                speechIdMap.put(key, id);
+                speechTable.add(speeches.clone());
+            }
+            keySpeechIds[i] = id;
+        }
+
+        SuccinctBitVector.Builder louds = new SuccinctBitVector.Builder();
+        SuccinctBitVector.Builder finals = new SuccinctBitVector.Builder();
+        SuccinctBitVector.Builder speechFlags = new SuccinctBitVector.Builder();
+        char[] labels = new char[Math.max(16, keys.length)];
+        int labelCount = 0;
+        int[] speechIds = new int[Math.max(16, speechTable.isEmpty() ? 0 : keys.length)];
+        int speechCount = 0;
+        // 当前层与下一层的节点，每个节点为有序词数组中的区间 [lo, hi)
+        int[] level = {0, keys.length};
+        int levelSize = 1;
+        for (int depth = 0; levelSize > 0; depth++) {
+            int[] nextLevel = new int[16];
+            int nextSize = 0;
+            for (int n = 0; n < levelSize; n++) {
+                int lo = level[2 * n];
+                int hi = level[2 * n + 1];
+                boolean word = lo < hi && keys[lo].length() == depth && depth > 0;
+                finals.append(word);
+                speechFlags.append(word && keySpeechIds[lo] >= 0);
+                if (word) {
+                    if (keySpeechIds[lo] >= 0) {
+                        if (speechCount == speechIds.length) {
+                            speechIds = Arrays.copyOf(speechIds, speechCount * 2);
+                        }
+                        speechIds[speechCount++] = keySpeechIds[lo];
+                    }
+                    lo++;
+                }
+                // 区间内剩余的词长度都大于depth，按第depth个字分组
+                int i = lo;
+                while (i < hi) {
+                    char fork = keys[i].charAt(depth);
+                    int j = i + 1;
+                    while (j < hi && keys[j].charAt(depth) == fork) {
+                        j++;
+                    }
+                    louds.append(true);
+                    if (labelCount == labels.length) {
+                        labels = Arrays.copyOf(labels, labelCount * 2);
+                    }
+                    labels[labelCount++] = fork;
+                    if (2 * nextSize + 2 > nextLevel.length) {
+                        nextLevel = Arrays.copyOf(nextLevel, nextLevel.length * 2);
+                    }
+                    nextLevel[2 * nextSize] = i;
+                    nextLevel[2 * nextSize + 1] = j;
+                    nextSize++;
+                    i = j;
+                }
+                louds.append(false);
+            }
+            level = nextLevel;
+            levelSize = nextSize;
+        }
+
+        int bits = speechTable.size() <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(speechTable.size() - 1);
+        long[] packed = new long[(int) (((long) speechCount * bits + 63) >>> 6)];
+        for (int i = 0; i < speechCount && bits > 0; i++) {
+            long bit = (long) i * bits;
+            int w = (int) (bit >>> 6);
+            int offset = (int) (bit & 63);
+            packed[w] |= (long) speechIds[i] << offset;
+            if (offset + bits > 64) {
+                packed[w + 1] |= (long) speechIds[i] >>> (64 - offset);
+            }
+        }
+        LoudsDictionary dictionary = new LoudsDictionary(louds.build(), Arrays.copyOf(labels, labelCount),
+                finals.build(), speechFlags.build(), packed, bits,
+                speechTable.toArray(new String[speechTable.size()][]));
+        dictionary.setBookTag(this.bookTag);
+        return dictionary;
+    }
+}
@@ -0,0 +1,39 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.LoudsDictionary;
+import xyz.dowenliu.npl.dmseg.dict.LoudsDictionaryBuilder;
+
+import java.io.Reader;
+
+/**
+ * LOUDS字典加载器。LOUDS字典不可变，不支持 {@link #apply(LoudsDictionary, WordRecordReader)}。
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class LoudsDictionaryLoader extends AbstractDictionaryLoader<LoudsDictionary> {
+    @Override
+    public WordRecordReader wrapReader(Reader reader) {
+        return new SimpleLineWordRecordReader(reader);
+    }
+
+    @Override
+    public LoudsDictionary readIn(Reader reader) {
+        return this.readIn(this.wrapReader(reader));
+    }
+
+    @Override
+    public LoudsDictionary readIn(WordRecordReader reader) {
+        return new LoudsDictionaryBuilder().addAll(reader).build();
+    }
+
+    /**
+     * 不支持
+     *
+     * @throws UnsupportedOperationException LOUDS字典不可变
+     */
+    @Override
+    public void apply(LoudsDictionary dictionary, WordRecordReader reader) {
+        throw new UnsupportedOperationException("LOUDS字典不可变，请使用LoudsDictionaryBuilder重新构建");
+    }
+}
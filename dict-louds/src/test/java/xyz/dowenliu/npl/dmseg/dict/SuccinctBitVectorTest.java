@@ -0,0 +1,70 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class SuccinctBitVectorTest {
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testRankSelect() {
+        Random random = new Random(42);
+        for (int length : new int[]{0, 1, 63, 64, 65, 511, 512, 513, 5000, 70000}) {
+            boolean[] naive = new boolean[length];
+            SuccinctBitVector.Builder builder = new SuccinctBitVector.Builder();
+            for (int i = 0; i < length; i++) {
+                naive[i] = random.nextInt(3) > 0;
+                builder.append(naive[i]);
+            }
+            SuccinctBitVector bits = builder.build();
+            assertEquals(length, bits.length());
+            int ones = 0;
+            int zeros = 0;
+            for (int i = 0; i < length; i++) {
+                assertEquals(ones, bits.rank1(i));
+                assertEquals(naive[i], bits.get(i));
+                if (naive[i]) {
+                    ones++;
+                } else {
+                    assertEquals(i, bits.select0(zeros++));
+                }
+            }
+            assertEquals(ones, bits.rank1(length));
+            assertEquals(ones, bits.ones());
+        }
+    }
+
+    @Test
+    public void testNextZero() {
+        SuccinctBitVector bits = new SuccinctBitVector.Builder().append(true, 130).append(false).append(true).build();
+        assertEquals(130, bits.nextZero(0));
+        assertEquals(130, bits.nextZero(130));
+        assertEquals(132, bits.nextZero(131));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSelectOutOfRange() {
+        new SuccinctBitVector.Builder().append(true).append(false).build().select0(1);
+    }
+}
@@ -0,0 +1,512 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * 在内存使用紧凑节点实现的快查字典结构。可修改。
+ * <p>与 {@link RamCharArrayDictionary} 相同，节点的子节点保存在按分叉值排序的数组中；不同的是节点不是 {@link WordPath}，
+ * 没有父节点引用，也不为每个词常驻一个 {@link Word} 对象与词的字符串，节点上只有词边界标记与 {@link TagRegistry} 词性位图。
+ * 词在匹配时由输入中的匹配片段生成，遍历时由词路径视图在第一次取词时沿视图链生成一次并缓存。</p>
+ * <p>{@link #iterator()}、{@link #getBranches()}、{@link #withPrefix(WordPath)} 返回的词路径是节点的临时视图，
+ * 同一节点的视图按节点同一性判等，不比较字串。视图不能修改，应使用字典的 {@link #add(String, String...)}、
+ * {@link #remove(String)} 修改字典。匹配出的词不携带词路径。</p>
+ * <p>此类是线程不安全的，不要使用多线程进行字典内容修改操作。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class CompactRamDictionary implements Dictionary<CompactRamDictionary.CompactWordPath> {
+    /**
+     * 顺序查找的分叉数上限
+     */
+    static final int LINEAR_SCAN_LIMIT = 8;
+    private static final char[] NO_FORKS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private int size = 0;
+    private int maxDepth = 0;
+    private String bookTag = "DM-SEG";
+    private long version = 0L;
+    private final Node root = new Node();
+    /**
+     * 根节点的子节点，按分叉值直接下标访问，与根节点的有序数组同步维护
+     */
+    private final Node[] rootTable = new Node[Character.MAX_VALUE + 1];
+    private final FirstCharSet firstChars = new FirstCharSet();
+
+    /**
+     * 设置字典书名标记
+     *
+     * @param bookTag 字典书名标记
+     */
+    public void setBookTag(String bookTag) {
+        this.bookTag = bookTag;
+    }
+
+    /**
+     * 设置字典版本，通常在加载完整字典后设置为其对应的版本
+     *
+     * @param version 字典版本
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * 逐条调用 {@link #add(String, String...)} 与 {@link #remove(String)}，只修改受影响的节点
+     */
+    @Override
+    public void applyDelta(DictionaryDelta delta) {
+        delta.checkBase(this);
+        delta.replay(this);
+        this.version = delta.getVersion();
+    }
+
+    /**
+     * 按各节点的有序字数组与子节点数组的实际长度估算占用字节数，词对象在访问时才创建，不计入
+     */
+    @Override
+    public DictionaryStats stats() {
+        DictionaryStats.Collector collector = new DictionaryStats.Collector();
+        collector.root(this.root.count);
+        long bytes = DictionaryStats.objectBytes(4 + 4 * DictionaryStats.REFERENCE + 8)
+                + DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, this.rootTable.length) + FirstCharSet.bytes()
+                + stats(this.root, '\0', 0, collector);
+        return collector.build(this, bytes);
+    }
+
+    private static long stats(Node node, char fork, int depth, DictionaryStats.Collector collector) {
+        if (depth > 0) {
+            collector.node(fork, depth, node.count, node.word);
+        }
+        // 字数组、子节点数组、子节点数、词标记与词性位图
+        long bytes = DictionaryStats.objectBytes(3 * DictionaryStats.REFERENCE + 4 + 1 + 8);
+        if (node.forks != NO_FORKS) {
+            bytes += DictionaryStats.arrayBytes(2, node.forks.length)
+                    + DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, node.children.length);
+        }
+        if (node.moreSpeechMask != null) {
+            bytes += DictionaryStats.arrayBytes(8, node.moreSpeechMask.length);
+        }
+        for (int i = 0; i < node.count; i++) {
+            bytes += stats(node.children[i], node.forks[i], depth + 1, collector);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String dictionaryBookTag() {
+        return this.bookTag;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 加入词时维护，删除词后不减小
+     */
+    @Override
+    public int maxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * 查找子节点，根节点的子节点直接按分叉值下标查找
+     */
+    private Node child(Node node, char fork) {
+        return node == this.root ? this.rootTable[fork] : node.branchOf(fork);
+    }
+
+    private Node addChild(Node node, char fork) {
+        Node child = node.addBranch(fork);
+        if (node == this.root) {
+            this.rootTable[fork] = child;
+            this.firstChars.add(fork);
+        }
+        return child;
+    }
+
+    private void removeChild(Node node, char fork) {
+        node.removeBranch(fork);
+        if (node == this.root) {
+            this.rootTable[fork] = null;
+            this.firstChars.remove(fork);
+        }
+    }
+
+    @Override
+    public boolean mayStartWith(char c) {
+        return this.firstChars.contains(c);
+    }
+
+    private Node find(String word) {
+        Node node = this.root;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = this.child(node, word.charAt(i));
+        }
+        return node == this.root ? null : node;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        Node node = this.find(word);
+        return node != null && node.word;
+    }
+
+    @Override
+    public boolean add(String word, String... speeches) {
+        if (word.isEmpty()) {
+            return true;
+        }
+        return this.add(new Word(word, speeches));
+    }
+
+    /**
+     * 只复制词的字面值与词性位图，不保留词对象
+     */
+    @Override
+    public boolean add(Word word) {
+        String value = word.getValue();
+        Node node = this.root;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            Node expect = this.child(node, c);
+            if (expect == null) {
+                expect = this.addChild(node, c);
+            }
+            node = expect;
+        }
+        node.speechMask = word.speechMask;
+        node.moreSpeechMask = word.moreSpeechMask == null ? null : word.moreSpeechMask.clone();
+        if (!node.word) {
+            node.word = true;
+            this.size++;
+        }
+        this.maxDepth = Math.max(this.maxDepth, value.length());
+        return true;
+    }
+
+    @Override
+    public boolean remove(String word) {
+        if (word.isEmpty()) {
+            return false;
+        }
+        Node[] nodes = new Node[word.length() + 1]; // 没有父节点引用，记下经过的节点用于剪枝
+        nodes[0] = this.root;
+        for (int i = 0; i < word.length(); i++) {
+            nodes[i + 1] = this.child(nodes[i], word.charAt(i));
+            if (nodes[i + 1] == null) {
+                return false;
+            }
+        }
+        Node node = nodes[word.length()];
+        if (!node.word) {
+            return false;
+        }
+        node.word = false;
+        node.speechMask = 0L;
+        node.moreSpeechMask = null;
+        for (int i = word.length(); i > 0 && !nodes[i].word && nodes[i].count == 0; i--) {
+            this.removeChild(nodes[i - 1], word.charAt(i - 1));
+        }
+        this.size--;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<WordPath> withPrefix(WordPath path) {
+        if (path == null) {
+            return null;
+        }
+        CompactWordPath matchPath = null;
+        Node node = this.root;
+        for (WordPath expectPath : (Deque<WordPath>) path.getPathQueue()) {
+            node = this.child(node, expectPath.getFork());
+            if (node == null) {
+                return null;
+            }
+            matchPath = new CompactWordPath(matchPath, expectPath.getFork(), node);
+        }
+        if (matchPath == null) {
+            return null;
+        }
+        return new HashSet<>(matchPath.getBranches().values());
+    }
+
+    private static Word wordOf(String value, Node node) {
+        Word word = new Word(value);
+        word.speechMask = node.speechMask;
+        word.moreSpeechMask = node.moreSpeechMask == null ? null : node.moreSpeechMask.clone();
+        return word;
+    }
+
+    @Override
+    public List<Word> dictMatch(CharBuffer charBuffer) {
+        List<Word> words = new LinkedList<>();
+        StringBuilder value = new StringBuilder();
+        Node node = this.root;
+        while (charBuffer.remaining() > 0) {
+            char c = charBuffer.get();
+            node = this.child(node, c);
+            if (node == null) {
+                break;
+            }
+            value.append(c);
+            if (node.word) {
+                words.add(wordOf(value.toString(), node));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * 回调的词由输入中的匹配片段生成
+     */
+    @Override
+    public void dictMatch(CharSequence text, int offset, MatchVisitor visitor) {
+        Node node = this.root;
+        for (int i = offset; i < text.length(); i++) {
+            node = this.child(node, text.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.word) {
+                visitor.visit(i + 1, wordOf(text.subSequence(offset, i + 1).toString(), node));
+            }
+        }
+    }
+
+    @Override
+    public int dictMatch(CharSequence text, int offset, int[] ends) {
+        int count = 0;
+        Node node = this.root;
+        for (int i = offset; i < text.length() && count < ends.length; i++) {
+            node = this.child(node, text.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.word) {
+                ends[count++] = i + 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int dictMatch(char[] text, int offset, int limit, int[] ends) {
+        int count = 0;
+        Node node = this.root;
+        for (int i = offset; i < limit && count < ends.length; i++) {
+            node = this.child(node, text[i]);
+            if (node == null) {
+                break;
+            }
+            if (node.word) {
+                ends[count++] = i + 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Map<Character, CompactWordPath> getBranches() {
+        return branchesOf(null, this.root);
+    }
+
+    private static Map<Character, CompactWordPath> branchesOf(CompactWordPath parent, Node node) {
+        Map<Character, CompactWordPath> branches = new LinkedHashMap<>(node.count * 2);
+        for (int i = 0; i < node.count; i++) {
+            branches.put(node.forks[i], new CompactWordPath(parent, node.forks[i], node.children[i]));
+        }
+        return Collections.unmodifiableMap(branches);
+    }
+
+    @Override
+    public Iterator<CompactWordPath> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * 深度优先遍历，视图链只在遍历中临时存在
+     */
+    private class Itr implements Iterator<CompactWordPath> {
+        CompactWordPath[] pathStack = new CompactWordPath[16];
+        Node[] nodeStack = new Node[16];
+        int[] indexStack = new int[16];
+        int depth = 0;
+
+        Itr() {
+            nodeStack[0] = CompactRamDictionary.this.root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (depth >= 0 && indexStack[depth] >= nodeStack[depth].count) {
+                depth--;
+            }
+            return depth >= 0;
+        }
+
+        @Override
+        public CompactWordPath next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node parent = nodeStack[depth];
+            int i = indexStack[depth]++;
+            CompactWordPath path = new CompactWordPath(pathStack[depth], parent.forks[i], parent.children[i]);
+            if (path.node.count > 0) {
+                depth++;
+                if (depth == nodeStack.length) {
+                    pathStack = Arrays.copyOf(pathStack, depth * 2);
+                    nodeStack = Arrays.copyOf(nodeStack, depth * 2);
+                    indexStack = Arrays.copyOf(indexStack, depth * 2);
+                }
+                pathStack[depth] = path;
+                nodeStack[depth] = path.node;
+                indexStack[depth] = 0;
+            }
+            return path;
+        }
+    }
+
+    /**
+     * 紧凑节点，不引用父节点，不持有词对象
+     */
+    static final class Node {
+        char[] forks = NO_FORKS;
+        Node[] children = NO_CHILDREN;
+        int count = 0;
+        boolean word = false;
+        long speechMask = 0L;
+        long[] moreSpeechMask = null;
+
+        /**
+         * 查找分叉位置
+         *
+         * @param fork 分叉值
+         * @return 找到返回下标，否则返回 -(插入点 + 1)
+         */
+        int indexOf(char fork) {
+            char[] _forks = this.forks;
+            int n = this.count;
+            if (n <= LINEAR_SCAN_LIMIT) {
+                for (int i = 0; i < n; i++) {
+                    char c = _forks[i];
+                    if (c == fork) {
+                        return i;
+                    }
+                    if (c > fork) {
+                        return -(i + 1);
+                    }
+                }
+                return -(n + 1);
+            }
+            return Arrays.binarySearch(_forks, 0, n, fork);
+        }
+
+        Node branchOf(char fork) {
+            int i = this.indexOf(fork);
+            return i < 0 ? null : this.children[i];
+        }
+
+        Node addBranch(char fork) {
+            int i = -(this.indexOf(fork) + 1);
+            if (this.count == this.forks.length) {
+                int capacity = this.count == 0 ? 1 : this.count + (this.count >> 1) + 1;
+                this.forks = Arrays.copyOf(this.forks, capacity);
+                this.children = Arrays.copyOf(this.children, capacity);
+            }
+            System.arraycopy(this.forks, i, this.forks, i + 1, this.count - i);
+            System.arraycopy(this.children, i, this.children, i + 1, this.count - i);
+            Node node = new Node();
+            this.forks[i] = fork;
+            this.children[i] = node;
+            this.count++;
+            return node;
+        }
+
+        void removeBranch(char fork) {
+            int i = this.indexOf(fork);
+            if (i < 0) {
+                return;
+            }
+            this.count--;
+            System.arraycopy(this.forks, i + 1, this.forks, i, this.count - i);
+            System.arraycopy(this.children, i + 1, this.children, i, this.count - i);
+            this.children[this.count] = null;
+            if (this.count == 0) {
+                this.forks = NO_FORKS;
+                this.children = NO_CHILDREN;
+            }
+        }
+    }
+
+    /**
+     * 紧凑节点的只读词路径视图。词在第一次取用时生成并缓存在视图中。
+     * 同一节点的视图相等，哈希值由节点同一性决定，不需要拼接字串。
+     */
+    public static final class CompactWordPath extends WordPath<CompactWordPath> {
+        final Node node;
+
+        CompactWordPath(CompactWordPath parentPath, char fork, Node node) {
+            super(parentPath, fork);
+            this.node = node;
+        }
+
+        @Override
+        public boolean isFinishWord() {
+            return this.node.word;
+        }
+
+        @Override
+        public Word getWord() {
+            if (!this.node.word) {
+                return null;
+            }
+            if (this.word == null) {
+                this.word = wordOf(this.toString(), this.node);
+                this.word.setPath(this);
+            }
+            return this.word;
+        }
+
+        /**
+         * 视图不能修改，应使用 {@link CompactRamDictionary#add(String, String...)}
+         */
+        @Override
+        public void wordFinish(String... speeches) {
+            throw new UnsupportedOperationException("紧凑字典的词路径视图不能修改");
+        }
+
+        /**
+         * 视图不能修改，应使用 {@link CompactRamDictionary#remove(String)}
+         */
+        @Override
+        public void wordUnFinish() {
+            throw new UnsupportedOperationException("紧凑字典的词路径视图不能修改");
+        }
+
+        @Override
+        public Map<Character, CompactWordPath> getBranches() {
+            return branchesOf(this, this.node);
+        }
+
+        /**
+         * 与其他 {@link WordPath} 一样按字串比较。同一节点的视图字串必然相同，可以不沿父路径比较
+         */
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CompactWordPath && ((CompactWordPath) obj).node == this.node || super.equals(obj);
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.io.Serializable;
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * 可在分词过程中并发修改的内存字典。读操作不加锁，写操作互斥且可线性化。
+ * <p>每个节点的子路径保存在不可变的有序分叉表中，修改时复制出新表，通过一次volatile写发布（写时复制）；
+ * 词边界标记同样是volatile字段。加入新词时先在旁边建好整条新路径再一次挂到已有节点上，
+ * 删除词时先取消词边界标记，再一次摘掉最高的可删除节点。
+ * 因此读线程看到的总是某次修改之前或之后的完整状态，不会看到半条路径。</p>
+ * <p>迭代与 {@link #getBranches()} 是弱一致的：反映迭代过程中某一时刻各节点的分叉表，不会抛出
+ * {@link ConcurrentModificationException}。</p>
+ * <p>写操作需要复制所在节点的分叉表，根节点分叉较多时单次加入新首字的代价较高，适合字典加载后少量的热词修改。
+ * 不需要并发修改时请使用 {@link RamCharArrayDictionary} 或 {@link RamHashedDictionary}。</p>
+ * <p>{@link #mayStartWith(char)} 不加锁读取首字位图，正在删除的首字可能短暂地仍被报告为可能，不会漏报已加入的首字。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class ConcurrentRamDictionary implements Dictionary<ConcurrentRamDictionary.ConcurrentWordPath> {
+    /**
+     * 顺序查找的分叉数上限
+     */
+    static final int LINEAR_SCAN_LIMIT = 8;
+    private final Object writeLock = new Object();
+    private volatile int size = 0;
+    private volatile int maxDepth = 0;
+    private volatile String bookTag = "DM-SEG";
+    private volatile long version = 0L;
+    private final ConcurrentWordPath root = new ConcurrentWordPath(null, '\0');
+    /**
+     * 根节点分叉表中的字，加入时先于根节点分叉表发布，删除时晚于发布
+     */
+    private final FirstCharSet firstChars = new FirstCharSet();
+
+    /**
+     * 设置字典书名标记
+     *
+     * @param bookTag 字典书名标记
+     */
+    public void setBookTag(String bookTag) {
+        this.bookTag = bookTag;
+    }
+
+    /**
+     * 设置字典版本，通常在加载完整字典后设置为其对应的版本
+     *
+     * @param version 字典版本
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * 在写锁内逐条重放补丁，只修改受影响的词路径。补丁整体不是原子的：
+     * 应用过程中的读取可能看到部分记录已生效，但每条记录自身的修改仍是原子可见的。
+     * 版本在全部记录生效后才更新。
+     */
+    @Override
+    public void applyDelta(DictionaryDelta delta) {
+        synchronized (this.writeLock) {
+            delta.checkBase(this);
+            delta.replay(this);
+            this.version = delta.getVersion();
+        }
+    }
+
+    /**
+     * 先volatile读根节点分叉表，之后读到的首字位图不早于该分叉表发布时的状态
+     */
+    @Override
+    public boolean mayStartWith(char c) {
+        return this.root.branches != null && this.firstChars.contains(c);
+    }
+
+    /**
+     * 按各节点当前发布的分叉表估算占用字节数。遍历不加锁，与写入并发时统计的是遍历过程中看到的各节点状态。
+     */
+    @Override
+    public DictionaryStats stats() {
+        DictionaryStats.Collector collector = new DictionaryStats.Collector();
+        collector.root(this.root.branches.forks.length);
+        long bytes = DictionaryStats.objectBytes(4 + 4 * DictionaryStats.REFERENCE + 8) + DictionaryStats.objectBytes(0)
+                + FirstCharSet.bytes()
+                + stats(this.root, 0, collector);
+        return collector.build(this, bytes);
+    }
+
+    private static long stats(ConcurrentWordPath path, int depth, DictionaryStats.Collector collector) {
+        Branches branches = path.branches;
+        Word word = path.current;
+        if (depth > 0) {
+            collector.node(path.getFork(), depth, branches.forks.length, word != null);
+        }
+        // 父路径、词、分叉值、分叉表与当前词
+        long bytes = DictionaryStats.objectBytes(4 * DictionaryStats.REFERENCE + 2);
+        if (branches != Branches.EMPTY) {
+            bytes += DictionaryStats.objectBytes(2 * DictionaryStats.REFERENCE)
+                    + DictionaryStats.arrayBytes(2, branches.forks.length)
+                    + DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, branches.children.length);
+        }
+        if (word != null) {
+            bytes += DictionaryStats.wordBytes(word);
+        }
+        for (ConcurrentWordPath child : branches.children) {
+            bytes += stats(child, depth + 1, collector);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String dictionaryBookTag() {
+        return this.bookTag;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 加入词时维护，删除词后不减小
+     */
+    @Override
+    public int maxDepth() {
+        return this.maxDepth;
+    }
+
+    private ConcurrentWordPath find(String word) {
+        ConcurrentWordPath path = this.root;
+        for (int i = 0; i < word.length() && path != null; i++) {
+            path = path.branchOf(word.charAt(i));
+        }
+        return path == this.root ? null : path;
+    }
+
+    private ConcurrentWordPath parentOf(ConcurrentWordPath path) {
+        return path.parentPath == null ? this.root : (ConcurrentWordPath) path.parentPath;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        ConcurrentWordPath path = this.find(word);
+        return path != null && path.isFinishWord();
+    }
+
+    @Override
+    public boolean add(String word, String... speeches) {
+        if (word.isEmpty()) {
+            return true;
+        }
+        synchronized (this.writeLock) {
+            if (word.length() > this.maxDepth) {
+                this.maxDepth = word.length();
+            }
+            ConcurrentWordPath path = this.root;
+            int i = 0;
+            for (; i < word.length(); i++) {
+                ConcurrentWordPath expectPath = path.branchOf(word.charAt(i));
+                if (expectPath == null) {
+                    break;
+                }
+                path = expectPath;
+            }
+            if (i == word.length()) {
+                boolean create = !path.isFinishWord();
+                path.wordFinish(speeches);
+                if (create) {
+                    this.size++;
+                }
+                return true;
+            }
+            // 新路径建好后才挂到已有节点上
+            ConcurrentWordPath top = new ConcurrentWordPath(path == this.root ? null : path, word.charAt(i));
+            ConcurrentWordPath tail = top;
+            for (i++; i < word.length(); i++) {
+                ConcurrentWordPath child = new ConcurrentWordPath(tail, word.charAt(i));
+                tail.branches = tail.branches.with(child);
+                tail = child;
+            }
+            tail.wordFinish(speeches);
+            if (path == this.root) {
+                this.firstChars.add(top.getFork());
+            }
+            path.branches = path.branches.with(top);
+            this.size++;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean add(Word word) {
+        String[] speeches = new String[word.getSpeeches().size()];
+        speeches = word.getSpeeches().toArray(speeches);
+        return this.add(word.getValue(), speeches);
+    }
+
+    @Override
+    public boolean remove(String word) {
+        synchronized (this.writeLock) {
+            ConcurrentWordPath path = this.find(word);
+            if (path == null || !path.isFinishWord()) {
+                return false;
+            }
+            path.wordUnFinish();
+            if (path.branches.forks.length == 0) { // 没有子路径，摘掉不再需要的最高节点
+                ConcurrentWordPath parent = this.parentOf(path);
+                while (parent != this.root && !parent.isFinishWord() && parent.branches.forks.length == 1) {
+                    path = parent;
+                    parent = this.parentOf(path);
+                }
+                parent.branches = parent.branches.without(path.getFork());
+                if (parent == this.root) {
+                    this.firstChars.remove(path.getFork());
+                }
+            }
+            this.size--;
+            return true;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<WordPath> withPrefix(WordPath path) {
+        if (path == null) {
+            return null;
+        }
+        ConcurrentWordPath matchPath = this.root;
+        for (WordPath expectPath : (Deque<WordPath>) path.getPathQueue()) {
+            matchPath = matchPath.branchOf(expectPath.getFork());
+            if (matchPath == null) {
+                return null;
+            }
+        }
+        if (matchPath == this.root) {
+            return null;
+        }
+        return new HashSet<>(Arrays.asList(matchPath.branches.children));
+    }
+
+    @Override
+    public List<Word> dictMatch(CharBuffer charBuffer) {
+        List<Word> words = new LinkedList<>();
+        ConcurrentWordPath path = this.root;
+        while (charBuffer.remaining() > 0) {
+            path = path.branchOf(charBuffer.get());
+            if (path == null) {
+                break;
+            }
+            Word word = path.current;
+            if (word != null) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    @Override
+    public void dictMatch(CharSequence text, int offset, MatchVisitor visitor) {
+        ConcurrentWordPath path = this.root;
+        for (int i = offset; i < text.length(); i++) {
+            path = path.branchOf(text.charAt(i));
+            if (path == null) {
+                break;
+            }
+            Word word = path.current;
+            if (word != null) {
+                visitor.visit(i + 1, word);
+            }
+        }
+    }
+
+    @Override
+    public int dictMatch(CharSequence text, int offset, int[] ends) {
+        int count = 0;
+        ConcurrentWordPath path = this.root;
+        for (int i = offset; i < text.length() && count < ends.length; i++) {
+            path = path.branchOf(text.charAt(i));
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                ends[count++] = i + 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int dictMatch(char[] text, int offset, int limit, int[] ends) {
+        int count = 0;
+        ConcurrentWordPath path = this.root;
+        for (int i = offset; i < limit && count < ends.length; i++) {
+            path = path.branchOf(text[i]);
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                ends[count++] = i + 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Map<Character, ConcurrentWordPath> getBranches() {
+        return this.root.getBranches();
+    }
+
+    @Override
+    public Iterator<ConcurrentWordPath> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * 深度优先遍历，每层保存进入时的分叉表快照
+     */
+    private class Itr implements Iterator<ConcurrentWordPath> {
+        Branches[] tableStack = new Branches[16];
+        int[] indexStack = new int[16];
+        int depth = 0;
+
+        Itr() {
+            tableStack[0] = ConcurrentRamDictionary.this.root.branches;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (depth >= 0 && indexStack[depth] >= tableStack[depth].children.length) {
+                depth--;
+            }
+            return depth >= 0;
+        }
+
+        @Override
+        public ConcurrentWordPath next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ConcurrentWordPath path = tableStack[depth].children[indexStack[depth]++];
+            Branches branches = path.branches;
+            if (branches.children.length > 0) {
+                depth++;
+                if (depth == tableStack.length) {
+                    tableStack = Arrays.copyOf(tableStack, depth * 2);
+                    indexStack = Arrays.copyOf(indexStack, depth * 2);
+                }
+                tableStack[depth] = branches;
+                indexStack[depth] = 0;
+            }
+            return path;
+        }
+    }
+
+    /**
+     * 写时复制的词路径实现。分叉表与词都通过volatile字段发布，读取不需要加锁。
+     */
+    public static final class ConcurrentWordPath extends WordPath<ConcurrentWordPath> {
+        volatile Branches branches = Branches.EMPTY;
+        volatile Word current = null;
+
+        ConcurrentWordPath(WordPath parentPath, char fork) {
+            super(parentPath, fork);
+        }
+
+        ConcurrentWordPath branchOf(char fork) {
+            Branches _branches = this.branches;
+            int i = _branches.indexOf(fork);
+            return i < 0 ? null : _branches.children[i];
+        }
+
+        @Override
+        public boolean isFinishWord() {
+            return this.current != null;
+        }
+
+        @Override
+        public void wordFinish(String... speeches) {
+            Word word = new Word(this.toString(), speeches);
+            word.setPath(this);
+            this.current = word;
+        }
+
+        @Override
+        public void wordUnFinish() {
+            this.current = null;
+        }
+
+        @Override
+        public Word getWord() {
+            return this.current;
+        }
+
+        /**
+         * @return 当前分叉表的只读Map视图，之后的修改不会反映到此视图中
+         */
+        @Override
+        public Map<Character, ConcurrentWordPath> getBranches() {
+            return new BranchesView(this.branches);
+        }
+    }
+
+    /**
+     * 不可变的有序分叉表
+     */
+    static final class Branches implements Serializable {
+        static final Branches EMPTY = new Branches(new char[0], new ConcurrentWordPath[0]);
+        final char[] forks;
+        final ConcurrentWordPath[] children;
+
+        private Branches(char[] forks, ConcurrentWordPath[] children) {
+            this.forks = forks;
+            this.children = children;
+        }
+
+        /**
+         * 查找分叉位置
+         *
+         * @param fork 分叉值
+         * @return 找到返回下标，否则返回 -(插入点 + 1)
+         */
+        int indexOf(char fork) {
+            char[] _forks = this.forks;
+            int n = _forks.length;
+            if (n <= LINEAR_SCAN_LIMIT) {
+                for (int i = 0; i < n; i++) {
+                    char c = _forks[i];
+                    if (c == fork) {
+                        return i;
+                    }
+                    if (c > fork) {
+                        return -(i + 1);
+                    }
+                }
+                return -(n + 1);
+            }
+            return Arrays.binarySearch(_forks, fork);
+        }
+
+        Branches with(ConcurrentWordPath child) {
+            int i = -(this.indexOf(child.getFork()) + 1);
+            int n = this.forks.length;
+            char[] _forks = new char[n + 1];
+            ConcurrentWordPath[] _children = new ConcurrentWordPath[n + 1];
+            System.arraycopy(this.forks, 0, _forks, 0, i);
+            System.arraycopy(this.children, 0, _children, 0, i);
+            _forks[i] = child.getFork();
+            _children[i] = child;
+            System.arraycopy(this.forks, i, _forks, i + 1, n - i);
+            System.arraycopy(this.children, i, _children, i + 1, n - i);
+            return new Branches(_forks, _children);
+        }
+
+        Branches without(char fork) {
+            int i = this.indexOf(fork);
+            if (i < 0) {
+                return this;
+            }
+            int n = this.forks.length - 1;
+            if (n == 0) {
+                return EMPTY;
+            }
+            char[] _forks = new char[n];
+            ConcurrentWordPath[] _children = new ConcurrentWordPath[n];
+            System.arraycopy(this.forks, 0, _forks, 0, i);
+            System.arraycopy(this.children, 0, _children, 0, i);
+            System.arraycopy(this.forks, i + 1, _forks, i, n - i);
+            System.arraycopy(this.children, i + 1, _children, i, n - i);
+            return new Branches(_forks, _children);
+        }
+    }
+
+    /**
+     * 分叉表的只读Map视图
+     */
+    private static final class BranchesView extends AbstractMap<Character, ConcurrentWordPath> {
+        private final Branches branches;
+
+        BranchesView(Branches branches) {
+            this.branches = branches;
+        }
+
+        @Override
+        public int size() {
+            return this.branches.forks.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.get(key) != null;
+        }
+
+        @Override
+        public ConcurrentWordPath get(Object key) {
+            if (!(key instanceof Character)) {
+                return null;
+            }
+            int i = this.branches.indexOf((Character) key);
+            return i < 0 ? null : this.branches.children[i];
+        }
+
+        @Override
+        public Set<Entry<Character, ConcurrentWordPath>> entrySet() {
+            return new AbstractSet<Entry<Character, ConcurrentWordPath>>() {
+                @Override
+                public Iterator<Entry<Character, ConcurrentWordPath>> iterator() {
+                    return new Iterator<Entry<Character, ConcurrentWordPath>>() {
+                        int i = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < branches.children.length;
+                        }
+
+                        @Override
+                        public Entry<Character, ConcurrentWordPath> next() {
+                            if (!this.hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            ConcurrentWordPath child = branches.children[i++];
+                            return new SimpleImmutableEntry<>(child.getFork(), child);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return branches.children.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * 在内存使用有序字数组实现的快查字典结构。可修改。
+ * <p>与 {@link RamHashedDictionary} 不同，节点的子路径保存在按分叉值排序的 {@code char[]} 与子路径数组中，
+ * 查找分叉时不需要装箱 {@link Character}，不加锁，也不为每个子路径创建Map节点对象。
+ * 分叉数不超过 {@value #LINEAR_SCAN_LIMIT} 时顺序查找，否则二分查找。</p>
+ * <p>此类是线程不安全的，不要使用多线程进行字典内容修改操作。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class RamCharArrayDictionary implements Dictionary<RamCharArrayDictionary.CharArrayWordPath> {
+    /**
+     * 顺序查找的分叉数上限
+     */
+    static final int LINEAR_SCAN_LIMIT = 8;
+    private static final char[] NO_FORKS = new char[0];
+    private static final CharArrayWordPath[] NO_CHILDREN = new CharArrayWordPath[0];
+
+    private int size = 0;
+    private int maxDepth = 0;
+    private String bookTag = "DM-SEG";
+    private long version = 0L;
+    private final CharArrayWordPath root = new CharArrayWordPath(null, '\0');
+    /**
+     * 根节点的子节点，按分叉值直接下标访问，与根节点的有序数组同步维护
+     */
+    private final CharArrayWordPath[] rootTable = new CharArrayWordPath[Character.MAX_VALUE + 1];
+    private final FirstCharSet firstChars = new FirstCharSet();
+
+    /**
+     * 设置字典书名标记
+     *
+     * @param bookTag 字典书名标记
+     */
+    public void setBookTag(String bookTag) {
+        this.bookTag = bookTag;
+    }
+
+    /**
+     * 设置字典版本，通常在加载完整字典后设置为其对应的版本
+     *
+     * @param version 字典版本
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * 逐条调用 {@link #add(String, String...)} 与 {@link #remove(String)}，只修改受影响的词路径
+     */
+    @Override
+    public void applyDelta(DictionaryDelta delta) {
+        delta.checkBase(this);
+        delta.replay(this);
+        this.version = delta.getVersion();
+    }
+
+    /**
+     * 按各节点的有序字数组与子节点数组的实际长度估算占用字节数
+     */
+    @Override
+    public DictionaryStats stats() {
+        DictionaryStats.Collector collector = new DictionaryStats.Collector();
+        collector.root(this.root.count);
+        long bytes = DictionaryStats.objectBytes(4 + 4 * DictionaryStats.REFERENCE + 8)
+                + DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, this.rootTable.length) + FirstCharSet.bytes()
+                + this.stats(this.root, 0, collector);
+        return collector.build(this, bytes);
+    }
+
+    private long stats(CharArrayWordPath path, int depth, DictionaryStats.Collector collector) {
+        if (depth > 0) {
+            collector.node(path.getFork(), depth, path.count, path.isFinishWord());
+        }
+        // 父路径、词、分叉值、字数组、子节点数组、子节点数与外部类引用
+        long bytes = DictionaryStats.objectBytes(5 * DictionaryStats.REFERENCE + 2 + 4);
+        if (path.forks != NO_FORKS) {
+            bytes += DictionaryStats.arrayBytes(2, path.forks.length)
+                    + DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, path.children.length);
+        }
+        if (path.isFinishWord()) {
+            bytes += DictionaryStats.wordBytes(path.getWord());
+        }
+        for (int i = 0; i < path.count; i++) {
+            bytes += this.stats(path.children[i], depth + 1, collector);
+        }
+        return bytes;
+    }
+
+    @Override
+    public String dictionaryBookTag() {
+        return this.bookTag;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 加入词时维护，删除词后不减小
+     */
+    @Override
+    public int maxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * 查找子节点，根节点的子节点直接按分叉值下标查找
+     */
+    private CharArrayWordPath child(CharArrayWordPath path, char fork) {
+        return path == this.root ? this.rootTable[fork] : path.branchOf(fork);
+    }
+
+    private CharArrayWordPath addChild(CharArrayWordPath path, char fork) {
+        CharArrayWordPath child = path.addBranch(fork);
+        if (path == this.root) {
+            this.rootTable[fork] = child;
+            this.firstChars.add(fork);
+        }
+        return child;
+    }
+
+    private void removeChild(CharArrayWordPath path, char fork) {
+        path.removeBranch(fork);
+        if (path == this.root) {
+            this.rootTable[fork] = null;
+            this.firstChars.remove(fork);
+        }
+    }
+
+    @Override
+    public boolean mayStartWith(char c) {
+        return this.firstChars.contains(c);
+    }
+
+    private CharArrayWordPath find(String word) {
+        CharArrayWordPath path = this.root;
+        for (int i = 0; i < word.length() && path != null; i++) {
+            path = this.child(path, word.charAt(i));
+        }
+        return path == this.root ? null : path;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        CharArrayWordPath path = this.find(word);
+        return path != null && path.isFinishWord();
+    }
+
+    @Override
+    public boolean add(String word, String... speeches) {
+        if (word.isEmpty()) {
+            return true;
+        }
+        CharArrayWordPath path = this.root;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            CharArrayWordPath expectPath = this.child(path, c);
+            if (expectPath == null) {
+                expectPath = this.addChild(path, c);
+            }
+            path = expectPath;
+        }
+        boolean create = !path.isFinishWord();
+        path.wordFinish(speeches);
+        if (create) {
+            this.size++;
+        }
+        this.maxDepth = Math.max(this.maxDepth, word.length());
+        return true;
+    }
+
+    @Override
+    public boolean add(Word word) {
+        String[] speeches = new String[word.getSpeeches().size()];
+        speeches = word.getSpeeches().toArray(speeches);
+        return this.add(word.getValue(), speeches);
+    }
+
+    @Override
+    public boolean remove(String word) {
+        CharArrayWordPath path = this.find(word);
+        if (path == null || !path.isFinishWord()) {
+            return false;
+        }
+        path.wordUnFinish();
+        while (!path.isFinishWord() && path.count == 0) { // 不是结束位，也没有子路径
+            CharArrayWordPath parent = path.parentPath == null ? this.root : (CharArrayWordPath) path.parentPath;
+            this.removeChild(parent, path.getFork()); // 删除子路径
+            if (parent == this.root) {
+                break; // 到root了
+            }
+            path = parent;
+        }
+        this.size--;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<WordPath> withPrefix(WordPath path) {
+        if (path == null) {
+            return null;
+        }
+        CharArrayWordPath matchPath = this.root;
+        for (WordPath expectPath : (Deque<WordPath>) path.getPathQueue()) {
+            matchPath = this.child(matchPath, expectPath.getFork());
+            if (matchPath == null) {
+                return null;
+            }
+        }
+        if (matchPath == this.root) {
+            return null;
+        }
+        Set<WordPath> paths = new HashSet<>(matchPath.count * 2);
+        Collections.addAll(paths, Arrays.copyOf(matchPath.children, matchPath.count));
+        return paths;
+    }
+
+    @Override
+    public List<Word> dictMatch(CharBuffer charBuffer) {
+        List<Word> words = new LinkedList<>();
+        CharArrayWordPath path = this.root;
+        while (charBuffer.remaining() > 0) {
+            path = this.child(path, charBuffer.get());
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                words.add(path.getWord());
+            }
+        }
+        return words;
+    }
+
+    @Override
+    public void dictMatch(CharSequence text, int offset, MatchVisitor visitor) {
+        CharArrayWordPath path = this.root;
+        for (int i = offset; i < text.length(); i++) {
+            path = this.child(path, text.charAt(i));
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                visitor.visit(i + 1, path.getWord());
+            }
+        }
+    }
+
+    @Override
+    public int dictMatch(CharSequence text, int offset, int[] ends) {
+        int count = 0;
+        CharArrayWordPath path = this.root;
+        for (int i = offset; i < text.length() && count < ends.length; i++) {
+            path = this.child(path, text.charAt(i));
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                ends[count++] = i + 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int dictMatch(char[] text, int offset, int limit, int[] ends) {
+        int count = 0;
+        CharArrayWordPath path = this.root;
+        for (int i = offset; i < limit && count < ends.length; i++) {
+            path = this.child(path, text[i]);
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                ends[count++] = i + 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Map<Character, CharArrayWordPath> getBranches() {
+        return this.root.getBranches();
+    }
+
+    @Override
+    public Iterator<CharArrayWordPath> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * 深度优先遍历，使用下标栈代替迭代器栈
+     */
+    private class Itr implements Iterator<CharArrayWordPath> {
+        CharArrayWordPath[] pathStack = new CharArrayWordPath[16];
+        int[] indexStack = new int[16];
+        int depth = 0;
+
+        Itr() {
+            pathStack[0] = RamCharArrayDictionary.this.root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (depth >= 0 && indexStack[depth] >= pathStack[depth].count) {
+                depth--;
+            }
+            return depth >= 0;
+        }
+
+        @Override
+        public CharArrayWordPath next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CharArrayWordPath path = pathStack[depth].children[indexStack[depth]++];
+            if (path.count > 0) {
+                depth++;
+                if (depth == pathStack.length) {
+                    pathStack = Arrays.copyOf(pathStack, depth * 2);
+                    indexStack = Arrays.copyOf(indexStack, depth * 2);
+                }
+                pathStack[depth] = path;
+                indexStack[depth] = 0;
+            }
+            return path;
+        }
+    }
+
+    /**
+     * 有序字数组的词路径实现，用于内存存储表示
+     */
+    public class CharArrayWordPath extends WordPath<CharArrayWordPath> {
+        char[] forks = NO_FORKS;
+        CharArrayWordPath[] children = NO_CHILDREN;
+        int count = 0;
+
+        CharArrayWordPath(WordPath parentPath, char fork) {
+            super(parentPath, fork);
+        }
+
+        /**
+         * 查找分叉位置
+         *
+         * @param fork 分叉值
+         * @return 找到返回下标，否则返回 -(插入点 + 1)
+         */
+        int indexOf(char fork) {
+            char[] _forks = this.forks;
+            int n = this.count;
+            if (n <= LINEAR_SCAN_LIMIT) {
+                for (int i = 0; i < n; i++) {
+                    char c = _forks[i];
+                    if (c == fork) {
+                        return i;
+                    }
+                    if (c > fork) {
+                        return -(i + 1);
+                    }
+                }
+                return -(n + 1);
+            }
+            return Arrays.binarySearch(_forks, 0, n, fork);
+        }
+
+        CharArrayWordPath branchOf(char fork) {
+            int i = this.indexOf(fork);
+            return i < 0 ? null : this.children[i];
+        }
+
+        CharArrayWordPath addBranch(char fork) {
+            int i = -(this.indexOf(fork) + 1);
+            if (this.count == this.forks.length) {
+                int capacity = this.count == 0 ? 1 : this.count + (this.count >> 1) + 1;
+                this.forks = Arrays.copyOf(this.forks, capacity);
+                this.children = Arrays.copyOf(this.children, capacity);
+            }
+            System.arraycopy(this.forks, i, this.forks, i + 1, this.count - i);
+            System.arraycopy(this.children, i, this.children, i + 1, this.count - i);
+            CharArrayWordPath path = new CharArrayWordPath(this == root ? null : this, fork);
+            this.forks[i] = fork;
+            this.children[i] = path;
+            this.count++;
+            return path;
+        }
+
+        void removeBranch(char fork) {
+            int i = this.indexOf(fork);
+            if (i < 0) {
+                return;
+            }
+            this.count--;
+            System.arraycopy(this.forks, i + 1, this.forks, i, this.count - i);
+            System.arraycopy(this.children, i + 1, this.children, i, this.count - i);
+            this.children[this.count] = null;
+            if (this.count == 0) {
+                this.forks = NO_FORKS;
+                this.children = NO_CHILDREN;
+            }
+        }
+
+        /**
+         * @return 子路径的只读Map视图
+         */
+        @Override
+        public Map<Character, CharArrayWordPath> getBranches() {
+            return new BranchesView(this);
+        }
+    }
+
+    /**
+     * 节点子路径的只读Map视图
+     */
+    private static final class BranchesView extends AbstractMap<Character, CharArrayWordPath> {
+        private final CharArrayWordPath path;
+
+        BranchesView(CharArrayWordPath path) {
+            this.path = path;
+        }
+
+        @Override
+        public int size() {
+            return this.path.count;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.get(key) != null;
+        }
+
+        @Override
+        public CharArrayWordPath get(Object key) {
+            return key instanceof Character ? this.path.branchOf((Character) key) : null;
+        }
+
+        @Override
+        public Set<Entry<Character, CharArrayWordPath>> entrySet() {
+            return new AbstractSet<Entry<Character, CharArrayWordPath>>() {
+                @Override
+                public Iterator<Entry<Character, CharArrayWordPath>> iterator() {
+                    return new Iterator<Entry<Character, CharArrayWordPath>>() {
+                        int i = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < path.count;
+                        }
+
+                        @Override
+                        public Entry<Character, CharArrayWordPath> next() {
+                            if (!this.hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            CharArrayWordPath child = path.children[i++];
+                            return new SimpleImmutableEntry<>(child.getFork(), child);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return path.count;
+                }
+            };
+        }
+    }
+}
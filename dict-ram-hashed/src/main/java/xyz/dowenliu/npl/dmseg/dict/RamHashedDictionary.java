@@ -2,6 +2,7 @@ package xyz.dowenliu.npl.dmseg.dict;
 
 import java.nio.CharBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -11,8 +12,12 @@ import java.util.stream.Collectors;
  * <p>为减少内存浪费、平衡查询效率并减小初始化过程中内存溢出的可能性，内部使用的Hash节点使用容量8、加载因子0.8初始化，
  * 因此在此字典类实例构建时会频繁的进行rehash操作。要改变此行为可在字典对象初始化后未增加词前使用
  * {@link #setNodeInitialCapacity(int)}、{@link #setNodeLoadFactor(float)}方法修改这两参数。
- * <strong>小心使用这两个方法</strong></p>
- * <p>此类是线程不安全的，不要使用多线程进行字典内容修改操作。</p>
+ * <strong>小心使用这两个方法</strong>；已有按字典序排列的词表时，使用 {@link RamHashedDictionaryBuilder}
+ * 一次建立字典树，每个节点的散列表按最终分叉数分配，不发生rehash。</p>
+ * <p>根节点的子节点另外保存在按字直接下标访问的数组中，匹配的第一步不需要查同步的Hash表，也不装箱；
+ * 首字另外记录在 {@link FirstCharSet} 中，供 {@link #mayStartWith(char)} 快速排除。</p>
+ * <p>此类是线程不安全的，不要使用多线程进行字典内容修改操作。需要在分词过程中修改字典时请使用
+ * {@link ConcurrentRamDictionary}。</p>
  *
  * @author liufl
  * @since 1.0.0
@@ -21,8 +26,15 @@ public final class RamHashedDictionary implements Dictionary<RamHashedDictionary
     private int nodeInitialCapacity = 8;
     private float nodeLoadFactor = 0.8F;
     private int size = 0;
+    private int maxDepth = 0;
     private String bookTag = "DM-SEG";
+    private long version = 0L;
     private Map<Character, HashWordPath> branches = Collections.synchronizedMap(new HashMap<>());
+    /**
+     * 根节点的子节点，按分叉值直接下标访问，与 {@link #branches} 同步维护
+     */
+    private final HashWordPath[] rootTable = new HashWordPath[Character.MAX_VALUE + 1];
+    private final FirstCharSet firstChars = new FirstCharSet();
 
     /**
      * 获取Hash节点初始化容量
@@ -71,12 +83,47 @@ public final class RamHashedDictionary implements Dictionary<RamHashedDictionary
         this.bookTag = bookTag;
     }
 
+    /**
+     * 设置字典版本，通常在加载完整字典后设置为其对应的版本
+     *
+     * @param version 字典版本
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * 逐条调用 {@link #add(String, String...)} 与 {@link #remove(String)}，只修改受影响的词路径
+     */
+    @Override
+    public void applyDelta(DictionaryDelta delta) {
+        delta.checkBase(this);
+        delta.replay(this);
+        this.version = delta.getVersion();
+    }
+
     @Override
     public int size() {
         return this.size;
     }
 
+    /**
+     * 加入词时维护，删除词后不减小
+     */
+    @Override
+    public int maxDepth() {
+        return this.maxDepth;
+    }
+
     private HashWordPath branchOf(Map<Character, HashWordPath> branches, char fork) {
+        if (branches == this.branches) {
+            return this.rootTable[fork];
+        }
         if (branches.isEmpty()) {
             return null;
         }
@@ -111,7 +158,7 @@ public final class RamHashedDictionary implements Dictionary<RamHashedDictionary
             HashWordPath expectPath = this.branchOf(_branches, c);
             if (expectPath == null) {
                 expectPath = new HashWordPath(path, c);
-                _branches.put(c, expectPath);
+                this.putBranch(_branches, expectPath);
                 create = true;
             }
             path = expectPath;
@@ -125,9 +172,105 @@ public final class RamHashedDictionary implements Dictionary<RamHashedDictionary
         if (create) {
             this.size++;
         }
+        this.maxDepth = Math.max(this.maxDepth, chars.length);
         return true;
     }
 
+    /**
+     * 并行加入词。按首字将词分片，各分片在线程池中独立建立首字下的子树，互不加锁；
+     * 全部完成后由调用线程把新建的子树挂到根节点下并更新词数。
+     * 结果与按顺序逐个 {@link #add(Word)} 相同，重复的词以最后出现的词性为准。
+     * <p>加入过程中不能有其他线程读取或修改此字典。</p>
+     *
+     * @param words 词
+     * @param pool  线程池
+     */
+    public void addAllParallel(List<? extends Word> words, ForkJoinPool pool) {
+        Map<Character, List<Word>> shards = pool.submit(() -> words.parallelStream().map(Word.class::cast)
+                .filter(word -> !word.getValue().isEmpty())
+                .collect(Collectors.groupingBy(word -> word.getValue().charAt(0))))
+                .join();
+        List<Shard> built = pool.submit(() -> shards.entrySet().parallelStream()
+                .map(entry -> this.buildShard(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList()))
+                .join();
+        int created = 0;
+        for (Shard shard : built) {
+            if (shard.detached) {
+                this.putBranch(this.branches, shard.path);
+            }
+            created += shard.created;
+        }
+        this.size += created;
+        for (Word word : words) {
+            this.maxDepth = Math.max(this.maxDepth, word.getValue().length());
+        }
+    }
+
+    /**
+     * 在首字子树中加入词。只读取根节点，不修改根节点与词数，因此不同首字的分片可以同时建立。
+     */
+    private Shard buildShard(char fork, List<Word> words) {
+        HashWordPath top = this.branchOf(this.branches, fork);
+        Shard shard = new Shard(top == null ? new HashWordPath(null, fork) : top, top == null);
+        for (Word word : words) {
+            String value = word.getValue();
+            boolean create = false;
+            HashWordPath path = shard.path;
+            for (int i = 1; i < value.length(); i++) {
+                char c = value.charAt(i);
+                HashWordPath expectPath = this.branchOf(path.branches, c);
+                if (expectPath == null) {
+                    expectPath = new HashWordPath(path, c);
+                    path.branches.put(c, expectPath);
+                    create = true;
+                }
+                path = expectPath;
+            }
+            if (!path.isFinishWord()) {
+                create = true;
+            }
+            path.wordFinish(word.getSpeeches().toArray(new String[0]));
+            if (create) {
+                shard.created++;
+            }
+        }
+        return shard;
+    }
+
+    /**
+     * 首字分片的建立结果
+     */
+    private static final class Shard {
+        final HashWordPath path;
+        final boolean detached;
+        int created = 0;
+
+        Shard(HashWordPath path, boolean detached) {
+            this.path = path;
+            this.detached = detached;
+        }
+    }
+
+    /**
+     * 供 {@link RamHashedDictionaryBuilder} 把建好的首字子树挂到根节点下
+     *
+     * @param path  首字节点
+     * @param words 子树中的词数
+     */
+    void attach(HashWordPath path, int words) {
+        this.putBranch(this.branches, path);
+        this.size += words;
+    }
+
+    private void putBranch(Map<Character, HashWordPath> branches, HashWordPath path) {
+        branches.put(path.getFork(), path);
+        if (branches == this.branches) {
+            this.rootTable[path.getFork()] = path;
+            this.firstChars.add(path.getFork());
+        }
+    }
+
     @Override
     public boolean add(Word word) {
         String[] speeches = new String[word.getSpeeches().size()];
@@ -208,11 +351,68 @@ public final class RamHashedDictionary implements Dictionary<RamHashedDictionary
         return words;
     }
 
+    @Override
+    public void dictMatch(CharSequence text, int offset, MatchVisitor visitor) {
+        Map<Character, HashWordPath> _branches = this.branches;
+        HashWordPath path;
+        for (int i = offset; i < text.length(); i++) {
+            path = branchOf(_branches, text.charAt(i));
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                visitor.visit(i + 1, path.getWord());
+            }
+            _branches = path.getBranches();
+        }
+    }
+
+    @Override
+    public int dictMatch(CharSequence text, int offset, int[] ends) {
+        int count = 0;
+        Map<Character, HashWordPath> _branches = this.branches;
+        HashWordPath path;
+        for (int i = offset; i < text.length() && count < ends.length; i++) {
+            path = branchOf(_branches, text.charAt(i));
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                ends[count++] = i + 1;
+            }
+            _branches = path.getBranches();
+        }
+        return count;
+    }
+
+    @Override
+    public int dictMatch(char[] text, int offset, int limit, int[] ends) {
+        int count = 0;
+        Map<Character, HashWordPath> _branches = this.branches;
+        HashWordPath path;
+        for (int i = offset; i < limit && count < ends.length; i++) {
+            path = branchOf(_branches, text[i]);
+            if (path == null) {
+                break;
+            }
+            if (path.isFinishWord()) {
+                ends[count++] = i + 1;
+            }
+            _branches = path.getBranches();
+        }
+        return count;
+    }
+
     @Override
     public Map<Character, HashWordPath> getBranches() {
         return this.branches;
     }
 
+    @Override
+    public boolean mayStartWith(char c) {
+        return this.firstChars.contains(c);
+    }
+
     @Override
     public Iterator<HashWordPath> iterator() {
         return new Itr();
@@ -250,6 +450,60 @@ public final class RamHashedDictionary implements Dictionary<RamHashedDictionary
         }
     }
 
+    /**
+     * 按节点的Hash表容量与加载因子估算占用字节数：每个节点一个 {@link HashWordPath}、同步包装、{@link HashMap}
+     * 及其散列表与表项，分叉值不小于128的字还有各自的装箱对象
+     */
+    @Override
+    public DictionaryStats stats() {
+        DictionaryStats.Collector collector = new DictionaryStats.Collector();
+        collector.root(this.branches.size());
+        long bytes = DictionaryStats.objectBytes(4 + 4 + 4 + 3 * DictionaryStats.REFERENCE + 8 + DictionaryStats.REFERENCE)
+                + hashMapBytes(this.branches, 16, 0.75F)
+                + DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, this.rootTable.length) + FirstCharSet.bytes();
+        for (HashWordPath path : this.branches.values()) {
+            bytes += this.stats(path, 1, collector);
+        }
+        return collector.build(this, bytes);
+    }
+
+    private long stats(HashWordPath path, int depth, DictionaryStats.Collector collector) {
+        collector.node(path.getFork(), depth, path.branches.size(), path.isFinishWord());
+        // 父路径、词、分叉值、分叉表与外部类引用
+        long bytes = DictionaryStats.objectBytes(4 * DictionaryStats.REFERENCE + 2)
+                + hashMapBytes(path.branches, this.nodeInitialCapacity, this.nodeLoadFactor);
+        if (path.isFinishWord()) {
+            bytes += DictionaryStats.wordBytes(path.getWord());
+        }
+        for (HashWordPath child : path.branches.values()) {
+            bytes += this.stats(child, depth + 1, collector);
+        }
+        return bytes;
+    }
+
+    private static long hashMapBytes(Map<Character, HashWordPath> branches, int initialCapacity, float loadFactor) {
+        // 同步包装：被包装Map、锁与三个视图
+        long bytes = DictionaryStats.objectBytes(5 * DictionaryStats.REFERENCE)
+                // HashMap：散列表、四个视图与四个int/float字段
+                + DictionaryStats.objectBytes(4 * DictionaryStats.REFERENCE + 16);
+        int size = branches.size();
+        if (size == 0) {
+            return bytes; // 散列表在第一次放入时才分配
+        }
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity - 1, 1)) << 1;
+        while (size > capacity * loadFactor) {
+            capacity <<= 1;
+        }
+        bytes += DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, capacity)
+                + size * DictionaryStats.objectBytes(4 + 3 * DictionaryStats.REFERENCE);
+        for (Character fork : branches.keySet()) {
+            if (fork >= 128) {
+                bytes += DictionaryStats.objectBytes(2); // Character.valueOf只缓存0~127
+            }
+        }
+        return bytes;
+    }
+
     @Override
     public String dictionaryBookTag() {
         return this.bookTag;
@@ -267,6 +521,14 @@ public final class RamHashedDictionary implements Dictionary<RamHashedDictionary
                     .synchronizedMap(new HashMap<>(nodeInitialCapacity, nodeLoadFactor));
         }
 
+        /**
+         * 由 {@link RamHashedDictionaryBuilder} 使用，分叉表在子节点全部建好后才设置
+         */
+        HashWordPath(WordPath parentPath, char fork, Map<Character, HashWordPath> branches) {
+            super(parentPath, fork);
+            this.branches = branches;
+        }
+
 
         @Override
         public Map<Character, HashWordPath> getBranches() {
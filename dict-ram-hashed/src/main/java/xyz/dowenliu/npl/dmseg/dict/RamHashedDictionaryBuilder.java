@@ -0,0 +1,248 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import xyz.dowenliu.npl.dmseg.dict.loader.WordRecordReader;
+
+import java.util.*;
+
+/**
+ * {@link RamHashedDictionary} 批量构建器。词按字典序逐个加入，一遍建立字典树。
+ * <p>有序输入中一个节点的子节点是连续加入的，当前词与上一个词的公共前缀之外的节点不会再有新的子节点，
+ * 此时按其最终分叉数分配散列表并一次放入全部子节点。与逐个 {@link RamHashedDictionary#add(String, String...)}
+ * 相比，节点散列表不发生rehash，也没有按初始容量8预留的空槽，构建更快、占用内存更少。</p>
+ * <p>构建出的字典的节点初始容量为 1，之后再加入词时新节点的散列表同样按需增长。</p>
+ * <p>此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class RamHashedDictionaryBuilder {
+    private final RamHashedDictionary dictionary = new RamHashedDictionary();
+    /**
+     * 当前词路径上尚未完成的节点，下标为深度减一
+     */
+    private Pending[] stack = new Pending[16];
+    private int depth = 0;
+    private int topWords = 0;
+    private String previous = null;
+    private boolean built = false;
+
+    public RamHashedDictionaryBuilder() {
+        this.dictionary.setNodeInitialCapacity(1);
+    }
+
+    /**
+     * 设置构建出的字典的书名标记
+     *
+     * @param bookTag 字典书名标记
+     * @return this
+     */
+    public RamHashedDictionaryBuilder bookTag(String bookTag) {
+        this.dictionary.setBookTag(bookTag);
+        return this;
+    }
+
+    /**
+     * 加入词。词必须按 {@link String#compareTo(String)} 的升序加入，重复加入的词以最后一次的词性为准。
+     *
+     * @param word     词
+     * @param speeches 词性列表
+     * @return this
+     * @throws IllegalArgumentException 词未按升序加入
+     * @throws IllegalStateException    已经构建过
+     */
+    public RamHashedDictionaryBuilder add(String word, String... speeches) {
+        if (this.built) {
+            throw new IllegalStateException("已经构建过");
+        }
+        if (word == null || word.isEmpty()) {
+            return this;
+        }
+        int common = 0;
+        if (this.previous != null) {
+            int order = word.compareTo(this.previous);
+            if (order < 0) {
+                throw new IllegalArgumentException("词未按字典序加入：" + this.previous + " -> " + word);
+            }
+            if (order == 0) {
+                this.finish(this.stack[this.depth - 1].path, word, speeches);
+                return this;
+            }
+            int max = Math.min(word.length(), this.depth);
+            while (common < max && word.charAt(common) == this.previous.charAt(common)) {
+                common++;
+            }
+        }
+        while (this.depth > common) {
+            this.complete();
+        }
+        for (int i = common; i < word.length(); i++) {
+            this.push(word.charAt(i));
+        }
+        this.finish(this.stack[this.depth - 1].path, word, speeches);
+        this.topWords++;
+        this.previous = word;
+        return this;
+    }
+
+    /**
+     * 加入词
+     *
+     * @param word 词
+     * @return this
+     */
+    public RamHashedDictionaryBuilder add(Word word) {
+        String[] speeches = new String[word.getSpeeches().size()];
+        return this.add(word.getValue(), word.getSpeeches().toArray(speeches));
+    }
+
+    /**
+     * 加入词记录集中的所有词，词记录集必须按字典序排列
+     *
+     * @param reader 词记录集读取器
+     * @return this
+     * @throws IllegalArgumentException 词未按升序排列
+     */
+    public RamHashedDictionaryBuilder addAll(WordRecordReader reader) {
+        while (reader.hasNextWord()) {
+            this.add(reader.nextWord());
+        }
+        return this;
+    }
+
+    private void finish(RamHashedDictionary.HashWordPath path, String word, String[] speeches) {
+        Word finished = new Word(word, speeches);
+        finished.setPath(path);
+        path.word = finished;
+    }
+
+    private void push(char fork) {
+        RamHashedDictionary.HashWordPath parent = this.depth == 0 ? null : this.stack[this.depth - 1].path;
+        RamHashedDictionary.HashWordPath path = this.dictionary.new HashWordPath(parent, fork, null);
+        if (this.depth == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.depth * 2);
+        }
+        if (this.depth > 0) {
+            this.stack[this.depth - 1].addChild(path);
+        } else {
+            this.topWords = 0;
+        }
+        Pending pending = this.stack[this.depth];
+        if (pending == null) {
+            pending = this.stack[this.depth] = new Pending();
+        }
+        pending.path = path;
+        pending.count = 0;
+        this.depth++;
+    }
+
+    /**
+     * 完成当前路径最深的节点：子节点都已完成，按子节点数分配散列表
+     */
+    private void complete() {
+        Pending pending = this.stack[--this.depth];
+        float loadFactor = this.dictionary.getNodeLoadFactor();
+        Map<Character, RamHashedDictionary.HashWordPath> branches = new HashMap<>(
+                Math.max(1, (int) Math.ceil(pending.count / loadFactor)), loadFactor);
+        for (int i = 0; i < pending.count; i++) {
+            branches.put(pending.children[i].getFork(), pending.children[i]);
+            pending.children[i] = null;
+        }
+        pending.path.branches = Collections.synchronizedMap(branches);
+        if (this.depth == 0) {
+            this.dictionary.attach(pending.path, this.topWords);
+        }
+        pending.path = null;
+    }
+
+    /**
+     * 构建字典。构建后本构建器不能再使用。
+     *
+     * @return 新的字典对象
+     * @throws IllegalStateException 已经构建过
+     */
+    public RamHashedDictionary build() {
+        if (this.built) {
+            throw new IllegalStateException("已经构建过");
+        }
+        while (this.depth > 0) {
+            this.complete();
+        }
+        this.built = true;
+        this.stack = null;
+        return this.dictionary;
+    }
+
+    /**
+     * 由字典构建
+     *
+     * @param dictionary 字典
+     * @return 新的字典对象
+     */
+    public static RamHashedDictionary build(Dictionary<?> dictionary) {
+        TreeMap<String, Word> words = new TreeMap<>();
+        for (WordPath path : dictionary) {
+            if (path.isFinishWord()) {
+                words.put(path.getWord().getValue(), path.getWord());
+            }
+        }
+        RamHashedDictionaryBuilder builder = new RamHashedDictionaryBuilder().bookTag(dictionary.dictionaryBookTag());
+        for (Word word : words.values()) {
+            builder.add(word);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 由基础字典应用增量补丁构建新字典，新字典的版本为补丁的目标版本
+     *
+     * @param base  基础字典
+     * @param delta 增量补丁
+     * @return 新的字典对象
+     * @throws IllegalStateException 字典版本与补丁基础版本不匹配
+     */
+    public static RamHashedDictionary build(Dictionary<?> base, DictionaryDelta delta) {
+        RamHashedDictionaryBuilder builder = new RamHashedDictionaryBuilder().bookTag(base.dictionaryBookTag());
+        for (Word word : delta.merge(base)) {
+            builder.add(word);
+        }
+        RamHashedDictionary dictionary = builder.build();
+        dictionary.setVersion(delta.getVersion());
+        return dictionary;
+    }
+
+    /**
+     * 由词记录集构建。词记录集不需要有序，重复的词以最后一次的词性为准。
+     * 已知有序时应使用 {@link #addAll(WordRecordReader)}，不需要先收集全部的词。
+     *
+     * @param reader 词记录集读取器
+     * @return 新的字典对象
+     */
+    public static RamHashedDictionary build(WordRecordReader reader) {
+        TreeMap<String, Word> words = new TreeMap<>();
+        while (reader.hasNextWord()) {
+            Word word = reader.nextWord();
+            words.put(word.getValue(), word);
+        }
+        RamHashedDictionaryBuilder builder = new RamHashedDictionaryBuilder();
+        for (Word word : words.values()) {
+            builder.add(word);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 构建中的节点与其已完成的子节点
+     */
+    private static final class Pending {
+        RamHashedDictionary.HashWordPath path;
+        RamHashedDictionary.HashWordPath[] children = new RamHashedDictionary.HashWordPath[4];
+        int count;
+
+        void addChild(RamHashedDictionary.HashWordPath child) {
+            if (this.count == this.children.length) {
+                this.children = Arrays.copyOf(this.children, this.count * 2);
+            }
+            this.children[this.count++] = child;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.CompactRamDictionary;
+
+import java.io.Reader;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class CompactRamDictionaryLoader extends AbstractDictionaryLoader<CompactRamDictionary> {
+    @Override
+    public WordRecordReader wrapReader(Reader reader) {
+        return new SimpleLineWordRecordReader(reader);
+    }
+
+    @Override
+    public CompactRamDictionary readIn(Reader reader) {
+        return this.readIn(this.wrapReader(reader));
+    }
+
+    @Override
+    public CompactRamDictionary readIn(WordRecordReader reader) {
+        CompactRamDictionary dictionary = new CompactRamDictionary();
+        this.apply(dictionary, reader);
+        return dictionary;
+    }
+}
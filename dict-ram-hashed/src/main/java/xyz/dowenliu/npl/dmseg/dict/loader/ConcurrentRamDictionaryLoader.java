@@ -0,0 +1,28 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.ConcurrentRamDictionary;
+
+import java.io.Reader;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class ConcurrentRamDictionaryLoader extends AbstractDictionaryLoader<ConcurrentRamDictionary> {
+    @Override
+    public WordRecordReader wrapReader(Reader reader) {
+        return new SimpleLineWordRecordReader(reader);
+    }
+
+    @Override
+    public ConcurrentRamDictionary readIn(Reader reader) {
+        return this.readIn(this.wrapReader(reader));
+    }
+
+    @Override
+    public ConcurrentRamDictionary readIn(WordRecordReader reader) {
+        ConcurrentRamDictionary dictionary = new ConcurrentRamDictionary();
+        this.apply(dictionary, reader);
+        return dictionary;
+    }
+}
@@ -0,0 +1,85 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionary;
+import xyz.dowenliu.npl.dmseg.dict.Word;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * 并行字典加载器。多个源在线程池中同时解析，解析出的词按首字分片后由
+ * {@link RamHashedDictionary#addAllParallel(List, ForkJoinPool)} 并行建立子树。
+ * <p>单个源只能顺序解析，但建立字典树的耗时远大于解析，因此单个源也能从分片建树中获益。
+ * 结果与按源的顺序逐个加入词相同。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class ParallelRamHashedDictionaryLoader extends RamHashedDictionaryLoader {
+    private final ForkJoinPool pool;
+
+    /**
+     * 使用公共线程池
+     */
+    public ParallelRamHashedDictionaryLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool 线程池
+     */
+    public ParallelRamHashedDictionaryLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public RamHashedDictionary readIn(WordRecordReader reader) {
+        RamHashedDictionary dictionary = new RamHashedDictionary();
+        this.apply(dictionary, reader);
+        return dictionary;
+    }
+
+    /**
+     * 使用多个源读入一个新字典对象
+     *
+     * @param readers 源，后面的源中的词性覆盖前面的
+     * @return 不会返回 {@code null} ，如果源无有效输入，返回一个空的字典对象
+     */
+    public RamHashedDictionary readInAll(List<? extends Reader> readers) {
+        RamHashedDictionary dictionary = new RamHashedDictionary();
+        this.applyAll(dictionary, readers);
+        return dictionary;
+    }
+
+    @Override
+    public void apply(RamHashedDictionary dictionary, WordRecordReader reader) {
+        dictionary.addAllParallel(readWords(reader), this.pool);
+    }
+
+    /**
+     * 使用多个输入源作为补丁补充到字典中。加入过程中不能有其他线程读取或修改字典。
+     *
+     * @param dictionary 已有的字典对象
+     * @param readers    源，后面的源中的词性覆盖前面的
+     */
+    public void applyAll(RamHashedDictionary dictionary, List<? extends Reader> readers) {
+        List<List<Word>> parsed = this.pool.submit(() -> readers.parallelStream()
+                .map(reader -> readWords(this.wrapReader(reader)))
+                .collect(Collectors.toList()))
+                .join();
+        List<Word> words = new ArrayList<>(parsed.stream().mapToInt(List::size).sum());
+        parsed.forEach(words::addAll);
+        dictionary.addAllParallel(words, this.pool);
+    }
+
+    private static List<Word> readWords(WordRecordReader reader) {
+        List<Word> words = new ArrayList<>();
+        while (reader.hasNextWord()) {
+            words.add(reader.nextWord());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,28 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.RamCharArrayDictionary;
+
+import java.io.Reader;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class RamCharArrayDictionaryLoader extends AbstractDictionaryLoader<RamCharArrayDictionary> {
+    @Override
+    public WordRecordReader wrapReader(Reader reader) {
+        return new SimpleLineWordRecordReader(reader);
+    }
+
+    @Override
+    public RamCharArrayDictionary readIn(Reader reader) {
+        return this.readIn(this.wrapReader(reader));
+    }
+
+    @Override
+    public RamCharArrayDictionary readIn(WordRecordReader reader) {
+        RamCharArrayDictionary dictionary = new RamCharArrayDictionary();
+        this.apply(dictionary, reader);
+        return dictionary;
+    }
+}
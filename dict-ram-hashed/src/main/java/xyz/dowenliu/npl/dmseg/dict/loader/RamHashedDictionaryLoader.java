@@ -1,6 +1,7 @@
 package xyz.dowenliu.npl.dmseg.dict.loader;
 
 import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionary;
+import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionaryBuilder;
 
 import java.io.Reader;
 
@@ -9,6 +10,20 @@ import java.io.Reader;
  * @since 1.0.0
  */
 public class RamHashedDictionaryLoader extends AbstractDictionaryLoader<RamHashedDictionary> {
+    private final boolean sorted;
+
+    public RamHashedDictionaryLoader() {
+        this(false);
+    }
+
+    /**
+     * @param sorted 源是否按字典序排列。有序的源由 {@link RamHashedDictionaryBuilder} 一遍建立字典树，
+     *               无序时读入会抛出 {@link IllegalArgumentException}
+     */
+    public RamHashedDictionaryLoader(boolean sorted) {
+        this.sorted = sorted;
+    }
+
     @Override
     public WordRecordReader wrapReader(Reader reader) {
         return new SimpleLineWordRecordReader(reader);
@@ -16,6 +31,14 @@ public class RamHashedDictionaryLoader extends AbstractDictionaryLoader<RamHashe
 
     @Override
     public RamHashedDictionary readIn(Reader reader) {
+        return this.readIn(this.wrapReader(reader));
+    }
+
+    @Override
+    public RamHashedDictionary readIn(WordRecordReader reader) {
+        if (this.sorted) {
+            return new RamHashedDictionaryBuilder().addAll(reader).build();
+        }
         RamHashedDictionary dictionary = new RamHashedDictionary();
         this.apply(dictionary, reader);
         return dictionary;
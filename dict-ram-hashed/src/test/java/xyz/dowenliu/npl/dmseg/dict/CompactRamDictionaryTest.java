@@ -0,0 +1,201 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+
+import java.nio.CharBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class CompactRamDictionaryTest {
+    private CompactRamDictionary dict;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dict = new CompactRamDictionary();
+        dict.add("and");
+        dict.add("ant", "n");
+        dict.add("but");
+        dict.add("button");
+        dict.add("cute");
+        dict.add("cute");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(5, dict.size());
+    }
+
+    @Test
+    public void testContains() {
+        assertTrue(dict.contains("ant"));
+        assertFalse(dict.contains("an"));
+        assertFalse(dict.contains("done"));
+    }
+
+    @Test
+    public void testAdd() {
+        dict.add("an");
+        assertTrue(dict.contains("an"));
+        assertEquals(6, dict.size());
+    }
+
+    @Test
+    public void testWideFork() {
+        String forks = "zyxwvutsrqponmlkjihgfedcba";
+        for (char c : forks.toCharArray()) {
+            dict.add("x" + c);
+        }
+        for (char c : forks.toCharArray()) {
+            assertTrue(dict.contains("x" + c));
+        }
+        assertEquals(26, dict.getBranches().get('x').getBranches().size());
+        char last = 0;
+        for (Character fork : dict.getBranches().get('x').getBranches().keySet()) {
+            assertTrue(fork > last);
+            last = fork;
+        }
+        assertTrue(dict.remove("xm"));
+        assertFalse(dict.contains("xm"));
+        assertTrue(dict.contains("xn"));
+        assertEquals(25, dict.getBranches().get('x').getBranches().size());
+    }
+
+    @Test
+    public void testRemove() {
+        dict.remove("ant");
+        assertFalse(dict.contains("an"));
+        assertFalse(dict.contains("ant"));
+        assertTrue(dict.contains("and"));
+        assertEquals(4, dict.size());
+        dict.remove("button");
+        assertTrue(dict.contains("but"));
+        assertFalse(dict.contains("button"));
+        assertNull(dict.getBranches().get('b').getBranches().get('u').getBranches().get('t').getBranches().get('t'));
+        assertFalse(dict.remove("none"));
+        assertEquals(3, dict.size());
+    }
+
+    private class MockWordPath extends WordPath<MockWordPath> {
+        Map<Character, MockWordPath> branches;
+
+        public MockWordPath(WordPath parentPath, char fork) {
+            super(parentPath, fork);
+            this.branches = Collections.synchronizedMap(new HashMap<>());
+        }
+
+        @Override
+        public Map<Character, MockWordPath> getBranches() {
+            return this.branches;
+        }
+    }
+
+    @Test
+    public void testWithPrefix() {
+        assertEquals(1, dict.withPrefix(new MockWordPath(null, 'c')).size());
+        assertEquals('u', dict.withPrefix(new MockWordPath(null, 'c')).iterator().next().fork);
+        assertEquals(1, dict.withPrefix(new MockWordPath(new MockWordPath(null, 'c'), 'u')).size());
+        assertNull(dict.withPrefix(new MockWordPath(null, 'd')));
+    }
+
+    @Test
+    public void testIterator() {
+        int paths = 0;
+        for (CompactRamDictionary.CompactWordPath path : dict) {
+            assertNotNull(path);
+            if (path.isFinishWord()) {
+                assertEquals(path.toString(), path.getWord().getValue());
+            }
+            paths++;
+        }
+        assertEquals(14, paths);
+    }
+
+    @Test
+    public void testDictMatch() {
+        String source = "anbuttonrefertoantgourp";
+        CharBuffer buffer = CharBuffer.wrap(source);
+        List<Word> words = this.dict.dictMatch(buffer);
+        assertEquals(0, words.size());
+        buffer.rewind();
+        buffer.get();
+        buffer.get();
+        words = this.dict.dictMatch(buffer);
+        assertEquals(2, words.size());
+    }
+
+    @Test
+    public void testIdentity() {
+        CompactRamDictionary.CompactWordPath path = dict.getBranches().get('a').getBranches().get('n');
+        CompactRamDictionary.CompactWordPath same = dict.getBranches().get('a').getBranches().get('n');
+        assertNotSame(path, same);
+        assertEquals(path, same);
+        assertEquals(path.hashCode(), same.hashCode());
+        assertNotEquals(path, dict.getBranches().get('c').getBranches().get('u'));
+        // 与其他实现的词路径按字串对称比较
+        RamHashedDictionary other = new RamHashedDictionary();
+        other.add("an");
+        WordPath otherPath = other.getBranches().get('a').getBranches().get('n');
+        assertEquals(otherPath, path);
+        assertEquals(path, otherPath);
+        assertEquals(otherPath.hashCode(), path.hashCode());
+        Word word = path.getBranches().get('t').getWord();
+        assertEquals("ant", word.getValue());
+        assertEquals(Collections.singleton("n"), word.getSpeeches());
+        try {
+            path.wordFinish();
+            fail();
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+
+    @Test
+    public void testDictMatchSameAsHashed() {
+        RamHashedDictionary hashed = new RamHashedDictionary();
+        for (CompactRamDictionary.CompactWordPath path : dict) {
+            if (path.isFinishWord()) {
+                hashed.add(path.getWord());
+            }
+        }
+        String source = "anbuttonrefertoantgourp";
+        for (int offset = 0; offset < source.length(); offset++) {
+            List<String> expected = new ArrayList<>();
+            List<String> actual = new ArrayList<>();
+            hashed.dictMatch(source, offset, (end, word) -> expected.add(end + word.getValue() + word.getSpeeches()));
+            dict.dictMatch(source, offset, (end, word) -> actual.add(end + word.getValue() + word.getSpeeches()));
+            assertEquals(expected, actual);
+            int[] ends = new int[4];
+            assertEquals(expected.size(), dict.dictMatch(source.toCharArray(), offset, source.length(), ends));
+        }
+    }
+
+    @Test
+    public void testMayStartWith() {
+        assertTrue(this.dict.mayStartWith('a'));
+        assertTrue(this.dict.mayStartWith('c'));
+        assertFalse(this.dict.mayStartWith('d'));
+        assertFalse(this.dict.mayStartWith('中'));
+        this.dict.add("中国");
+        assertTrue(this.dict.mayStartWith('中'));
+        assertEquals(1, this.dict.dictMatch("中国人", 0, new int[2]));
+        this.dict.remove("cute");
+        assertFalse(this.dict.mayStartWith('c'));
+        assertEquals(0, this.dict.dictMatch("cute", 0, new int[2]));
+    }
+}
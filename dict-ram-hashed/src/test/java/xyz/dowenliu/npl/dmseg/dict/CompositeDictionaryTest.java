@@ -0,0 +1,102 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+
+import java.nio.CharBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class CompositeDictionaryTest {
+    private RamHashedDictionary first;
+    private RamCharArrayDictionary second;
+    private CompositeDictionary dict;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        first = new RamHashedDictionary();
+        first.setBookTag("FIRST");
+        first.add("中国", "ns");
+        first.add("中国人", "n");
+        first.add("人民");
+        second = new RamCharArrayDictionary();
+        second.setBookTag("SECOND");
+        second.add("中国", "n");
+        second.add("中华");
+        dict = CompositeDictionary.of(first, second);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testMerge() {
+        assertEquals(4, dict.size());
+        assertEquals("FIRST+SECOND", dict.dictionaryBookTag());
+        CompositeDictionary.SourceWord word = dict.wordOf("中国");
+        assertEquals(3L, word.getSources());
+        assertEquals(new HashSet<>(Arrays.asList("ns", "n")), word.getSpeeches());
+        assertEquals(Arrays.asList("FIRST", "SECOND"), new ArrayList<>(word.getBookTags()));
+        assertEquals(2L, dict.wordOf("中华").getSources());
+        assertEquals(Collections.singleton("FIRST"), dict.bookTagsOf(new Word("人民")));
+        assertNull(dict.wordOf("中"));
+    }
+
+    @Test
+    public void testDictMatch() {
+        List<Word> words = dict.dictMatch(CharBuffer.wrap("中国人民"));
+        assertEquals(2, words.size());
+        assertEquals("中国", words.get(0).getValue());
+        assertEquals("中国人", words.get(1).getValue());
+        List<Word> visited = new ArrayList<>();
+        dict.dictMatch("中国人民", 0, (end, word) -> visited.add(word));
+        assertSame(words.get(0), visited.get(0));
+        int[] ends = new int[4];
+        assertEquals(1, dict.dictMatch("中国人民", 2, ends));
+        assertEquals(4, ends[0]);
+    }
+
+    @Test
+    public void testDictMatchIds() {
+        List<Word> words = new ArrayList<>();
+        dict.dictMatchIds("中国人民", 0, (end, wordId) -> words.add(dict.wordOf("中国人民", 0, end, wordId)));
+        assertEquals(2, words.size());
+        assertSame(dict.wordOf("中国"), words.get(0));
+        assertSame(dict.wordOf("中国人"), words.get(1));
+        words.clear();
+        first.dictMatchIds("中国人民", 0, (end, wordId) -> words.add(first.wordOf("中国人民", 0, end, wordId)));
+        assertEquals("中国人", words.get(1).getValue());
+        assertEquals(Collections.singleton("n"), words.get(1).getSpeeches());
+    }
+
+    @Test
+    public void testSnapshot() {
+        first.add("人民币");
+        assertFalse(dict.contains("人民币"));
+        assertTrue(CompositeDictionary.of(first, second).contains("人民币"));
+    }
+
+    @Test
+    public void testIterator() {
+        Set<String> words = new TreeSet<>();
+        for (AbstractReadOnlyDictionary.NodeWordPath path : dict) {
+            if (path.isFinishWord()) {
+                words.add(path.getWord().getValue());
+            }
+        }
+        assertEquals(new TreeSet<>(Arrays.asList("中国", "中国人", "中华", "人民")), words);
+    }
+}
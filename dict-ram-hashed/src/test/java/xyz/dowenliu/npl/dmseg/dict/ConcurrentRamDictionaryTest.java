@@ -0,0 +1,139 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class ConcurrentRamDictionaryTest {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private ConcurrentRamDictionary dict;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dict = new ConcurrentRamDictionary();
+        dict.add("and");
+        dict.add("ant", "n");
+        dict.add("but");
+        dict.add("button");
+        dict.add("cute");
+        dict.add("cute");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testAddRemove() {
+        assertEquals(5, dict.size());
+        assertTrue(dict.contains("ant"));
+        assertFalse(dict.contains("an"));
+        assertTrue(dict.remove("button"));
+        assertFalse(dict.contains("button"));
+        assertTrue(dict.contains("but"));
+        assertNull(dict.getBranches().get('b').getBranches().get('u').getBranches().get('t').getBranches().get('t'));
+        assertTrue(dict.remove("cute"));
+        assertNull(dict.getBranches().get('c'));
+        assertFalse(dict.remove("cute"));
+        assertEquals(3, dict.size());
+    }
+
+    @Test
+    public void testIterator() {
+        int paths = 0;
+        int words = 0;
+        for (ConcurrentRamDictionary.ConcurrentWordPath path : dict) {
+            paths++;
+            if (path.isFinishWord()) {
+                words++;
+                assertEquals(path.toString(), path.getWord().getValue());
+            }
+        }
+        assertEquals(14, paths);
+        assertEquals(dict.size(), words);
+    }
+
+    @Test
+    public void testDictMatch() {
+        List<Word> words = dict.dictMatch(CharBuffer.wrap("buttons"));
+        assertEquals(2, words.size());
+        assertEquals("button", words.get(1).getValue());
+        int[] ends = new int[2];
+        assertEquals(1, dict.dictMatch("xant", 1, ends));
+        assertEquals(4, ends[0]);
+    }
+
+    @Test
+    public void testConcurrentReadWrite() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        AtomicInteger reads = new AtomicInteger();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                int[] ends = new int[8];
+                while (running.get()) {
+                    // 固定的词始终可见，热词的匹配结果要么完整要么不存在
+                    if (!dict.contains("button") || dict.dictMatch("buttons", 0, ends) != 2) {
+                        misses.incrementAndGet();
+                    }
+                    int n = dict.dictMatch("热词热词热词", 0, ends);
+                    if (n > 0 && ends[0] != 2) {
+                        misses.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int i = 0; i < 2000; i++) {
+            dict.add("热词");
+            dict.add("热词热词" + i);
+            dict.remove("热词热词" + i);
+            dict.remove("热词");
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        logger.info("reads: " + reads.get());
+        assertEquals(0, misses.get());
+        assertEquals(5, dict.size());
+        assertNull(dict.getBranches().get('热'));
+    }
+
+    @Test
+    public void testMayStartWith() {
+        assertTrue(this.dict.mayStartWith('a'));
+        assertTrue(this.dict.mayStartWith('c'));
+        assertFalse(this.dict.mayStartWith('d'));
+        assertFalse(this.dict.mayStartWith('中'));
+        this.dict.add("中国");
+        assertTrue(this.dict.mayStartWith('中'));
+        assertEquals(1, this.dict.dictMatch("中国人", 0, new int[2]));
+        this.dict.remove("cute");
+        assertFalse(this.dict.mayStartWith('c'));
+        assertEquals(0, this.dict.dictMatch("cute", 0, new int[2]));
+    }
+}
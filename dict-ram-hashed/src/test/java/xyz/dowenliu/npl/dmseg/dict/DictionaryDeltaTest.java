@@ -0,0 +1,130 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.dict.loader.DictionaryDeltaFormat;
+import xyz.dowenliu.npl.dmseg.dict.loader.RamHashedDictionaryLoader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DictionaryDeltaTest {
+    private static final String DELTA = "# 每日补丁\n"
+            + "@delta 1 2\n"
+            + "+ 中华 nz\n"
+            + "- 中国人\n"
+            + "= 人民 n\n"
+            + "= 不存在 n\n";
+    private RamHashedDictionary dict;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dict = new RamHashedDictionary();
+        dict.add("中国", "ns");
+        dict.add("中国人", "n");
+        dict.add("人民");
+        dict.setVersion(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testFormat() throws IOException {
+        DictionaryDelta delta = DictionaryDeltaFormat.read(new StringReader(DELTA));
+        assertEquals(1, delta.getBaseVersion());
+        assertEquals(2, delta.getVersion());
+        assertEquals(4, delta.getRecords().size());
+        assertEquals(DictionaryDelta.Operation.REMOVE, delta.getRecords().get(1).getOperation());
+        StringWriter writer = new StringWriter();
+        DictionaryDeltaFormat.write(delta, writer);
+        DictionaryDelta copy = DictionaryDeltaFormat.read(new StringReader(writer.toString()));
+        assertEquals(delta.getVersion(), copy.getVersion());
+        for (int i = 0; i < delta.getRecords().size(); i++) {
+            assertEquals(delta.getRecords().get(i).getOperation(), copy.getRecords().get(i).getOperation());
+            assertEquals(delta.getRecords().get(i).getWord(), copy.getRecords().get(i).getWord());
+            assertArrayEquals(delta.getRecords().get(i).getSpeeches(), copy.getRecords().get(i).getSpeeches());
+        }
+        try {
+            DictionaryDeltaFormat.read(new StringReader("+ 中华\n"));
+            fail();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void testApplyDelta() throws IOException {
+        new RamHashedDictionaryLoader().applyDelta(dict, new StringReader(DELTA));
+        assertEquals(2, dict.version());
+        assertEquals(3, dict.size());
+        assertTrue(dict.contains("中华"));
+        assertTrue(dict.contains("中国"));
+        assertFalse(dict.contains("中国人"));
+        assertFalse(dict.contains("不存在"));
+        assertEquals(Collections.singleton("n"), dict.getBranches().get('人').getBranches().get('民').getWord().getSpeeches());
+        // 删除的词路径被剪除，保留共享前缀
+        assertTrue(dict.getBranches().get('中').getBranches().get('国').getBranches().isEmpty());
+        try {
+            dict.applyDelta(DictionaryDelta.builder(1, 3).add("重放").build());
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+        assertFalse(dict.contains("重放"));
+    }
+
+    @Test
+    public void testMerge() throws IOException {
+        DictionaryDelta delta = DictionaryDeltaFormat.read(new StringReader(DELTA));
+        List<Word> words = delta.merge(dict);
+        List<String> values = new ArrayList<>();
+        words.forEach(word -> values.add(word.getValue()));
+        assertEquals(Arrays.asList("中华", "中国", "人民"), values);
+        assertEquals(1, dict.version());
+        assertTrue(dict.contains("中国人"));
+        try {
+            delta.merge(new RamHashedDictionary());
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testMergeSorted() throws IOException {
+        DictionaryDelta delta = DictionaryDelta.builder(1, 2)
+                .add("中华", "nz").remove("中国人").updateSpeeches("人民", "n").updateSpeeches("不存在", "n")
+                .add("丁", "n").remove("丁").add("人", "n").remove("人民").add("人民", "nr").add("人民", "v")
+                .build();
+        CompositeDictionary base = CompositeDictionary.of(dict);
+        base.setVersion(1);
+        List<Word> expected = delta.merge(base);
+        List<Word> actual = new ArrayList<>();
+        delta.mergeSorted(base).forEachRemaining(actual::add);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+            assertEquals(expected.get(i).getSpeeches(), actual.get(i).getSpeeches());
+        }
+        assertEquals(Collections.singleton("v"), actual.get(actual.size() - 1).getSpeeches());
+        try {
+            delta.mergeSorted(new RamHashedDictionary());
+            fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+}
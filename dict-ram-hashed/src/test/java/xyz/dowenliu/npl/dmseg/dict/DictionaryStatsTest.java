@@ -0,0 +1,132 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DictionaryStatsTest {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+    private List<Dictionary<?>> dictionaries;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dictionaries = Arrays.asList(new RamHashedDictionary(), new RamCharArrayDictionary(),
+                new CompactRamDictionary(), new ConcurrentRamDictionary());
+        for (Dictionary<?> dictionary : dictionaries) {
+            dictionary.add("and");
+            dictionary.add("ant", "n");
+            dictionary.add("but");
+            dictionary.add("button");
+            dictionary.add("cute");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private void assertShape(DictionaryStats stats) {
+        assertEquals(14, stats.getNodeCount());
+        assertEquals(5, stats.getWordCount());
+        assertEquals(6, stats.getMaxDepth());
+        assertEquals(3.8, stats.getAverageDepth(), 1e-9);
+        assertArrayEquals(new long[]{4, 9, 1, 1}, stats.getFanOutHistogram());
+        assertEquals(9, stats.getDistinctCharCount());
+    }
+
+    @Test
+    public void testStats() {
+        for (Dictionary<?> dictionary : dictionaries) {
+            DictionaryStats stats = dictionary.stats();
+            logger.debug("{}", stats);
+            assertEquals(dictionary.getClass().getName(), stats.getImplementation());
+            assertShape(stats);
+            assertTrue(stats.getEstimatedBytes() > 0);
+            assertShape(DictionaryStats.of(dictionary));
+            assertEquals(-1, DictionaryStats.of(dictionary).getEstimatedBytes());
+        }
+        DictionaryStats composite = CompositeDictionary.of(dictionaries.get(0), dictionaries.get(1)).stats();
+        assertShape(composite);
+        assertTrue(composite.getEstimatedBytes() > 0);
+    }
+
+    @Test
+    public void testMaxDepth() {
+        for (Dictionary<?> dictionary : dictionaries) {
+            assertEquals(6, dictionary.maxDepth());
+            dictionary.add("buttonhole");
+            assertEquals(10, dictionary.maxDepth());
+            dictionary.remove("buttonhole");
+            assertTrue(dictionary.maxDepth() >= dictionary.stats().getMaxDepth());
+        }
+        assertEquals(6, CompositeDictionary.of(dictionaries.get(0), dictionaries.get(1)).maxDepth());
+        OverlayDictionary overlay = new OverlayDictionary(CompositeDictionary.of(dictionaries.get(2)));
+        assertEquals(6, overlay.maxDepth());
+        overlay.add("buttonholes");
+        assertEquals(11, overlay.maxDepth());
+        assertEquals(0, new RamHashedDictionary().maxDepth());
+    }
+
+    @Test
+    public void testEmpty() {
+        DictionaryStats stats = new RamHashedDictionary().stats();
+        assertEquals(0, stats.getNodeCount());
+        assertEquals(0, stats.getMaxDepth());
+        assertEquals(0, stats.getAverageDepth(), 0);
+        assertArrayEquals(new long[]{1}, stats.getFanOutHistogram());
+    }
+
+    @Test
+    public void testEstimatedBytes() {
+        // 紧凑节点不持有父节点与词对象，应比Hash实现小
+        long hashed = dictionaries.get(0).stats().getEstimatedBytes();
+        long charArray = dictionaries.get(1).stats().getEstimatedBytes();
+        long compact = dictionaries.get(2).stats().getEstimatedBytes();
+        assertTrue(compact < charArray);
+        assertTrue(charArray < hashed);
+    }
+
+    @Test
+    public void testMonitor() throws Exception {
+        Dictionary<?> dictionary = dictionaries.get(0);
+        ObjectName name = DictionaryMonitor.register(dictionary, "test:stats");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(DictionaryMonitor.objectName("test:stats"), name);
+            assertEquals(5, server.getAttribute(name, "Size"));
+            assertEquals(14L, server.getAttribute(name, "NodeCount"));
+            assertEquals(6, server.getAttribute(name, "MaxDepth"));
+            assertEquals("DM-SEG", server.getAttribute(name, "BookTag"));
+            dictionary.add("buttonhole");
+            assertEquals(10, server.getAttribute(name, "MaxDepth"));
+            try {
+                DictionaryMonitor.register(dictionary, "test:stats");
+                fail();
+            } catch (IllegalStateException ignored) {
+            }
+        } finally {
+            DictionaryMonitor.unregister(name);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
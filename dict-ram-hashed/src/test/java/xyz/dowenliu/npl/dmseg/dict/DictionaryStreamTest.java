@@ -0,0 +1,141 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.dict.loader.DictionaryExportFormat;
+import xyz.dowenliu.npl.dmseg.dict.loader.MappedWordRecordReader;
+import xyz.dowenliu.npl.dmseg.dict.loader.RamHashedDictionaryLoader;
+import xyz.dowenliu.npl.dmseg.dict.loader.WordRecordReader;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class DictionaryStreamTest {
+    private List<Dictionary<?>> dictionaries;
+    private Set<String> expected;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dictionaries = Arrays.asList(new RamHashedDictionary(), new RamCharArrayDictionary(),
+                new CompactRamDictionary(), new ConcurrentRamDictionary());
+        expected = new HashSet<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int k = 0; k < length; k++) {
+                word.append((char) ('一' + random.nextInt(k == 0 ? 200 : 20)));
+            }
+            expected.add(word.toString());
+            for (Dictionary<?> dictionary : dictionaries) {
+                dictionary.add(word.toString(), i % 2 == 0 ? new String[]{"n"} : new String[0]);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testParallelWords() {
+        for (Dictionary<?> dictionary : dictionaries) {
+            List<String> words = dictionary.words().parallel().map(Word::getValue).collect(Collectors.toList());
+            assertEquals(dictionary.size(), words.size());
+            assertEquals(expected, new HashSet<>(words));
+        }
+        CompositeDictionary composite = CompositeDictionary.of(dictionaries.get(0), dictionaries.get(1));
+        assertEquals(expected, composite.words().parallel().map(Word::getValue).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testSplit() {
+        for (Dictionary<?> dictionary : dictionaries) {
+            int paths = 0;
+            for (WordPath ignored : dictionary) {
+                paths++;
+            }
+            Spliterator<? extends WordPath> spliterator = dictionary.spliterator();
+            Spliterator<? extends WordPath> prefix = spliterator.trySplit();
+            assertNotNull(prefix);
+            assertNotNull(spliterator.trySplit());
+            assertEquals(paths, StreamSupport.stream(dictionary.spliterator(), true).count());
+        }
+        RamHashedDictionary single = new RamHashedDictionary();
+        single.add("中国");
+        single.add("中华");
+        Spliterator<RamHashedDictionary.HashWordPath> spliterator = single.spliterator();
+        Spliterator<RamHashedDictionary.HashWordPath> other = spliterator.trySplit();
+        assertNotNull(other); // 只有一棵子树时拆分其根节点的子节点
+        List<String> paths = new ArrayList<>();
+        spliterator.forEachRemaining(path -> paths.add(path.toString()));
+        other.forEachRemaining(path -> paths.add(path.toString()));
+        Collections.sort(paths);
+        assertEquals(Arrays.asList("中", "中华", "中国"), paths);
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        RamHashedDictionary dictionary = (RamHashedDictionary) dictionaries.get(0);
+        dictionary.setBookTag("TEST");
+        StringWriter writer = new StringWriter();
+        DictionaryExportFormat.write(dictionary, writer);
+        String[] lines = writer.toString().split("\\R");
+        assertEquals(expected.size(), lines.length);
+        List<String> sorted = new ArrayList<>(expected);
+        Collections.sort(sorted);
+        for (int i = 0; i < lines.length; i++) {
+            String[] columns = lines[i].split("\t", -1);
+            assertEquals(4, columns.length);
+            assertEquals(sorted.get(i), columns[0]);
+            assertEquals("", columns[2]);
+            assertEquals("TEST", columns[3]);
+        }
+        Path file = Files.createTempFile("dict", ".txt");
+        try {
+            DictionaryExportFormat.write(dictionary, file);
+            // 导出格式带词性列，选用映射读取器读回
+            RamHashedDictionary reloaded = new RamHashedDictionaryLoader(true) {
+                @Override
+                public WordRecordReader openFile(Path path) throws IOException {
+                    return new MappedWordRecordReader(path);
+                }
+            }.readIn(file);
+            assertEquals(dictionary.size(), reloaded.size());
+            for (RamHashedDictionary.HashWordPath path : dictionary) {
+                if (path.isFinishWord()) {
+                    assertEquals(path.getWord().getSpeeches(), wordOf(reloaded, path.toString()).getSpeeches());
+                }
+            }
+            assertTrue(new MappedWordRecordReader(file).hasNextWord());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Word wordOf(RamHashedDictionary dictionary, String value) {
+        RamHashedDictionary.HashWordPath path = dictionary.getBranches().get(value.charAt(0));
+        for (int i = 1; i < value.length(); i++) {
+            path = path.getBranches().get(value.charAt(i));
+        }
+        return path.getWord();
+    }
+}
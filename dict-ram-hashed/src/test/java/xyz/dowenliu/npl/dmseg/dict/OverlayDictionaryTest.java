@@ -0,0 +1,160 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+
+import java.nio.CharBuffer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class OverlayDictionaryTest {
+    private static final String TEXT = "中华人民共和国中国人民银行";
+
+    private RamHashedDictionary base;
+    private RamHashedDictionary expected;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        base = new RamHashedDictionary();
+        base.setBookTag("BASE");
+        for (String word : new String[]{"中", "中华", "中华人民", "中华人民共和国", "人民", "人民银行", "中国", "银行"}) {
+            base.add(word, "n");
+        }
+        expected = new RamHashedDictionary();
+        for (Word word : base.words().collect(Collectors.toList())) {
+            expected.add(word);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private void edit(Dictionary<?> dict) {
+        dict.add("中华人", "nr");
+        dict.add("中华人民共和国中国", "x");
+        dict.add("中国", "ns");
+        dict.add("国中");
+        dict.remove("中华人民");
+        dict.remove("人民银行");
+        dict.add("人民银");
+        dict.remove("人民银");
+    }
+
+    private void assertSameMatches(Dictionary<?> actual) {
+        int[] expectedEnds = new int[16];
+        int[] actualEnds = new int[16];
+        for (int offset = 0; offset < TEXT.length(); offset++) {
+            int count = expected.dictMatch(TEXT, offset, expectedEnds);
+            assertEquals(count, actual.dictMatch(TEXT, offset, actualEnds));
+            assertArrayEquals(Arrays.copyOf(expectedEnds, count), Arrays.copyOf(actualEnds, count));
+            char[] chars = TEXT.toCharArray();
+            assertEquals(count, actual.dictMatch(chars, offset, chars.length, actualEnds));
+            assertArrayEquals(Arrays.copyOf(expectedEnds, count), Arrays.copyOf(actualEnds, count));
+            List<String> visited = new ArrayList<>();
+            List<Integer> visitedEnds = new ArrayList<>();
+            actual.dictMatch(TEXT, offset, (end, word) -> {
+                visitedEnds.add(end);
+                visited.add(word.getValue() + word.getSpeeches());
+            });
+            List<String> expectedVisited = new ArrayList<>();
+            expected.dictMatch(TEXT, offset, (end, word) -> expectedVisited.add(word.getValue() + word.getSpeeches()));
+            assertEquals(expectedVisited, visited);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expectedEnds[i], (int) visitedEnds.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testMergeWalk() {
+        OverlayDictionary dict = new OverlayDictionary(base);
+        edit(dict);
+        edit(expected);
+        assertSameMatches(dict);
+        assertEquals(expected.size(), dict.size());
+        assertEquals(3, dict.addedCount());
+        assertEquals(2, dict.removedCount());
+        assertTrue(base.contains("中华人民"));
+        assertFalse(base.contains("国中"));
+    }
+
+    @Test
+    public void testLockstepWalk() {
+        OverlayDictionary dict = new OverlayDictionary(CompositeDictionary.of(base));
+        edit(dict);
+        edit(expected);
+        assertSameMatches(dict);
+        int[] ends = new int[1];
+        assertEquals(1, dict.dictMatch(TEXT, 0, ends));
+        assertEquals(1, ends[0]);
+    }
+
+    @Test
+    public void testContains() {
+        OverlayDictionary dict = new OverlayDictionary(base);
+        edit(dict);
+        assertTrue(dict.contains("中华人"));
+        assertTrue(dict.contains("中华"));
+        assertFalse(dict.contains("中华人民"));
+        assertFalse(dict.contains("人民银"));
+        assertTrue(dict.add("中华人民"));
+        assertTrue(dict.contains("中华人民"));
+        assertEquals(1, dict.removedCount());
+        assertFalse(dict.remove("不存在"));
+        List<Word> words = dict.dictMatch(CharBuffer.wrap("中国"));
+        assertEquals(2, words.size());
+        assertEquals(Collections.singleton("ns"), words.get(1).getSpeeches());
+    }
+
+    @Test
+    public void testBookTags() {
+        OverlayDictionary dict = new OverlayDictionary(base);
+        dict.setBookTag("TENANT");
+        dict.add("国中");
+        List<Word> words = dict.dictMatch(CharBuffer.wrap("国中"));
+        assertEquals(1, words.size());
+        assertEquals(Collections.singleton("TENANT"), dict.bookTagsOf(words.get(0)));
+        words = dict.dictMatch(CharBuffer.wrap("中华"));
+        assertEquals(2, words.size());
+        assertEquals(Collections.singleton("BASE"), dict.bookTagsOf(words.get(1)));
+        assertTrue(dict.mayStartWith('国'));
+        assertFalse(base.mayStartWith('国'));
+    }
+
+    @Test
+    public void testIterator() {
+        OverlayDictionary dict = new OverlayDictionary(base);
+        edit(dict);
+        edit(expected);
+        Set<String> words = dict.words().map(word -> word.getValue() + word.getSpeeches()).collect(Collectors.toSet());
+        Set<String> expectedWords = expected.words().map(word -> word.getValue() + word.getSpeeches())
+                .collect(Collectors.toSet());
+        assertEquals(expectedWords, words);
+        assertEquals(expected.size(), words.size());
+    }
+
+    @Test
+    public void testApplyDelta() {
+        OverlayDictionary dict = new OverlayDictionary(base);
+        DictionaryDelta delta = DictionaryDelta.builder(0L, 1L).add("国中").remove("银行").build();
+        dict.applyDelta(delta);
+        assertEquals(1L, dict.version());
+        assertTrue(dict.contains("国中"));
+        assertFalse(dict.contains("银行"));
+        assertTrue(base.contains("银行"));
+    }
+}
@@ -0,0 +1,111 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.dict.loader.MappedWordRecordReader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class PrefixCompleterTest {
+    private static final ToLongFunction<Word> WEIGHT = word -> Math.floorMod(word.getValue().hashCode(), 50);
+    private List<Dictionary<?>> dictionaries;
+    private List<String> words;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dictionaries = Arrays.asList(new RamHashedDictionary(), new CompactRamDictionary(),
+                new ConcurrentRamDictionary());
+        Set<String> set = new HashSet<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 4000; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for (int k = 0; k < length; k++) {
+                word.append((char) ('a' + random.nextInt(k == 0 ? 6 : 4)));
+            }
+            set.add(word.toString());
+        }
+        words = new ArrayList<>(set);
+        for (Dictionary<?> dictionary : dictionaries) {
+            for (String word : words) {
+                dictionary.add(word);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private List<String> expected(String prefix, int k) {
+        return words.stream().filter(word -> word.startsWith(prefix))
+                .sorted(Comparator.comparingLong((String word) -> WEIGHT.applyAsLong(new Word(word))).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .limit(k).collect(Collectors.toList());
+    }
+
+    private static List<String> values(List<Word> words) {
+        return words.stream().map(Word::getValue).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testComplete() {
+        for (Dictionary<?> dictionary : dictionaries) {
+            PrefixCompleter completer = PrefixCompleter.of(dictionary, WEIGHT);
+            assertEquals(dictionary.size(), completer.size());
+            for (String prefix : Arrays.asList("", "a", "ab", "abc", "fab", "bcd", "zz", "dddd")) {
+                for (int k : new int[]{1, 5, 20, 10000}) {
+                    List<String> expected = expected(prefix, k);
+                    assertEquals(prefix + "/" + k, expected, values(dictionary.complete(prefix, k, WEIGHT)));
+                    assertEquals(prefix + "/" + k, expected, values(completer.complete(prefix, k)));
+                }
+            }
+            assertTrue(dictionary.complete("a", 0, WEIGHT).isEmpty());
+            assertTrue(completer.complete("a", 0).isEmpty());
+        }
+    }
+
+    @Test
+    public void testStream() {
+        PrefixCompleter completer = PrefixCompleter.of(dictionaries.get(0), WEIGHT);
+        List<Word> all = completer.stream("b").collect(Collectors.toList());
+        assertEquals(words.stream().filter(word -> word.startsWith("b")).count(), all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(WEIGHT.applyAsLong(all.get(i - 1)) >= WEIGHT.applyAsLong(all.get(i)));
+        }
+        assertEquals(WEIGHT.applyAsLong(all.get(0)), completer.weightOf(all.get(0).getValue()));
+        assertEquals(-1L, completer.weightOf("zzz"));
+    }
+
+    @Test
+    public void testFrequencies() {
+        RamHashedDictionary dictionary = new RamHashedDictionary();
+        dictionary.add("中国");
+        dictionary.add("中国人");
+        dictionary.add("中华");
+        dictionary.add("中");
+        String source = "中国\tns\t30\n中国人\tn\t10\n中华\tnz\t50\n";
+        PrefixCompleter completer = PrefixCompleter.of(dictionary,
+                new MappedWordRecordReader(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(Arrays.asList("中华", "中国", "中国人", "中"), values(completer.complete("中", 10)));
+        assertEquals(Arrays.asList("中国", "中国人"), values(completer.complete("中国", 10)));
+        assertEquals(0L, completer.weightOf("中"));
+    }
+}
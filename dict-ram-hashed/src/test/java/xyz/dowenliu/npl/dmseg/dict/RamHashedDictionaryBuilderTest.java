@@ -0,0 +1,122 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.dict.loader.RamHashedDictionaryLoader;
+
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class RamHashedDictionaryBuilderTest {
+    private TreeMap<String, String[]> words;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        words = new TreeMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 1 + random.nextInt(5);
+            for (int k = 0; k < length; k++) {
+                word.append((char) ('一' + random.nextInt(k == 0 ? 300 : 30)));
+            }
+            words.put(word.toString(), i % 3 == 0 ? new String[]{"n"} : new String[0]);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private static Map<String, Set<String>> wordsOf(RamHashedDictionary dictionary) {
+        Map<String, Set<String>> words = new TreeMap<>();
+        for (RamHashedDictionary.HashWordPath path : dictionary) {
+            if (path.isFinishWord()) {
+                assertSame(path, path.getWord().getPath());
+                words.put(path.getWord().getValue(), new HashSet<>(path.getWord().getSpeeches()));
+            }
+        }
+        return words;
+    }
+
+    @Test
+    public void testSameAsIncremental() {
+        RamHashedDictionary incremental = new RamHashedDictionary();
+        RamHashedDictionaryBuilder builder = new RamHashedDictionaryBuilder();
+        for (Map.Entry<String, String[]> entry : words.entrySet()) {
+            incremental.add(entry.getKey(), entry.getValue());
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        RamHashedDictionary built = builder.build();
+        assertEquals(incremental.size(), built.size());
+        assertEquals(wordsOf(incremental), wordsOf(built));
+        String text = String.join("", words.keySet()).substring(0, 2000);
+        int[] expected = new int[8];
+        int[] actual = new int[8];
+        for (int i = 0; i < text.length(); i++) {
+            int count = incremental.dictMatch(text, i, expected);
+            assertEquals(count, built.dictMatch(text, i, actual));
+            assertArrayEquals(Arrays.copyOf(expected, count), Arrays.copyOf(actual, count));
+            assertEquals(incremental.mayStartWith(text.charAt(i)), built.mayStartWith(text.charAt(i)));
+        }
+        DictionaryStats incrementalStats = incremental.stats();
+        DictionaryStats builtStats = built.stats();
+        assertEquals(incrementalStats.getNodeCount(), builtStats.getNodeCount());
+        assertArrayEquals(incrementalStats.getFanOutHistogram(), builtStats.getFanOutHistogram());
+        assertTrue(builtStats.getEstimatedBytes() < incrementalStats.getEstimatedBytes());
+    }
+
+    @Test
+    public void testDuplicateAndPrefix() {
+        RamHashedDictionary dictionary = new RamHashedDictionaryBuilder().bookTag("TEST")
+                .add("and").add("ant", "n").add("ant", "v").add("but").add("button").add("cute").build();
+        assertEquals(5, dictionary.size());
+        assertEquals("TEST", dictionary.dictionaryBookTag());
+        assertEquals(Collections.singleton("v"), dictionary.getBranches().get('a').getBranches().get('n')
+                .getBranches().get('t').getWord().getSpeeches());
+        assertTrue(dictionary.contains("but"));
+        assertTrue(dictionary.contains("button"));
+        assertFalse(dictionary.contains("butt"));
+        dictionary.add("butt");
+        dictionary.add("an");
+        assertEquals(7, dictionary.size());
+        assertTrue(dictionary.contains("butt"));
+        assertTrue(dictionary.remove("button"));
+        assertFalse(dictionary.contains("button"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() {
+        new RamHashedDictionaryBuilder().add("but").add("and");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBuildTwice() {
+        RamHashedDictionaryBuilder builder = new RamHashedDictionaryBuilder().add("and");
+        builder.build();
+        builder.build();
+    }
+
+    @Test
+    public void testSortedLoader() {
+        String source = "and\nant\nbut\nbutton\ncute\n";
+        RamHashedDictionary dictionary = new RamHashedDictionaryLoader(true).readIn(new StringReader(source));
+        assertEquals(wordsOf(new RamHashedDictionaryLoader().readIn(new StringReader(source))), wordsOf(dictionary));
+        RamHashedDictionary unsorted = RamHashedDictionaryBuilder.build(
+                new RamHashedDictionaryLoader().wrapReader(new StringReader("cute\nand\nbutton\nant\nbut\n")));
+        assertEquals(wordsOf(dictionary), wordsOf(unsorted));
+    }
+}
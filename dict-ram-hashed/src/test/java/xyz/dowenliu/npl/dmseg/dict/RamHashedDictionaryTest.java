@@ -146,4 +146,33 @@ public class RamHashedDictionaryTest {
         words = this.dict.dictMatch(buffer);
         assertEquals(2, words.size());
     }
+
+    @Test
+    public void testDictMatchEnds() {
+        String source = "anbuttonrefertoantgourp";
+        int[] ends = new int[4];
+        assertEquals(0, this.dict.dictMatch(source, 0, ends));
+        assertEquals(2, this.dict.dictMatch(source, 2, ends));
+        assertEquals(5, ends[0]);
+        assertEquals(8, ends[1]);
+        assertEquals(1, this.dict.dictMatch(source, 2, new int[1]));
+        assertEquals(1, this.dict.dictMatch(source.toCharArray(), 2, 7, ends));
+        assertEquals(5, ends[0]);
+        StringBuilder matched = new StringBuilder();
+        this.dict.dictMatch(CharBuffer.wrap(source, 15, source.length()), 0,
+                (end, word) -> matched.append(end).append(word.getValue()).append(word.getSpeeches()));
+        assertEquals("3ant[n]", matched.toString());
+    }
+
+    @Test
+    public void testMayStartWith() {
+        assertTrue(this.dict.mayStartWith('a'));
+        assertFalse(this.dict.mayStartWith('d'));
+        assertFalse(this.dict.mayStartWith('中'));
+        this.dict.add("中国");
+        assertTrue(this.dict.mayStartWith('中'));
+        assertEquals(1, this.dict.dictMatch("中国人", 0, new int[2]));
+        this.dict.remove("cute");
+        assertEquals(0, this.dict.dictMatch("cute", 0, new int[2]));
+    }
 }
@@ -0,0 +1,77 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionary;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class AbstractDictionaryLoaderTest {
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    /**
+     * 只实现了 {@link AbstractDictionaryLoader#readIn(Reader)} 的加载器
+     */
+    private static class ReaderOnlyLoader extends AbstractDictionaryLoader<RamHashedDictionary> {
+        @Override
+        public WordRecordReader wrapReader(Reader reader) {
+            return new SimpleLineWordRecordReader(reader);
+        }
+
+        @Override
+        public RamHashedDictionary readIn(Reader reader) {
+            RamHashedDictionary dictionary = new RamHashedDictionary();
+            this.apply(dictionary, reader);
+            return dictionary;
+        }
+    }
+
+    @Test
+    public void testReadInWordRecordReader() {
+        ReaderOnlyLoader loader = new ReaderOnlyLoader();
+        RamHashedDictionary dictionary = loader.readIn(loader.wrapReader(new StringReader("我们\n中国\n")));
+        assertEquals(2, dictionary.size());
+        assertTrue(dictionary.contains("我们"));
+        assertTrue(dictionary.contains("中国"));
+    }
+
+    @Test
+    public void testReadInFileUsesWrapReader() throws Exception {
+        Path file = Files.createTempFile("dict", ".txt");
+        try {
+            Files.write(file, "我们\tr\n中国\tns\n".getBytes(StandardCharsets.UTF_8));
+            RamHashedDictionary dictionary = new ReaderOnlyLoader().readIn(file);
+            assertEquals(2, dictionary.size());
+            assertTrue(dictionary.contains("我们"));
+            assertFalse(dictionary.contains("我们\tr"));
+            RamHashedDictionary reloaded = new RamHashedDictionaryLoader().readIn(file);
+            assertTrue(reloaded.contains("中国"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionary;
+import xyz.dowenliu.npl.dmseg.dict.Word;
+
+import java.io.StringReader;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class ParallelRamHashedDictionaryLoaderTest {
+    private ForkJoinPool pool;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    private static String source(int from, int to) {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(from);
+        for (int i = from; i < to; i++) {
+            text.append((char) ('一' + random.nextInt(200))).append((char) ('一' + random.nextInt(50)))
+                    .append(i % 7 == 0 ? "" : String.valueOf(i % 13)).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static Map<String, Set<String>> wordsOf(RamHashedDictionary dictionary) {
+        Map<String, Set<String>> words = new TreeMap<>();
+        for (RamHashedDictionary.HashWordPath path : dictionary) {
+            if (path.isFinishWord()) {
+                words.put(path.getWord().getValue(), new HashSet<>(path.getWord().getSpeeches()));
+            }
+        }
+        return words;
+    }
+
+    @Test
+    public void testReadInAll() {
+        String[] sources = {source(0, 5000), source(3000, 9000), source(8000, 12000)};
+        RamHashedDictionary sequential = new RamHashedDictionary();
+        RamHashedDictionaryLoader loader = new RamHashedDictionaryLoader();
+        for (String source : sources) {
+            loader.apply(sequential, new StringReader(source));
+        }
+        RamHashedDictionary parallel = new ParallelRamHashedDictionaryLoader(pool).readInAll(Arrays.asList(
+                new StringReader(sources[0]), new StringReader(sources[1]), new StringReader(sources[2])));
+        assertEquals(sequential.size(), parallel.size());
+        assertEquals(wordsOf(sequential), wordsOf(parallel));
+    }
+
+    @Test
+    public void testApplyToExisting() {
+        RamHashedDictionary dictionary = new RamHashedDictionary();
+        dictionary.add("中国", "ns");
+        dictionary.add("人民");
+        new ParallelRamHashedDictionaryLoader(pool).apply(dictionary, new StringReader("中国人\n中华\n人民\n小\n"));
+        assertEquals(5, dictionary.size());
+        assertTrue(dictionary.contains("中国人"));
+        assertTrue(dictionary.contains("小"));
+        assertEquals(Collections.singleton("ns"), dictionary.getBranches().get('中').getBranches().get('国')
+                .getWord().getSpeeches());
+        dictionary.addAllParallel(Collections.singletonList(new Word("中国", "n")), pool);
+        assertEquals(5, dictionary.size());
+        assertTrue(dictionary.getBranches().get('中').getBranches().get('国').getWord().getSpeeches().contains("n"));
+    }
+}
@@ -0,0 +1,421 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * 只读字典基类。字典结构由子类使用状态值（如数组下标、文件偏移量）表示，
+ * 词路径对象只在遍历、取前缀等操作时临时创建，不常驻内存。
+ * <p>只读字典不支持 {@link #add(String, String...)}、{@link #add(Word)}、{@link #remove(String)} 操作，
+ * 调用将抛出 {@link UnsupportedOperationException}。</p>
+ * <p>{@link #dictMatch(CharBuffer)} 返回的词由缓冲区中的匹配片段直接生成，不携带词路径。</p>
+ * <p>只读字典不能就地应用 {@link DictionaryDelta}，各实现的构建器通过 {@link DictionaryDelta#merge(Dictionary)}
+ * 一次性重建应用补丁后的新字典。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public abstract class AbstractReadOnlyDictionary implements Dictionary<AbstractReadOnlyDictionary.NodeWordPath> {
+    /**
+     * 不存在的状态
+     */
+    protected static final long NONE = -1L;
+    private String bookTag = "DM-SEG";
+    private long version = 0L;
+    private volatile FirstCharSet firstChars;
+    private volatile int maxDepth = -1;
+
+    /**
+     * 根节点状态
+     *
+     * @return 根节点状态值，不能为负数
+     */
+    protected abstract long rootState();
+
+    /**
+     * 状态转移
+     *
+     * @param state 当前状态
+     * @param fork  分叉值
+     * @return 转移后的状态，不存在则返回负数
+     */
+    protected abstract long next(long state, char fork);
+
+    /**
+     * 判断状态是否代表一个词的边界
+     *
+     * @param state 状态
+     * @return 是 {@code true}，否 {@code false}
+     */
+    protected abstract boolean isWord(long state);
+
+    /**
+     * 取词边界状态上的词性
+     *
+     * @param state 词边界状态
+     * @return 词性列表，没有词性返回空数组
+     */
+    protected abstract String[] speechesOf(long state);
+
+    /**
+     * 按分叉值顺序访问状态的所有子状态
+     *
+     * @param state   状态
+     * @param visitor 子状态访问者
+     */
+    protected abstract void forEachChild(long state, ChildVisitor visitor);
+
+    /**
+     * 设置字典书名标记
+     *
+     * @param bookTag 字典书名标记
+     */
+    public void setBookTag(String bookTag) {
+        this.bookTag = bookTag;
+    }
+
+    @Override
+    public String dictionaryBookTag() {
+        return this.bookTag;
+    }
+
+    /**
+     * 设置字典版本
+     *
+     * @param version 字典版本
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * 从根节点沿字串转移
+     *
+     * @param chars 字串
+     * @return 最终状态，路径不存在返回负数
+     */
+    protected long walk(CharSequence chars) {
+        long state = this.rootState();
+        for (int i = 0; i < chars.length() && state >= 0; i++) {
+            state = this.next(state, chars.charAt(i));
+        }
+        return state;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        if (word == null || word.isEmpty()) {
+            return false;
+        }
+        long state = this.walk(word);
+        return state >= 0 && this.isWord(state);
+    }
+
+    @Override
+    public boolean add(String word, String... speeches) {
+        throw new UnsupportedOperationException("只读字典不能加入词");
+    }
+
+    @Override
+    public boolean add(Word word) {
+        throw new UnsupportedOperationException("只读字典不能加入词");
+    }
+
+    @Override
+    public boolean remove(String word) {
+        throw new UnsupportedOperationException("只读字典不能删除词");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<WordPath> withPrefix(WordPath path) {
+        if (path == null) {
+            return null;
+        }
+        NodeWordPath matchPath = null;
+        long state = this.rootState();
+        for (WordPath expectPath : (Deque<WordPath>) path.getPathQueue()) {
+            state = this.next(state, expectPath.getFork());
+            if (state < 0) {
+                return null;
+            }
+            matchPath = new NodeWordPath(matchPath, expectPath.getFork(), state);
+        }
+        if (matchPath == null) {
+            return null;
+        }
+        return new HashSet<>(matchPath.getBranches().values());
+    }
+
+    @Override
+    public List<Word> dictMatch(CharBuffer charBuffer) {
+        List<Word> words = new LinkedList<>();
+        StringBuilder value = new StringBuilder();
+        long state = this.rootState();
+        while (charBuffer.remaining() > 0) {
+            char c = charBuffer.get();
+            state = this.next(state, c);
+            if (state < 0) {
+                break;
+            }
+            value.append(c);
+            if (this.isWord(state)) {
+                words.add(new Word(value.toString(), this.speechesOf(state)));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * 每个词都由匹配片段生成，只需要部分词时应使用 {@link #dictMatchIds(CharSequence, int, MatchIdVisitor)}
+     */
+    @Override
+    public void dictMatch(CharSequence text, int offset, MatchVisitor visitor) {
+        long state = this.rootState();
+        for (int i = offset; i < text.length(); i++) {
+            state = this.next(state, text.charAt(i));
+            if (state < 0) {
+                break;
+            }
+            if (this.isWord(state)) {
+                visitor.visit(i + 1, this.wordOf(text, offset, i + 1, state));
+            }
+        }
+    }
+
+    /**
+     * 词编号即词边界状态
+     */
+    @Override
+    public void dictMatchIds(CharSequence text, int offset, MatchIdVisitor visitor) {
+        long state = this.rootState();
+        for (int i = offset; i < text.length(); i++) {
+            state = this.next(state, text.charAt(i));
+            if (state < 0) {
+                break;
+            }
+            if (this.isWord(state)) {
+                visitor.visit(i + 1, state);
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsWordIds() {
+        return true;
+    }
+
+    /**
+     * 由匹配片段与词边界状态上的词性生成词
+     */
+    @Override
+    public Word wordOf(CharSequence text, int offset, int end, long wordId) {
+        return new Word(text.subSequence(offset, end).toString(), this.speechesOf(wordId));
+    }
+
+    @Override
+    public int dictMatch(CharSequence text, int offset, int[] ends) {
+        int count = 0;
+        long state = this.rootState();
+        for (int i = offset; i < text.length() && count < ends.length; i++) {
+            state = this.next(state, text.charAt(i));
+            if (state < 0) {
+                break;
+            }
+            if (this.isWord(state)) {
+                ends[count++] = i + 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int dictMatch(char[] text, int offset, int limit, int[] ends) {
+        int count = 0;
+        long state = this.rootState();
+        for (int i = offset; i < limit && count < ends.length; i++) {
+            state = this.next(state, text[i]);
+            if (state < 0) {
+                break;
+            }
+            if (this.isWord(state)) {
+                ends[count++] = i + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 只读字典内容不变，第一次调用时遍历一次后缓存
+     */
+    @Override
+    public int maxDepth() {
+        int _maxDepth = this.maxDepth;
+        if (_maxDepth < 0) {
+            this.maxDepth = _maxDepth = this.stats().getMaxDepth();
+        }
+        return _maxDepth;
+    }
+
+    /**
+     * 首字集合在第一次调用时由根状态的子状态建立
+     */
+    @Override
+    public boolean mayStartWith(char c) {
+        FirstCharSet _firstChars = this.firstChars;
+        if (_firstChars == null) {
+            FirstCharSet built = new FirstCharSet();
+            this.forEachChild(this.rootState(), (fork, child) -> built.add(fork));
+            this.firstChars = _firstChars = built;
+        }
+        return _firstChars.contains(c);
+    }
+
+    /**
+     * 沿状态深度优先遍历，不创建词路径视图
+     */
+    @Override
+    public DictionaryStats stats() {
+        DictionaryStats.Collector collector = new DictionaryStats.Collector();
+        StateStack stack = new StateStack();
+        int[] fanOut = new int[1];
+        stack.push('\0', this.rootState(), 0);
+        while (stack.top >= 0) {
+            int i = stack.top--;
+            long state = stack.states[i];
+            char fork = stack.forks[i];
+            int depth = stack.depths[i];
+            fanOut[0] = 0;
+            this.forEachChild(state, (childFork, child) -> {
+                stack.push(childFork, child, depth + 1);
+                fanOut[0]++;
+            });
+            if (depth == 0) {
+                collector.root(fanOut[0]);
+            } else {
+                collector.node(fork, depth, fanOut[0], this.isWord(state));
+            }
+        }
+        long bytes = this.estimateBytes();
+        if (bytes >= 0 && this.firstChars != null) {
+            bytes += FirstCharSet.bytes();
+        }
+        return collector.build(this, bytes);
+    }
+
+    /**
+     * 估算字典的堆内存占用，供 {@link #stats()} 使用
+     *
+     * @return 字节数，无法估算返回 -1
+     */
+    protected long estimateBytes() {
+        return -1L;
+    }
+
+    @Override
+    public Map<Character, NodeWordPath> getBranches() {
+        return this.branchesOf(null, this.rootState());
+    }
+
+    private Map<Character, NodeWordPath> branchesOf(NodeWordPath parent, long state) {
+        Map<Character, NodeWordPath> branches = new LinkedHashMap<>();
+        this.forEachChild(state, (fork, child) -> branches.put(fork, new NodeWordPath(parent, fork, child)));
+        return Collections.unmodifiableMap(branches);
+    }
+
+    @Override
+    public Iterator<NodeWordPath> iterator() {
+        return new Itr();
+    }
+
+    private class Itr implements Iterator<NodeWordPath> {
+        final LinkedList<Iterator<NodeWordPath>> curStack = new LinkedList<>();
+        Iterator<NodeWordPath> cur;
+
+        Itr() {
+            cur = AbstractReadOnlyDictionary.this.getBranches().values().iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!cur.hasNext() && !curStack.isEmpty()) {
+                cur = curStack.pop();
+            }
+            return cur.hasNext();
+        }
+
+        @Override
+        public NodeWordPath next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            NodeWordPath path = cur.next();
+            Map<Character, NodeWordPath> branches = path.getBranches();
+            if (!branches.isEmpty()) {
+                curStack.push(cur);
+                cur = branches.values().iterator();
+            }
+            return path;
+        }
+    }
+
+    /**
+     * 统计遍历用的状态栈
+     */
+    private static final class StateStack {
+        long[] states = new long[64];
+        char[] forks = new char[64];
+        int[] depths = new int[64];
+        int top = -1;
+
+        void push(char fork, long state, int depth) {
+            if (++this.top == this.states.length) {
+                this.states = Arrays.copyOf(this.states, this.top * 2);
+                this.forks = Arrays.copyOf(this.forks, this.top * 2);
+                this.depths = Arrays.copyOf(this.depths, this.top * 2);
+            }
+            this.states[this.top] = state;
+            this.forks[this.top] = fork;
+            this.depths[this.top] = depth;
+        }
+    }
+
+    /**
+     * 子状态访问者
+     */
+    @FunctionalInterface
+    protected interface ChildVisitor {
+        /**
+         * 访问子状态
+         *
+         * @param fork  分叉值
+         * @param state 子状态
+         */
+        void visit(char fork, long state);
+    }
+
+    /**
+     * 只读字典的词路径视图。由遍历过程临时创建，修改它不会影响字典。
+     */
+    public class NodeWordPath extends WordPath<NodeWordPath> {
+        final long state;
+
+        NodeWordPath(NodeWordPath parentPath, char fork, long state) {
+            super(parentPath, fork);
+            this.state = state;
+            if (isWord(state)) {
+                this.wordFinish(speechesOf(state));
+            }
+        }
+
+        @Override
+        public Map<Character, NodeWordPath> getBranches() {
+            return branchesOf(this, this.state);
+        }
+    }
+}
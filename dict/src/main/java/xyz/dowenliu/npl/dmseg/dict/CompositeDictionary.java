@@ -0,0 +1,367 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * 将多本字典合并为一棵字典树的组合字典。每个字只需从一个根部匹配一次，即可得到所有字典中的词。
+ * <p>合并后的词记录其来源字典的位掩码（第i位表示第i本字典），词性为各来源字典中该词词性的并集，
+ * 书名标记由 {@link #bookTagsOf(Word)} 给出。最多合并 {@value #MAX_SOURCES} 本字典。</p>
+ * <p>组合字典是创建时各字典内容的快照，之后对来源字典的修改不会反映到组合字典中。
+ * 来源字典应用 {@link DictionaryDelta} 后版本改变，可用 {@link #isStale()} 判断是否需要重新合并。</p>
+ * <p>节点按广度优先顺序编号，0 为根节点，同一节点的子节点编号连续且按分叉值升序排列。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class CompositeDictionary extends AbstractReadOnlyDictionary {
+    /**
+     * 最多可合并的字典数
+     */
+    public static final int MAX_SOURCES = 64;
+    private final List<Dictionary<?>> sources;
+    private final long[] sourceVersions;
+    /**
+     * 节点的分叉值，根节点无意义
+     */
+    private final char[] forks;
+    private final int[] firstChild;
+    /**
+     * 节点上的词在 {@link #words} 中的下标，-1 表示不是词
+     */
+    private final int[] wordIds;
+    private final SourceWord[] words;
+    private final int maxDepth;
+
+    /**
+     * 合并字典
+     *
+     * @param sources 来源字典，顺序决定来源位掩码中的位
+     * @throws IllegalArgumentException 字典数超过 {@value #MAX_SOURCES}
+     */
+    public CompositeDictionary(List<? extends Dictionary<?>> sources) {
+        if (sources.size() > MAX_SOURCES) {
+            throw new IllegalArgumentException("最多合并" + MAX_SOURCES + "本字典：" + sources.size());
+        }
+        this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+        this.sourceVersions = new long[this.sources.size()];
+        TreeMap<String, Entry> entries = new TreeMap<>();
+        StringJoiner bookTag = new StringJoiner("+");
+        for (int i = 0; i < this.sources.size(); i++) {
+            Dictionary<?> source = this.sources.get(i);
+            this.sourceVersions[i] = source.version();
+            bookTag.add(source.dictionaryBookTag());
+            for (WordPath path : source) {
+                if (path.isFinishWord()) {
+                    Word word = path.getWord();
+                    Entry entry = entries.computeIfAbsent(word.getValue(), k -> new Entry());
+                    entry.sources |= 1L << i;
+                    entry.speeches.addAll(word.getSpeeches());
+                }
+            }
+        }
+        this.setBookTag(bookTag.toString());
+
+        String[] keys = entries.keySet().toArray(new String[entries.size()]);
+        Map<Long, Set<String>> tagSets = new HashMap<>();
+        this.words = new SourceWord[keys.length];
+        int k = 0;
+        int maxDepth = 0;
+        for (Entry entry : entries.values()) {
+            maxDepth = Math.max(maxDepth, keys[k].length());
+            Set<String> tags = tagSets.computeIfAbsent(entry.sources, this::tagsOf);
+            this.words[k] = new SourceWord(keys[k], entry.speeches.toArray(new String[entry.speeches.size()]),
+                    entry.sources, tags);
+            k++;
+        }
+
+        // 广度优先建树，每个节点对应有序词数组中共享同一前缀的区间 [lo[n], hi[n])
+        int capacity = Math.max(16, keys.length * 2);
+        char[] forks = new char[capacity];
+        int[] firstChild = new int[capacity + 1];
+        int[] wordIds = new int[capacity];
+        int[] lo = new int[capacity];
+        int[] hi = new int[capacity];
+        int[] depths = new int[capacity];
+        hi[0] = keys.length;
+        int count = 1;
+        for (int n = 0; n < count; n++) {
+            int from = lo[n];
+            int to = hi[n];
+            int depth = depths[n];
+            wordIds[n] = -1;
+            if (n > 0 && keys[from].length() == depth) {
+                wordIds[n] = from;
+                from++;
+            }
+            firstChild[n] = count;
+            int i = from;
+            while (i < to) {
+                char fork = keys[i].charAt(depth);
+                int j = i + 1;
+                while (j < to && keys[j].charAt(depth) == fork) {
+                    j++;
+                }
+                if (count == forks.length) {
+                    int newCapacity = forks.length + (forks.length >> 1);
+                    forks = Arrays.copyOf(forks, newCapacity);
+                    firstChild = Arrays.copyOf(firstChild, newCapacity + 1);
+                    wordIds = Arrays.copyOf(wordIds, newCapacity);
+                    lo = Arrays.copyOf(lo, newCapacity);
+                    hi = Arrays.copyOf(hi, newCapacity);
+                    depths = Arrays.copyOf(depths, newCapacity);
+                }
+                forks[count] = fork;
+                lo[count] = i;
+                hi[count] = j;
+                depths[count] = depth + 1;
+                count++;
+                i = j;
+            }
+        }
+        firstChild[count] = count;
+        this.forks = Arrays.copyOf(forks, count);
+        this.firstChild = Arrays.copyOf(firstChild, count + 1);
+        this.wordIds = Arrays.copyOf(wordIds, count);
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * 合并字典
+     *
+     * @param sources 来源字典
+     * @return 组合字典
+     */
+    public static CompositeDictionary of(Dictionary<?>... sources) {
+        return new CompositeDictionary(Arrays.asList(sources));
+    }
+
+    private Set<String> tagsOf(long mask) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (int i = 0; i < this.sources.size(); i++) {
+            if ((mask & 1L << i) != 0) {
+                tags.add(this.sources.get(i).dictionaryBookTag());
+            }
+        }
+        return Collections.unmodifiableSet(tags);
+    }
+
+    /**
+     * 来源字典
+     *
+     * @return 来源字典，顺序与来源位掩码中的位对应
+     */
+    public List<Dictionary<?>> getSources() {
+        return this.sources;
+    }
+
+    /**
+     * 是否有来源字典的版本与合并时不同
+     *
+     * @return 有 {@code true}，否 {@code false}
+     */
+    public boolean isStale() {
+        for (int i = 0; i < this.sourceVersions.length; i++) {
+            if (this.sources.get(i).version() != this.sourceVersions[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return this.words.length;
+    }
+
+    /**
+     * 节点数（含根节点）
+     *
+     * @return 节点数
+     */
+    public int nodeCount() {
+        return this.forks.length;
+    }
+
+    /**
+     * 不含来源字典本身，各词共享的书名标记集合也不计入
+     */
+    @Override
+    protected long estimateBytes() {
+        long bytes = DictionaryStats.objectBytes(6 * DictionaryStats.REFERENCE + 8)
+                + DictionaryStats.arrayBytes(8, this.sourceVersions.length)
+                + DictionaryStats.arrayBytes(2, this.forks.length)
+                + DictionaryStats.arrayBytes(4, this.firstChild.length)
+                + DictionaryStats.arrayBytes(4, this.wordIds.length)
+                + DictionaryStats.arrayBytes(DictionaryStats.REFERENCE, this.words.length);
+        for (SourceWord word : this.words) {
+            // SourceWord比Word多来源位掩码与书名标记集合两个字段
+            bytes += DictionaryStats.wordBytes(word) + 16;
+        }
+        return bytes;
+    }
+
+    @Override
+    protected long rootState() {
+        return 0;
+    }
+
+    private int child(int node, char fork) {
+        int low = this.firstChild[node];
+        int high = this.firstChild[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = this.forks[mid];
+            if (c < fork) {
+                low = mid + 1;
+            } else if (c > fork) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    protected long next(long state, char fork) {
+        return this.child((int) state, fork);
+    }
+
+    @Override
+    protected boolean isWord(long state) {
+        return this.wordIds[(int) state] >= 0;
+    }
+
+    @Override
+    protected String[] speechesOf(long state) {
+        Set<String> speeches = this.words[this.wordIds[(int) state]].getSpeeches();
+        return speeches.toArray(new String[speeches.size()]);
+    }
+
+    @Override
+    protected void forEachChild(long state, ChildVisitor visitor) {
+        int node = (int) state;
+        for (int i = this.firstChild[node]; i < this.firstChild[node + 1]; i++) {
+            visitor.visit(this.forks[i], i);
+        }
+    }
+
+    /**
+     * 查找词
+     *
+     * @param word 词
+     * @return 合并后的词，不存在返回 {@code null}
+     */
+    public SourceWord wordOf(String word) {
+        long state = this.walk(word);
+        if (state < 0 || !this.isWord(state)) {
+            return null;
+        }
+        return this.words[this.wordIds[(int) state]];
+    }
+
+    /**
+     * 返回的词为合并时创建的 {@link SourceWord}，多次匹配返回同一对象
+     */
+    @Override
+    public List<Word> dictMatch(CharBuffer charBuffer) {
+        List<Word> words = new LinkedList<>();
+        int node = 0;
+        while (charBuffer.remaining() > 0) {
+            node = this.child(node, charBuffer.get());
+            if (node < 0) {
+                break;
+            }
+            if (this.wordIds[node] >= 0) {
+                words.add(this.words[this.wordIds[node]]);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * 回调的词为合并时创建的 {@link SourceWord}，不创建新对象
+     */
+    @Override
+    public void dictMatch(CharSequence text, int offset, MatchVisitor visitor) {
+        int node = 0;
+        for (int i = offset; i < text.length(); i++) {
+            node = this.child(node, text.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (this.wordIds[node] >= 0) {
+                visitor.visit(i + 1, this.words[this.wordIds[node]]);
+            }
+        }
+    }
+
+    /**
+     * 合并时由最长的词得出
+     */
+    @Override
+    public int maxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * 返回合并时创建的 {@link SourceWord}
+     */
+    @Override
+    public Word wordOf(CharSequence text, int offset, int end, long wordId) {
+        return this.words[this.wordIds[(int) wordId]];
+    }
+
+    /**
+     * 词所在的各来源字典的书名标记
+     *
+     * @param word 此字典中的词
+     * @return 书名标记集合，词不在此字典中时为空集合
+     */
+    @Override
+    public Collection<String> bookTagsOf(Word word) {
+        SourceWord sourceWord = word instanceof SourceWord ? (SourceWord) word : this.wordOf(word.getValue());
+        return sourceWord == null ? Collections.emptySet() : sourceWord.getBookTags();
+    }
+
+    private static final class Entry {
+        long sources;
+        final Set<String> speeches = new LinkedHashSet<>();
+    }
+
+    /**
+     * 组合字典中的词，记录其来源字典
+     *
+     * @author liufl
+     * @since 1.0.0
+     */
+    public static final class SourceWord extends Word {
+        private final long sources;
+        private final Set<String> bookTags;
+
+        SourceWord(String value, String[] speeches, long sources, Set<String> bookTags) {
+            super(value, speeches);
+            this.sources = sources;
+            this.bookTags = bookTags;
+        }
+
+        /**
+         * 来源字典位掩码
+         *
+         * @return 第i位为1表示此词在第i本来源字典中
+         */
+        public long getSources() {
+            return this.sources;
+        }
+
+        /**
+         * 来源字典的书名标记
+         *
+         * @return 书名标记集合，不可修改
+         */
+        public Set<String> getBookTags() {
+            return this.bookTags;
+        }
+    }
+}
@@ -2,7 +2,12 @@ package xyz.dowenliu.npl.dmseg.dict;
 
 import java.nio.CharBuffer;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 字典表接口。维护和管理词集合。不能进行对象间比较，非同一对象认为两对象不同。
@@ -16,6 +21,11 @@ import java.util.List;
  * @since 1.0.0
  */
 public interface Dictionary<T extends WordPath> extends Branching<Character, T>, Iterable<T> {
+    /**
+     * 不能以编号还原词时回调的词编号
+     */
+    long NO_WORD_ID = -1L;
+
     /**
      * 字典中的词数
      *
@@ -77,10 +87,240 @@ public interface Dictionary<T extends WordPath> extends Branching<Character, T>,
      */
     List<Word> dictMatch(CharBuffer charBuffer);
 
+    /**
+     * 找出字符序列中从offset开始齐头匹配的词，按从短到长的顺序回调。
+     * 与 {@link #dictMatch(CharBuffer)} 不同，不创建结果列表，也不需要复制缓冲区。
+     * <p>默认实现委托给 {@link #dictMatch(CharBuffer)}，实现类应覆盖此方法以避免创建临时对象。</p>
+     *
+     * @param text    字符序列，{@link CharBuffer} 也是字符序列，下标相对于其当前位置
+     * @param offset  匹配的起始位置
+     * @param visitor 回调，参数为词的结束位置（不含）与词
+     */
+    default void dictMatch(CharSequence text, int offset, MatchVisitor visitor) {
+        for (Word word : this.dictMatch(CharBuffer.wrap(text, offset, text.length()))) {
+            visitor.visit(offset + word.getValue().length(), word);
+        }
+    }
+
+    /**
+     * 找出字符序列中从offset开始齐头匹配的词，按从短到长的顺序回调词的结束位置与编号，不创建词对象。
+     * 需要词时以 {@link #wordOf(CharSequence, int, int, long)} 取得。
+     * <p>默认实现委托给 {@link #dictMatch(CharSequence, int, MatchVisitor)}，编号总是 {@link #NO_WORD_ID}。
+     * 能以编号直接还原词的实现类应覆盖此方法、{@link #wordOf(CharSequence, int, int, long)}
+     * 与 {@link #supportsWordIds()}。</p>
+     *
+     * @param text    字符序列
+     * @param offset  匹配的起始位置
+     * @param visitor 回调，参数为词的结束位置（不含）与词编号
+     */
+    default void dictMatchIds(CharSequence text, int offset, MatchIdVisitor visitor) {
+        this.dictMatch(text, offset, (end, word) -> visitor.visit(end, NO_WORD_ID));
+    }
+
+    /**
+     * 是否能以词编号直接还原词。词对象常驻内存的字典以 {@link #dictMatch(CharSequence, int, MatchVisitor)}
+     * 回调词即可，不需要编号。
+     *
+     * @return 能 {@code true}，不能 {@code false}
+     */
+    default boolean supportsWordIds() {
+        return false;
+    }
+
+    /**
+     * 取 {@link #dictMatchIds(CharSequence, int, MatchIdVisitor)} 匹配到的词。
+     * 字符序列中offset到end的内容须与匹配时相同。
+     * <p>默认实现重新匹配一次，取结束位置为end的词。</p>
+     *
+     * @param text   匹配时的字符序列
+     * @param offset 匹配的起始位置
+     * @param end    词的结束位置（不含）
+     * @param wordId 词编号
+     * @return 词，不存在返回 {@code null}
+     */
+    default Word wordOf(CharSequence text, int offset, int end, long wordId) {
+        Word[] found = new Word[1];
+        this.dictMatch(text.subSequence(0, end), offset, (wordEnd, word) -> {
+            if (wordEnd == end) {
+                found[0] = word;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * 找出字符序列中从offset开始齐头匹配的词，按从短到长的顺序将词的结束位置（不含）写入ends。
+     * 实现类应避免在此方法中创建对象。
+     *
+     * @param text   字符序列
+     * @param offset 匹配的起始位置
+     * @param ends   结束位置输出数组，匹配到的词多于其长度时只写入最短的 {@code ends.length} 个
+     * @return 写入的结束位置个数
+     */
+    default int dictMatch(CharSequence text, int offset, int[] ends) {
+        int count = 0;
+        for (Word word : this.dictMatch(CharBuffer.wrap(text, offset, text.length()))) {
+            if (count == ends.length) {
+                break;
+            }
+            ends[count++] = offset + word.getValue().length();
+        }
+        return count;
+    }
+
+    /**
+     * 找出字符数组中从offset开始、limit之前齐头匹配的词，按从短到长的顺序将词的结束位置（不含）写入ends。
+     * 实现类应避免在此方法中创建对象。
+     *
+     * @param text   字符数组
+     * @param offset 匹配的起始位置
+     * @param limit  匹配的结束位置（不含）
+     * @param ends   结束位置输出数组，匹配到的词多于其长度时只写入最短的 {@code ends.length} 个
+     * @return 写入的结束位置个数
+     */
+    default int dictMatch(char[] text, int offset, int limit, int[] ends) {
+        return this.dictMatch(CharBuffer.wrap(text, 0, limit), offset, ends);
+    }
+
+    /**
+     * 字典树的最大深度，即最长的词的长度，用于确定分词缓冲区长度。
+     * <p>调用不应遍历字典，实现类应在加入词时维护此值，删除词后可以不减小。
+     * 默认返回0，表示未知，使用方应按默认的缓冲区长度处理；需要准确值时使用 {@link #stats()}。</p>
+     *
+     * @return 最大深度，空字典或未知为0
+     */
+    default int maxDepth() {
+        return 0;
+    }
+
+    /**
+     * 是否可能有以此字开头的词，用于在进入字典树查找前快速排除不能开始任何词的位置。
+     * <p>返回 {@code false} 时 {@code c} 开头的齐头匹配一定没有结果；返回 {@code true} 不保证有结果。
+     * 默认总是返回 {@code true}，实现类应以 {@link FirstCharSet} 等方式覆盖此方法。</p>
+     *
+     * @param c 首字
+     * @return 可能有 {@code true}，一定没有 {@code false}
+     */
+    default boolean mayStartWith(char c) {
+        return true;
+    }
+
+    /**
+     * 可拆分的词路径迭代器，遍历所有词路径（不只是词边界）。先按根节点的子节点拆分，再逐层拆分子树，
+     * 可以用于并行流。不保证遍历顺序，遍历过程中不能修改字典。
+     *
+     * @return 词路径迭代器
+     */
+    @Override
+    default Spliterator<T> spliterator() {
+        return new WordPathSpliterator<>(this, this.size());
+    }
+
+    /**
+     * 字典中所有词的流，调用 {@link Stream#parallel()} 即可按子树并行遍历。不保证顺序，需要有序时自行排序。
+     *
+     * @return 词的流
+     */
+    default Stream<Word> words() {
+        return StreamSupport.stream(this.spliterator(), false)
+                .filter(WordPath::isFinishWord)
+                .map(WordPath::getWord);
+    }
+
+    /**
+     * 前缀补全：以前缀开头（含前缀本身）的词中权重最大的K个。
+     * <p>默认实现遍历前缀节点下的整棵子树，以容量为K的堆保留结果，不创建子树的词列表。
+     * 同一字典上反复补全（如输入提示）时应使用 {@link PrefixCompleter}，其预先计算的区间最大权重使补全不需要遍历子树。</p>
+     *
+     * @param prefix 前缀，空前缀对应所有词
+     * @param k      最多返回的词数
+     * @param weight 词的权重，如词频
+     * @return 按权重从大到小排列的词，权重相同时按字典序排列
+     */
+    default List<Word> complete(CharSequence prefix, int k, ToLongFunction<? super Word> weight) {
+        return PrefixCompleter.complete(this, prefix, k, weight);
+    }
+
     /**
      * 返回此字典书名标记。用于分词结果标记（记录在词性上）
      *
      * @return 字典书名标记
      */
     String dictionaryBookTag();
+
+    /**
+     * 返回词所属字典的书名标记。用于分词结果标记，合并多本字典的实现中一个词可能属于多本字典。
+     *
+     * @param word 此字典匹配出的词
+     * @return 书名标记集合，默认只有 {@link #dictionaryBookTag()}
+     */
+    default Collection<String> bookTagsOf(Word word) {
+        return Collections.singleton(this.dictionaryBookTag());
+    }
+
+    /**
+     * 字典内容的版本。每应用一个 {@link DictionaryDelta} 变为补丁的目标版本，
+     * 持有同一版本字典的各节点可以按顺序重放补丁追上最新版本，而不需要重新加载整本字典。
+     *
+     * @return 版本，默认为 0
+     */
+    default long version() {
+        return 0L;
+    }
+
+    /**
+     * 就地应用增量补丁，只修改受影响的词路径，完成后字典版本变为补丁的目标版本。
+     * <p>默认不支持。只读字典应使用 {@link DictionaryDelta#merge(Dictionary)} 交由其构建器重建新字典。</p>
+     *
+     * @param delta 增量补丁
+     * @throws IllegalStateException         字典版本与补丁基础版本不匹配
+     * @throws UnsupportedOperationException 字典不支持就地修改
+     */
+    default void applyDelta(DictionaryDelta delta) {
+        throw new UnsupportedOperationException("字典不支持就地应用补丁");
+    }
+
+    /**
+     * 统计字典的规模与形状，需要遍历整本字典。
+     * <p>默认实现通过词路径遍历，不估算占用字节数，实现类应覆盖此方法直接遍历其内部结构并估算占用字节数。</p>
+     *
+     * @return 统计
+     */
+    default DictionaryStats stats() {
+        return DictionaryStats.of(this);
+    }
+
+    /**
+     * 齐头匹配回调
+     *
+     * @author liufl
+     * @since 1.0.0
+     */
+    @FunctionalInterface
+    interface MatchVisitor {
+        /**
+         * 匹配到一个词
+         *
+         * @param end  词的结束位置（不含）
+         * @param word 词
+         */
+        void visit(int end, Word word);
+    }
+
+    /**
+     * 齐头匹配词编号回调
+     *
+     * @author liufl
+     * @since 1.0.0
+     */
+    @FunctionalInterface
+    interface MatchIdVisitor {
+        /**
+         * 匹配到一个词
+         *
+         * @param end    词的结束位置（不含）
+         * @param wordId 词编号，只在同一字典内有意义
+         */
+        void visit(int end, long wordId);
+    }
 }
@@ -0,0 +1,352 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.util.*;
+
+/**
+ * 字典增量补丁。记录从基础版本到目标版本之间的加词、删词与改词性操作。
+ * <p>可修改的字典通过 {@link Dictionary#applyDelta(DictionaryDelta)} 就地应用补丁，只修改受影响的词路径；
+ * 只读字典使用 {@link #merge(Dictionary)} 得到应用补丁后的全部词，再由各自的构建器一次性建立新字典；
+ * 按有序输入写出的构建器可使用 {@link #mergeSorted(Dictionary)} 流式归并。</p>
+ * <p>同一个词的多条记录按记录顺序生效。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class DictionaryDelta {
+    private final long baseVersion;
+    private final long version;
+    private final List<Record> records;
+
+    /**
+     * @param baseVersion 基础版本，只能应用到此版本的字典上
+     * @param version     应用后字典的版本
+     * @param records     操作记录
+     * @throws IllegalArgumentException 目标版本不大于基础版本
+     */
+    public DictionaryDelta(long baseVersion, long version, List<Record> records) {
+        if (version <= baseVersion) {
+            throw new IllegalArgumentException("补丁版本必须大于基础版本：" + baseVersion + " -> " + version);
+        }
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.records = Collections.unmodifiableList(new ArrayList<>(records));
+    }
+
+    /**
+     * 创建补丁构建器
+     *
+     * @param baseVersion 基础版本
+     * @param version     目标版本
+     * @return 构建器
+     */
+    public static Builder builder(long baseVersion, long version) {
+        return new Builder(baseVersion, version);
+    }
+
+    /**
+     * 基础版本
+     *
+     * @return 基础版本
+     */
+    public long getBaseVersion() {
+        return this.baseVersion;
+    }
+
+    /**
+     * 应用后字典的版本
+     *
+     * @return 目标版本
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * 操作记录
+     *
+     * @return 操作记录，不可修改
+     */
+    public List<Record> getRecords() {
+        return this.records;
+    }
+
+    /**
+     * 检查字典版本是否为此补丁的基础版本
+     *
+     * @param dictionary 字典
+     * @throws IllegalStateException 版本不匹配
+     */
+    public void checkBase(Dictionary<?> dictionary) {
+        if (dictionary.version() != this.baseVersion) {
+            throw new IllegalStateException("字典版本" + dictionary.version()
+                    + "与补丁基础版本" + this.baseVersion + "不匹配");
+        }
+    }
+
+    /**
+     * 使用 {@link Dictionary#add(String, String...)} 与 {@link Dictionary#remove(String)} 逐条重放记录，不检查、不修改版本。
+     * 供可修改字典实现 {@link Dictionary#applyDelta(DictionaryDelta)} 使用。
+     *
+     * @param dictionary 可修改的字典
+     */
+    public void replay(Dictionary<?> dictionary) {
+        for (Record record : this.records) {
+            switch (record.operation) {
+                case ADD:
+                    dictionary.add(record.word, record.speeches);
+                    break;
+                case REMOVE:
+                    dictionary.remove(record.word);
+                    break;
+                case UPDATE_SPEECHES:
+                    if (dictionary.contains(record.word)) {
+                        dictionary.add(record.word, record.speeches);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 计算基础字典应用补丁后的全部词，不修改基础字典。供只读字典批量重建使用。
+     *
+     * @param base 基础字典，版本必须与补丁基础版本相同
+     * @return 按字面值升序排列的词
+     * @throws IllegalStateException 版本不匹配
+     */
+    public List<Word> merge(Dictionary<?> base) {
+        this.checkBase(base);
+        TreeMap<String, String[]> words = new TreeMap<>();
+        for (WordPath path : base) {
+            if (path.isFinishWord()) {
+                Set<String> speeches = path.getWord().getSpeeches();
+                words.put(path.getWord().getValue(), speeches.toArray(new String[speeches.size()]));
+            }
+        }
+        for (Record record : this.records) {
+            switch (record.operation) {
+                case ADD:
+                    words.put(record.word, record.speeches);
+                    break;
+                case REMOVE:
+                    words.remove(record.word);
+                    break;
+                case UPDATE_SPEECHES:
+                    words.replace(record.word, record.speeches);
+                    break;
+            }
+        }
+        List<Word> merged = new ArrayList<>(words.size());
+        words.forEach((value, speeches) -> merged.add(new Word(value, speeches)));
+        return merged;
+    }
+
+    /**
+     * 边遍历基础字典边应用补丁，逐个给出应用补丁后的词，不修改基础字典，也不在内存中保留全部词。
+     * 补丁记录按词排序后与基础字典的词归并，适合将大字典写出为新的有序文件。
+     * <p>基础字典遍历时必须按字典序给出词，如同一节点的子节点按分叉值升序访问的 {@link AbstractReadOnlyDictionary}；
+     * 否则应使用 {@link #merge(Dictionary)}。</p>
+     *
+     * @param base 基础字典，版本必须与补丁基础版本相同
+     * @return 按字面值升序给出词的迭代器，发现基础字典的词未按字典序给出时抛出 {@link IllegalStateException}
+     * @throws IllegalStateException 版本不匹配
+     */
+    public Iterator<Word> mergeSorted(Dictionary<?> base) {
+        this.checkBase(base);
+        TreeMap<String, List<Record>> changes = new TreeMap<>();
+        for (Record record : this.records) {
+            changes.computeIfAbsent(record.word, k -> new ArrayList<>(1)).add(record);
+        }
+        return new MergeItr(base.iterator(), changes.entrySet().iterator());
+    }
+
+    /**
+     * 按记录顺序将同一个词的记录应用到词上
+     *
+     * @param value    词
+     * @param speeches 基础字典中的词性，词不在基础字典中时为 {@code null}
+     * @param records  此词的记录
+     * @return 应用后的词，词被删除或不存在时返回 {@code null}
+     */
+    private static Word apply(String value, String[] speeches, List<Record> records) {
+        for (Record record : records) {
+            switch (record.operation) {
+                case ADD:
+                    speeches = record.speeches;
+                    break;
+                case REMOVE:
+                    speeches = null;
+                    break;
+                case UPDATE_SPEECHES:
+                    if (speeches != null) {
+                        speeches = record.speeches;
+                    }
+                    break;
+            }
+        }
+        return speeches == null ? null : new Word(value, speeches);
+    }
+
+    /**
+     * 基础字典的词与排序后的补丁记录的归并迭代器
+     */
+    private static final class MergeItr implements Iterator<Word> {
+        private final Iterator<? extends WordPath> base;
+        private final Iterator<Map.Entry<String, List<Record>>> changes;
+        private Word baseWord;
+        private Map.Entry<String, List<Record>> change;
+        private String previous;
+        private Word next;
+
+        MergeItr(Iterator<? extends WordPath> base, Iterator<Map.Entry<String, List<Record>>> changes) {
+            this.base = base;
+            this.changes = changes;
+            this.advanceBase();
+            this.change = changes.hasNext() ? changes.next() : null;
+        }
+
+        private void advanceBase() {
+            this.baseWord = null;
+            while (this.base.hasNext()) {
+                WordPath path = this.base.next();
+                if (path.isFinishWord()) {
+                    Word word = path.getWord();
+                    if (this.previous != null && word.getValue().compareTo(this.previous) <= 0) {
+                        throw new IllegalStateException("基础字典未按字典序遍历：" + this.previous + " -> " + word.getValue());
+                    }
+                    this.previous = word.getValue();
+                    this.baseWord = word;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && (this.baseWord != null || this.change != null)) {
+                int order = this.baseWord == null ? 1
+                        : this.change == null ? -1 : this.baseWord.getValue().compareTo(this.change.getKey());
+                if (order < 0) {
+                    this.next = this.baseWord;
+                    this.advanceBase();
+                } else {
+                    String[] speeches = null;
+                    if (order == 0) {
+                        Set<String> baseSpeeches = this.baseWord.getSpeeches();
+                        speeches = baseSpeeches.toArray(new String[baseSpeeches.size()]);
+                        this.advanceBase();
+                    }
+                    this.next = apply(this.change.getKey(), speeches, this.change.getValue());
+                    this.change = this.changes.hasNext() ? this.changes.next() : null;
+                }
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public Word next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Word word = this.next;
+            this.next = null;
+            return word;
+        }
+    }
+
+    /**
+     * 补丁操作
+     */
+    public enum Operation {
+        /**
+         * 加入词，词已存在时替换其词性
+         */
+        ADD,
+        /**
+         * 删除词
+         */
+        REMOVE,
+        /**
+         * 替换已有词的词性，词不存在时忽略
+         */
+        UPDATE_SPEECHES
+    }
+
+    /**
+     * 补丁中的一条操作记录
+     *
+     * @author liufl
+     * @since 1.0.0
+     */
+    public static final class Record {
+        private static final String[] NO_SPEECHES = new String[0];
+        private final Operation operation;
+        private final String word;
+        private final String[] speeches;
+
+        /**
+         * @param operation 操作
+         * @param word      词
+         * @param speeches  词性，删除操作忽略
+         */
+        public Record(Operation operation, String word, String... speeches) {
+            if (word == null || word.isEmpty()) {
+                throw new IllegalArgumentException("补丁记录的词不能为空");
+            }
+            this.operation = Objects.requireNonNull(operation);
+            this.word = word;
+            this.speeches = operation == Operation.REMOVE || speeches == null ? NO_SPEECHES : speeches.clone();
+        }
+
+        public Operation getOperation() {
+            return this.operation;
+        }
+
+        public String getWord() {
+            return this.word;
+        }
+
+        /**
+         * @return 词性的副本
+         */
+        public String[] getSpeeches() {
+            return this.speeches.clone();
+        }
+    }
+
+    /**
+     * 补丁构建器
+     *
+     * @author liufl
+     * @since 1.0.0
+     */
+    public static final class Builder {
+        private final long baseVersion;
+        private final long version;
+        private final List<Record> records = new ArrayList<>();
+
+        private Builder(long baseVersion, long version) {
+            this.baseVersion = baseVersion;
+            this.version = version;
+        }
+
+        public Builder add(String word, String... speeches) {
+            this.records.add(new Record(Operation.ADD, word, speeches));
+            return this;
+        }
+
+        public Builder remove(String word) {
+            this.records.add(new Record(Operation.REMOVE, word));
+            return this;
+        }
+
+        public Builder updateSpeeches(String word, String... speeches) {
+            this.records.add(new Record(Operation.UPDATE_SPEECHES, word, speeches));
+            return this;
+        }
+
+        public DictionaryDelta build() {
+            return new DictionaryDelta(this.baseVersion, this.version, this.records);
+        }
+    }
+}
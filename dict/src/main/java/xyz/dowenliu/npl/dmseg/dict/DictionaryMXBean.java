@@ -0,0 +1,65 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * 字典的JMX管理接口，通过 {@link DictionaryMonitor#register(Dictionary, String)} 注册。
+ * <p>形状统计需要遍历整本字典，在字典的词数或版本变化前复用上次的统计，{@link #refresh()} 强制重新统计。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public interface DictionaryMXBean {
+    /**
+     * @return 字典实现类名
+     */
+    String getImplementation();
+
+    /**
+     * @return 字典书名标记
+     */
+    String getBookTag();
+
+    /**
+     * @return 字典版本
+     */
+    long getVersion();
+
+    /**
+     * @return 词数
+     */
+    int getSize();
+
+    /**
+     * @return 节点数，不含根节点
+     */
+    long getNodeCount();
+
+    /**
+     * @return 最大深度
+     */
+    int getMaxDepth();
+
+    /**
+     * @return 词的平均深度
+     */
+    double getAverageDepth();
+
+    /**
+     * @return 分叉数直方图
+     */
+    long[] getFanOutHistogram();
+
+    /**
+     * @return 出现过的不同字数
+     */
+    int getDistinctCharCount();
+
+    /**
+     * @return 估算的堆内存占用字节数，无法估算为 -1
+     */
+    long getEstimatedBytes();
+
+    /**
+     * 丢弃缓存的统计，下次读取时重新统计
+     */
+    void refresh();
+}
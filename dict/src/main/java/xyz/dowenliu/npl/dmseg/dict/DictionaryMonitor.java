@@ -0,0 +1,146 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+
+/**
+ * {@link DictionaryMXBean} 的实现，以 {@code xyz.dowenliu.npl.dmseg:type=Dictionary,name=...} 注册到平台MBeanServer。
+ * <p>此类是线程安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class DictionaryMonitor implements DictionaryMXBean {
+    /**
+     * ObjectName的域
+     */
+    public static final String DOMAIN = "xyz.dowenliu.npl.dmseg";
+    private final Dictionary<?> dictionary;
+    private DictionaryStats stats;
+    private int statsSize;
+    private long statsVersion;
+
+    /**
+     * 创建字典监控
+     *
+     * @param dictionary 字典
+     */
+    public DictionaryMonitor(Dictionary<?> dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 为字典创建监控并注册到平台MBeanServer
+     *
+     * @param dictionary 字典
+     * @param name       名称，同一JVM内不能重复
+     * @return 注册的ObjectName，用于 {@link #unregister(ObjectName)}
+     * @throws IllegalStateException 名称已被注册或注册失败
+     */
+    public static ObjectName register(Dictionary<?> dictionary, String name) {
+        try {
+            ObjectName objectName = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new DictionaryMonitor(dictionary), objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("注册字典监控失败：" + name, e);
+        }
+    }
+
+    /**
+     * 从平台MBeanServer注销字典监控，未注册时忽略
+     *
+     * @param objectName {@link #register(Dictionary, String)} 返回的ObjectName
+     */
+    public static void unregister(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException ignored) {
+            // 未注册
+        } catch (MBeanRegistrationException e) {
+            throw new IllegalStateException("注销字典监控失败：" + objectName, e);
+        }
+    }
+
+    /**
+     * 字典监控的ObjectName
+     *
+     * @param name 名称
+     * @return ObjectName
+     * @throws MalformedObjectNameException 名称不合法
+     */
+    public static ObjectName objectName(String name) throws MalformedObjectNameException {
+        return new ObjectName(DOMAIN + ":type=Dictionary,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * 当前统计，词数与版本都未变化时复用上次的统计
+     *
+     * @return 统计
+     */
+    public synchronized DictionaryStats stats() {
+        int size = this.dictionary.size();
+        long version = this.dictionary.version();
+        if (this.stats == null || this.statsSize != size || this.statsVersion != version) {
+            this.stats = this.dictionary.stats();
+            this.statsSize = size;
+            this.statsVersion = version;
+        }
+        return this.stats;
+    }
+
+    @Override
+    public String getImplementation() {
+        return this.dictionary.getClass().getName();
+    }
+
+    @Override
+    public String getBookTag() {
+        return this.dictionary.dictionaryBookTag();
+    }
+
+    @Override
+    public long getVersion() {
+        return this.dictionary.version();
+    }
+
+    @Override
+    public int getSize() {
+        return this.dictionary.size();
+    }
+
+    @Override
+    public long getNodeCount() {
+        return this.stats().getNodeCount();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return this.stats().getMaxDepth();
+    }
+
+    @Override
+    public double getAverageDepth() {
+        return this.stats().getAverageDepth();
+    }
+
+    @Override
+    public long[] getFanOutHistogram() {
+        return this.stats().getFanOutHistogram();
+    }
+
+    @Override
+    public int getDistinctCharCount() {
+        return this.stats().getDistinctCharCount();
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return this.stats().getEstimatedBytes();
+    }
+
+    @Override
+    public synchronized void refresh() {
+        this.stats = null;
+    }
+}
@@ -0,0 +1,284 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.util.*;
+
+/**
+ * 字典的规模与形状统计，用于估算堆内存与选择字典实现。
+ * <p>节点数不含根节点；分叉数直方图包含根节点。占用字节数是按64位JVM、开启压缩指针（对象头12字节、引用4字节、8字节对齐）
+ * 估算的堆内存，只读映射文件等堆外内存不计入；实现无法估算时为 -1。</p>
+ * <p>统计需要遍历整本字典，结果是调用时的快照。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class DictionaryStats {
+    /**
+     * 对象头字节数
+     */
+    public static final int OBJECT_HEADER = 12;
+    /**
+     * 数组头字节数
+     */
+    public static final int ARRAY_HEADER = 16;
+    /**
+     * 引用字节数
+     */
+    public static final int REFERENCE = 4;
+
+    private final String implementation;
+    private final long nodeCount;
+    private final long wordCount;
+    private final int maxDepth;
+    private final double averageDepth;
+    private final long[] fanOutHistogram;
+    private final int distinctCharCount;
+    private final long estimatedBytes;
+
+    private DictionaryStats(String implementation, long nodeCount, long wordCount, int maxDepth, double averageDepth,
+                            long[] fanOutHistogram, int distinctCharCount, long estimatedBytes) {
+        this.implementation = implementation;
+        this.nodeCount = nodeCount;
+        this.wordCount = wordCount;
+        this.maxDepth = maxDepth;
+        this.averageDepth = averageDepth;
+        this.fanOutHistogram = fanOutHistogram;
+        this.distinctCharCount = distinctCharCount;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * 通过 {@link Dictionary#iterator()} 与 {@link WordPath#getBranches()} 统计任意字典，不估算占用字节数。
+     * 供 {@link Dictionary#stats()} 的默认实现使用。
+     *
+     * @param dictionary 字典
+     * @return 统计
+     */
+    public static DictionaryStats of(Dictionary<?> dictionary) {
+        Collector collector = new Collector();
+        collector.root(dictionary.getBranches().size());
+        for (WordPath path : dictionary) {
+            int depth = 0;
+            for (WordPath p = path; p != null; p = p.getParentPath()) {
+                depth++;
+            }
+            collector.node(path.getFork(), depth, path.getBranches().size(), path.isFinishWord());
+        }
+        return collector.build(dictionary, -1L);
+    }
+
+    /**
+     * 字典实现类名
+     *
+     * @return 类名
+     */
+    public String getImplementation() {
+        return this.implementation;
+    }
+
+    /**
+     * 节点数，不含根节点。共享后缀的实现按展开后的字典树计数。
+     *
+     * @return 节点数
+     */
+    public long getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * 词数
+     *
+     * @return 词数
+     */
+    public long getWordCount() {
+        return this.wordCount;
+    }
+
+    /**
+     * 最大深度，即最长路径的字数
+     *
+     * @return 最大深度，空字典为 0
+     */
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * 词的平均深度，即平均词长
+     *
+     * @return 平均深度，空字典为 0
+     */
+    public double getAverageDepth() {
+        return this.averageDepth;
+    }
+
+    /**
+     * 分叉数直方图，含根节点
+     *
+     * @return 第i个元素为有i个子节点的节点数，长度为最大分叉数加一，返回副本
+     */
+    public long[] getFanOutHistogram() {
+        return this.fanOutHistogram.clone();
+    }
+
+    /**
+     * 出现过的不同字数
+     *
+     * @return 不同字数
+     */
+    public int getDistinctCharCount() {
+        return this.distinctCharCount;
+    }
+
+    /**
+     * 估算的堆内存占用
+     *
+     * @return 字节数，无法估算为 -1
+     */
+    public long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return this.implementation + "{nodes=" + this.nodeCount + ", words=" + this.wordCount
+                + ", maxDepth=" + this.maxDepth + ", averageDepth=" + String.format("%.2f", this.averageDepth)
+                + ", maxFanOut=" + (this.fanOutHistogram.length - 1) + ", distinctChars=" + this.distinctCharCount
+                + ", estimatedBytes=" + this.estimatedBytes + '}';
+    }
+
+    /**
+     * 估算对象占用的字节数
+     *
+     * @param fieldBytes 各实例字段字节数之和，含父类字段
+     * @return 按8字节对齐的对象字节数
+     */
+    public static long objectBytes(int fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    /**
+     * 估算数组占用的字节数
+     *
+     * @param elementBytes 元素字节数，引用为 {@value #REFERENCE}
+     * @param length       数组长度
+     * @return 按8字节对齐的数组字节数
+     */
+    public static long arrayBytes(int elementBytes, long length) {
+        return align(ARRAY_HEADER + elementBytes * length);
+    }
+
+    /**
+     * 估算字符串占用的字节数，字符都不超过 0xFF 时按紧凑字符串计算
+     *
+     * @param value 字符串
+     * @return 字符串对象与其字节数组的字节数
+     */
+    public static long stringBytes(CharSequence value) {
+        int coder = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                coder = 2;
+                break;
+            }
+        }
+        return objectBytes(REFERENCE + 4 + 1 + 1) + arrayBytes(coder, value.length());
+    }
+
+    /**
+     * 估算词对象占用的字节数，含词的字符串与额外的词性位图
+     *
+     * @param word 词
+     * @return 字节数
+     */
+    public static long wordBytes(Word word) {
+        long bytes = objectBytes(REFERENCE + 8 + REFERENCE + REFERENCE) + stringBytes(word.getValue());
+        long[] more = word.moreSpeechMask;
+        return more == null ? bytes : bytes + arrayBytes(8, more.length);
+    }
+
+    /**
+     * 估算去重后的词性组合表占用的字节数
+     *
+     * @param speechTable 词性组合表
+     * @return 字节数
+     */
+    public static long speechTableBytes(String[][] speechTable) {
+        long bytes = arrayBytes(REFERENCE, speechTable.length);
+        for (String[] speeches : speechTable) {
+            bytes += arrayBytes(REFERENCE, speeches.length);
+            for (String speech : speeches) {
+                bytes += stringBytes(speech);
+            }
+        }
+        return bytes;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * 统计收集器。实现类遍历自己的节点结构时逐个报告节点，可以避免创建词路径视图。
+     *
+     * @author liufl
+     * @since 1.0.0
+     */
+    public static final class Collector {
+        private long nodeCount;
+        private long wordCount;
+        private long wordDepths;
+        private int maxDepth;
+        private long[] fanOuts = new long[16];
+        private int maxFanOut;
+        private final BitSet chars = new BitSet(Character.MAX_VALUE + 1);
+
+        /**
+         * 报告根节点
+         *
+         * @param fanOut 根节点的子节点数
+         */
+        public void root(int fanOut) {
+            this.fanOut(fanOut);
+        }
+
+        /**
+         * 报告一个非根节点
+         *
+         * @param fork   分叉值
+         * @param depth  深度，根节点的子节点为 1
+         * @param fanOut 子节点数
+         * @param word   是否词边界
+         */
+        public void node(char fork, int depth, int fanOut, boolean word) {
+            this.nodeCount++;
+            this.chars.set(fork);
+            this.maxDepth = Math.max(this.maxDepth, depth);
+            if (word) {
+                this.wordCount++;
+                this.wordDepths += depth;
+            }
+            this.fanOut(fanOut);
+        }
+
+        private void fanOut(int fanOut) {
+            if (fanOut >= this.fanOuts.length) {
+                this.fanOuts = Arrays.copyOf(this.fanOuts, Math.max(fanOut + 1, this.fanOuts.length * 2));
+            }
+            this.fanOuts[fanOut]++;
+            this.maxFanOut = Math.max(this.maxFanOut, fanOut);
+        }
+
+        /**
+         * 生成统计
+         *
+         * @param dictionary     被统计的字典
+         * @param estimatedBytes 估算的堆内存字节数，无法估算为 -1
+         * @return 统计
+         */
+        public DictionaryStats build(Dictionary<?> dictionary, long estimatedBytes) {
+            return new DictionaryStats(dictionary.getClass().getName(), this.nodeCount, this.wordCount, this.maxDepth,
+                    this.wordCount == 0 ? 0 : (double) this.wordDepths / this.wordCount,
+                    Arrays.copyOf(this.fanOuts, this.maxFanOut + 1), this.chars.cardinality(), estimatedBytes);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * 首字集合，以覆盖全部 {@code char} 取值的65536位位图（8KB）记录字典中词的首字。
+ * <p>文本中大多数位置（标点、ASCII、生僻字）不是任何词的开头，分词时先查此位图即可跳过这些位置，
+ * 不必进入字典树查找。位图常驻CPU缓存，查询只需一次数组访问与一次位运算。</p>
+ * <p>此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class FirstCharSet {
+    private final long[] bits = new long[(Character.MAX_VALUE + 1) >>> 6];
+
+    /**
+     * 是否包含字
+     *
+     * @param c 字
+     * @return 包含 {@code true}，否则 {@code false}
+     */
+    public boolean contains(char c) {
+        return (this.bits[c >>> 6] & 1L << c) != 0;
+    }
+
+    /**
+     * 加入字
+     *
+     * @param c 字
+     */
+    public void add(char c) {
+        this.bits[c >>> 6] |= 1L << c;
+    }
+
+    /**
+     * 删除字
+     *
+     * @param c 字
+     */
+    public void remove(char c) {
+        this.bits[c >>> 6] &= ~(1L << c);
+    }
+
+    /**
+     * 字数
+     *
+     * @return 集合中的字数
+     */
+    public int size() {
+        int size = 0;
+        for (long word : this.bits) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * 估算占用的字节数
+     *
+     * @return 字节数
+     */
+    public static long bytes() {
+        return DictionaryStats.objectBytes(DictionaryStats.REFERENCE)
+                + DictionaryStats.arrayBytes(8, (Character.MAX_VALUE + 1) >>> 6);
+    }
+}
@@ -0,0 +1,34 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * 带词频的词，由记录了词频的词记录集读出。
+ * <p>字典只保存词与词性，加入字典后词频不再保留；需要词频的应用（如按词频排序的补全、构建时的词频过滤）
+ * 应在加载时从词记录集读取。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class FrequencyWord extends Word {
+    private final long frequency;
+
+    /**
+     * 构造一个词
+     *
+     * @param value     词的字面值
+     * @param frequency 词频
+     * @param speeches  词性
+     */
+    public FrequencyWord(String value, long frequency, String... speeches) {
+        super(value, speeches);
+        this.frequency = frequency;
+    }
+
+    /**
+     * 词频
+     *
+     * @return 词频，记录中没有词频时为 0
+     */
+    public long getFrequency() {
+        return this.frequency;
+    }
+}
@@ -0,0 +1,543 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * 叠加字典。在共享的基础字典上叠加一层小的可修改增量，增量中记录加入的词与删除标记（墓碑），
+ * 基础字典本身不被复制也不被修改，内存占用只与增量的大小有关。
+ * <p>适合多租户的场景：各租户只有几百个私有词，共用同一本大字典作为基础，每个租户一个叠加字典。
+ * 加入的词覆盖基础字典中同一词的词性；删除基础字典中的词时在增量中记下墓碑，匹配时跳过。</p>
+ * <p>齐头匹配时两层在同一遍中完成：基础字典是 {@link AbstractReadOnlyDictionary} 时按字同步转移两层的状态；
+ * 其他字典只调用一次基础字典的匹配，增量随其回调同步前进。文本中多数位置的首字不在增量中，此时直接交给基础字典匹配，
+ * 没有额外开销。</p>
+ * <p>增量以不可变节点组成，修改时复制受影响的路径后整体替换，因此匹配、遍历可以与修改同时进行，
+ * 看到的是修改前或修改后的完整增量；修改方法之间互斥。基础字典在叠加期间不能修改。</p>
+ * <p>增量中加入的词的书名标记为 {@link #dictionaryBookTag()}，默认与基础字典相同，可以用 {@link #setBookTag(String)}
+ * 改为租户自己的标记；其他词的书名标记由基础字典给出。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class OverlayDictionary implements Dictionary<OverlayDictionary.OverlayWordPath> {
+    private final Dictionary<?> base;
+    private volatile Node root = Node.EMPTY;
+    private volatile int size;
+    private volatile int deltaMaxDepth = 0;
+    private int added = 0;
+    private int removed = 0;
+    private String bookTag;
+    private long version = 0L;
+
+    /**
+     * @param base 基础字典，叠加期间不能修改
+     */
+    public OverlayDictionary(Dictionary<?> base) {
+        this.base = base;
+        this.size = base.size();
+        this.bookTag = base.dictionaryBookTag();
+    }
+
+    /**
+     * 基础字典
+     *
+     * @return 基础字典
+     */
+    public Dictionary<?> getBase() {
+        return this.base;
+    }
+
+    /**
+     * 增量中加入的、基础字典中没有的词数
+     *
+     * @return 词数
+     */
+    public synchronized int addedCount() {
+        return this.added;
+    }
+
+    /**
+     * 增量中删除的基础字典中的词数，即墓碑数
+     *
+     * @return 词数
+     */
+    public synchronized int removedCount() {
+        return this.removed;
+    }
+
+    /**
+     * 设置增量中加入的词的书名标记
+     *
+     * @param bookTag 字典书名标记
+     */
+    public void setBookTag(String bookTag) {
+        this.bookTag = bookTag;
+    }
+
+    @Override
+    public String dictionaryBookTag() {
+        return this.bookTag;
+    }
+
+    /**
+     * 增量中加入的词为此字典的书名标记，其他词由基础字典给出
+     */
+    @Override
+    public Collection<String> bookTagsOf(Word word) {
+        if (word instanceof DeltaWord) {
+            return Collections.singleton(this.bookTag);
+        }
+        return this.base.bookTagsOf(word);
+    }
+
+    /**
+     * 设置字典版本
+     *
+     * @param version 字典版本
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * 逐条调用 {@link #add(String, String...)} 与 {@link #remove(String)}，只修改增量
+     */
+    @Override
+    public synchronized void applyDelta(DictionaryDelta delta) {
+        delta.checkBase(this);
+        delta.replay(this);
+        this.version = delta.getVersion();
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 基础字典与增量中加入的词的最大深度，删除词后不减小
+     */
+    @Override
+    public int maxDepth() {
+        return Math.max(this.base.maxDepth(), this.deltaMaxDepth);
+    }
+
+    private Node find(String word) {
+        Node node = this.root;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = node.child(word.charAt(i));
+        }
+        return node;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        if (word == null || word.isEmpty()) {
+            return false;
+        }
+        Node node = this.find(word);
+        if (node != null && node.word != null) {
+            return true;
+        }
+        if (node != null && node.tombstone) {
+            return false;
+        }
+        return this.base.contains(word);
+    }
+
+    /**
+     * 在增量中加入词。词已在基础字典中时覆盖其词性，已被删除时恢复。
+     */
+    @Override
+    public synchronized boolean add(String word, String... speeches) {
+        if (word == null || word.isEmpty()) {
+            return true;
+        }
+        Node node = this.find(word);
+        boolean inBase = this.base.contains(word);
+        boolean visible = node != null && node.word != null || inBase && (node == null || !node.tombstone);
+        this.root = Node.put(this.root, word, 0, new DeltaWord(word, speeches), false);
+        if (word.length() > this.deltaMaxDepth) {
+            this.deltaMaxDepth = word.length();
+        }
+        if (!visible) {
+            this.size++;
+        }
+        if (inBase) {
+            if (node != null && node.tombstone) {
+                this.removed--;
+            }
+        } else if (node == null || node.word == null) {
+            this.added++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean add(Word word) {
+        String[] speeches = new String[word.getSpeeches().size()];
+        return this.add(word.getValue(), word.getSpeeches().toArray(speeches));
+    }
+
+    /**
+     * 删除词。增量中加入的词直接移除，基础字典中的词记下墓碑。
+     */
+    @Override
+    public synchronized boolean remove(String word) {
+        if (word == null || word.isEmpty()) {
+            return false;
+        }
+        Node node = this.find(word);
+        boolean inBase = this.base.contains(word);
+        boolean visible = node != null && node.word != null || inBase && (node == null || !node.tombstone);
+        if (!visible) {
+            return false;
+        }
+        this.root = Node.put(this.root, word, 0, null, inBase);
+        this.size--;
+        if (inBase) {
+            this.removed++;
+        } else {
+            this.added--;
+        }
+        return true;
+    }
+
+    @Override
+    public Collection<WordPath> withPrefix(WordPath<OverlayWordPath> path) {
+        if (path == null) {
+            return null;
+        }
+        OverlayWordPath matchPath = null;
+        Map<Character, OverlayWordPath> branches = this.getBranches();
+        for (Object expectPath : path.getPathQueue()) {
+            matchPath = branches.get(((WordPath) expectPath).getFork());
+            if (matchPath == null) {
+                return null;
+            }
+            branches = matchPath.getBranches();
+        }
+        if (matchPath == null) {
+            return null;
+        }
+        return new HashSet<>(branches.values());
+    }
+
+    @Override
+    public List<Word> dictMatch(CharBuffer charBuffer) {
+        List<Word> words = new LinkedList<>();
+        this.dictMatch(charBuffer, 0, (end, word) -> words.add(word));
+        return words;
+    }
+
+    @Override
+    public void dictMatch(CharSequence text, int offset, MatchVisitor visitor) {
+        Node _root = this.root;
+        if (offset >= text.length() || _root.child(text.charAt(offset)) == null) {
+            this.base.dictMatch(text, offset, visitor);
+            return;
+        }
+        DeltaCursor cursor = new DeltaCursor(_root, text, offset, visitor);
+        this.base.dictMatch(text, offset, cursor);
+        cursor.finish();
+    }
+
+    @Override
+    public int dictMatch(CharSequence text, int offset, int[] ends) {
+        Node node = this.root;
+        if (offset >= text.length() || node.child(text.charAt(offset)) == null) {
+            return this.base.dictMatch(text, offset, ends);
+        }
+        if (this.base instanceof AbstractReadOnlyDictionary) {
+            AbstractReadOnlyDictionary readOnly = (AbstractReadOnlyDictionary) this.base;
+            int count = 0;
+            long state = readOnly.rootState();
+            for (int i = offset; i < text.length() && count < ends.length; i++) {
+                char c = text.charAt(i);
+                state = state < 0 ? state : readOnly.next(state, c);
+                node = node == null ? null : node.child(c);
+                if (state < 0 && node == null) {
+                    break;
+                }
+                if (node != null && node.word != null
+                        || state >= 0 && readOnly.isWord(state) && (node == null || !node.tombstone)) {
+                    ends[count++] = i + 1;
+                }
+            }
+            return count;
+        }
+        return this.mergeEnds(text, offset, text.length(), ends);
+    }
+
+    @Override
+    public int dictMatch(char[] text, int offset, int limit, int[] ends) {
+        Node node = this.root;
+        if (offset >= limit || node.child(text[offset]) == null) {
+            return this.base.dictMatch(text, offset, limit, ends);
+        }
+        if (this.base instanceof AbstractReadOnlyDictionary) {
+            AbstractReadOnlyDictionary readOnly = (AbstractReadOnlyDictionary) this.base;
+            int count = 0;
+            long state = readOnly.rootState();
+            for (int i = offset; i < limit && count < ends.length; i++) {
+                char c = text[i];
+                state = state < 0 ? state : readOnly.next(state, c);
+                node = node == null ? null : node.child(c);
+                if (state < 0 && node == null) {
+                    break;
+                }
+                if (node != null && node.word != null
+                        || state >= 0 && readOnly.isWord(state) && (node == null || !node.tombstone)) {
+                    ends[count++] = i + 1;
+                }
+            }
+            return count;
+        }
+        return this.mergeEnds(CharBuffer.wrap(text, 0, limit), offset, limit, ends);
+    }
+
+    /**
+     * 合并基础字典的结束位置与增量。墓碑会去掉基础字典的结果，因此向基础字典多取墓碑数个结果。
+     */
+    private int mergeEnds(CharSequence text, int offset, int limit, int[] ends) {
+        Node _root = this.root;
+        int tombstones = 0;
+        Node node = _root;
+        for (int i = offset; i < limit && node != null; i++) {
+            node = node.child(text.charAt(i));
+            if (node != null && node.tombstone) {
+                tombstones++;
+            }
+        }
+        int[] baseEnds = new int[ends.length + tombstones];
+        int baseCount = this.base.dictMatch(text, offset, baseEnds);
+        int count = 0;
+        int b = 0;
+        node = _root;
+        for (int i = offset; i < limit && node != null && count < ends.length; i++) {
+            node = node.child(text.charAt(i));
+            int end = i + 1;
+            while (b < baseCount && baseEnds[b] < end && count < ends.length) {
+                ends[count++] = baseEnds[b++];
+            }
+            boolean inBase = b < baseCount && baseEnds[b] == end;
+            if (inBase) {
+                b++;
+            }
+            if (count < ends.length && (node != null && node.word != null
+                    || inBase && (node == null || !node.tombstone))) {
+                ends[count++] = end;
+            }
+        }
+        while (b < baseCount && count < ends.length) {
+            ends[count++] = baseEnds[b++];
+        }
+        return count;
+    }
+
+    /**
+     * 首字在基础字典中或在增量中
+     */
+    @Override
+    public boolean mayStartWith(char c) {
+        return this.base.mayStartWith(c) || this.root.child(c) != null;
+    }
+
+    @Override
+    public Map<Character, OverlayWordPath> getBranches() {
+        return this.branchesOf(null, this.base.getBranches(), this.root);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Character, OverlayWordPath> branchesOf(OverlayWordPath parent, Map<Character, ? extends WordPath> base,
+                                                       Node node) {
+        Map<Character, OverlayWordPath> branches = new TreeMap<>();
+        for (Map.Entry<Character, ? extends WordPath> entry : base.entrySet()) {
+            char fork = entry.getKey();
+            branches.put(fork, new OverlayWordPath(parent, fork, entry.getValue(),
+                    node == null ? null : node.child(fork)));
+        }
+        if (node != null) {
+            for (int i = 0; i < node.forks.length; i++) {
+                if (!branches.containsKey(node.forks[i])) {
+                    branches.put(node.forks[i], new OverlayWordPath(parent, node.forks[i], null, node.children[i]));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(branches);
+    }
+
+    @Override
+    public Iterator<OverlayWordPath> iterator() {
+        return Spliterators.iterator(this.spliterator());
+    }
+
+    /**
+     * 增量中加入的词
+     */
+    private static final class DeltaWord extends Word {
+        DeltaWord(String value, String... speeches) {
+            super(value, speeches);
+        }
+    }
+
+    /**
+     * 增量的不可变节点，分叉值按升序排列
+     */
+    private static final class Node {
+        static final Node EMPTY = new Node(new char[0], new Node[0], null, false);
+
+        final char[] forks;
+        final Node[] children;
+        /**
+         * 加入的词，{@code null} 表示此节点没有加入词
+         */
+        final Word word;
+        /**
+         * 是否删除了基础字典中的词
+         */
+        final boolean tombstone;
+
+        Node(char[] forks, Node[] children, Word word, boolean tombstone) {
+            this.forks = forks;
+            this.children = children;
+            this.word = word;
+            this.tombstone = tombstone;
+        }
+
+        Node child(char fork) {
+            int i = Arrays.binarySearch(this.forks, fork);
+            return i < 0 ? null : this.children[i];
+        }
+
+        boolean isEmpty() {
+            return this.forks.length == 0 && this.word == null && !this.tombstone;
+        }
+
+        /**
+         * 复制路径，设置词的标记，去掉不再有内容的节点
+         */
+        static Node put(Node node, String word, int depth, Word mark, boolean tombstone) {
+            if (depth == word.length()) {
+                return new Node(node.forks, node.children, mark, tombstone);
+            }
+            char fork = word.charAt(depth);
+            int i = Arrays.binarySearch(node.forks, fork);
+            Node child = put(i < 0 ? EMPTY : node.children[i], word, depth + 1, mark, tombstone);
+            char[] forks;
+            Node[] children;
+            if (i >= 0 && child.isEmpty()) {
+                forks = new char[node.forks.length - 1];
+                children = new Node[forks.length];
+                System.arraycopy(node.forks, 0, forks, 0, i);
+                System.arraycopy(node.children, 0, children, 0, i);
+                System.arraycopy(node.forks, i + 1, forks, i, forks.length - i);
+                System.arraycopy(node.children, i + 1, children, i, forks.length - i);
+            } else if (i >= 0) {
+                forks = node.forks;
+                children = node.children.clone();
+                children[i] = child;
+            } else if (child.isEmpty()) {
+                return node;
+            } else {
+                int at = -i - 1;
+                forks = new char[node.forks.length + 1];
+                children = new Node[forks.length];
+                System.arraycopy(node.forks, 0, forks, 0, at);
+                System.arraycopy(node.children, 0, children, 0, at);
+                forks[at] = fork;
+                children[at] = child;
+                System.arraycopy(node.forks, at, forks, at + 1, node.forks.length - at);
+                System.arraycopy(node.children, at, children, at + 1, node.forks.length - at);
+            }
+            return new Node(forks, children, node.word, node.tombstone);
+        }
+    }
+
+    /**
+     * 随基础字典的匹配回调同步沿增量前进，把两层的结果按从短到长的顺序合并
+     */
+    private static final class DeltaCursor implements MatchVisitor {
+        private final CharSequence text;
+        private final MatchVisitor visitor;
+        private Node node;
+        /**
+         * 增量已走到的位置（不含）
+         */
+        private int position;
+
+        DeltaCursor(Node root, CharSequence text, int offset, MatchVisitor visitor) {
+            this.node = root;
+            this.text = text;
+            this.position = offset;
+            this.visitor = visitor;
+        }
+
+        /**
+         * 走到end，回调途中新经过的、结束位置在end之前的增量词
+         */
+        private void advanceTo(int end) {
+            while (this.node != null && this.position < end && this.position < this.text.length()) {
+                this.node = this.node.child(this.text.charAt(this.position++));
+                if (this.node != null && this.node.word != null && this.position < end) {
+                    this.visitor.visit(this.position, this.node.word);
+                }
+            }
+        }
+
+        @Override
+        public void visit(int end, Word word) {
+            this.advanceTo(end);
+            if (this.node != null && this.position == end) {
+                if (this.node.word != null) {
+                    this.visitor.visit(end, this.node.word);
+                    return;
+                }
+                if (this.node.tombstone) {
+                    return;
+                }
+            }
+            this.visitor.visit(end, word);
+        }
+
+        /**
+         * 回调基础字典的结果之后剩下的增量词
+         */
+        void finish() {
+            this.advanceTo(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 叠加字典的词路径视图，由基础字典的词路径与增量节点组成。由遍历过程临时创建，修改它不会影响字典。
+     * <p>只通向被删除的词的路径仍然存在，但不是词边界。</p>
+     */
+    public class OverlayWordPath extends WordPath<OverlayWordPath> {
+        private final WordPath basePath;
+        private final Node node;
+
+        OverlayWordPath(OverlayWordPath parentPath, char fork, WordPath basePath, Node node) {
+            super(parentPath, fork);
+            this.basePath = basePath;
+            this.node = node;
+            if (node != null && node.word != null) {
+                this.word = node.word;
+            } else if (basePath != null && basePath.isFinishWord() && (node == null || !node.tombstone)) {
+                Set<String> speeches = basePath.getWord().getSpeeches();
+                this.wordFinish(speeches.toArray(new String[speeches.size()]));
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<Character, OverlayWordPath> getBranches() {
+            return branchesOf(this, this.basePath == null ? Collections.emptyMap() : this.basePath.getBranches(),
+                    this.node);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import xyz.dowenliu.npl.dmseg.dict.loader.WordRecordReader;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按权重的前缀补全索引。构建时把字典中的词按字典序排列，同一前缀下的词在其中是连续的一段，
+ * 相当于字典树节点对应的区间；再以线段树记录每段区间中权重最大的词，即每个节点子树的最大权重提示。
+ * <p>补全时从前缀区间开始，每次取出堆中最大权重的区间，返回其最大的词，再把词两侧的子区间放回堆中，
+ * 因此结果按权重从大到小逐个产生，取前K个只需访问 {@code O(K)} 个区间，不需要展开前缀下的整棵子树。
+ * 权重相同时按字典序排列。</p>
+ * <p>索引引用字典中的词对象，但不跟随字典的修改，字典修改后应重新构建。
+ * 不需要索引时可以使用 {@link Dictionary#complete(CharSequence, int, ToLongFunction)}。</p>
+ * <p>此类是线程安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class PrefixCompleter {
+    private static final Comparator<Word> BY_VALUE = Comparator.comparing(Word::getValue);
+
+    private final Word[] words;
+    private final long[] weights;
+    /**
+     * 线段树，叶子为 {@code n + i}，每个元素为其区间中权重最大的词的下标
+     */
+    private final int[] tree;
+    private final long version;
+
+    private PrefixCompleter(Word[] words, ToLongFunction<? super Word> weight, long version) {
+        Arrays.parallelSort(words, BY_VALUE);
+        int n = words.length;
+        this.words = words;
+        this.weights = new long[n];
+        for (int i = 0; i < n; i++) {
+            this.weights[i] = weight.applyAsLong(words[i]);
+        }
+        this.tree = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            this.tree[n + i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            this.tree[i] = this.better(this.tree[2 * i], this.tree[2 * i + 1]);
+        }
+        this.version = version;
+    }
+
+    /**
+     * 构建字典的补全索引
+     *
+     * @param dictionary 字典
+     * @param weight     词的权重，如 {@code word -> ((FrequencyWord) word).getFrequency()}
+     * @return 补全索引
+     */
+    public static PrefixCompleter of(Dictionary<?> dictionary, ToLongFunction<? super Word> weight) {
+        return new PrefixCompleter(dictionary.words().parallel().toArray(Word[]::new), weight, dictionary.version());
+    }
+
+    /**
+     * 以词记录集中的词频构建字典的补全索引，词记录集中没有的词或不是 {@link FrequencyWord} 的词权重为 0
+     *
+     * @param dictionary  字典
+     * @param frequencies 带词频的词记录集，如 {@code MappedWordRecordReader}
+     * @return 补全索引
+     */
+    public static PrefixCompleter of(Dictionary<?> dictionary, WordRecordReader frequencies) {
+        Map<String, Long> map = new HashMap<>();
+        while (frequencies.hasNextWord()) {
+            Word word = frequencies.nextWord();
+            if (word instanceof FrequencyWord) {
+                map.put(word.getValue(), ((FrequencyWord) word).getFrequency());
+            }
+        }
+        return of(dictionary, word -> map.getOrDefault(word.getValue(), 0L));
+    }
+
+    /**
+     * 构建时字典的版本，与字典当前版本不同时应重新构建
+     *
+     * @return 版本
+     */
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * 索引中的词数
+     *
+     * @return 词数
+     */
+    public int size() {
+        return this.words.length;
+    }
+
+    private int better(int a, int b) {
+        long wa = this.weights[a];
+        long wb = this.weights[b];
+        return wa > wb || wa == wb && a < b ? a : b;
+    }
+
+    /**
+     * 区间 [from, to) 中权重最大的词的下标
+     */
+    private int best(int from, int to) {
+        int n = this.words.length;
+        int result = from;
+        for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                result = this.better(result, this.tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                result = this.better(result, this.tree[--r]);
+            }
+        }
+        return result;
+    }
+
+    private int lowerBound(String prefix) {
+        int lo = 0;
+        int hi = this.words.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.words[mid].getValue().compareTo(prefix) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int prefixEnd(int from, String prefix) {
+        int lo = from;
+        int hi = this.words.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.words[mid].getValue().startsWith(prefix)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 以前缀开头（含前缀本身）的词，按权重从大到小排列。结果是惰性产生的。
+     *
+     * @param prefix 前缀，空前缀对应所有词
+     * @return 词的流
+     */
+    public Stream<Word> stream(CharSequence prefix) {
+        String key = prefix.toString();
+        int from = this.lowerBound(key);
+        int to = this.prefixEnd(from, key);
+        return StreamSupport.stream(Spliterators.spliterator(new Itr(from, to), to - from,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * 以前缀开头（含前缀本身）的权重最大的K个词
+     *
+     * @param prefix 前缀，空前缀对应所有词
+     * @param k      最多返回的词数
+     * @return 按权重从大到小排列的词
+     */
+    public List<Word> complete(CharSequence prefix, int k) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        return this.stream(prefix).limit(k).collect(Collectors.toList());
+    }
+
+    /**
+     * 权重
+     *
+     * @param word 索引中的词
+     * @return 权重，不在索引中返回 {@code -1}
+     */
+    public long weightOf(String word) {
+        int i = this.lowerBound(word);
+        return i < this.words.length && this.words[i].getValue().equals(word) ? this.weights[i] : -1L;
+    }
+
+    /**
+     * 在不构建索引的情况下补全：遍历前缀节点下的子树，以容量为K的小顶堆保留权重最大的词。
+     * 供 {@link Dictionary#complete(CharSequence, int, ToLongFunction)} 的默认实现使用。
+     */
+    @SuppressWarnings("unchecked")
+    static List<Word> complete(Dictionary<?> dictionary, CharSequence prefix, int k,
+                               ToLongFunction<? super Word> weight) {
+        if (k <= 0 || prefix.length() > 0 && !dictionary.mayStartWith(prefix.charAt(0))) {
+            return Collections.emptyList();
+        }
+        WordPath node = null;
+        Map<Character, ? extends WordPath> branches = dictionary.getBranches();
+        for (int i = 0; i < prefix.length(); i++) {
+            node = branches.get(prefix.charAt(i));
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            branches = node.getBranches();
+        }
+        // 堆顶是当前保留的最差的词
+        Comparator<Weighted> order = Comparator.<Weighted>comparingLong(w -> w.weight)
+                .thenComparing((a, b) -> b.word.getValue().compareTo(a.word.getValue()));
+        PriorityQueue<Weighted> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, order);
+        ArrayDeque<WordPath> stack = new ArrayDeque<>();
+        if (node != null) {
+            stack.push(node);
+        } else {
+            stack.addAll(branches.values());
+        }
+        while (!stack.isEmpty()) {
+            WordPath path = stack.pop();
+            if (path.isFinishWord()) {
+                Weighted candidate = new Weighted(path.getWord(), weight.applyAsLong(path.getWord()));
+                if (heap.size() < k) {
+                    heap.add(candidate);
+                } else if (order.compare(candidate, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(candidate);
+                }
+            }
+            stack.addAll(((Map<Character, ? extends WordPath>) path.getBranches()).values());
+        }
+        Word[] result = new Word[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll().word;
+        }
+        return Arrays.asList(result);
+    }
+
+    private static final class Weighted {
+        final Word word;
+        final long weight;
+
+        Weighted(Word word, long weight) {
+            this.word = word;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 按权重从大到小产生区间中的词
+     */
+    private class Itr implements Iterator<Word> {
+        /**
+         * 待展开的区间，每个元素为 {from, to, best}，按best的权重排列
+         */
+        private final PriorityQueue<int[]> heap = new PriorityQueue<>((a, b) -> a[2] == b[2] ? 0
+                : PrefixCompleter.this.better(a[2], b[2]) == a[2] ? -1 : 1);
+
+        Itr(int from, int to) {
+            this.push(from, to);
+        }
+
+        private void push(int from, int to) {
+            if (from < to) {
+                this.heap.add(new int[]{from, to, PrefixCompleter.this.best(from, to)});
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.heap.isEmpty();
+        }
+
+        @Override
+        public Word next() {
+            int[] range = this.heap.poll();
+            if (range == null) {
+                throw new NoSuchElementException();
+            }
+            this.push(range[0], range[2]);
+            this.push(range[2] + 1, range[1]);
+            return PrefixCompleter.this.words[range[2]];
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * 以 {@link TagRegistry} 编号位图保存词性的对象，供 {@link SpeechMaskSet} 读写位图。
+ * 编号 0~63 的部分存放在一个 {@code long} 中，其余按64位分段存放在额外的数组中。
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public interface SpeechMaskHolder {
+    /**
+     * 编号 0~63 的词性位图
+     *
+     * @return 第i位为1表示有编号为i的词性
+     */
+    long getSpeechMask();
+
+    /**
+     * 设置编号 0~63 的词性位图
+     *
+     * @param speechMask 位图
+     */
+    void setSpeechMask(long speechMask);
+
+    /**
+     * 编号不小于64的词性位图
+     *
+     * @return 第i个元素为第i+1段，没有时为 {@code null}
+     */
+    long[] getMoreSpeechMask();
+
+    /**
+     * 设置编号不小于64的词性位图
+     *
+     * @param moreSpeechMask 第i个元素为第i+1段，可以为 {@code null}
+     */
+    void setMoreSpeechMask(long[] moreSpeechMask);
+}
@@ -0,0 +1,44 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+/**
+ * {@link SpeechMaskHolder} 词性位图上的集合视图，读写直接作用于宿主对象
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class SpeechMaskSet extends TagMaskSet {
+    private final SpeechMaskHolder holder;
+
+    /**
+     * @param holder 宿主对象
+     */
+    public SpeechMaskSet(SpeechMaskHolder holder) {
+        this.holder = holder;
+    }
+
+    @Override
+    public int maskWords() {
+        long[] more = this.holder.getMoreSpeechMask();
+        return more == null ? 1 : more.length + 1;
+    }
+
+    @Override
+    public long maskWord(int index) {
+        if (index == 0) {
+            return this.holder.getSpeechMask();
+        }
+        long[] more = this.holder.getMoreSpeechMask();
+        return more != null && index <= more.length ? more[index - 1] : 0L;
+    }
+
+    @Override
+    protected void setMaskWord(int index, long bits) {
+        if (index == 0) {
+            this.holder.setSpeechMask(bits);
+        } else {
+            long[] more = ensureMore(this.holder.getMoreSpeechMask(), index);
+            more[index - 1] = bits;
+            this.holder.setMoreSpeechMask(more);
+        }
+    }
+}
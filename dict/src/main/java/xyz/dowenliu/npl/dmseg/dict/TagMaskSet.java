@@ -0,0 +1,226 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.util.*;
+
+/**
+ * 以 {@link TagRegistry} 编号位图保存的标记集合视图。位图按64位分段，第0段通常直接存放在宿主对象的 {@code long} 字段中，
+ * 编号不小于64的标记才使用额外的数组，视图本身不保存数据，读写直接作用于宿主对象。
+ * <p>两个位图集合之间的 {@link #addAll(Collection)}、{@link #containsAll(Collection)} 按位运算完成，不经过字符串。</p>
+ * <p>此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public abstract class TagMaskSet extends AbstractSet<String> {
+    /**
+     * 位图段数，可能包含全为0的段
+     *
+     * @return 段数，至少为 1
+     */
+    public abstract int maskWords();
+
+    /**
+     * 取一段位图
+     *
+     * @param index 段号，可以超出 {@link #maskWords()}
+     * @return 位图段，超出范围为 0
+     */
+    public abstract long maskWord(int index);
+
+    /**
+     * 设置一段位图，段号超出范围时由宿主扩展存储
+     *
+     * @param index 段号
+     * @param bits  位图段
+     */
+    protected abstract void setMaskWord(int index, long bits);
+
+    /**
+     * 扩展第0段以外的存储，供宿主实现 {@link #setMaskWord(int, long)} 使用
+     *
+     * @param more  第0段以外的段，可以为 {@code null}
+     * @param index 要写入的段号，大于 0
+     * @return 可以写入 {@code more[index - 1]} 的数组
+     */
+    protected static long[] ensureMore(long[] more, int index) {
+        if (more == null) {
+            return new long[index];
+        }
+        return more.length < index ? Arrays.copyOf(more, index) : more;
+    }
+
+    /**
+     * 是否包含编号的标记
+     *
+     * @param id 标记编号
+     * @return 是 {@code true}，否 {@code false}
+     */
+    public boolean contains(int id) {
+        return (this.maskWord(id >>> 6) & 1L << id) != 0;
+    }
+
+    /**
+     * 加入编号的标记
+     *
+     * @param id 标记编号
+     * @return 集合是否改变
+     */
+    public boolean add(int id) {
+        long bits = this.maskWord(id >>> 6);
+        if ((bits & 1L << id) != 0) {
+            return false;
+        }
+        this.setMaskWord(id >>> 6, bits | 1L << id);
+        return true;
+    }
+
+    /**
+     * 删除编号的标记
+     *
+     * @param id 标记编号
+     * @return 集合是否改变
+     */
+    public boolean remove(int id) {
+        long bits = this.maskWord(id >>> 6);
+        if ((bits & 1L << id) == 0) {
+            return false;
+        }
+        this.setMaskWord(id >>> 6, bits & ~(1L << id));
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int id = TagRegistry.find((String) o);
+        return id >= 0 && this.contains(id);
+    }
+
+    @Override
+    public boolean add(String tag) {
+        return this.add(TagRegistry.idOf(tag));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int id = TagRegistry.find((String) o);
+        return id >= 0 && this.remove(id);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends String> c) {
+        if (!(c instanceof TagMaskSet)) {
+            return super.addAll(c);
+        }
+        TagMaskSet other = (TagMaskSet) c;
+        boolean changed = false;
+        for (int i = other.maskWords() - 1; i >= 0; i--) {
+            long bits = other.maskWord(i);
+            long mine = this.maskWord(i);
+            if ((bits & ~mine) != 0) {
+                this.setMaskWord(i, mine | bits);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (!(c instanceof TagMaskSet)) {
+            return super.containsAll(c);
+        }
+        TagMaskSet other = (TagMaskSet) c;
+        for (int i = 0; i < other.maskWords(); i++) {
+            long bits = other.maskWord(i);
+            if ((bits & ~this.maskWord(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.maskWords(); i++) {
+            if (this.maskWord(i) != 0) {
+                this.setMaskWord(i, 0L);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (int i = 0; i < this.maskWords(); i++) {
+            if (this.maskWord(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < this.maskWords(); i++) {
+            size += Long.bitCount(this.maskWord(i));
+        }
+        return size;
+    }
+
+    /**
+     * 按编号升序迭代
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            int next = nextId(0);
+            int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (this.next < 0) {
+                    throw new NoSuchElementException();
+                }
+                this.last = this.next;
+                this.next = nextId(this.next + 1);
+                return TagRegistry.nameOf(this.last);
+            }
+
+            @Override
+            public void remove() {
+                if (this.last < 0) {
+                    throw new IllegalStateException();
+                }
+                TagMaskSet.this.remove(this.last);
+                this.last = -1;
+            }
+        };
+    }
+
+    private int nextId(int from) {
+        int words = this.maskWords();
+        int i = from >>> 6;
+        if (i >= words) {
+            return -1;
+        }
+        long bits = this.maskWord(i) & -1L << from;
+        while (bits == 0) {
+            if (++i == words) {
+                return -1;
+            }
+            bits = this.maskWord(i);
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(bits);
+    }
+}
@@ -0,0 +1,81 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全局标记登记表。词性、字典书名标记等字符串标记在首次使用时登记为从 0 开始的小整数编号，
+ * {@link Word} 与切块以编号位图保存标记，不为每个词保存字符串集合。
+ * <p>编号只在当前JVM内有效，不能持久化。标记登记后不会注销，标记种类应是有限的。</p>
+ * <p>此类是线程安全的，查找不加锁。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class TagRegistry {
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int count = 0;
+
+    private TagRegistry() {
+    }
+
+    /**
+     * 取标记编号，未登记的标记将被登记
+     *
+     * @param tag 标记
+     * @return 编号
+     */
+    public static int idOf(String tag) {
+        Integer id = IDS.get(tag);
+        return id != null ? id : register(tag);
+    }
+
+    private static synchronized int register(String tag) {
+        Integer id = IDS.get(tag);
+        if (id != null) {
+            return id;
+        }
+        String[] _names = count == names.length ? Arrays.copyOf(names, count * 2) : names;
+        _names[count] = tag;
+        names = _names; // volatile写，发布新标记
+        IDS.put(tag, count);
+        return count++;
+    }
+
+    /**
+     * 查找标记编号，不登记新标记
+     *
+     * @param tag 标记
+     * @return 编号，未登记返回 -1
+     */
+    public static int find(String tag) {
+        Integer id = IDS.get(tag);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 取编号对应的标记
+     *
+     * @param id 编号
+     * @return 标记
+     * @throws IllegalArgumentException 编号未登记
+     */
+    public static String nameOf(int id) {
+        String[] _names = names;
+        String name = id >= 0 && id < _names.length ? _names[id] : null;
+        if (name == null) {
+            throw new IllegalArgumentException("未登记的标记编号：" + id);
+        }
+        return name;
+    }
+
+    /**
+     * 已登记的标记数
+     *
+     * @return 标记数
+     */
+    public static int size() {
+        return IDS.size();
+    }
+}
@@ -1,8 +1,9 @@
 package xyz.dowenliu.npl.dmseg.dict;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -11,13 +12,19 @@ import java.util.Set;
  * @author liufl
  * @since 1.0.0
  */
-public class Word implements Serializable, ValueSeg {
+public class Word implements Serializable, ValueSeg, SpeechMaskHolder {
     protected final String value;
     /**
      * 词性。此处的词性标注与语言无关，只是为了方便应用逻辑进行词的后续处理，提供一套标记系统。
      * 不使用词性标记不会影响词的匹配与字典的编纂。
+     * <p>以 {@link TagRegistry} 编号位图保存，此字段为编号 0~63 的部分，其余在 {@link #moreSpeechMask} 中。
+     * 编号只在当前JVM内有效，序列化时按词性字符串写出。</p>
      */
-    protected Set<String> speeches = Collections.synchronizedSet(new HashSet<>(2, 0.75F));
+    protected transient long speechMask = 0L;
+    /**
+     * 编号不小于64的词性位图，没有时为 {@code null}
+     */
+    protected transient long[] moreSpeechMask = null;
     protected WordPath path = null;
 
     /**
@@ -43,7 +50,9 @@ public class Word implements Serializable, ValueSeg {
             throw new IllegalArgumentException("无法创建一个空词");
         }
         this.value = value;
-        Collections.addAll(this.speeches, speeches);
+        for (String speech : speeches) {
+            this.addSpeech(TagRegistry.idOf(speech));
+        }
     }
 
     /**
@@ -59,11 +68,50 @@ public class Word implements Serializable, ValueSeg {
     /**
      * 获取词性集合。
      *
-     * @return 词性集合的引用。操作此集合会直接操作词的词性。可能发生线程安全问题。
+     * @return 词性位图上的集合视图，每次调用创建新视图。操作此集合会直接操作词的词性。可能发生线程安全问题。
      */
     @Override
     public Set<String> getSpeeches() {
-        return speeches;
+        return new SpeechMaskSet(this);
+    }
+
+    /**
+     * 加入编号的词性，不经过词性字符串
+     *
+     * @param tagId {@link TagRegistry} 中的标记编号
+     */
+    public void addSpeech(int tagId) {
+        if (tagId < 64) {
+            this.speechMask |= 1L << tagId;
+        } else {
+            new SpeechMaskSet(this).add(tagId);
+        }
+    }
+
+    /**
+     * 编号 0~63 的词性位图
+     *
+     * @return 第i位为1表示有编号为i的词性
+     * @see TagRegistry
+     */
+    @Override
+    public long getSpeechMask() {
+        return this.speechMask;
+    }
+
+    @Override
+    public void setSpeechMask(long speechMask) {
+        this.speechMask = speechMask;
+    }
+
+    @Override
+    public long[] getMoreSpeechMask() {
+        return this.moreSpeechMask;
+    }
+
+    @Override
+    public void setMoreSpeechMask(long[] moreSpeechMask) {
+        this.moreSpeechMask = moreSpeechMask;
     }
 
     /**
@@ -83,4 +131,18 @@ public class Word implements Serializable, ValueSeg {
     public void setPath(WordPath path) {
         this.path = path;
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        Set<String> speeches = this.getSpeeches();
+        out.writeObject(speeches.toArray(new String[speeches.size()]));
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        SpeechMaskSet speeches = new SpeechMaskSet(this);
+        for (String speech : (String[]) in.readObject()) {
+            speeches.add(speech);
+        }
+    }
 }
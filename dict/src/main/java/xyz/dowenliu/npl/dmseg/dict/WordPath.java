@@ -87,14 +87,44 @@ public abstract class WordPath<T extends WordPath> implements Branching<Characte
         return rePath.reverse().toString();
     }
 
+    /**
+     * 与 {@code toString().hashCode()} 相同，沿父路径计算，不拼接字串
+     */
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        int hash = 0;
+        int factor = 1;
+        for (WordPath path = this; path != null; path = path.getParentPath()) {
+            hash += path.getFork() * factor;
+            factor *= 31;
+        }
+        return hash;
     }
 
+    /**
+     * 字串相同的词路径相等，沿两条父路径逐个比较分叉值，不拼接字串
+     */
     @Override
     public boolean equals(Object obj) {
-        return this == obj || obj instanceof WordPath && this.toString().equals(obj.toString());
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof WordPath)) {
+            return false;
+        }
+        WordPath path = this;
+        WordPath other = (WordPath) obj;
+        while (path != null && other != null) {
+            if (path == other) {
+                return true; // 共享同一前缀
+            }
+            if (path.getFork() != other.getFork()) {
+                return false;
+            }
+            path = path.getParentPath();
+            other = other.getParentPath();
+        }
+        return path == null && other == null;
     }
 
     public Deque<WordPath> getPathQueue() {
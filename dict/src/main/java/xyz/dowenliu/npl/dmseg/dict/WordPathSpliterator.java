@@ -0,0 +1,91 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 通过 {@link Branching#getBranches()} 深度优先遍历字典树的可拆分迭代器，供 {@link Dictionary#spliterator()} 使用。
+ * <p>待遍历的子树保存在栈中，拆分时交出栈底的一半子树；只剩一棵子树时先由自己负责其根节点，
+ * 再把根节点的子节点分成两半。因此先按根节点的子节点拆分，再逐层向下拆分子树。</p>
+ * <p>不保证遍历顺序。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+final class WordPathSpliterator<T extends WordPath> implements Spliterator<T> {
+    private final ArrayDeque<T> stack;
+    /**
+     * 已从栈中取出、子节点已入栈但自身尚未返回的节点
+     */
+    private T head;
+    /**
+     * 估计的剩余节点数，拆分时减半
+     */
+    private long estimate;
+
+    /**
+     * @param root     根节点
+     * @param estimate 估计的节点数
+     */
+    WordPathSpliterator(Branching<Character, T> root, long estimate) {
+        this(new ArrayDeque<>(root.getBranches().values()), estimate);
+    }
+
+    private WordPathSpliterator(ArrayDeque<T> stack, long estimate) {
+        this.stack = stack;
+        this.estimate = estimate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pushChildren(T path) {
+        Collection<T> children = path.getBranches().values();
+        this.stack.addAll(children);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        T path = this.head;
+        if (path != null) {
+            this.head = null;
+        } else {
+            path = this.stack.pollLast();
+            if (path == null) {
+                return false;
+            }
+            this.pushChildren(path);
+        }
+        action.accept(path);
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (this.stack.size() == 1 && this.head == null) {
+            T path = this.stack.pollLast();
+            this.pushChildren(path);
+            this.head = path;
+        }
+        int size = this.stack.size();
+        if (size < 2) {
+            return null;
+        }
+        ArrayDeque<T> bottom = new ArrayDeque<>(size / 2);
+        for (int i = 0; i < size / 2; i++) {
+            bottom.addLast(this.stack.pollFirst());
+        }
+        this.estimate >>>= 1;
+        return new WordPathSpliterator<>(bottom, this.estimate);
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.stack.isEmpty() && this.head == null ? 0L : this.estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+}
@@ -3,7 +3,12 @@ package xyz.dowenliu.npl.dmseg.dict.loader;
 import xyz.dowenliu.npl.dmseg.dict.Dictionary;
 import xyz.dowenliu.npl.dmseg.dict.Word;
 
+import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * 字典加载器
@@ -20,6 +25,18 @@ public abstract class AbstractDictionaryLoader<T extends Dictionary> {
      */
     public abstract WordRecordReader wrapReader(Reader reader);
 
+    /**
+     * 打开字典文件。默认以UTF-8读取文件并用 {@link #wrapReader(Reader)} 包装，与读取其他源的格式一致；
+     * 子类可覆盖此方法返回 {@link MappedWordRecordReader}，映射文件直接解码并读取词性与词频列。
+     *
+     * @param file 字典文件
+     * @return 词记录集读取器
+     * @throws IOException 发生了IO错误
+     */
+    public WordRecordReader openFile(Path file) throws IOException {
+        return this.wrapReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
     /**
      * 使用指定源读入一个新字典对象
      *
@@ -28,6 +45,30 @@ public abstract class AbstractDictionaryLoader<T extends Dictionary> {
      */
     public abstract T readIn(Reader reader);
 
+    /**
+     * 使用词记录集读入一个新字典对象。默认读入一个空字典后用 {@link #apply(Dictionary, WordRecordReader)} 加入各词，
+     * 不可修改的字典的加载器应覆盖此方法。
+     *
+     * @param reader 词记录集读取器
+     * @return 不会返回 {@code null} ，如果无有效输入，返回一个空的字典对象
+     */
+    public T readIn(WordRecordReader reader) {
+        T dictionary = this.readIn(new StringReader(""));
+        this.apply(dictionary, reader);
+        return dictionary;
+    }
+
+    /**
+     * 使用 {@link #openFile(Path)} 打开字典文件读入一个新字典对象
+     *
+     * @param file 字典文件
+     * @return 不会返回 {@code null} ，如果文件无有效输入，返回一个空的字典对象
+     * @throws IOException 发生了IO错误
+     */
+    public T readIn(Path file) throws IOException {
+        return this.readIn(this.openFile(file));
+    }
+
     /**
      * 使用指定输入源作为补丁补充到字典中
      *
@@ -35,10 +76,33 @@ public abstract class AbstractDictionaryLoader<T extends Dictionary> {
      * @param reader     源
      */
     public void apply(T dictionary, Reader reader) {
-        WordRecordReader wordRecordReader = this.wrapReader(reader);
-        while (wordRecordReader.hasNextWord()) {
-            Word nextWord = wordRecordReader.nextWord();
+        this.apply(dictionary, this.wrapReader(reader));
+    }
+
+    /**
+     * 将词记录集作为补丁补充到字典中
+     *
+     * @param dictionary 已有的字典对象
+     * @param reader     词记录集读取器
+     */
+    public void apply(T dictionary, WordRecordReader reader) {
+        while (reader.hasNextWord()) {
+            Word nextWord = reader.nextWord();
             dictionary.add(nextWord);
         }
     }
+
+    /**
+     * 将 {@link DictionaryDeltaFormat} 格式的增量补丁就地应用到字典，补丁中可以删除词与修改词性
+     *
+     * @param dictionary 已有的字典对象，版本必须与补丁基础版本相同
+     * @param reader     补丁源
+     * @throws IOException                   发生了IO错误，或补丁格式不正确
+     * @throws IllegalStateException         字典版本与补丁基础版本不匹配
+     * @throws UnsupportedOperationException 字典不支持就地应用补丁
+     * @see Dictionary#applyDelta(xyz.dowenliu.npl.dmseg.dict.DictionaryDelta)
+     */
+    public void applyDelta(T dictionary, Reader reader) throws IOException {
+        dictionary.applyDelta(DictionaryDeltaFormat.read(reader));
+    }
 }
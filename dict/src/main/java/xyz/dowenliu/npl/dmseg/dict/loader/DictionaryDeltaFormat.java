@@ -0,0 +1,125 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.DictionaryDelta;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 字典增量补丁的文本格式。每行一条记录，行中按空白切分，空行与 {@code #} 开头的行被忽略：
+ * <pre>
+ * # 第一条有效行是版本行：基础版本 目标版本
+ * &#64;delta 41 42
+ * + 新词 n v      加入词，词已存在时替换其词性
+ * - 旧词          删除词
+ * = 某词 nz       替换已有词的词性
+ * </pre>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class DictionaryDeltaFormat {
+    /**
+     * 版本行标记
+     */
+    public static final String HEADER = "@delta";
+
+    private DictionaryDeltaFormat() {
+    }
+
+    /**
+     * 读入补丁
+     *
+     * @param reader 源，读入后不会关闭
+     * @return 补丁
+     * @throws IOException 发生了IO错误，或补丁格式不正确
+     */
+    public static DictionaryDelta read(Reader reader) throws IOException {
+        LineNumberReader lines = new LineNumberReader(reader);
+        long baseVersion = 0;
+        long version = 0;
+        boolean header = false;
+        List<DictionaryDelta.Record> records = new ArrayList<>();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if (!header) {
+                if (!HEADER.equals(parts[0]) || parts.length != 3) {
+                    throw new IOException("第" + lines.getLineNumber() + "行：缺少版本行");
+                }
+                try {
+                    baseVersion = Long.parseLong(parts[1]);
+                    version = Long.parseLong(parts[2]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("第" + lines.getLineNumber() + "行：版本不是整数", e);
+                }
+                if (version <= baseVersion) {
+                    throw new IOException("第" + lines.getLineNumber() + "行：目标版本必须大于基础版本");
+                }
+                header = true;
+                continue;
+            }
+            if (parts.length < 2) {
+                throw new IOException("第" + lines.getLineNumber() + "行：缺少词");
+            }
+            String[] speeches = Arrays.copyOfRange(parts, 2, parts.length);
+            switch (parts[0]) {
+                case "+":
+                    records.add(new DictionaryDelta.Record(DictionaryDelta.Operation.ADD, parts[1], speeches));
+                    break;
+                case "-":
+                    records.add(new DictionaryDelta.Record(DictionaryDelta.Operation.REMOVE, parts[1]));
+                    break;
+                case "=":
+                    records.add(new DictionaryDelta.Record(DictionaryDelta.Operation.UPDATE_SPEECHES, parts[1], speeches));
+                    break;
+                default:
+                    throw new IOException("第" + lines.getLineNumber() + "行：未知操作 " + parts[0]);
+            }
+        }
+        if (!header) {
+            throw new IOException("缺少版本行");
+        }
+        return new DictionaryDelta(baseVersion, version, records);
+    }
+
+    /**
+     * 写出补丁
+     *
+     * @param delta  补丁
+     * @param writer 输出，写出后不会关闭
+     * @throws IOException 发生了IO错误
+     */
+    public static void write(DictionaryDelta delta, Writer writer) throws IOException {
+        BufferedWriter out = new BufferedWriter(writer);
+        out.write(HEADER + " " + delta.getBaseVersion() + " " + delta.getVersion());
+        out.newLine();
+        for (DictionaryDelta.Record record : delta.getRecords()) {
+            switch (record.getOperation()) {
+                case ADD:
+                    out.write('+');
+                    break;
+                case REMOVE:
+                    out.write('-');
+                    break;
+                case UPDATE_SPEECHES:
+                    out.write('=');
+                    break;
+            }
+            out.write(' ');
+            out.write(record.getWord());
+            for (String speech : record.getSpeeches()) {
+                out.write(' ');
+                out.write(speech);
+            }
+            out.newLine();
+        }
+        out.flush();
+    }
+}
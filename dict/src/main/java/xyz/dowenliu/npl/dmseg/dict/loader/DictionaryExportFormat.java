@@ -0,0 +1,65 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.Dictionary;
+import xyz.dowenliu.npl.dmseg.dict.Word;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 字典导出格式。每行一个词，按 {@link String#compareTo(String)} 升序排列，列间以制表符分隔：
+ * <pre>
+ * 词	词性,词性	词频	书名标记,书名标记
+ * </pre>
+ * <p>词频列总是空的，字典不保存词频。前三列与 {@link MappedWordRecordReader} 读取的格式相同，
+ * 导出的文件可以直接作为字典源读回；有序的输出也可以交给要求有序输入的构建器，如 {@code RamHashedDictionaryBuilder}。</p>
+ * <p>词由 {@link Dictionary#words()} 并行收集后并行排序，只有写出是顺序的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public final class DictionaryExportFormat {
+    private DictionaryExportFormat() {
+    }
+
+    /**
+     * 写出字典中的所有词
+     *
+     * @param dictionary 字典，写出过程中不能修改
+     * @param writer     输出，写出后不会关闭
+     * @throws IOException 发生了IO错误
+     */
+    public static void write(Dictionary<?> dictionary, Writer writer) throws IOException {
+        Word[] words = dictionary.words().parallel().toArray(Word[]::new);
+        Arrays.parallelSort(words, Comparator.comparing(Word::getValue));
+        BufferedWriter out = new BufferedWriter(writer);
+        for (Word word : words) {
+            out.write(word.getValue());
+            out.write('\t');
+            out.write(String.join(",", word.getSpeeches()));
+            out.write("\t\t");
+            out.write(String.join(",", dictionary.bookTagsOf(word)));
+            out.newLine();
+        }
+        out.flush();
+    }
+
+    /**
+     * 按UTF-8写出字典中的所有词到文件，文件已存在时被覆盖
+     *
+     * @param dictionary 字典，写出过程中不能修改
+     * @param file       文件
+     * @throws IOException 发生了IO错误
+     */
+    public static void write(Dictionary<?> dictionary, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(dictionary, writer);
+        }
+    }
+}
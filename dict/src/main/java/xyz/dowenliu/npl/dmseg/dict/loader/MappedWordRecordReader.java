@@ -0,0 +1,350 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import xyz.dowenliu.npl.dmseg.dict.FrequencyWord;
+import xyz.dowenliu.npl.dmseg.dict.TagRegistry;
+import xyz.dowenliu.npl.dmseg.dict.Word;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * 映射字典文件的词记录集读取器。直接从映射的字节缓冲区按UTF-8解码，不经过 {@link java.io.Reader}，
+ * 不使用正则表达式，每行只为词本身创建一个字符串。
+ * <p>每行一个词，列间以制表符分隔：</p>
+ * <ol>
+ * <li>词。列中有空格时只取第一个空格之前的部分，因此也能读取 {@link SimpleLineWordRecordReader} 的格式</li>
+ * <li>词性列表，可选，词性间以逗号或空格分隔</li>
+ * <li>词频，可选，十进制非负整数</li>
+ * </ol>
+ * <p>之后的列被忽略。</p>
+ * <p>空行被跳过，文件头部的UTF-8 BOM被忽略，行尾可以是 {@code \n} 或 {@code \r\n}。
+ * 读出的词是 {@link FrequencyWord}，没有词频列时词频为 0。
+ * 词性在读取器内按字节缓存其 {@link TagRegistry} 编号，相同的词性只解码一次。</p>
+ * <p>超过映射窗口（1GB）的文件分段映射，读到窗口末尾不完整的行时从该行开始映射下一段，
+ * 因此文件大小不受限制，但一行不能超过窗口大小。此类是线程不安全的。</p>
+ *
+ * @author liufl
+ * @since 1.0.0
+ */
+public class MappedWordRecordReader implements WordRecordReader {
+    /**
+     * 默认映射窗口大小
+     */
+    static final int DEFAULT_WINDOW = 1 << 30;
+
+    private final Path file;
+    private final long fileSize;
+    private final int window;
+    /**
+     * 当前窗口在文件中的起始位置
+     */
+    private long windowStart = 0L;
+    private ByteBuffer buffer;
+    private int limit;
+    private int position;
+    private char[] chars = new char[32];
+    private Word next;
+    /**
+     * 词性字节到编号的开放寻址缓存
+     */
+    private byte[][] tagKeys = new byte[64][];
+    private int[] tagIds = new int[64];
+    private int tagCount = 0;
+
+    /**
+     * 只读映射字典文件
+     *
+     * @param file 字典文件
+     * @throws IOException 发生了IO错误
+     */
+    public MappedWordRecordReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param file   字典文件
+     * @param window 映射窗口大小
+     * @throws IOException 发生了IO错误
+     */
+    MappedWordRecordReader(Path file, int window) throws IOException {
+        this.file = file;
+        this.window = window;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.fileSize = channel.size();
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, Math.min(this.fileSize, window));
+        }
+        this.limit = this.buffer.limit();
+        this.skipBom();
+    }
+
+    /**
+     * 读取字节缓冲区中从当前位置到上限的内容，缓冲区的位置不会被移动
+     *
+     * @param buffer UTF-8编码的字典内容
+     */
+    public MappedWordRecordReader(ByteBuffer buffer) {
+        this.file = null;
+        this.window = 0;
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+        this.fileSize = this.limit;
+        this.skipBom();
+    }
+
+    private void skipBom() {
+        ByteBuffer _buffer = this.buffer;
+        if (this.limit - this.position >= 3 && (_buffer.get(this.position) & 0xFF) == 0xEF
+                && (_buffer.get(this.position + 1) & 0xFF) == 0xBB && (_buffer.get(this.position + 2) & 0xFF) == 0xBF) {
+            this.position += 3;
+        }
+    }
+
+    /**
+     * 当前窗口之后文件是否还有内容
+     */
+    private boolean hasMoreWindow() {
+        return this.file != null && this.windowStart + this.limit < this.fileSize;
+    }
+
+    /**
+     * 从当前窗口中的位置开始映射下一个窗口
+     */
+    private void remap(int from) {
+        long start = this.windowStart + from;
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(this.fileSize - start, this.window));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.windowStart = start;
+        this.limit = this.buffer.limit();
+        this.position = 0;
+    }
+
+    @Override
+    public boolean hasNextWord() {
+        while (this.next == null) {
+            if (this.position >= this.limit) {
+                if (!this.hasMoreWindow()) {
+                    break;
+                }
+                this.remap(this.position);
+            }
+            this.next = this.readLine();
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public Word nextWord() throws NoSuchElementException {
+        if (!this.hasNextWord()) {
+            throw new NoSuchElementException();
+        }
+        Word word = this.next;
+        this.next = null;
+        return word;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * 读取一行
+     *
+     * @return 行中的词，空行返回 {@code null}
+     */
+    private Word readLine() {
+        int start = this.position;
+        int end = start;
+        while (end < this.limit && this.buffer.get(end) != '\n') {
+            end++;
+        }
+        if (end == this.limit && this.hasMoreWindow()) {
+            if (start == 0) {
+                throw new IllegalArgumentException("行超过映射窗口大小：" + this.window);
+            }
+            this.remap(start); // 行跨越窗口末尾，从行首开始映射
+            return null;
+        }
+        ByteBuffer _buffer = this.buffer;
+        this.position = end + 1;
+        if (end > start && _buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        int p = start;
+        while (p < end && isBlank(_buffer.get(p))) {
+            p++;
+        }
+        int wordEnd = p;
+        while (wordEnd < end && !isBlank(_buffer.get(wordEnd))) {
+            wordEnd++;
+        }
+        if (wordEnd == p) {
+            return null;
+        }
+        String value = this.decode(p, wordEnd);
+        // 词列中空格之后的部分被忽略
+        p = wordEnd;
+        while (p < end && _buffer.get(p) != '\t') {
+            p++;
+        }
+        int tagsStart = ++p;
+        while (p < end && _buffer.get(p) != '\t') {
+            p++;
+        }
+        int tagsEnd = Math.min(p, end);
+        long frequency = this.parseFrequency(p + 1, end);
+        FrequencyWord word = new FrequencyWord(value, frequency);
+        int tagStart = tagsStart;
+        for (int i = tagsStart; i <= tagsEnd; i++) {
+            if (i == tagsEnd || _buffer.get(i) == ',' || _buffer.get(i) == ' ') {
+                if (i > tagStart) {
+                    word.addSpeech(this.tagIdOf(tagStart, i));
+                }
+                tagStart = i + 1;
+            }
+        }
+        return word;
+    }
+
+    private long parseFrequency(int from, int to) {
+        long frequency = 0;
+        for (int i = from; i < to; i++) {
+            byte b = this.buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                frequency = frequency * 10 + (b - '0');
+            } else if (b == '\t') {
+                break; // 之后的列被忽略
+            } else if (b != ' ') {
+                throw new IllegalArgumentException("词频不是十进制非负整数，位置：" + i);
+            }
+        }
+        return frequency;
+    }
+
+    /**
+     * 按UTF-8解码，不合法的字节序列解码为 U+FFFD
+     */
+    private String decode(int from, int to) {
+        if (this.chars.length < to - from) {
+            this.chars = new char[Math.max(to - from, this.chars.length * 2)];
+        }
+        char[] _chars = this.chars;
+        ByteBuffer _buffer = this.buffer;
+        int n = 0;
+        int i = from;
+        while (i < to) {
+            int b = _buffer.get(i++);
+            if (b >= 0) {
+                _chars[n++] = (char) b;
+                continue;
+            }
+            int count;
+            int code;
+            if ((b & 0xE0) == 0xC0) {
+                count = 1;
+                code = b & 0x1F;
+            } else if ((b & 0xF0) == 0xE0) {
+                count = 2;
+                code = b & 0x0F;
+            } else if ((b & 0xF8) == 0xF0) {
+                count = 3;
+                code = b & 0x07;
+            } else {
+                _chars[n++] = '\uFFFD';
+                continue;
+            }
+            if (i + count > to) {
+                _chars[n++] = '\uFFFD';
+                break;
+            }
+            boolean valid = true;
+            for (int k = 0; k < count; k++) {
+                int c = _buffer.get(i + k);
+                if ((c & 0xC0) != 0x80) {
+                    valid = false;
+                    break;
+                }
+                code = code << 6 | (c & 0x3F);
+            }
+            if (!valid) {
+                _chars[n++] = '\uFFFD';
+                continue;
+            }
+            i += count;
+            if (code >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                _chars[n++] = Character.highSurrogate(code);
+                _chars[n++] = Character.lowSurrogate(code);
+            } else {
+                _chars[n++] = (char) code;
+            }
+        }
+        return new String(_chars, 0, n);
+    }
+
+    private int tagIdOf(int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + this.buffer.get(i);
+        }
+        int mask = this.tagKeys.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            byte[] key = this.tagKeys[slot];
+            if (key == null) {
+                byte[] bytes = new byte[to - from];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = this.buffer.get(from + i);
+                }
+                int id = TagRegistry.idOf(new String(bytes, StandardCharsets.UTF_8));
+                this.tagKeys[slot] = bytes;
+                this.tagIds[slot] = id;
+                if (++this.tagCount * 2 > this.tagKeys.length) {
+                    this.growTags();
+                }
+                return id;
+            }
+            if (this.keyEquals(key, from, to)) {
+                return this.tagIds[slot];
+            }
+        }
+    }
+
+    private boolean keyEquals(byte[] key, int from, int to) {
+        if (key.length != to - from) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != this.buffer.get(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void growTags() {
+        byte[][] keys = this.tagKeys;
+        int[] ids = this.tagIds;
+        this.tagKeys = new byte[keys.length * 2][];
+        this.tagIds = new int[keys.length * 2];
+        int mask = this.tagKeys.length - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                int slot = Arrays.hashCode(keys[i]) & mask;
+                while (this.tagKeys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.tagKeys[slot] = keys[i];
+                this.tagIds[slot] = ids[i];
+            }
+        }
+    }
+}
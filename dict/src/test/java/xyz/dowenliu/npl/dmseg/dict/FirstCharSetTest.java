@@ -0,0 +1,47 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class FirstCharSetTest {
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testAddRemove() {
+        FirstCharSet set = new FirstCharSet();
+        assertEquals(0, set.size());
+        for (char c : new char[]{'\0', 'a', '中', Character.MAX_VALUE}) {
+            assertFalse(set.contains(c));
+            set.add(c);
+            assertTrue(set.contains(c));
+        }
+        set.add('a');
+        assertEquals(4, set.size());
+        assertFalse(set.contains('b'));
+        set.remove('a');
+        assertFalse(set.contains('a'));
+        assertTrue(set.contains('\0'));
+        assertTrue(set.contains(Character.MAX_VALUE));
+        assertEquals(3, set.size());
+    }
+}
@@ -0,0 +1,106 @@
+package xyz.dowenliu.npl.dmseg.dict;
+
+import org.junit.*;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class TagMaskSetTest {
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testRegistry() {
+        int id = TagRegistry.idOf("TagMaskSetTest-n");
+        assertEquals(id, TagRegistry.idOf("TagMaskSetTest-n"));
+        assertEquals(id, TagRegistry.find("TagMaskSetTest-n"));
+        assertEquals("TagMaskSetTest-n", TagRegistry.nameOf(id));
+        assertEquals(-1, TagRegistry.find("TagMaskSetTest-unknown"));
+    }
+
+    @Test
+    public void testSpeeches() {
+        Word word = new Word("中国", "ns", "n");
+        Set<String> speeches = word.getSpeeches();
+        assertEquals(new HashSet<>(Arrays.asList("n", "ns")), speeches);
+        assertTrue(speeches.contains("n"));
+        assertFalse(speeches.contains("TagMaskSetTest-unknown"));
+        assertFalse(speeches.remove("TagMaskSetTest-unknown"));
+        assertEquals(-1, TagRegistry.find("TagMaskSetTest-unknown"));
+        assertTrue(speeches.remove("n"));
+        assertEquals(Collections.singleton("ns"), word.getSpeeches());
+        int ns = TagRegistry.find("ns");
+        assertEquals(ns < 64 ? 1L << ns : 0L, word.getSpeechMask()); // 编号与测试执行顺序有关
+        Iterator<String> iterator = word.getSpeeches().iterator();
+        iterator.next();
+        iterator.remove();
+        assertTrue(word.getSpeeches().isEmpty());
+    }
+
+    @Test
+    public void testBeyond64() {
+        String[] tags = new String[100];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = "TagMaskSetTest-" + i;
+        }
+        Word word = new Word("词", tags);
+        assertEquals(new HashSet<>(Arrays.asList(tags)), word.getSpeeches());
+        Word other = new Word("词", tags[99]);
+        assertTrue(word.getSpeeches().containsAll(other.getSpeeches()));
+        Word merged = new Word("词");
+        assertTrue(merged.getSpeeches().addAll(word.getSpeeches()));
+        assertFalse(merged.getSpeeches().addAll(other.getSpeeches()));
+        assertEquals(100, merged.getSpeeches().size());
+        merged.getSpeeches().clear();
+        assertEquals(0, merged.getSpeeches().size());
+    }
+
+    @Test
+    public void testSpeechMaskSet() {
+        Word word = new Word("词");
+        SpeechMaskSet speeches = new SpeechMaskSet(word);
+        int id = TagRegistry.idOf("TagMaskSetTest-holder");
+        assertTrue(speeches.add(id));
+        assertTrue(word.getSpeeches().contains("TagMaskSetTest-holder"));
+        word.setSpeechMask(0L);
+        word.setMoreSpeechMask(null);
+        assertTrue(speeches.isEmpty());
+        assertTrue(speeches.add(130));
+        assertEquals(2, word.getMoreSpeechMask().length);
+        assertEquals(1L << 2, word.getMoreSpeechMask()[1]);
+    }
+
+    @Test
+    public void testSerialize() throws IOException, ClassNotFoundException {
+        Word word = new Word("中国", "ns", "n");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(word);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Word copy = (Word) in.readObject();
+            assertEquals("中国", copy.getValue());
+            assertEquals(word.getSpeeches(), copy.getSpeeches());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package xyz.dowenliu.npl.dmseg.dict.loader;
+
+import org.junit.*;
+import xyz.dowenliu.npl.dmseg.dict.FrequencyWord;
+import xyz.dowenliu.npl.dmseg.dict.Word;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author liufl
+ * @since 1.0.0
+ */
+public class MappedWordRecordReaderTest {
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private static List<Word> readAll(WordRecordReader reader) {
+        List<Word> words = new ArrayList<>();
+        while (reader.hasNextWord()) {
+            words.add(reader.nextWord());
+        }
+        return words;
+    }
+
+    private static MappedWordRecordReader reader(String text) {
+        return new MappedWordRecordReader(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testColumns() {
+        List<Word> words = readAll(reader("中国\tns,n\t1024\n人民\t\t7\n小\ta\n大家\n"));
+        assertEquals(4, words.size());
+        assertEquals("中国", words.get(0).getValue());
+        assertEquals(new HashSet<>(Arrays.asList("ns", "n")), words.get(0).getSpeeches());
+        assertEquals(1024L, ((FrequencyWord) words.get(0)).getFrequency());
+        assertTrue(words.get(1).getSpeeches().isEmpty());
+        assertEquals(7L, ((FrequencyWord) words.get(1)).getFrequency());
+        assertEquals(Collections.singleton("a"), words.get(2).getSpeeches());
+        assertEquals(0L, ((FrequencyWord) words.get(2)).getFrequency());
+        assertEquals("大家", words.get(3).getValue());
+        assertTrue(words.get(3).getSpeeches().isEmpty());
+    }
+
+    @Test
+    public void testBomCrLfAndBlankLines() {
+        List<Word> words = readAll(reader("﻿中国\tns\t3\r\n\r\n  \n人民\r\n"));
+        assertEquals(2, words.size());
+        assertEquals("中国", words.get(0).getValue());
+        assertEquals(3L, ((FrequencyWord) words.get(0)).getFrequency());
+        assertEquals("人民", words.get(1).getValue());
+    }
+
+    @Test
+    public void testSameAsSimpleLine() {
+        String text = "中国 ns\n  人民  \nabc\n𠀀字\n";
+        List<Word> expected = readAll(new SimpleLineWordRecordReader(new StringReader(text)));
+        List<Word> actual = readAll(reader(text));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+        }
+        assertEquals("𠀀字", actual.get(3).getValue());
+    }
+
+    @Test
+    public void testMalformedUtf8() {
+        byte[] bytes = {(byte) 0xE4, (byte) 0xB8, '\n', 'a', (byte) 0xFF, 'b', '\n'};
+        List<Word> words = readAll(new MappedWordRecordReader(ByteBuffer.wrap(bytes)));
+        assertEquals("�", words.get(0).getValue());
+        assertEquals("a�b", words.get(1).getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadFrequency() {
+        readAll(reader("中国\tns\t12x\n"));
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        Path file = Files.createTempFile("dict", ".txt");
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                text.append("词").append(i).append('\t').append("t").append(i % 100).append('\t').append(i).append('\n');
+            }
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+            List<Word> words = readAll(new MappedWordRecordReader(file));
+            assertEquals(1000, words.size());
+            assertEquals("词999", words.get(999).getValue());
+            assertEquals(Collections.singleton("t99"), words.get(999).getSpeeches());
+            assertEquals(999L, ((FrequencyWord) words.get(999)).getFrequency());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testWindows() throws Exception {
+        Path file = Files.createTempFile("dict", ".txt");
+        try {
+            StringBuilder text = new StringBuilder("\uFEFF");
+            for (int i = 0; i < 500; i++) {
+                text.append("词语").append(i).append('\t').append("n,v").append('\t').append(i * 3).append('\n');
+            }
+            text.append("末尾"); // 最后一行没有换行符
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+            List<Word> expected = readAll(new MappedWordRecordReader(file));
+            List<Word> actual = readAll(new MappedWordRecordReader(file, 64));
+            assertEquals(501, expected.size());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+                assertEquals(expected.get(i).getSpeeches(), actual.get(i).getSpeeches());
+                assertEquals(((FrequencyWord) expected.get(i)).getFrequency(),
+                        ((FrequencyWord) actual.get(i)).getFrequency());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLineLongerThanWindow() throws Exception {
+        Path file = Files.createTempFile("dict", ".txt");
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                text.append("长");
+            }
+            text.append("\n短\n");
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+            readAll(new MappedWordRecordReader(file, 64));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
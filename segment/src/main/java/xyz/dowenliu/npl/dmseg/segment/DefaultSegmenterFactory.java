@@ -8,13 +8,19 @@ import xyz.dowenliu.npl.dmseg.core.Segmenter;
 import xyz.dowenliu.npl.dmseg.core.Token;
 import xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultIndexReaderTokenizer;
 import xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultQueryReaderTokenizer;
+import xyz.dowenliu.npl.dmseg.dict.CompositeDictionary;
 import xyz.dowenliu.npl.dmseg.dict.Dictionary;
+import xyz.dowenliu.npl.dmseg.dict.DoubleArrayDictionary;
+import xyz.dowenliu.npl.dmseg.dict.DoubleArraySnapshot;
 import xyz.dowenliu.npl.dmseg.dict.loader.AbstractDictionaryLoader;
+import xyz.dowenliu.npl.dmseg.dict.loader.ParallelRamHashedDictionaryLoader;
 import xyz.dowenliu.npl.dmseg.dict.loader.RamHashedDictionaryLoader;
 import xyz.dowenliu.npl.dmseg.util.ResourceReaderFactory;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  * 默认分词器工厂实现
@@ -27,9 +33,11 @@ public class DefaultSegmenterFactory implements SegmenterFactory {
     private List<String> dictSources = new ArrayList<>();
     private AbstractDictionaryLoader loader = new RamHashedDictionaryLoader();
     private ResourceReaderFactory resourceReaderFactory;
+    private boolean parallelLoading = false;
 
     /**
-     * @param dicts 字典文件。
+     * @param dicts 字典文件。以 {@value DoubleArraySnapshot#FILE_SUFFIX} 结尾的字典文件作为预编译的双数组字典快照载入，
+     *              此时需要 {@link ResourceReaderFactory#createInputStream(String)} 支持。
      */
     public DefaultSegmenterFactory(ResourceReaderFactory resourceReaderFactory, String... dicts) {
         this.resourceReaderFactory = Validate.notNull(resourceReaderFactory);
@@ -60,50 +68,156 @@ public class DefaultSegmenterFactory implements SegmenterFactory {
         this.dictSources = dictSources;
     }
 
+    public boolean isParallelLoading() {
+        return parallelLoading;
+    }
+
+    /**
+     * 是否并行加载字典文件，默认为 {@code false}。
+     * <p>并行加载时每次 {@link #create()} 建立一个专用的fork-join线程池，多个字典文件同时读入，
+     * 每个字典按首字分片建树，加载完成后关闭线程池，不占用公共线程池。
+     * 此时 {@link ResourceReaderFactory} 会被多个线程同时调用，必须是线程安全的。</p>
+     */
+    public void setParallelLoading(boolean parallelLoading) {
+        this.parallelLoading = parallelLoading;
+    }
+
     @Override
     public Segmenter create() {
         DefaultSegmenter segmenter = new DefaultSegmenter();
-        for (String dictSource : this.dictSources) {
-            Dictionary dictionary;
+        List<Dictionary> dictionaries;
+        if (this.parallelLoading) {
+            ForkJoinPool pool = new ForkJoinPool();
             try {
-                Reader resourceReader = this.resourceReaderFactory.createReader(dictSource);
-                dictionary = this.loader.readIn(resourceReader);
-            } catch (IOException e) {
-                logger.warn("加载字典资源失败：" + dictSource, e);
-                dictionary = null;
+                AbstractDictionaryLoader parallelLoader = new ParallelRamHashedDictionaryLoader(pool);
+                dictionaries = pool.submit(() -> this.dictSources.parallelStream()
+                        .map(dictSource -> this.load(dictSource, parallelLoader))
+                        .collect(Collectors.toList()))
+                        .join();
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            dictionaries = new ArrayList<>();
+            for (String dictSource : this.dictSources) {
+                dictionaries.add(this.load(dictSource, this.loader));
             }
-            if (dictionary != null) {
+        }
+        List<Dictionary<?>> snapshots = new ArrayList<>();
+        for (Dictionary dictionary : dictionaries) {
+            if (dictionary instanceof DoubleArrayDictionary) {
+                snapshots.add((Dictionary<?>) dictionary);
+            }
+        }
+        Dictionary merged = snapshots.size() > 1 ? new CompositeDictionary(snapshots) : null;
+        for (Dictionary dictionary : dictionaries) { // 保持字典文件的顺序
+            if (dictionary == null) {
+                continue;
+            }
+            if (merged == null || !(dictionary instanceof DoubleArrayDictionary)) {
                 segmenter.appendDictionary(dictionary);
+            } else if (dictionary == snapshots.get(0)) { // 合并字典放在第一本快照的位置
+                segmenter.appendDictionary(merged);
             }
         }
         return segmenter;
     }
 
+    private Dictionary load(String dictSource, AbstractDictionaryLoader loader) {
+        try {
+            if (dictSource.endsWith(DoubleArraySnapshot.FILE_SUFFIX)) {
+                try (InputStream in = this.resourceReaderFactory.createInputStream(dictSource)) {
+                    return DoubleArraySnapshot.read(in);
+                }
+            }
+            Reader resourceReader = this.resourceReaderFactory.createReader(dictSource);
+            return loader.readIn(resourceReader);
+        } catch (IOException e) {
+            logger.warn("加载字典资源失败：" + dictSource, e);
+            return null;
+        }
+    }
+
     /**
-     * 基于Hash 的默认实现
+     * 基于Hash 的默认实现。
+     * <p>{@link #create()} 载入的多本双数组字典快照内容不变，一次性合并为一本 {@link CompositeDictionary}，
+     * 每个字只匹配一次。其他字典各自匹配：可修改的字典运行时增删的词立即生效，
+     * 映射文件等不在堆中的字典也不会被合并复制到堆中。</p>
+     * <p>分词缓冲区默认为 {@value #BUFFER_SIZE} 个字符，字典中有更长的词时按字典的最大深度
+     * （{@link Dictionary#maxDepth()}）加长，避免长词被缓冲区截断。缓冲区长度在加入字典时确定，
+     * 之后加入字典的更长的词会被截断。</p>
      */
     public class DefaultSegmenter implements Segmenter {
+        /**
+         * 默认分词缓冲区长度
+         */
+        static final int BUFFER_SIZE = 128;
         List<Dictionary> dictionaries = new ArrayList<>();
+        /**
+         * 分词使用的字典与缓冲区长度，加入字典时整体替换
+         */
+        private volatile Matching matching = new Matching(Collections.emptyList(), BUFFER_SIZE);
 
         @Override
         public Iterator<Token> indexTokens(Reader reader) throws IOException {
-            DefaultIndexReaderTokenizer indexReaderTokenizer = new DefaultIndexReaderTokenizer(reader, 128);
-            this.dictionaries.forEach(indexReaderTokenizer::appendDictionary);
+            Matching _matching = this.matching;
+            DefaultIndexReaderTokenizer indexReaderTokenizer =
+                    new DefaultIndexReaderTokenizer(reader, _matching.bufferSize);
+            for (Dictionary dictionary : _matching.dictionaries) {
+                indexReaderTokenizer.appendDictionary(dictionary);
+            }
             indexReaderTokenizer.init();
             return new Itr(indexReaderTokenizer);
         }
 
         @Override
         public Iterator<Token> queryTokens(Reader reader) throws IOException {
-            DefaultQueryReaderTokenizer queryReaderTokenizer = new DefaultQueryReaderTokenizer(reader, 128);
-            this.dictionaries.forEach(queryReaderTokenizer::appendDictionary);
+            Matching _matching = this.matching;
+            DefaultQueryReaderTokenizer queryReaderTokenizer =
+                    new DefaultQueryReaderTokenizer(reader, _matching.bufferSize);
+            for (Dictionary dictionary : _matching.dictionaries) {
+                queryReaderTokenizer.appendDictionary(dictionary);
+            }
             queryReaderTokenizer.init();
             return new Itr(queryReaderTokenizer);
         }
 
         @Override
-        public void appendDictionary(Dictionary dictionary) {
+        public synchronized void appendDictionary(Dictionary dictionary) {
             this.dictionaries.add(dictionary);
+            int bufferSize = Math.max(this.matching.bufferSize, dictionary.maxDepth() + 1);
+            this.matching = new Matching(Collections.unmodifiableList(new ArrayList<>(this.dictionaries)), bufferSize);
+        }
+
+        /**
+         * 分词使用的字典
+         *
+         * @return 各本字典，{@link #create()} 载入的多本快照已合并为一本
+         */
+        List<Dictionary> matchDictionaries() {
+            return this.matching.dictionaries;
+        }
+
+        /**
+         * 分词缓冲区长度，在加入字典时确定
+         *
+         * @return 缓冲区长度
+         */
+        int bufferSize() {
+            return this.matching.bufferSize;
+        }
+
+        /**
+         * 分词使用的字典及按其最大深度确定的缓冲区长度
+         */
+        private final class Matching {
+            final List<Dictionary> dictionaries;
+            final int bufferSize;
+
+            Matching(List<Dictionary> dictionaries, int bufferSize) {
+                this.dictionaries = dictionaries;
+                this.bufferSize = bufferSize;
+            }
         }
 
         /**
@@ -1,6 +1,7 @@
 package xyz.dowenliu.npl.dmseg.util;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 
 /**
@@ -12,4 +13,16 @@ import java.io.Reader;
  */
 public interface ResourceReaderFactory {
     Reader createReader(String resource) throws IOException;
+
+    /**
+     * 以字节流打开资源，用于读取二进制字典快照等非字符资源。
+     *
+     * @param resource 资源
+     * @return 字节输入流
+     * @throws IOException                   发生了IO错误
+     * @throws UnsupportedOperationException 此工厂不支持字节流资源
+     */
+    default InputStream createInputStream(String resource) throws IOException {
+        throw new UnsupportedOperationException("不支持以字节流打开资源：" + resource);
+    }
 }
@@ -1,15 +1,26 @@
 package xyz.dowenliu.npl.dmseg.segment;
 
 import org.junit.*;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import xyz.dowenliu.npl.dmseg.core.Segmenter;
 import xyz.dowenliu.npl.dmseg.core.Token;
+import xyz.dowenliu.npl.dmseg.core.tokenizer.DefaultIndexReaderTokenizer;
+import xyz.dowenliu.npl.dmseg.dict.CompositeDictionary;
+import xyz.dowenliu.npl.dmseg.dict.DictionaryDelta;
+import xyz.dowenliu.npl.dmseg.dict.DoubleArrayDictionaryBuilder;
+import xyz.dowenliu.npl.dmseg.dict.DoubleArraySnapshot;
+import xyz.dowenliu.npl.dmseg.dict.RamHashedDictionary;
+import xyz.dowenliu.npl.dmseg.util.ResourceReaderFactory;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.StringReader;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
 
 import static org.junit.Assert.*;
 
@@ -21,6 +32,8 @@ import static org.junit.Assert.*;
  */
 public class DefaultSegmenterFactoryTest {
     Logger logger = LoggerFactory.getLogger(getClass());
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
     private SegmenterFactory segmenterFactory;
 
     @BeforeClass
@@ -69,4 +82,153 @@ public class DefaultSegmenterFactoryTest {
         }
         assertTrue(c > 0);
     }
+
+    @Test
+    public void testParallelLoading() throws IOException {
+        DefaultSegmenterFactory factory = new DefaultSegmenterFactory(
+                resource -> new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream(resource)),
+                "ik.txt", "ik.txt");
+        assertFalse(factory.isParallelLoading());
+        String text = "Dmseg是一个优秀的流式中文分词器。2015年于大北京";
+        List<String> sequential = new ArrayList<>();
+        factory.create().indexTokens(new StringReader(text))
+                .forEachRemaining(token -> sequential.add(this.describe(token)));
+        factory.setParallelLoading(true);
+        List<String> parallel = new ArrayList<>();
+        factory.create().indexTokens(new StringReader(text))
+                .forEachRemaining(token -> parallel.add(this.describe(token)));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testCreateFromSnapshot() throws IOException {
+        Path snapshot = folder.newFile("test" + DoubleArraySnapshot.FILE_SUFFIX).toPath();
+        DoubleArraySnapshot.write(new DoubleArrayDictionaryBuilder().add("分词器").build(), snapshot);
+        Segmenter segmenter = new DefaultSegmenterFactory(new ResourceReaderFactory() {
+            @Override
+            public Reader createReader(String resource) throws IOException {
+                throw new FileNotFoundException(resource);
+            }
+
+            @Override
+            public InputStream createInputStream(String resource) throws IOException {
+                return Files.newInputStream(folder.getRoot().toPath().resolve(resource));
+            }
+        }, snapshot.getFileName().toString()).create();
+        Iterator<Token> tokenIterator = segmenter.indexTokens(new StringReader("中文分词器"));
+        boolean found = false;
+        while (tokenIterator.hasNext()) {
+            Token token = tokenIterator.next();
+            if (token.getType() == Token.Type.WORD) {
+                assertEquals("分词器", token.getValue());
+                assertEquals(2, token.getOffset());
+                found = true;
+            }
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void testMergedDictionaries() throws IOException {
+        RamHashedDictionary first = new RamHashedDictionary();
+        first.setBookTag("FIRST");
+        first.add("中国", "ns");
+        first.add("中国人");
+        RamHashedDictionary second = new RamHashedDictionary();
+        second.setBookTag("SECOND");
+        second.add("中国", "n");
+        second.add("人民");
+        Segmenter segmenter = new DefaultSegmenterFactory(resource -> null).create();
+        segmenter.appendDictionary(first);
+        segmenter.appendDictionary(second);
+        String text = "我们中国人民";
+
+        List<String> merged = new ArrayList<>();
+        Iterator<Token> tokenIterator = segmenter.indexTokens(new StringReader(text));
+        while (tokenIterator.hasNext()) {
+            merged.add(this.describe(tokenIterator.next()));
+        }
+        DefaultIndexReaderTokenizer tokenizer = new DefaultIndexReaderTokenizer(new StringReader(text), 128);
+        tokenizer.appendDictionary(first);
+        tokenizer.appendDictionary(second);
+        tokenizer.init();
+        List<String> separate = new ArrayList<>();
+        while (tokenizer.hasNextToken()) {
+            separate.add(this.describe(tokenizer.nextToken()));
+        }
+        assertEquals(separate, merged);
+        assertTrue(merged.contains("中国[2,4)WORD[FIRST, SECOND, n, ns]"));
+
+        second.add("我们");
+        tokenIterator = segmenter.indexTokens(new StringReader(text));
+        List<String> values = new ArrayList<>();
+        tokenIterator.forEachRemaining(token -> values.add(token.getValue()));
+        assertTrue(values.contains("我们"));
+
+        first.applyDelta(DictionaryDelta.builder(0, 1).add("们中").build());
+        tokenIterator = segmenter.indexTokens(new StringReader(text));
+        values.clear();
+        tokenIterator.forEachRemaining(token -> values.add(token.getValue()));
+        assertTrue(values.contains("们中"));
+    }
+
+    @Test
+    public void testMergeSnapshots() throws IOException {
+        DoubleArraySnapshot.write(new DoubleArrayDictionaryBuilder().add("中国", "ns").bookTag("FIRST").build(),
+                folder.newFile("first" + DoubleArraySnapshot.FILE_SUFFIX).toPath());
+        DoubleArraySnapshot.write(new DoubleArrayDictionaryBuilder().add("中国", "n").add("人民").bookTag("SECOND")
+                .build(), folder.newFile("second" + DoubleArraySnapshot.FILE_SUFFIX).toPath());
+        DefaultSegmenterFactory.DefaultSegmenter segmenter =
+                (DefaultSegmenterFactory.DefaultSegmenter) new DefaultSegmenterFactory(new ResourceReaderFactory() {
+                    @Override
+                    public Reader createReader(String resource) throws IOException {
+                        return new StringReader("我们\n");
+                    }
+
+                    @Override
+                    public InputStream createInputStream(String resource) throws IOException {
+                        return Files.newInputStream(folder.getRoot().toPath().resolve(resource));
+                    }
+                }, "words.txt", "first" + DoubleArraySnapshot.FILE_SUFFIX,
+                        "second" + DoubleArraySnapshot.FILE_SUFFIX).create();
+        assertEquals(2, segmenter.matchDictionaries().size());
+        assertTrue(segmenter.matchDictionaries().get(0) instanceof RamHashedDictionary);
+        assertTrue(segmenter.matchDictionaries().get(1) instanceof CompositeDictionary);
+
+        RamHashedDictionary mutable = (RamHashedDictionary) segmenter.matchDictionaries().get(0);
+        mutable.setBookTag("MUTABLE");
+        mutable.add("国人");
+        List<String> tokens = new ArrayList<>();
+        Iterator<Token> tokenIterator = segmenter.indexTokens(new StringReader("中国人民"));
+        tokenIterator.forEachRemaining(token -> tokens.add(this.describe(token)));
+        assertTrue(tokens.contains("中国[0,2)WORD[FIRST, SECOND, n, ns]"));
+        assertTrue(tokens.contains("国人[1,3)WORD[MUTABLE]"));
+
+        // 后加入的只读字典单独匹配，不重新合并
+        segmenter.appendDictionary(new DoubleArrayDictionaryBuilder().add("国人").build());
+        assertEquals(3, segmenter.matchDictionaries().size());
+    }
+
+    @Test
+    public void testBufferSizeFromDictionary() throws IOException {
+        StringBuilder longWord = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longWord.append((char) ('一' + i));
+        }
+        RamHashedDictionary dictionary = new RamHashedDictionary();
+        dictionary.add(longWord.toString());
+        DefaultSegmenterFactory.DefaultSegmenter segmenter =
+                (DefaultSegmenterFactory.DefaultSegmenter) new DefaultSegmenterFactory(resource -> null).create();
+        segmenter.appendDictionary(dictionary);
+        Iterator<Token> tokenIterator = segmenter.indexTokens(new StringReader("开始" + longWord + "结束"));
+        List<String> values = new ArrayList<>();
+        tokenIterator.forEachRemaining(token -> values.add(token.getValue()));
+        assertEquals(201, segmenter.bufferSize());
+        assertTrue(values.contains(longWord.toString()));
+    }
+
+    private String describe(Token token) {
+        return token.getValue() + '[' + token.getOffset() + ',' + token.getEnd() + ')' + token.getType()
+                + new TreeSet<>(token.getSpeeches());
+    }
 }